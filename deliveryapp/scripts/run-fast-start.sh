@@ -0,0 +1,30 @@
+#!/usr/bin/env bash
+# Starts the build from `mvn -Pfast-start package` with its AOT-generated
+# bean definitions and class data sharing archive.
+#
+#   scripts/run-fast-start.sh [app args]             start normally
+#   scripts/run-fast-start.sh checkpoint [app args]  CRaC JDK only: refresh, checkpoint to target/fast-start/crac and exit
+#   scripts/run-fast-start.sh restore                CRaC JDK only: resume from that checkpoint
+set -euo pipefail
+
+DIR="$(cd "$(dirname "$0")/.." && pwd)/target/fast-start"
+JAR="$(ls "$DIR"/deliveryapp-*.jar 2>/dev/null | head -n 1)"
+if [ -z "$JAR" ]; then
+    echo "No fast-start build in $DIR; run: mvn -Pfast-start package" >&2
+    exit 1
+fi
+
+case "${1:-}" in
+    checkpoint)
+        shift
+        exec java -XX:CRaCCheckpointTo="$DIR/crac" -Dspring.aot.enabled=true \
+            -Dspring.context.checkpoint=onRefresh -jar "$JAR" "$@"
+        ;;
+    restore)
+        exec java -XX:CRaCRestoreFrom="$DIR/crac"
+        ;;
+    *)
+        exec java -XX:SharedArchiveFile="$DIR/application.jsa" -Xshare:auto -Dspring.aot.enabled=true \
+            -jar "$JAR" "$@"
+        ;;
+esac
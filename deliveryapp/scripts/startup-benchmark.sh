@@ -0,0 +1,58 @@
+#!/usr/bin/env bash
+# Time from JVM launch to the first answered HTTP request, for the plain jar
+# and for the fast-start build (AOT + CDS archive). Both come from the same
+# `mvn -Pfast-start package`, so the only difference is how they are started.
+#
+#   scripts/startup-benchmark.sh [runs]
+#
+# Needs the database from application.properties. Each run is stopped once
+# it answers; the fastest and median times of each mode are printed.
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+RUNS="${1:-5}"
+PORT="${BENCHMARK_PORT:-18080}"
+URL="http://localhost:$PORT/api/vehicle-types"
+PLAIN_JAR="$(ls "$ROOT"/target/deliveryapp-*.jar 2>/dev/null | head -n 1)"
+
+if [ -z "$PLAIN_JAR" ] || [ ! -f "$ROOT/target/fast-start/application.jsa" ]; then
+    echo "Build first: mvn -Pfast-start package" >&2
+    exit 1
+fi
+
+# Prints milliseconds until the app started by the given command answers
+time_to_first_request() {
+    local started pid code
+    started=$(date +%s%N)
+    "$@" --server.port="$PORT" --app.dispatch.journal.enabled=false > /dev/null 2>&1 &
+    pid=$!
+    while true; do
+        code=$(curl -s -o /dev/null -w '%{http_code}' "$URL" || true)
+        if [ "$code" != "000" ]; then
+            break
+        fi
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "Application exited before answering" >&2
+            exit 1
+        fi
+        sleep 0.02
+    done
+    echo $(( ($(date +%s%N) - started) / 1000000 ))
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+}
+
+report() {
+    local name="$1"
+    shift
+    local times=()
+    for _ in $(seq "$RUNS"); do
+        times+=("$(time_to_first_request "$@")")
+    done
+    local sorted
+    sorted=($(printf '%s\n' "${times[@]}" | sort -n))
+    printf '%-11s fastest %6d ms, median %6d ms (%s runs)\n' "$name" "${sorted[0]}" "${sorted[$(( RUNS / 2 ))]}" "$RUNS"
+}
+
+report "plain" java -jar "$PLAIN_JAR"
+report "fast-start" "$ROOT/scripts/run-fast-start.sh"
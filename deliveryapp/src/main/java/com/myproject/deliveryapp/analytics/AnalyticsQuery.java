@@ -0,0 +1,22 @@
+package com.myproject.deliveryapp.analytics;
+
+import java.time.LocalDate;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Completed trips between two days (both inclusive), optionally narrowed to
+ * one vehicle type, payment method or driver, grouped one way.
+ */
+@Getter
+@Builder
+public class AnalyticsQuery {
+    private final LocalDate from;
+    private final LocalDate to;
+    @Builder.Default
+    private final GroupBy groupBy = GroupBy.NONE;
+    private final String vehicleType;
+    private final String paymentMethod;
+    private final Long driverId;
+}
@@ -0,0 +1,16 @@
+package com.myproject.deliveryapp.analytics;
+
+/**
+ * What analytics rows are grouped by. Days and weeks are labelled with
+ * their first day (weeks start on Monday), months as yyyy-MM.
+ */
+public enum GroupBy {
+    NONE,
+    DAY,
+    WEEK,
+    MONTH,
+    HOUR_OF_DAY,
+    VEHICLE_TYPE,
+    PAYMENT_METHOD,
+    DRIVER
+}
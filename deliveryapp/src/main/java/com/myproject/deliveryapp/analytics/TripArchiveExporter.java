@@ -0,0 +1,104 @@
+package com.myproject.deliveryapp.analytics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Nightly export of completed trips into the columnar archive read by
+ * TripQueryEngine: one {@link TripSegment} file per day of completion. Days
+ * already on disk are left alone, so a missed night is caught up by the next
+ * run; on a fresh node the last backfill-days days are exported. Days with
+ * no trips still get an (empty) file, to mark them as done.
+ */
+@Service
+@Slf4j
+public class TripArchiveExporter {
+    
+    private static final String EXPORT_SQL = """
+            SELECT o.id, o.completed_at, o.customer_id, o.driver_id, vt.name AS vehicle_type, o.payment_method,
+                   COALESCE(o.final_price, o.price) AS fare, COALESCE(o.actual_distance, o.distance) AS distance_km,
+                   o.actual_duration_seconds, o.pickup_lat, o.pickup_lng
+            FROM orders o LEFT JOIN vehicle_types vt ON vt.id = o.vehicle_type_id
+            WHERE o.status = 'COMPLETED' AND o.completed_at >= ? AND o.completed_at < ?
+              AND o.created_at < ?
+            ORDER BY o.completed_at
+            """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final Path directory;
+    private final int backfillDays;
+    
+    public TripArchiveExporter(JdbcTemplate jdbcTemplate,
+                               @Value("${app.analytics.dir:data/analytics}") String directory,
+                               @Value("${app.analytics.backfill-days:90}") int backfillDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.directory = Paths.get(directory);
+        this.backfillDays = Math.max(1, backfillDays);
+    }
+    
+    /**
+     * Exports every day up to yesterday that has no file yet.
+     *
+     * @return the number of days written
+     */
+    @Scheduled(cron = "${app.analytics.export-cron:0 30 2 * * *}")
+    public synchronized int exportMissingDays() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        int exported = 0;
+        try {
+            Files.createDirectories(directory);
+            for (LocalDate day = yesterday.minusDays(backfillDays - 1); !day.isAfter(yesterday); day = day.plusDays(1)) {
+                if (!Files.exists(TripSegment.path(directory, day))) {
+                    export(day);
+                    exported++;
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        if (exported > 0) {
+            log.info("Exported {} day(s) of completed trips to {}", exported, directory);
+        }
+        return exported;
+    }
+    
+    private void export(LocalDate day) throws IOException {
+        TripSegmentWriter writer = new TripSegmentWriter(day);
+        jdbcTemplate.query(EXPORT_SQL, (RowCallbackHandler) rs -> {
+            long driverId = rs.getLong("driver_id");
+            Long driver = rs.wasNull() ? null : driverId;
+            BigDecimal fare = rs.getBigDecimal("fare");
+            double distanceKm = rs.getDouble("distance_km");
+            int distanceMeters = rs.wasNull() ? -1 : (int) Math.round(distanceKm * 1000);
+            long durationSeconds = rs.getLong("actual_duration_seconds");
+            int duration = rs.wasNull() ? -1 : (int) Math.min(durationSeconds, Integer.MAX_VALUE);
+            writer.add(rs.getLong("id"),
+                    rs.getTimestamp("completed_at").toLocalDateTime().toEpochSecond(ZoneOffset.UTC),
+                    rs.getLong("customer_id"), driver, rs.getString("vehicle_type"), rs.getString("payment_method"),
+                    fare.movePointRight(2).longValue(), distanceMeters, duration,
+                    (float) rs.getDouble("pickup_lat"), (float) rs.getDouble("pickup_lng"));
+        },
+                Timestamp.valueOf(day.atStartOfDay()),
+                Timestamp.valueOf(day.plusDays(1).atStartOfDay()),
+                // A trip is created before it completes: skips the order partitions after the day
+                Timestamp.valueOf(day.plusDays(1).atStartOfDay()));
+        Path target = TripSegment.path(directory, day);
+        writer.write(target);
+        log.debug("Wrote {} trips to {}", writer.rows(), target.getFileName());
+    }
+}
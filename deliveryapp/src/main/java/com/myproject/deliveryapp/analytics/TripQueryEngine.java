@@ -0,0 +1,388 @@
+package com.myproject.deliveryapp.analytics;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.myproject.deliveryapp.dto.AnalyticsResultDTO;
+import com.myproject.deliveryapp.dto.AnalyticsRowDTO;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Filter, group-by and aggregate over the columnar trip archive written by
+ * TripArchiveExporter. Every day file is scanned as its own task on a
+ * dedicated pool and the per-day groups are merged at the end. Within a
+ * day, filters are turned into dictionary codes once and applied in one
+ * pass that builds a selection vector; aggregation then runs over plain
+ * primitive arrays, indexed by a dense group number.
+ */
+@Service
+@Slf4j
+public class TripQueryEngine implements DisposableBean {
+    
+    // A filter value this day never saw: nothing in it can match
+    private static final int NO_MATCH = -2;
+    private static final int ANY = -3;
+    
+    private final Path directory;
+    private final ForkJoinPool pool;
+    
+    public TripQueryEngine(@Value("${app.analytics.dir:data/analytics}") String directory,
+                           @Value("${app.analytics.parallelism:0}") int parallelism) {
+        this.directory = Paths.get(directory);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+    
+    public AnalyticsResultDTO query(AnalyticsQuery query) {
+        long started = System.nanoTime();
+        List<Callable<Map<String, Group>>> scans = new ArrayList<>();
+        for (LocalDate day = query.getFrom(); !day.isAfter(query.getTo()); day = day.plusDays(1)) {
+            Path file = TripSegment.path(directory, day);
+            if (Files.exists(file)) {
+                scans.add(() -> scan(file, query));
+            }
+        }
+        
+        Map<String, Group> merged = new TreeMap<>();
+        long scanned = 0;
+        try {
+            for (Future<Map<String, Group>> scan : pool.invokeAll(scans)) {
+                for (Map.Entry<String, Group> entry : scan.get().entrySet()) {
+                    scanned += entry.getValue().scanned;
+                    merged.computeIfAbsent(entry.getKey(), key -> new Group()).merge(entry.getValue());
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Analytics query interrupted");
+        } catch (ExecutionException ex) {
+            throw new RuntimeException("Analytics query failed: " + ex.getCause().getMessage(), ex.getCause());
+        }
+        
+        List<AnalyticsRowDTO> rows = new ArrayList<>();
+        merged.forEach((key, group) -> {
+            if (group.trips > 0) {
+                rows.add(group.toDTO(key));
+            }
+        });
+        return AnalyticsResultDTO.builder()
+                .from(query.getFrom())
+                .to(query.getTo())
+                .groupBy(query.getGroupBy().name())
+                .days(scans.size())
+                .scannedTrips(scanned)
+                .elapsedMillis((System.nanoTime() - started) / 1_000_000)
+                .rows(rows)
+                .build();
+    }
+    
+    @Override
+    public void destroy() {
+        pool.shutdownNow();
+    }
+    
+    private Map<String, Group> scan(Path file, AnalyticsQuery query) {
+        TripSegment segment;
+        try {
+            segment = TripSegment.open(file);
+        } catch (IOException ex) {
+            log.warn("Skipping unreadable trip segment {}: {}", file.getFileName(), ex.getMessage());
+            return Map.of();
+        }
+        int rows = segment.rows();
+        if (rows == 0) {
+            return Map.of();
+        }
+        GroupBy groupBy = query.getGroupBy();
+        
+        String[] vehicleTypes = segment.strings(TripSegment.VEHICLE_TYPE_DICTIONARY);
+        String[] paymentMethods = segment.strings(TripSegment.PAYMENT_METHOD_DICTIONARY);
+        long[] driverIds = segment.drivers();
+        int vehicleTypeCode = code(vehicleTypes, query.getVehicleType());
+        int paymentMethodCode = code(paymentMethods, query.getPaymentMethod());
+        int driverCode = query.getDriverId() == null ? ANY : NO_MATCH;
+        for (int i = 0; i < driverIds.length && query.getDriverId() != null; i++) {
+            if (driverIds[i] == query.getDriverId()) {
+                driverCode = i;
+            }
+        }
+        if (vehicleTypeCode == NO_MATCH || paymentMethodCode == NO_MATCH || driverCode == NO_MATCH) {
+            Map<String, Group> none = new HashMap<>();
+            none.put(label(segment.day(), groupBy), Group.scannedOnly(rows));
+            return none;
+        }
+        
+        int[] drivers = segment.ints(TripSegment.DRIVER);
+        int[] vehicleTypeColumn = vehicleTypeCode != ANY || groupBy == GroupBy.VEHICLE_TYPE
+                ? segment.ints(TripSegment.VEHICLE_TYPE) : null;
+        int[] paymentMethodColumn = paymentMethodCode != ANY || groupBy == GroupBy.PAYMENT_METHOD
+                ? segment.ints(TripSegment.PAYMENT_METHOD) : null;
+        
+        int[] selection = null;
+        int selected = rows;
+        if (vehicleTypeCode != ANY || paymentMethodCode != ANY || driverCode != ANY) {
+            selection = new int[rows];
+            selected = 0;
+            for (int i = 0; i < rows; i++) {
+                // Non-short-circuit: one predictable pass, no branch per row
+                boolean keep = (vehicleTypeCode == ANY | (vehicleTypeColumn != null && vehicleTypeColumn[i] == vehicleTypeCode))
+                        & (paymentMethodCode == ANY | (paymentMethodColumn != null && paymentMethodColumn[i] == paymentMethodCode))
+                        & (driverCode == ANY | drivers[i] == driverCode);
+                selection[selected] = i;
+                selected += keep ? 1 : 0;
+            }
+        }
+        
+        // Dense group number per row (keys[i] + 1, so "none" (-1) is group 0), or one group for the whole day
+        int[] keys = null;
+        String[] labels;
+        switch (groupBy) {
+            case VEHICLE_TYPE -> {
+                keys = vehicleTypeColumn;
+                labels = withUnknown(vehicleTypes, "Unknown");
+            }
+            case PAYMENT_METHOD -> {
+                keys = paymentMethodColumn;
+                labels = withUnknown(paymentMethods, "Unknown");
+            }
+            case DRIVER -> {
+                keys = drivers;
+                String[] names = new String[driverIds.length];
+                for (int i = 0; i < names.length; i++) {
+                    names[i] = Long.toString(driverIds[i]);
+                }
+                labels = withUnknown(names, "None");
+            }
+            case HOUR_OF_DAY -> {
+                long[] completedAt = segment.longs(TripSegment.COMPLETED_AT);
+                keys = new int[rows];
+                for (int i = 0; i < rows; i++) {
+                    keys[i] = (int) (Math.floorMod(completedAt[i], 86_400L) / 3600) - 1;
+                }
+                labels = new String[24];
+                for (int hour = 0; hour < 24; hour++) {
+                    labels[hour] = String.format("%02d:00", hour);
+                }
+            }
+            default -> labels = new String[] {label(segment.day(), groupBy)};
+        }
+        
+        Aggregates aggregates = new Aggregates(labels.length, groupBy == GroupBy.DRIVER ? 0 : driverIds.length);
+        aggregates.add(selection, selected, keys, segment.longs(TripSegment.FARE_CENTS),
+                segment.ints(TripSegment.DISTANCE_METERS), segment.ints(TripSegment.DURATION_SECONDS), drivers);
+        
+        Map<String, Group> groups = new HashMap<>();
+        for (int g = 0; g < labels.length; g++) {
+            if (aggregates.trips[g] > 0) {
+                groups.put(labels[g], aggregates.toGroup(g, groupBy == GroupBy.DRIVER ? null : driverIds, g > 0));
+            }
+        }
+        // Count the day's trips once, against any one group
+        groups.computeIfAbsent(labels[0], key -> new Group()).scanned += rows;
+        return groups;
+    }
+    
+    private static int code(String[] dictionary, String value) {
+        if (value == null) {
+            return ANY;
+        }
+        for (int i = 0; i < dictionary.length; i++) {
+            if (dictionary[i].equalsIgnoreCase(value)) {
+                return i;
+            }
+        }
+        return NO_MATCH;
+    }
+    
+    private static String[] withUnknown(String[] dictionary, String unknown) {
+        String[] labels = new String[dictionary.length + 1];
+        labels[0] = unknown;
+        System.arraycopy(dictionary, 0, labels, 1, dictionary.length);
+        return labels;
+    }
+    
+    private static String label(LocalDate day, GroupBy groupBy) {
+        return switch (groupBy) {
+            case DAY -> day.toString();
+            case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).toString();
+            case MONTH -> YearMonth.from(day).toString();
+            default -> "All";
+        };
+    }
+    
+    /**
+     * Sums for one day, one slot per dense group.
+     */
+    private static final class Aggregates {
+        final long[] trips;
+        final long[] fareCents;
+        final long[] distanceMeters;
+        final long[] distanceTrips;
+        final long[] durationSeconds;
+        final long[] durationTrips;
+        // Distinct drivers per group, as bits over the day's driver codes; null when grouping by driver
+        final BitSet[] drivers;
+        
+        Aggregates(int groups, int driverCount) {
+            trips = new long[groups];
+            fareCents = new long[groups];
+            distanceMeters = new long[groups];
+            distanceTrips = new long[groups];
+            durationSeconds = new long[groups];
+            durationTrips = new long[groups];
+            drivers = driverCount > 0 ? new BitSet[groups] : null;
+            for (int g = 0; drivers != null && g < groups; g++) {
+                drivers[g] = new BitSet(driverCount);
+            }
+        }
+        
+        void add(int[] selection, int selected, int[] keys, long[] fares, int[] distances, int[] durations,
+                 int[] driverCodes) {
+            if (selection == null && keys == null) {
+                addAll(fares, distances, durations, driverCodes);
+                return;
+            }
+            for (int s = 0; s < selected; s++) {
+                int i = selection == null ? s : selection[s];
+                int g = keys == null ? 0 : keys[i] + 1;
+                trips[g]++;
+                fareCents[g] += fares[i];
+                // Unknown values are -1: counted in neither the sum nor the average's divisor
+                int distance = distances[i];
+                int distanceKnown = ~distance >>> 31;
+                distanceMeters[g] += distance * distanceKnown;
+                distanceTrips[g] += distanceKnown;
+                int duration = durations[i];
+                int durationKnown = ~duration >>> 31;
+                durationSeconds[g] += duration * durationKnown;
+                durationTrips[g] += durationKnown;
+                if (drivers != null && driverCodes[i] >= 0) {
+                    drivers[g].set(driverCodes[i]);
+                }
+            }
+        }
+        
+        // Whole day into one group: straight reductions the JIT can vectorise
+        private void addAll(long[] fares, int[] distances, int[] durations, int[] driverCodes) {
+            int rows = fares.length;
+            long fareSum = 0;
+            for (int i = 0; i < rows; i++) {
+                fareSum += fares[i];
+            }
+            long distanceSum = 0;
+            long distanceCount = 0;
+            for (int i = 0; i < rows; i++) {
+                int known = ~distances[i] >>> 31;
+                distanceSum += distances[i] * known;
+                distanceCount += known;
+            }
+            long durationSum = 0;
+            long durationCount = 0;
+            for (int i = 0; i < rows; i++) {
+                int known = ~durations[i] >>> 31;
+                durationSum += durations[i] * known;
+                durationCount += known;
+            }
+            trips[0] += rows;
+            fareCents[0] += fareSum;
+            distanceMeters[0] += distanceSum;
+            distanceTrips[0] += distanceCount;
+            durationSeconds[0] += durationSum;
+            durationTrips[0] += durationCount;
+            for (int i = 0; drivers != null && i < rows; i++) {
+                if (driverCodes[i] >= 0) {
+                    drivers[0].set(driverCodes[i]);
+                }
+            }
+        }
+        
+        Group toGroup(int g, long[] driverIds, boolean hasDriver) {
+            Group group = new Group();
+            group.trips = trips[g];
+            group.fareCents = fareCents[g];
+            group.distanceMeters = distanceMeters[g];
+            group.distanceTrips = distanceTrips[g];
+            group.durationSeconds = durationSeconds[g];
+            group.durationTrips = durationTrips[g];
+            if (driverIds == null) {
+                group.singleDriver = hasDriver;
+            } else {
+                for (int code = drivers[g].nextSetBit(0); code >= 0; code = drivers[g].nextSetBit(code + 1)) {
+                    group.drivers.add(driverIds[code]);
+                }
+            }
+            return group;
+        }
+    }
+    
+    /**
+     * One result row being merged across days.
+     */
+    private static final class Group {
+        long scanned;
+        long trips;
+        long fareCents;
+        long distanceMeters;
+        long distanceTrips;
+        long durationSeconds;
+        long durationTrips;
+        // Grouped by driver: the group is the driver
+        boolean singleDriver;
+        final Set<Long> drivers = new HashSet<>();
+        
+        static Group scannedOnly(long rows) {
+            Group group = new Group();
+            group.scanned = rows;
+            return group;
+        }
+        
+        void merge(Group other) {
+            scanned += other.scanned;
+            trips += other.trips;
+            fareCents += other.fareCents;
+            distanceMeters += other.distanceMeters;
+            distanceTrips += other.distanceTrips;
+            durationSeconds += other.durationSeconds;
+            durationTrips += other.durationTrips;
+            singleDriver |= other.singleDriver;
+            drivers.addAll(other.drivers);
+        }
+        
+        AnalyticsRowDTO toDTO(String key) {
+            int driverCount = singleDriver ? 1 : drivers.size();
+            return AnalyticsRowDTO.builder()
+                    .key(key)
+                    .trips(trips)
+                    .revenue(BigDecimal.valueOf(fareCents, 2))
+                    .averageDistanceKm(distanceTrips > 0 ? distanceMeters / 1000.0 / distanceTrips : null)
+                    .averageDurationMinutes(durationTrips > 0 ? durationSeconds / 60.0 / durationTrips : null)
+                    .drivers(driverCount)
+                    .tripsPerDriver(driverCount > 0 ? (double) trips / driverCount : 0)
+                    .tripHoursPerDriver(driverCount > 0 ? durationSeconds / 3600.0 / driverCount : 0)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.myproject.deliveryapp.analytics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+/**
+ * One day of completed trips, stored column by column in a memory-mapped
+ * file. Numeric columns are little-endian primitive arrays; the driver,
+ * vehicle type and payment method columns hold int codes into per-file
+ * dictionaries, with -1 for none. Columns are copied out on demand, so a
+ * query only reads the columns it uses.
+ *
+ * Layout: int magic, int version, int rows, int reserved, long epoch day,
+ * then the file offset of every column and dictionary (in the order of the
+ * constants below), then the data, each part aligned to 8 bytes.
+ */
+final class TripSegment {
+    
+    static final int MAGIC = 0x54524950; // "TRIP"
+    static final int VERSION = 1;
+    
+    static final int ORDER_ID = 0;          // long
+    static final int COMPLETED_AT = 1;      // long, local date-time as epoch seconds
+    static final int CUSTOMER_ID = 2;       // long
+    static final int DRIVER = 3;            // int code into the driver dictionary
+    static final int VEHICLE_TYPE = 4;      // int code into the vehicle type dictionary
+    static final int PAYMENT_METHOD = 5;    // int code into the payment method dictionary
+    static final int FARE_CENTS = 6;        // long
+    static final int DISTANCE_METERS = 7;   // int, -1 if unknown
+    static final int DURATION_SECONDS = 8;  // int, -1 if unknown
+    static final int PICKUP_LAT = 9;        // float
+    static final int PICKUP_LNG = 10;       // float
+    static final int COLUMNS = 11;
+    
+    static final int DRIVER_DICTIONARY = 11;        // int count, then longs
+    static final int VEHICLE_TYPE_DICTIONARY = 12;  // int count, then (int length, UTF-8 bytes) each
+    static final int PAYMENT_METHOD_DICTIONARY = 13;
+    static final int DIRECTORY_ENTRIES = 14;
+    
+    static final int HEADER_BYTES = 24 + DIRECTORY_ENTRIES * 8;
+    
+    static final int[] WIDTHS = {8, 8, 8, 4, 4, 4, 8, 4, 4, 4, 4};
+    
+    private final ByteBuffer buffer;
+    private final LocalDate day;
+    private final int rows;
+    private final long[] offsets = new long[DIRECTORY_ENTRIES];
+    
+    private TripSegment(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a trip segment");
+        }
+        this.rows = buffer.getInt(8);
+        this.day = LocalDate.ofEpochDay(buffer.getLong(16));
+        for (int i = 0; i < DIRECTORY_ENTRIES; i++) {
+            offsets[i] = buffer.getLong(24 + i * 8);
+            long length = i < COLUMNS ? (long) rows * WIDTHS[i] : 4;
+            if (rows < 0 || offsets[i] < HEADER_BYTES || offsets[i] + length > buffer.capacity()) {
+                throw new IOException("Truncated trip segment");
+            }
+        }
+    }
+    
+    static TripSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping outlives the channel
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new TripSegment(mapped);
+        }
+    }
+    
+    static Path path(Path directory, LocalDate day) {
+        return directory.resolve("trips-" + day + ".col");
+    }
+    
+    LocalDate day() {
+        return day;
+    }
+    
+    int rows() {
+        return rows;
+    }
+    
+    long[] longs(int column) {
+        long[] values = new long[rows];
+        column(column).asLongBuffer().get(values);
+        return values;
+    }
+    
+    int[] ints(int column) {
+        int[] values = new int[rows];
+        column(column).asIntBuffer().get(values);
+        return values;
+    }
+    
+    float[] floats(int column) {
+        float[] values = new float[rows];
+        column(column).asFloatBuffer().get(values);
+        return values;
+    }
+    
+    long[] drivers() {
+        int offset = (int) offsets[DRIVER_DICTIONARY];
+        long[] drivers = new long[buffer.getInt(offset)];
+        buffer.slice(offset + 8, drivers.length * 8).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(drivers);
+        return drivers;
+    }
+    
+    String[] strings(int dictionary) {
+        int position = (int) offsets[dictionary];
+        String[] values = new String[buffer.getInt(position)];
+        position += 4;
+        for (int i = 0; i < values.length; i++) {
+            int length = buffer.getInt(position);
+            byte[] bytes = new byte[length];
+            buffer.get(position + 4, bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+            position += 4 + length;
+        }
+        return values;
+    }
+    
+    private ByteBuffer column(int column) {
+        return buffer.slice((int) offsets[column], rows * WIDTHS[column]).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
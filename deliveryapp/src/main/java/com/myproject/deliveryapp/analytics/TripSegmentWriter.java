@@ -0,0 +1,200 @@
+package com.myproject.deliveryapp.analytics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects one day of trips row by row and writes them as a {@link TripSegment}.
+ */
+final class TripSegmentWriter {
+    
+    private final LocalDate day;
+    private int rows;
+    
+    private long[] orderIds = new long[1024];
+    private long[] completedAt = new long[1024];
+    private long[] customerIds = new long[1024];
+    private int[] drivers = new int[1024];
+    private int[] vehicleTypes = new int[1024];
+    private int[] paymentMethods = new int[1024];
+    private long[] fareCents = new long[1024];
+    private int[] distanceMeters = new int[1024];
+    private int[] durationSeconds = new int[1024];
+    private float[] pickupLats = new float[1024];
+    private float[] pickupLngs = new float[1024];
+    
+    private final Map<Long, Integer> driverCodes = new HashMap<>();
+    private final List<Long> driverDictionary = new ArrayList<>();
+    private final Map<String, Integer> vehicleTypeCodes = new HashMap<>();
+    private final List<String> vehicleTypeDictionary = new ArrayList<>();
+    private final Map<String, Integer> paymentMethodCodes = new HashMap<>();
+    private final List<String> paymentMethodDictionary = new ArrayList<>();
+    
+    TripSegmentWriter(LocalDate day) {
+        this.day = day;
+    }
+    
+    int rows() {
+        return rows;
+    }
+    
+    /**
+     * @param completedAt local completion time as epoch seconds
+     * @param distanceMeters -1 if unknown
+     * @param durationSeconds -1 if unknown
+     */
+    void add(long orderId, long completedAt, long customerId, Long driverId, String vehicleType,
+             String paymentMethod, long fareCents, int distanceMeters, int durationSeconds,
+             float pickupLat, float pickupLng) {
+        if (rows == orderIds.length) {
+            grow();
+        }
+        this.orderIds[rows] = orderId;
+        this.completedAt[rows] = completedAt;
+        this.customerIds[rows] = customerId;
+        this.drivers[rows] = driverId == null ? -1
+                : driverCodes.computeIfAbsent(driverId, id -> add(driverDictionary, id));
+        this.vehicleTypes[rows] = vehicleType == null ? -1
+                : vehicleTypeCodes.computeIfAbsent(vehicleType, name -> add(vehicleTypeDictionary, name));
+        this.paymentMethods[rows] = paymentMethod == null ? -1
+                : paymentMethodCodes.computeIfAbsent(paymentMethod, name -> add(paymentMethodDictionary, name));
+        this.fareCents[rows] = fareCents;
+        this.distanceMeters[rows] = distanceMeters;
+        this.durationSeconds[rows] = durationSeconds;
+        this.pickupLats[rows] = pickupLat;
+        this.pickupLngs[rows] = pickupLng;
+        rows++;
+    }
+    
+    /**
+     * Writes the segment next to the target and moves it into place, so
+     * readers only ever see complete files.
+     */
+    void write(Path target) throws IOException {
+        long[] offsets = new long[TripSegment.DIRECTORY_ENTRIES];
+        long size = TripSegment.HEADER_BYTES;
+        for (int column = 0; column < TripSegment.COLUMNS; column++) {
+            offsets[column] = size;
+            size = align(size + (long) rows * TripSegment.WIDTHS[column]);
+        }
+        offsets[TripSegment.DRIVER_DICTIONARY] = size;
+        size = align(size + 8 + driverDictionary.size() * 8L);
+        byte[][] vehicleTypeBytes = encode(vehicleTypeDictionary);
+        offsets[TripSegment.VEHICLE_TYPE_DICTIONARY] = size;
+        size = align(size + dictionaryBytes(vehicleTypeBytes));
+        byte[][] paymentMethodBytes = encode(paymentMethodDictionary);
+        offsets[TripSegment.PAYMENT_METHOD_DICTIONARY] = size;
+        size = align(size + dictionaryBytes(paymentMethodBytes));
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Too many trips for one segment: " + rows);
+        }
+        
+        ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(TripSegment.MAGIC).putInt(TripSegment.VERSION).putInt(rows).putInt(0).putLong(day.toEpochDay());
+        for (long offset : offsets) {
+            buffer.putLong(offset);
+        }
+        buffer.position((int) offsets[TripSegment.ORDER_ID]);
+        buffer.asLongBuffer().put(orderIds, 0, rows);
+        buffer.position((int) offsets[TripSegment.COMPLETED_AT]);
+        buffer.asLongBuffer().put(completedAt, 0, rows);
+        buffer.position((int) offsets[TripSegment.CUSTOMER_ID]);
+        buffer.asLongBuffer().put(customerIds, 0, rows);
+        buffer.position((int) offsets[TripSegment.DRIVER]);
+        buffer.asIntBuffer().put(drivers, 0, rows);
+        buffer.position((int) offsets[TripSegment.VEHICLE_TYPE]);
+        buffer.asIntBuffer().put(vehicleTypes, 0, rows);
+        buffer.position((int) offsets[TripSegment.PAYMENT_METHOD]);
+        buffer.asIntBuffer().put(paymentMethods, 0, rows);
+        buffer.position((int) offsets[TripSegment.FARE_CENTS]);
+        buffer.asLongBuffer().put(fareCents, 0, rows);
+        buffer.position((int) offsets[TripSegment.DISTANCE_METERS]);
+        buffer.asIntBuffer().put(distanceMeters, 0, rows);
+        buffer.position((int) offsets[TripSegment.DURATION_SECONDS]);
+        buffer.asIntBuffer().put(durationSeconds, 0, rows);
+        buffer.position((int) offsets[TripSegment.PICKUP_LAT]);
+        buffer.asFloatBuffer().put(pickupLats, 0, rows);
+        buffer.position((int) offsets[TripSegment.PICKUP_LNG]);
+        buffer.asFloatBuffer().put(pickupLngs, 0, rows);
+        
+        buffer.position((int) offsets[TripSegment.DRIVER_DICTIONARY]);
+        buffer.putInt(driverDictionary.size()).putInt(0);
+        for (long driverId : driverDictionary) {
+            buffer.putLong(driverId);
+        }
+        putDictionary(buffer, (int) offsets[TripSegment.VEHICLE_TYPE_DICTIONARY], vehicleTypeBytes);
+        putDictionary(buffer, (int) offsets[TripSegment.PAYMENT_METHOD_DICTIONARY], paymentMethodBytes);
+        buffer.clear();
+        
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    private void grow() {
+        int capacity = orderIds.length * 2;
+        orderIds = Arrays.copyOf(orderIds, capacity);
+        completedAt = Arrays.copyOf(completedAt, capacity);
+        customerIds = Arrays.copyOf(customerIds, capacity);
+        drivers = Arrays.copyOf(drivers, capacity);
+        vehicleTypes = Arrays.copyOf(vehicleTypes, capacity);
+        paymentMethods = Arrays.copyOf(paymentMethods, capacity);
+        fareCents = Arrays.copyOf(fareCents, capacity);
+        distanceMeters = Arrays.copyOf(distanceMeters, capacity);
+        durationSeconds = Arrays.copyOf(durationSeconds, capacity);
+        pickupLats = Arrays.copyOf(pickupLats, capacity);
+        pickupLngs = Arrays.copyOf(pickupLngs, capacity);
+    }
+    
+    private static <T> int add(List<T> dictionary, T value) {
+        dictionary.add(value);
+        return dictionary.size() - 1;
+    }
+    
+    private static byte[][] encode(List<String> dictionary) {
+        byte[][] encoded = new byte[dictionary.size()][];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = dictionary.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+        return encoded;
+    }
+    
+    private static long dictionaryBytes(byte[][] encoded) {
+        long bytes = 4;
+        for (byte[] value : encoded) {
+            bytes += 4 + value.length;
+        }
+        return bytes;
+    }
+    
+    private static void putDictionary(ByteBuffer buffer, int offset, byte[][] encoded) {
+        buffer.position(offset);
+        buffer.putInt(encoded.length);
+        for (byte[] value : encoded) {
+            buffer.putInt(value.length).put(value);
+        }
+    }
+    
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+}
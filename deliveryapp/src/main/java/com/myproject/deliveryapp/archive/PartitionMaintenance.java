@@ -0,0 +1,194 @@
+package com.myproject.deliveryapp.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Looks after the monthly partitions of orders and wallet_transactions (see
+ * the V3 migration). The coming months are created ahead of time, since a row
+ * for a month without a partition cannot be inserted. With archiving on,
+ * months past the retention are detached, exported as gzip-compressed CSV to
+ * {archive dir}/{table}/{partition}.csv.gz and dropped. A month left detached
+ * by a run that died before its export finished is archived by the next run.
+ * Runs on startup and nightly, on one node at a time (advisory lock).
+ */
+@Service
+@Slf4j
+public class PartitionMaintenance {
+    
+    private static final List<String> PARTITIONED_TABLES = List.of("orders", "wallet_transactions");
+    
+    // parent_pYYYYMM, as named by create_monthly_partition()
+    private static final Pattern PARTITION_NAME = Pattern.compile("[a-z_]+_p(\\d{4})(\\d{2})");
+    
+    // Arbitrary key shared by all nodes
+    private static final long LOCK_KEY = 7_305_114_220_845_120_001L;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    private final boolean archiveEnabled;
+    private final int retentionMonths;
+    private final Path archiveDir;
+    
+    public PartitionMaintenance(JdbcTemplate jdbcTemplate,
+                                @Value("${app.partitions.months-ahead:3}") int monthsAhead,
+                                @Value("${app.archive.enabled:false}") boolean archiveEnabled,
+                                @Value("${app.archive.retention-months:12}") int retentionMonths,
+                                @Value("${app.archive.dir:data/archive}") String archiveDir) {
+        // Today's earnings and the open-order window reach back into the previous month
+        if (retentionMonths < 2) {
+            throw new IllegalArgumentException("app.archive.retention-months must be at least 2");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = Math.max(1, monthsAhead);
+        this.archiveEnabled = archiveEnabled;
+        this.retentionMonths = retentionMonths;
+        this.archiveDir = Paths.get(archiveDir);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.partitions.maintenance-cron:0 15 3 * * *}")
+    public void maintain() {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            if (!advisoryLock(connection, "pg_try_advisory_lock")) {
+                log.debug("Partition maintenance is running on another node");
+                return null;
+            }
+            try {
+                YearMonth current = YearMonth.now();
+                for (String table : PARTITIONED_TABLES) {
+                    createAhead(connection, table, current);
+                    if (archiveEnabled) {
+                        detachBefore(connection, table, current.minusMonths(retentionMonths - 1));
+                        for (String partition : detachedPartitions(connection, table)) {
+                            archive(connection, table, partition);
+                        }
+                    }
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            } finally {
+                advisoryLock(connection, "pg_advisory_unlock");
+            }
+            return null;
+        });
+    }
+    
+    private void createAhead(Connection connection, String table, YearMonth current) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT create_monthly_partition(?, ?)")) {
+            for (int i = 0; i <= monthsAhead; i++) {
+                statement.setString(1, table);
+                statement.setObject(2, current.plusMonths(i).atDay(1));
+                statement.execute();
+            }
+        }
+    }
+    
+    private void detachBefore(Connection connection, String table, YearMonth oldestKept) throws SQLException {
+        List<String> attached = names(connection,
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "WHERE i.inhparent = to_regclass(?)", table);
+        for (String partition : attached) {
+            YearMonth month = monthOf(partition);
+            if (month != null && month.isBefore(oldestKept)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition);
+                }
+                log.info("Detached {} for archiving", partition);
+            }
+        }
+    }
+    
+    // Month tables of the parent that are no longer attached to it
+    private List<String> detachedPartitions(Connection connection, String table) throws SQLException {
+        return names(connection,
+                "SELECT c.relname FROM pg_class c "
+                        + "WHERE c.relkind = 'r' AND NOT c.relispartition "
+                        + "AND c.relnamespace = current_schema()::regnamespace "
+                        + "AND c.relname ~ ('^' || ? || '_p[0-9]{6}$') "
+                        + "ORDER BY c.relname", table);
+    }
+    
+    private void archive(Connection connection, String table, String partition) throws SQLException, IOException {
+        Path directory = archiveDir.resolve(table);
+        Files.createDirectories(directory);
+        Path target = directory.resolve(partition + ".csv.gz");
+        Path temporary = directory.resolve(partition + ".csv.gz.tmp");
+        
+        long rows;
+        try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)), 1 << 16)) {
+            rows = connection.unwrap(PGConnection.class).getCopyAPI()
+                    .copyOut("COPY " + partition + " TO STDOUT WITH (FORMAT csv, HEADER)", out);
+        }
+        // On disk before the rows leave the database
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE " + partition);
+        }
+        log.info("Archived {} rows of {} to {}", rows, partition, target);
+    }
+    
+    private static boolean advisoryLock(Connection connection, String function) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT " + function + "(?)")) {
+            statement.setLong(1, LOCK_KEY);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+    
+    private static List<String> names(Connection connection, String sql, String table) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, table);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    names.add(rs.getString(1));
+                }
+            }
+        }
+        return names;
+    }
+    
+    private static YearMonth monthOf(String partition) {
+        Matcher matcher = PARTITION_NAME.matcher(partition);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+    }
+}
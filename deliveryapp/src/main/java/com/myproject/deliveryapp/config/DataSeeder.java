@@ -1,93 +1,80 @@
 package com.myproject.deliveryapp.config;
 
-import java.math.BigDecimal;
+import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
-import com.myproject.deliveryapp.entity.User;
-import com.myproject.deliveryapp.entity.VehicleType;
-import com.myproject.deliveryapp.enums.UserRole;
-import com.myproject.deliveryapp.repository.UserRepository;
-import com.myproject.deliveryapp.repository.VehicleTypeRepository;
-
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Seeds the default vehicle types and the admin user. A start against an
+ * already seeded database costs a single round trip, which also finds the
+ * admin present, so the admin password is only hashed (BCrypt, tens of
+ * milliseconds) when the admin is actually created. Vehicle types are only
+ * seeded into an empty table (admins may have changed them since); ON
+ * CONFLICT keeps nodes starting together from tripping over each other.
+ * Turn off with app.seed.enabled=false.
+ */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class DataSeeder implements CommandLineRunner {
     
-    private final VehicleTypeRepository vehicleTypeRepository;
-    private final UserRepository userRepository;
+    private static final String ADMIN_EMAIL = "admin@delivery.com";
+    
+    private static final String SEED_SQL = """
+            WITH seeded_vehicle_types AS (
+                INSERT INTO vehicle_types (name, base_fare, price_per_km)
+                SELECT name, base_fare, price_per_km
+                FROM (VALUES ('Tuk', 50, 80), ('Car', 100, 150), ('Van', 150, 200))
+                    AS seed (name, base_fare, price_per_km)
+                WHERE NOT EXISTS (SELECT 1 FROM vehicle_types)
+                ON CONFLICT (name) DO NOTHING
+                RETURNING id
+            )
+            SELECT (SELECT count(*) FROM seeded_vehicle_types) AS vehicle_types,
+                   EXISTS (SELECT 1 FROM users WHERE email = ?) AS admin_exists
+            """;
+    
+    private static final String ADMIN_SQL = """
+            INSERT INTO users (email, password, phone, role, is_email_verified, is_phone_verified)
+            VALUES (?, ?, '0000000000', 'ADMIN', false, false)
+            ON CONFLICT (email) DO NOTHING
+            """;
+    
+    private final JdbcTemplate jdbcTemplate;
     private final PasswordEncoder passwordEncoder;
+    private final boolean enabled;
     
-    @Override
-    public void run(String... args) throws Exception {
-        seedVehicleTypes();
-        seedAdminUser();
+    public DataSeeder(JdbcTemplate jdbcTemplate,
+                      PasswordEncoder passwordEncoder,
+                      @Value("${app.seed.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.enabled = enabled;
     }
     
-    private void seedVehicleTypes() {
-        // Check if vehicle types already exist
-        if (vehicleTypeRepository.count() > 0) {
-            log.info("Vehicle types already seeded. Skipping.");
+    @Override
+    public void run(String... args) throws Exception {
+        if (!enabled) {
             return;
         }
         
-        log.info("Seeding vehicle types...");
-        
-        // Create Tuk
-        VehicleType tuk = VehicleType.builder()
-                .name("Tuk")
-                .baseFare(new BigDecimal("50"))
-                .pricePerKm(new BigDecimal("80"))
-                .build();
-        vehicleTypeRepository.save(tuk);
-        log.info("Created vehicle type: Tuk (Base: 50, Rate: 80/km)");
+        Map<String, Object> seeded = jdbcTemplate.queryForMap(SEED_SQL, ADMIN_EMAIL);
+        long vehicleTypes = ((Number) seeded.get("vehicle_types")).longValue();
+        boolean adminExists = (Boolean) seeded.get("admin_exists");
         
-        // Create Car
-        VehicleType car = VehicleType.builder()
-                .name("Car")
-                .baseFare(new BigDecimal("100"))
-                .pricePerKm(new BigDecimal("150"))
-                .build();
-        vehicleTypeRepository.save(car);
-        log.info("Created vehicle type: Car (Base: 100, Rate: 150/km)");
-        
-        // Create Van
-        VehicleType van = VehicleType.builder()
-                .name("Van")
-                .baseFare(new BigDecimal("150"))
-                .pricePerKm(new BigDecimal("200"))
-                .build();
-        vehicleTypeRepository.save(van);
-        log.info("Created vehicle type: Van (Base: 150, Rate: 200/km)");
-        
-        log.info("Vehicle types seeding completed successfully!");
-    }
-    
-    private void seedAdminUser() {
-        // Check if admin user already exists
-        if (userRepository.findByEmail("admin@delivery.com").isPresent()) {
-            log.info("Admin user already exists. Skipping.");
-            return;
+        if (vehicleTypes > 0) {
+            log.info("Seeded {} vehicle types (Tuk, Car, Van)", vehicleTypes);
+        }
+        // Hashed only now: most starts find the admin there already
+        if (!adminExists && jdbcTemplate.update(ADMIN_SQL, ADMIN_EMAIL, passwordEncoder.encode("admin123")) > 0) {
+            log.info("Admin user created successfully!");
+            log.info("Email: {}", ADMIN_EMAIL);
+            log.info("Password: admin123");
         }
-        
-        log.info("Creating admin user...");
-        
-        User admin = User.builder()
-                .email("admin@delivery.com")
-                .password(passwordEncoder.encode("admin123"))
-                .phone("0000000000")
-                .role(UserRole.ADMIN)
-                .build();
-        
-        userRepository.save(admin);
-        log.info("Admin user created successfully!");
-        log.info("Email: admin@delivery.com");
-        log.info("Password: admin123");
     }
 }
@@ -21,6 +21,7 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import com.myproject.deliveryapp.filter.JwtAuthenticationFilter;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 
 @Configuration
@@ -37,11 +38,15 @@ public class SecurityConfig {
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
+                // The request was authorized when it started; CompletableFuture and SseEmitter
+                // results are written in an ASYNC dispatch that has no JWT to check again
+                .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/api/drivers/nearby").permitAll()
                 .requestMatchers("/api/vehicle-types/**").permitAll()
                 .requestMatchers("/ws/**").permitAll()
                 .requestMatchers("/ws").permitAll()
+                .requestMatchers("/ws-native").permitAll()
                 .requestMatchers("/uploads/**").permitAll()
                 .anyRequest().authenticated()
             )
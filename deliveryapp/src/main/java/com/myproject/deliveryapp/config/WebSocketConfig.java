@@ -1,19 +1,115 @@
 package com.myproject.deliveryapp.config;
 
+import java.util.concurrent.ThreadFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import com.myproject.deliveryapp.querystats.QueryStatsRecorder;
+import com.myproject.deliveryapp.websocket.ChannelMetricsInterceptor;
+import com.myproject.deliveryapp.websocket.QueryStatsChannelInterceptor;
+import com.myproject.deliveryapp.websocket.ShardedChannelExecutor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
+@Slf4j
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+    
+    private final MeterRegistry meterRegistry;
+    private final QueryStatsRecorder queryStatsRecorder;
+    
+    // Lane counts of 0 mean "derive from the number of cores"
+    @Value("${app.websocket.inbound.lanes:0}")
+    private int inboundLanes;
+    
+    @Value("${app.websocket.outbound.lanes:0}")
+    private int outboundLanes;
+    
+    @Value("${app.websocket.broker.lanes:0}")
+    private int brokerLanes;
+    
+    @Value("${app.websocket.lane-queue-capacity:10000}")
+    private int laneQueueCapacity;
+    
+    @Value("${app.websocket.virtual-threads:false}")
+    private boolean virtualThreads;
+    
+    @Value("${app.websocket.send-time-limit-ms:5000}")
+    private int sendTimeLimitMs;
+    
+    @Value("${app.websocket.send-buffer-size-limit:131072}")
+    private int sendBufferSizeLimit;
+    
+    @Value("${app.websocket.message-size-limit:65536}")
+    private int messageSizeLimit;
+    
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         registry.enableSimpleBroker("/topic");
         registry.setApplicationDestinationPrefixes("/app");
+        
+        // Fan-out from the simple broker is sharded by destination so one busy
+        // topic keeps its order without holding up every other topic
+        registry.configureBrokerChannel()
+                .executor(brokerLaneExecutor())
+                .interceptors(new ChannelMetricsInterceptor("broker", meterRegistry));
+    }
+    
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.executor(inboundLaneExecutor())
+                .interceptors(new ChannelMetricsInterceptor("inbound", meterRegistry),
+                        new QueryStatsChannelInterceptor(queryStatsRecorder));
+    }
+    
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.executor(outboundLaneExecutor())
+                .interceptors(new ChannelMetricsInterceptor("outbound", meterRegistry));
+    }
+    
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        Counter droppedSessions = Counter.builder("websocket.sessions.dropped")
+                .description("Sessions closed because the client could not keep up with outbound messages")
+                .register(meterRegistry);
+        
+        // A client that cannot drain its buffer within the limits is closed with
+        // SESSION_NOT_RELIABLE instead of backing up delivery to everyone else
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(handler -> new WebSocketHandlerDecorator(handler) {
+                    @Override
+                    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                        if (CloseStatus.SESSION_NOT_RELIABLE.equals(closeStatus)) {
+                            droppedSessions.increment();
+                            log.warn("Dropped slow WebSocket session {}", session.getId());
+                        }
+                        super.afterConnectionClosed(session, closeStatus);
+                    }
+                });
     }
     
     @Override
@@ -21,5 +117,47 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
                 .withSockJS(); // Enable SockJS for mobile app compatibility
+        
+        // Plain WebSocket endpoint for clients sending binary location frames,
+        // which SockJS's text-only transports cannot carry
+        registry.addEndpoint("/ws-native")
+                .setAllowedOriginPatterns("*");
+    }
+    
+    // Client channels are sharded by session so each session's frames stay in order
+    @Bean
+    public ShardedChannelExecutor inboundLaneExecutor() {
+        return new ShardedChannelExecutor("inbound", lanes(inboundLanes, CORES * 2), laneQueueCapacity,
+                threadFactory("ws-inbound-"), message -> SimpMessageHeaderAccessor.getSessionId(message.getHeaders()),
+                meterRegistry);
+    }
+    
+    @Bean
+    public ShardedChannelExecutor outboundLaneExecutor() {
+        return new ShardedChannelExecutor("outbound", lanes(outboundLanes, CORES), laneQueueCapacity,
+                threadFactory("ws-outbound-"), message -> SimpMessageHeaderAccessor.getSessionId(message.getHeaders()),
+                meterRegistry);
+    }
+    
+    @Bean
+    public ShardedChannelExecutor brokerLaneExecutor() {
+        return new ShardedChannelExecutor("broker", lanes(brokerLanes, CORES), laneQueueCapacity,
+                threadFactory("ws-broker-"), message -> SimpMessageHeaderAccessor.getDestination(message.getHeaders()),
+                meterRegistry);
+    }
+    
+    private static int lanes(int configured, int fallback) {
+        return configured > 0 ? configured : Math.max(1, fallback);
+    }
+    
+    private ThreadFactory threadFactory(String prefix) {
+        if (virtualThreads) {
+            // Each lane is still a single thread; virtual threads just make the
+            // blocking DB work on inbound lanes cheap to park
+            return new VirtualThreadTaskExecutor(prefix).getVirtualThreadFactory();
+        }
+        CustomizableThreadFactory factory = new CustomizableThreadFactory(prefix);
+        factory.setDaemon(true);
+        return factory;
     }
 }
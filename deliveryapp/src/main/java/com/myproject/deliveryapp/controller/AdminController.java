@@ -1,18 +1,25 @@
 package com.myproject.deliveryapp.controller;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.myproject.deliveryapp.dto.DashboardStatsResponse;
+import com.myproject.deliveryapp.dto.DriverDTO;
+import com.myproject.deliveryapp.dto.OrderDTO;
 import com.myproject.deliveryapp.dto.PendingDriverDTO;
 import com.myproject.deliveryapp.entity.Driver;
 import com.myproject.deliveryapp.entity.Order;
@@ -25,6 +32,9 @@ import com.myproject.deliveryapp.repository.OrderRepository;
 import com.myproject.deliveryapp.repository.ReviewRepository;
 import com.myproject.deliveryapp.repository.UserRepository;
 import com.myproject.deliveryapp.repository.WalletRepository;
+import com.myproject.deliveryapp.service.AvailableDriverMap;
+import com.myproject.deliveryapp.service.DriverEarningsService;
+import com.myproject.deliveryapp.tracking.LocationFilter;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -43,6 +53,9 @@ public class AdminController {
     private final OrderRepository orderRepository;
     private final WalletRepository walletRepository;
     private final ReviewRepository reviewRepository;
+    private final AvailableDriverMap availableDriverMap;
+    private final DriverEarningsService driverEarningsService;
+    private final LocationFilter locationFilter;
     
     @GetMapping("/drivers/pending")
     public ResponseEntity<List<PendingDriverDTO>> getPendingDrivers() {
@@ -70,15 +83,15 @@ public class AdminController {
     }
     
     @GetMapping("/drivers/online")
-    public ResponseEntity<List<Driver>> getOnlineDrivers() {
+    public ResponseEntity<List<DriverDTO>> getOnlineDrivers() {
         List<Driver> onlineDrivers = driverRepository.findByIsAvailableAndIsApproved(true, true);
-        return ResponseEntity.ok(onlineDrivers);
+        return ResponseEntity.ok(onlineDrivers.stream().map(DriverDTO::from).toList());
     }
     
     @GetMapping("/drivers/all")
-    public ResponseEntity<List<Driver>> getAllDrivers() {
-        List<Driver> allDrivers = driverRepository.findAll();
-        return ResponseEntity.ok(allDrivers);
+    public ResponseEntity<List<DriverDTO>> getAllDrivers() {
+        List<Driver> allDrivers = driverRepository.findAllByOrderByIdAsc();
+        return ResponseEntity.ok(allDrivers.stream().map(DriverDTO::from).toList());
     }
     
     @PatchMapping("/drivers/{driverId}/approve")
@@ -87,7 +100,7 @@ public class AdminController {
                 .orElseThrow(() -> new RuntimeException("Driver not found"));
         
         driver.setIsApproved(true);
-        driverRepository.save(driver);
+        availableDriverMap.onDriverChanged(driverRepository.save(driver));
         
         return ResponseEntity.ok("Driver approved successfully");
     }
@@ -99,13 +112,14 @@ public class AdminController {
         
         // Delete the driver and associated user account
         driverRepository.delete(driver);
+        availableDriverMap.onDriverRemoved(driverId);
         
         return ResponseEntity.ok("Driver rejected and removed successfully");
     }
     
     @PatchMapping("/drivers/{driverId}/toggle-block")
-    public ResponseEntity<Driver> toggleDriverBlock(@PathVariable Long driverId) {
-        Driver driver = driverRepository.findById(driverId)
+    public ResponseEntity<DriverDTO> toggleDriverBlock(@PathVariable Long driverId) {
+        Driver driver = driverRepository.findWithDetailsById(driverId)
                 .orElseThrow(() -> new RuntimeException("Driver not found"));
         
         // Toggle isBlocked status (blocks/unblocks driver)
@@ -117,14 +131,18 @@ public class AdminController {
         }
         
         Driver updatedDriver = driverRepository.save(driver);
+        availableDriverMap.onDriverChanged(updatedDriver);
+        if (updatedDriver.getIsBlocked()) {
+            locationFilter.release(driverId);
+        }
         
-        return ResponseEntity.ok(updatedDriver);
+        return ResponseEntity.ok(DriverDTO.from(updatedDriver));
     }
     
     @GetMapping("/orders/all")
-    public ResponseEntity<List<Order>> getAllOrders() {
+    public ResponseEntity<List<OrderDTO>> getAllOrders() {
         List<Order> allOrders = orderRepository.findAllByOrderByCreatedAtDesc();
-        return ResponseEntity.ok(allOrders);
+        return ResponseEntity.ok(allOrders.stream().map(OrderDTO::from).toList());
     }
     
     @GetMapping("/dashboard-stats")
@@ -139,16 +157,10 @@ public class AdminController {
         Long totalOrders = orderRepository.count();
         
         // Total revenue (sum of all COMPLETED orders)
-        BigDecimal totalRevenue = orderRepository.findAll().stream()
-                .filter(order -> order.getStatus() == OrderStatus.COMPLETED)
-                .map(order -> order.getPrice())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal totalRevenue = orderRepository.sumPriceByStatus(OrderStatus.COMPLETED);
         
         // Active orders (IN_TRANSIT or ACCEPTED)
-        Long activeOrders = orderRepository.findAll().stream()
-                .filter(order -> order.getStatus() == OrderStatus.IN_TRANSIT || 
-                               order.getStatus() == OrderStatus.ACCEPTED)
-                .count();
+        Long activeOrders = orderRepository.countByStatusIn(List.of(OrderStatus.IN_TRANSIT, OrderStatus.ACCEPTED));
         
         DashboardStatsResponse stats = DashboardStatsResponse.builder()
                 .totalUsers(totalUsers)
@@ -163,11 +175,10 @@ public class AdminController {
     
     @GetMapping("/finance/wallets")
     public ResponseEntity<List<DriverWalletInfo>> getDriverWallets() {
-        List<Wallet> allWallets = walletRepository.findAll();
+        List<Wallet> allWallets = walletRepository.findByUserRole(UserRole.DRIVER);
         
-        // Filter wallets for DRIVER role users and map to DTO
+        // Map the DRIVER role users' wallets to DTO
         List<DriverWalletInfo> driverWallets = allWallets.stream()
-                .filter(wallet -> wallet.getUser().getRole() == UserRole.DRIVER)
                 .map(wallet -> DriverWalletInfo.builder()
                         .driverId(wallet.getUser().getId())
                         .driverName(wallet.getUser().getEmail())
@@ -179,9 +190,22 @@ public class AdminController {
         return ResponseEntity.ok(driverWallets);
     }
     
+    /**
+     * Recomputes drivers' daily earnings rollups from the orders completed between from and to (inclusive)
+     */
+    @PostMapping("/finance/earnings/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildEarnings(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new RuntimeException("to must not be before from");
+        }
+        return ResponseEntity.ok(Map.of("driverDays", driverEarningsService.rebuild(from, to)));
+    }
+    
     @GetMapping("/reviews")
     public ResponseEntity<List<ReviewInfo>> getAllReviews() {
-        List<Review> allReviews = reviewRepository.findAll();
+        List<Review> allReviews = reviewRepository.findAllByOrderByCreatedAtDesc();
         
         List<ReviewInfo> reviewInfos = allReviews.stream()
                 .map(review -> ReviewInfo.builder()
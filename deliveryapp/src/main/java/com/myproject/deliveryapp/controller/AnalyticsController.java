@@ -0,0 +1,63 @@
+package com.myproject.deliveryapp.controller;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.myproject.deliveryapp.analytics.AnalyticsQuery;
+import com.myproject.deliveryapp.analytics.GroupBy;
+import com.myproject.deliveryapp.analytics.TripArchiveExporter;
+import com.myproject.deliveryapp.analytics.TripQueryEngine;
+import com.myproject.deliveryapp.dto.AnalyticsResultDTO;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/admin/analytics")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class AnalyticsController {
+    
+    private final TripQueryEngine tripQueryEngine;
+    private final TripArchiveExporter tripArchiveExporter;
+    
+    /**
+     * Trips, revenue, distance, duration and driver utilisation over the archived days from..to (inclusive)
+     * groupBy: NONE, DAY, WEEK, MONTH, HOUR_OF_DAY, VEHICLE_TYPE, PAYMENT_METHOD or DRIVER
+     * Today is not archived until tonight's export
+     */
+    @GetMapping
+    public ResponseEntity<AnalyticsResultDTO> query(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "VEHICLE_TYPE") GroupBy groupBy,
+            @RequestParam(required = false) String vehicleType,
+            @RequestParam(required = false) String paymentMethod,
+            @RequestParam(required = false) Long driverId) {
+        if (to.isBefore(from)) {
+            throw new RuntimeException("to must not be before from");
+        }
+        return ResponseEntity.ok(tripQueryEngine.query(AnalyticsQuery.builder()
+                .from(from)
+                .to(to)
+                .groupBy(groupBy)
+                .vehicleType(vehicleType)
+                .paymentMethod(paymentMethod)
+                .driverId(driverId)
+                .build()));
+    }
+    
+    // Runs the nightly export now, for days not archived yet
+    @PostMapping("/export")
+    public ResponseEntity<Map<String, Integer>> export() {
+        return ResponseEntity.ok(Map.of("exportedDays", tripArchiveExporter.exportMissingDays()));
+    }
+}
@@ -14,9 +14,11 @@ import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.myproject.deliveryapp.dto.DriverDTO;
 import com.myproject.deliveryapp.dto.DriverRegistrationRequest;
 import com.myproject.deliveryapp.dto.LoginRequest;
 import com.myproject.deliveryapp.dto.LoginResponse;
+import com.myproject.deliveryapp.dto.UserSummaryDTO;
 import com.myproject.deliveryapp.entity.Driver;
 import com.myproject.deliveryapp.entity.User;
 import com.myproject.deliveryapp.entity.VehicleType;
@@ -26,14 +28,13 @@ import com.myproject.deliveryapp.repository.UserRepository;
 import com.myproject.deliveryapp.repository.VehicleTypeRepository;
 import com.myproject.deliveryapp.service.EmailService;
 import com.myproject.deliveryapp.service.FileStorageService;
+import com.myproject.deliveryapp.service.PhoneOtpStore;
 import com.myproject.deliveryapp.service.SmsService;
 import com.myproject.deliveryapp.util.JwtUtils;
 
 import lombok.RequiredArgsConstructor;
 
 import java.util.Random;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -50,8 +51,8 @@ public class AuthController {
     private final EmailService emailService;
     private final SmsService smsService;
     
-    // Temporary storage for phone OTPs during registration
-    private final Map<String, String> phoneOtpStorage = new ConcurrentHashMap<>();
+    // Temporary storage for phone OTPs during registration, shared between nodes
+    private final PhoneOtpStore phoneOtpStorage;
     
     private String generateVerificationCode() {
         Random random = new Random();
@@ -88,7 +89,7 @@ public class AuthController {
             System.err.println("Failed to send verification email: " + e.getMessage());
         }
         
-        return ResponseEntity.status(HttpStatus.CREATED).body(savedUser);
+        return ResponseEntity.status(HttpStatus.CREATED).body(UserSummaryDTO.from(savedUser));
     }
     
     @PostMapping("/register/admin")
@@ -99,7 +100,7 @@ public class AuthController {
         user.setRole(UserRole.ADMIN);
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         User savedUser = userRepository.save(user);
-        return ResponseEntity.status(HttpStatus.CREATED).body(savedUser);
+        return ResponseEntity.status(HttpStatus.CREATED).body(UserSummaryDTO.from(savedUser));
     }
     
     @PostMapping(value = "/register/driver", consumes = {"multipart/form-data"})
@@ -173,7 +174,7 @@ public class AuthController {
                 .build();
         Driver savedDriver = driverRepository.save(driver);
         
-        return ResponseEntity.status(HttpStatus.CREATED).body(savedDriver);
+        return ResponseEntity.status(HttpStatus.CREATED).body(DriverDTO.from(savedDriver));
     }
     
     @PostMapping("/verify-email")
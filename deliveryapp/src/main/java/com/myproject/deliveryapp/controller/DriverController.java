@@ -1,7 +1,6 @@
 package com.myproject.deliveryapp.controller;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -10,8 +9,11 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.myproject.deliveryapp.dto.AvailableDriversDeltaDTO;
+import com.myproject.deliveryapp.dto.DriverClusterDTO;
 import com.myproject.deliveryapp.dto.DriverProfileDTO;
 import com.myproject.deliveryapp.dto.DriverPublicDTO;
 import com.myproject.deliveryapp.dto.LocationUpdateRequest;
@@ -19,6 +21,9 @@ import com.myproject.deliveryapp.entity.Driver;
 import com.myproject.deliveryapp.entity.User;
 import com.myproject.deliveryapp.repository.DriverRepository;
 import com.myproject.deliveryapp.repository.UserRepository;
+import com.myproject.deliveryapp.service.AvailableDriverMap;
+import com.myproject.deliveryapp.service.DriverClusterIndex;
+import com.myproject.deliveryapp.service.LocationIngestService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -27,36 +32,61 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class DriverController {
     
+    private static final String FLEET_VERSION_HEADER = "X-Fleet-Version";
+    
     private final DriverRepository driverRepository;
     private final UserRepository userRepository;
+    private final AvailableDriverMap availableDriverMap;
+    private final DriverClusterIndex driverClusterIndex;
+    private final LocationIngestService locationIngestService;
     
     /**
      * Get all available drivers for customers to view on map
      * Returns only public information (no personal details like phone/email)
      * Accessible to customers and admins
+     * 
+     * Served from the in-memory fleet map. The X-Fleet-Version header carries the
+     * map version; polling with ?since=<version> returns only the drivers that
+     * changed or went offline since then (or a full snapshot if too far behind).
      */
     @GetMapping("/available")
     @PreAuthorize("hasAnyRole('CUSTOMER', 'ADMIN')")
-    public ResponseEntity<List<DriverPublicDTO>> getAvailableDrivers() {
-        // Find all drivers who are both available and approved
-        List<Driver> availableDrivers = driverRepository
-                .findByIsAvailableAndIsApproved(true, true);
+    public ResponseEntity<?> getAvailableDrivers(@RequestParam(required = false) Long since) {
+        if (since != null) {
+            AvailableDriversDeltaDTO delta = availableDriverMap.changesSince(since);
+            return ResponseEntity.ok()
+                    .header(FLEET_VERSION_HEADER, Long.toString(delta.getVersion()))
+                    .body(delta);
+        }
         
-        // Map to public DTO (excluding sensitive information)
-        List<DriverPublicDTO> driverDTOs = availableDrivers.stream()
-                .map(driver -> DriverPublicDTO.builder()
-                        .id(driver.getId())
-                        .currentLatitude(driver.getCurrentLatitude())
-                        .currentLongitude(driver.getCurrentLongitude())
-                        .vehicleType(driver.getVehicleType() != null 
-                                ? driver.getVehicleType().getName() 
-                                : "Unknown")
-                        .build())
-                .collect(Collectors.toList());
+        // Read the version first; a change landing in between is simply sent again on the next poll
+        long version = availableDriverMap.version();
+        List<DriverPublicDTO> driverDTOs = availableDriverMap.snapshot();
         
-        return ResponseEntity.ok(driverDTOs);
+        return ResponseEntity.ok()
+                .header(FLEET_VERSION_HEADER, Long.toString(version))
+                .body(driverDTOs);
     }
-
+    
+    /**
+     * Pre-clustered available drivers for the visible map area
+     * Returns one cluster per grid cell and vehicle type with its count and centroid,
+     * so zoomed-out maps get a handful of markers instead of every driver
+     */
+    @GetMapping("/clusters")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'ADMIN')")
+    public ResponseEntity<List<DriverClusterDTO>> getDriverClusters(
+            @RequestParam double minLat,
+            @RequestParam double minLng,
+            @RequestParam double maxLat,
+            @RequestParam double maxLng,
+            @RequestParam int zoom) {
+        if (minLat > maxLat) {
+            throw new RuntimeException("minLat must not be greater than maxLat");
+        }
+        return ResponseEntity.ok(driverClusterIndex.clusters(minLat, minLng, maxLat, maxLng, zoom));
+    }
+    
     /**
      * Get driver's profile information
      * Returns complete profile including documents and bank details
@@ -93,10 +123,12 @@ public class DriverController {
         
         return ResponseEntity.ok(profileDTO);
     }
-
+    
     /**
      * Update driver's current location
      * Called by driver mobile app to send real-time location updates
+     * Goes through the same ingest as WebSocket pings: filtered, persisted,
+     * then fanned out to the fleet map and tracking topics
      */
     @PostMapping("/update-location")
     @PreAuthorize("hasRole('DRIVER')")
@@ -111,10 +143,9 @@ public class DriverController {
         Driver driver = driverRepository.findByUserId(user.getId())
                 .orElseThrow(() -> new RuntimeException("Driver not found"));
         
-        // Update driver location
-        driver.setCurrentLatitude(request.getLatitude());
-        driver.setCurrentLongitude(request.getLongitude());
-        driverRepository.save(driver);
+        // Always the authenticated driver, whatever id the body carries
+        locationIngestService.ingest(driver.getId(), request.getLatitude(), request.getLongitude(),
+                System.currentTimeMillis(), -1, -1);
         
         return ResponseEntity.ok().body("Location updated successfully");
     }
@@ -1,33 +1,45 @@
 package com.myproject.deliveryapp.controller;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.myproject.deliveryapp.dto.DailyEarningsDTO;
 import com.myproject.deliveryapp.dto.DriverProfileDTO;
+import com.myproject.deliveryapp.dto.EarningsPeriodDTO;
 import com.myproject.deliveryapp.dto.TripHistoryDTO;
 import com.myproject.deliveryapp.entity.Driver;
-import com.myproject.deliveryapp.entity.Order;
 import com.myproject.deliveryapp.entity.User;
-import com.myproject.deliveryapp.enums.OrderStatus;
+import com.myproject.deliveryapp.enums.EarningsGranularity;
 import com.myproject.deliveryapp.repository.DriverRepository;
 import com.myproject.deliveryapp.repository.OrderRepository;
 import com.myproject.deliveryapp.repository.UserRepository;
+import com.myproject.deliveryapp.service.DriverEarningsService;
 
 @RestController
 @RequestMapping("/api/driver")
 public class DriverEarningsController {
 
+    private static final int MAX_HISTORY_PAGE = 100;
+
+    // Range ends for an unfiltered trip history; within what a Postgres timestamp holds
+    private static final LocalDateTime NO_LOWER_BOUND = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime NO_UPPER_BOUND = LocalDateTime.of(9999, 1, 1, 0, 0);
+
     @Autowired
     private UserRepository userRepository;
 
@@ -37,6 +49,9 @@ public class DriverEarningsController {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private DriverEarningsService driverEarningsService;
+
     @GetMapping("/profile")
     public ResponseEntity<?> getProfile(Authentication authentication) {
         try {
@@ -74,30 +89,8 @@ public class DriverEarningsController {
             Driver driver = driverRepository.findByUser(user)
                     .orElseThrow(() -> new RuntimeException("Driver not found"));
 
-            // Get today's start and end times
-            LocalDateTime startOfDay = LocalDateTime.of(LocalDate.now(), LocalTime.MIN);
-            LocalDateTime endOfDay = LocalDateTime.of(LocalDate.now(), LocalTime.MAX);
-
-            // Fetch completed orders for today
-            List<Order> todaysOrders = orderRepository.findByDriverAndStatusAndCompletedAtBetween(
-                    driver, OrderStatus.COMPLETED, startOfDay, endOfDay
-            );
-
-            // Calculate stats
-            int todaysTrips = todaysOrders.size();
-            double todaysEarnings = todaysOrders.stream()
-                    .mapToDouble(order -> order.getFinalPrice() != null ? order.getFinalPrice().doubleValue() : 0.0)
-                    .sum();
-            double cashCollected = todaysOrders.stream()
-                    .filter(order -> "CASH".equals(order.getPaymentMethod()))
-                    .mapToDouble(order -> order.getFinalPrice() != null ? order.getFinalPrice().doubleValue() : 0.0)
-                    .sum();
-
-            DailyEarningsDTO earnings = new DailyEarningsDTO(
-                    todaysTrips,
-                    todaysEarnings,
-                    cashCollected
-            );
+            // Read from the driver's rollup row for today
+            DailyEarningsDTO earnings = driverEarningsService.getTodaysEarnings(driver);
 
             return ResponseEntity.ok(earnings);
         } catch (Exception e) {
@@ -105,8 +98,55 @@ public class DriverEarningsController {
         }
     }
 
+    /**
+     * Earnings per day, week or month between from and to (both inclusive, default the last 30 days)
+     * granularity: day, week or month
+     */
+    @GetMapping("/earnings")
+    public ResponseEntity<?> getEarnings(
+            Authentication authentication,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String granularity) {
+        try {
+            String email = authentication.getName();
+            User user = userRepository.findByEmail(email)
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+
+            Driver driver = driverRepository.findByUser(user)
+                    .orElseThrow(() -> new RuntimeException("Driver not found"));
+
+            LocalDate end = to != null ? to : LocalDate.now();
+            LocalDate start = from != null ? from : end.minusDays(29);
+            if (end.isBefore(start)) {
+                throw new RuntimeException("to must not be before from");
+            }
+
+            EarningsGranularity periods;
+            try {
+                periods = EarningsGranularity.valueOf(granularity.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Invalid granularity: " + granularity + ". Valid values are: day, week, month");
+            }
+
+            List<EarningsPeriodDTO> earnings = driverEarningsService.getEarnings(driver, start, end, periods);
+
+            return ResponseEntity.ok(earnings);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Completed trips newest first, a page at a time (limit, default 20, at most 100), optionally within one
+     * month (yyyy-MM). The X-Next-Cursor response header, when present, is passed back as cursor for the next page.
+     */
     @GetMapping("/trips/history")
-    public ResponseEntity<?> getTripHistory(Authentication authentication) {
+    public ResponseEntity<?> getTripHistory(
+            Authentication authentication,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
         try {
             String email = authentication.getName();
             User user = userRepository.findByEmail(email)
@@ -115,27 +155,54 @@ public class DriverEarningsController {
             Driver driver = driverRepository.findByUser(user)
                     .orElseThrow(() -> new RuntimeException("Driver not found"));
 
-            // Fetch all completed orders for the driver, ordered by completion date descending
-            List<Order> completedOrders = orderRepository.findByDriverAndStatusOrderByCompletedAtDesc(
-                    driver, OrderStatus.COMPLETED
-            );
-
-            // Map to DTOs
-            List<TripHistoryDTO> history = completedOrders.stream()
-                    .map(order -> new TripHistoryDTO(
-                            order.getId(),
-                            order.getPickupLocation(),
-                            order.getDropLocation(),
-                            order.getDistance(),
-                            order.getFinalPrice() != null ? order.getFinalPrice().doubleValue() : 0.0,
-                            order.getPaymentMethod(),
-                            order.getCompletedAt()
-                    ))
-                    .collect(Collectors.toList());
-
-            return ResponseEntity.ok(history);
+            int pageSize = Math.max(1, Math.min(limit, MAX_HISTORY_PAGE));
+
+            // Without a month: all of history, unbounded on created_at
+            LocalDateTime completedFrom = month != null ? month.atDay(1).atStartOfDay() : NO_LOWER_BOUND;
+            LocalDateTime completedBefore = month != null ? month.plusMonths(1).atDay(1).atStartOfDay() : NO_UPPER_BOUND;
+
+            // Start after the cursor, or at the end of the range (nothing at completedBefore itself)
+            LocalDateTime cursorCompletedAt = completedBefore;
+            long cursorId = Long.MIN_VALUE;
+            if (cursor != null && !cursor.isEmpty()) {
+                String[] parts = decodeCursor(cursor);
+                cursorCompletedAt = LocalDateTime.parse(parts[0]);
+                cursorId = Long.parseLong(parts[1]);
+            }
+
+            // One extra row tells whether there is a next page
+            List<TripHistoryDTO> history = new ArrayList<>(orderRepository.findTripHistoryPage(
+                    driver, completedFrom, cursorCompletedAt, cursorId, completedBefore,
+                    PageRequest.of(0, pageSize + 1)));
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (history.size() > pageSize) {
+                history.remove(pageSize);
+                TripHistoryDTO last = history.get(pageSize - 1);
+                response.header("X-Next-Cursor", encodeCursor(last.getCompletedAt(), last.getId()));
+            }
+
+            return response.body(history);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         }
     }
+
+    // Opaque to clients: the last trip's completion time and id
+    private static String encodeCursor(LocalDateTime completedAt, Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((completedAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
 }
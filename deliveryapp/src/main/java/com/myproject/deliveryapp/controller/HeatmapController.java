@@ -0,0 +1,40 @@
+package com.myproject.deliveryapp.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.myproject.deliveryapp.dto.HeatmapTileDTO;
+import com.myproject.deliveryapp.service.DemandHeatmap;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/admin/heatmap")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class HeatmapController {
+    
+    private final DemandHeatmap demandHeatmap;
+    
+    /**
+     * Pickup demand for one map tile as a grid of counts
+     * Optional hourOfWeek (0 = Monday 00:00 ... 167) and vehicleTypeId narrow it down
+     */
+    @GetMapping("/{z}/{x}/{y}")
+    public ResponseEntity<HeatmapTileDTO> getTile(
+            @PathVariable int z,
+            @PathVariable int x,
+            @PathVariable int y,
+            @RequestParam(required = false) Integer hourOfWeek,
+            @RequestParam(required = false) Long vehicleTypeId) {
+        if (hourOfWeek != null && (hourOfWeek < 0 || hourOfWeek > 167)) {
+            throw new RuntimeException("hourOfWeek must be between 0 and 167");
+        }
+        return ResponseEntity.ok(demandHeatmap.tile(z, x, y, hourOfWeek, vehicleTypeId));
+    }
+}
@@ -1,19 +1,28 @@
 package com.myproject.deliveryapp.controller;
 
 import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.CompositeMessageConverter;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.myproject.deliveryapp.dto.DriverDTO;
+import com.myproject.deliveryapp.dto.IngestNodeDTO;
 import com.myproject.deliveryapp.dto.LocationUpdateRequest;
 import com.myproject.deliveryapp.entity.Driver;
+import com.myproject.deliveryapp.replication.ClusterMembership;
 import com.myproject.deliveryapp.service.DriverService;
+import com.myproject.deliveryapp.service.LocationIngestService;
+import com.myproject.deliveryapp.websocket.LocationFrameDecoder;
 
 import lombok.RequiredArgsConstructor;
 
@@ -24,23 +33,43 @@ public class LocationController {
     
     private final SimpMessagingTemplate messagingTemplate;
     private final DriverService driverService;
+    private final LocationIngestService locationIngestService;
+    private final CompositeMessageConverter brokerMessageConverter;
+    private final ClusterMembership clusterMembership;
     
+    /**
+     * Driver location pings. Accepts the JSON {@link LocationUpdateRequest} or,
+     * when the frame's content-type is {@code application/vnd.delivery.location},
+     * the compact binary single/batch format read by {@link LocationFrameDecoder}.
+     */
     @MessageMapping("/driver-location")
-    public void updateLocation(LocationUpdateRequest request) {
-        // Save location to database
-        driverService.updateLocation(request.getDriverId(), request.getLatitude(), request.getLongitude());
-        
-        // Broadcast location update to driver-specific tracking topic
-        messagingTemplate.convertAndSend(
-                "/topic/tracking/" + request.getDriverId(),
-                request
-        );
+    public void updateLocation(Message<byte[]> message) {
+        if (LocationFrameDecoder.isLocationFrame(message.getHeaders().get(MessageHeaders.CONTENT_TYPE))) {
+            LocationFrameDecoder.decode(message.getPayload(), locationIngestService);
+            return;
+        }
         
-        // Also broadcast to global admin topic for all driver movements
-        messagingTemplate.convertAndSend(
-                "/topic/admin/drivers",
-                request
-        );
+        LocationUpdateRequest request = (LocationUpdateRequest) brokerMessageConverter
+                .fromMessage(message, LocationUpdateRequest.class);
+        if (request == null) {
+            throw new IllegalArgumentException("Unreadable location update payload");
+        }
+        locationIngestService.ingest(request);
+    }
+    
+    /**
+     * The node that owns the driver's location stream; the app connects its
+     * WebSocket there so pings are not forwarded between nodes.
+     */
+    @GetMapping("/drivers/{driverId}/ingest-node")
+    @PreAuthorize("hasRole('DRIVER')")
+    public ResponseEntity<IngestNodeDTO> getIngestNode(@PathVariable Long driverId) {
+        String owner = clusterMembership.ownerOf(driverId);
+        return ResponseEntity.ok(IngestNodeDTO.builder()
+                .driverId(driverId)
+                .nodeId(owner)
+                .address(clusterMembership.addressOf(owner))
+                .build());
     }
     
     @PutMapping("/drivers/{driverId}/availability")
@@ -58,7 +87,7 @@ public class LocationController {
                 new DriverStatusUpdate(driverId, request.getAvailable())
             );
             
-            return ResponseEntity.ok(driver);
+            return ResponseEntity.ok(DriverDTO.from(driver));
         } catch (Exception e) {
             System.err.println("❌ Error updating availability: " + e.getMessage());
             e.printStackTrace();
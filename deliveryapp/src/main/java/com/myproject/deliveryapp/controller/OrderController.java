@@ -1,12 +1,16 @@
 package com.myproject.deliveryapp.controller;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.channels.Channels;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -20,7 +24,13 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.myproject.deliveryapp.dispatch.DispatchService;
+import com.myproject.deliveryapp.dto.DriverPublicDTO;
+import com.myproject.deliveryapp.dto.FareQuoteDTO;
+import com.myproject.deliveryapp.dto.NearbyOrderDTO;
+import com.myproject.deliveryapp.dto.OrderDTO;
 import com.myproject.deliveryapp.dto.OrderRequest;
+import com.myproject.deliveryapp.dto.TripRouteDTO;
 import com.myproject.deliveryapp.entity.Driver;
 import com.myproject.deliveryapp.entity.Order;
 import com.myproject.deliveryapp.entity.User;
@@ -31,10 +41,22 @@ import com.myproject.deliveryapp.repository.DriverRepository;
 import com.myproject.deliveryapp.repository.OrderRepository;
 import com.myproject.deliveryapp.repository.UserRepository;
 import com.myproject.deliveryapp.repository.VehicleTypeRepository;
+import com.myproject.deliveryapp.service.ActiveOrderRegistry;
+import com.myproject.deliveryapp.service.AvailableDriverMap;
+import com.myproject.deliveryapp.service.DemandForecaster;
+import com.myproject.deliveryapp.service.DemandHeatmap;
+import com.myproject.deliveryapp.service.DriverEarningsService;
 import com.myproject.deliveryapp.service.DriverService;
 import com.myproject.deliveryapp.service.EmailService;
+import com.myproject.deliveryapp.service.EtaService;
+import com.myproject.deliveryapp.service.ServiceZoneIndex;
+import com.myproject.deliveryapp.service.TrackingEventHub;
+import com.myproject.deliveryapp.service.TripRouteService;
 import com.myproject.deliveryapp.service.WalletService;
+import com.myproject.deliveryapp.tracking.BreadcrumbStore;
+import com.myproject.deliveryapp.util.GeoUtils;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
@@ -50,11 +72,21 @@ public class OrderController {
     private final EmailService emailService;
     private final WalletService walletService;
     private final VehicleTypeRepository vehicleTypeRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ActiveOrderRegistry activeOrderRegistry;
+    private final BreadcrumbStore breadcrumbStore;
+    private final TripRouteService tripRouteService;
+    private final TrackingEventHub trackingEventHub;
+    private final AvailableDriverMap availableDriverMap;
+    private final DemandHeatmap demandHeatmap;
+    private final DemandForecaster demandForecaster;
+    private final EtaService etaService;
+    private final ServiceZoneIndex serviceZoneIndex;
+    private final DriverEarningsService driverEarningsService;
+    private final DispatchService dispatchService;
     
     @PostMapping("/orders")
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<Order> createOrder(@Valid @RequestBody OrderRequest orderRequest) {
+    public ResponseEntity<OrderDTO> createOrder(@Valid @RequestBody OrderRequest orderRequest) {
         // Get authenticated user from SecurityContext
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userEmail = authentication.getName();
@@ -66,11 +98,11 @@ public class OrderController {
         VehicleType vehicleType = vehicleTypeRepository.findById(orderRequest.getVehicleTypeId())
                 .orElseThrow(() -> new RuntimeException("Vehicle type not found"));
         
-        // Calculate price: baseFare + (distance * pricePerKm)
-        BigDecimal distance = BigDecimal.valueOf(orderRequest.getDistance());
-        BigDecimal calculatedPrice = vehicleType.getBaseFare()
-                .add(distance.multiply(vehicleType.getPricePerKm()))
-                .setScale(2, RoundingMode.HALF_UP);
+        // Once service zones are set up, a pickup must be placed exactly and inside one of them
+        if (serviceZoneIndex.hasZones()
+                && (orderRequest.getPickupLat() == null || orderRequest.getPickupLng() == null)) {
+            throw new RuntimeException("Pickup coordinates are required");
+        }
         
         // Use coordinates from request if provided, otherwise use default Colombo coordinates
         double pickupLat = orderRequest.getPickupLat() != null ? orderRequest.getPickupLat() : 6.9271;
@@ -78,6 +110,14 @@ public class OrderController {
         double dropLat = orderRequest.getDropLat() != null ? orderRequest.getDropLat() : 6.9271;
         double dropLng = orderRequest.getDropLng() != null ? orderRequest.getDropLng() : 79.8612;
         
+        if (!serviceZoneIndex.isServiced(pickupLat, pickupLng)) {
+            throw new RuntimeException("Pickup location is outside our service area");
+        }
+        
+        // Calculate price: baseFare + (distance * pricePerKm), adjusted for the pickup zone
+        BigDecimal priceMultiplier = priceMultiplierAt(pickupLat, pickupLng);
+        BigDecimal calculatedPrice = calculateFare(vehicleType, orderRequest.getDistance(), priceMultiplier);
+        
         // Create and save order
         Order order = Order.builder()
                 .customer(customer)
@@ -91,15 +131,69 @@ public class OrderController {
                 .dropLng(dropLng)
                 .distance(orderRequest.getDistance())
                 .price(calculatedPrice)
+                .priceMultiplier(priceMultiplier)
                 .build();
         
         Order savedOrder = orderRepository.save(order);
-        return ResponseEntity.status(HttpStatus.CREATED).body(savedOrder);
+        activeOrderRegistry.register(savedOrder);
+        demandHeatmap.record(savedOrder);
+        demandForecaster.record(savedOrder);
+        dispatchService.onOrderCreated(savedOrder);
+        return ResponseEntity.status(HttpStatus.CREATED).body(OrderDTO.from(savedOrder));
+    }
+    
+    /**
+     * Price and travel-time estimate for a trip before it is booked
+     * Distance defaults to the straight line between the points if the app has no route distance
+     */
+    @GetMapping("/orders/quote")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'ADMIN')")
+    public ResponseEntity<FareQuoteDTO> getFareQuote(
+            @RequestParam Long vehicleTypeId,
+            @RequestParam double pickupLat,
+            @RequestParam double pickupLng,
+            @RequestParam double dropLat,
+            @RequestParam double dropLng,
+            @RequestParam(required = false) Double distance) {
+        VehicleType vehicleType = vehicleTypeRepository.findById(vehicleTypeId)
+                .orElseThrow(() -> new RuntimeException("Vehicle type not found"));
+        
+        if (!serviceZoneIndex.isServiced(pickupLat, pickupLng)) {
+            throw new RuntimeException("Pickup location is outside our service area");
+        }
+        
+        double distanceKm = distance != null
+                ? distance
+                : GeoUtils.distanceMeters(pickupLat, pickupLng, dropLat, dropLng) / 1000.0;
+        
+        FareQuoteDTO quote = FareQuoteDTO.builder()
+                .vehicleTypeId(vehicleType.getId())
+                .vehicleType(vehicleType.getName())
+                .distanceKm(distanceKm)
+                .price(calculateFare(vehicleType, distanceKm, priceMultiplierAt(pickupLat, pickupLng)))
+                .tripEtaSeconds(etaService.estimateSeconds(pickupLat, pickupLng, dropLat, dropLng))
+                .pickupEtaSeconds(etaService.nearestDriverEtaSeconds(vehicleType.getName(), pickupLat, pickupLng))
+                .build();
+        
+        return ResponseEntity.ok(quote);
+    }
+    
+    private BigDecimal calculateFare(VehicleType vehicleType, double distanceKm, BigDecimal priceMultiplier) {
+        return vehicleType.getBaseFare()
+                .add(BigDecimal.valueOf(distanceKm).multiply(vehicleType.getPricePerKm()))
+                .multiply(priceMultiplier)
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+    
+    // The multiplier of the service zone the pickup is in, or 1 outside any zone
+    private BigDecimal priceMultiplierAt(double pickupLat, double pickupLng) {
+        ServiceZoneIndex.Zone zone = serviceZoneIndex.zoneAt(pickupLat, pickupLng);
+        return zone != null && zone.getPriceMultiplier() != null ? zone.getPriceMultiplier() : BigDecimal.ONE;
     }
     
     @GetMapping("/orders/my-orders")
     @PreAuthorize("hasAnyRole('CUSTOMER', 'DRIVER')")
-    public ResponseEntity<List<Order>> getMyOrders() {
+    public ResponseEntity<List<OrderDTO>> getMyOrders() {
         // Get authenticated user from SecurityContext
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userEmail = authentication.getName();
@@ -109,12 +203,12 @@ public class OrderController {
         
         // Fetch all orders for this customer ordered by createdAt descending
         List<Order> orders = orderRepository.findByCustomerOrderByCreatedAtDesc(customer);
-        return ResponseEntity.ok(orders);
+        return ResponseEntity.ok(orders.stream().map(OrderDTO::from).toList());
     }
     
     @PostMapping("/orders/{orderId}/cancel")
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<Order> cancelOrder(@PathVariable Long orderId) {
+    public ResponseEntity<OrderDTO> cancelOrder(@PathVariable Long orderId) {
         // Get authenticated user from SecurityContext
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userEmail = authentication.getName();
@@ -123,7 +217,7 @@ public class OrderController {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         // Find the order
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findWithDetailsById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
         
         // Verify this order belongs to the customer
@@ -139,17 +233,61 @@ public class OrderController {
         // Update order status to CANCELLED
         order.setStatus(OrderStatus.CANCELLED);
         Order savedOrder = orderRepository.save(order);
+        activeOrderRegistry.updateStatus(savedOrder.getId(), OrderStatus.CANCELLED);
+        dispatchService.onOrderClosed(savedOrder.getId());
+        trackingEventHub.publishStatus(savedOrder);
         
-        return ResponseEntity.ok(savedOrder);
+        return ResponseEntity.ok(OrderDTO.from(savedOrder));
     }
     
     @GetMapping("/orders/{id}")
     @PreAuthorize("hasAnyRole('CUSTOMER', 'DRIVER', 'ADMIN')")
-    public ResponseEntity<Order> getOrderById(@PathVariable Long id) {
-        Order order = orderRepository.findById(id)
+    public ResponseEntity<OrderDTO> getOrderById(@PathVariable Long id) {
+        Order order = orderRepository.findWithDetailsById(id)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
         
         // Verify the user has access to this order
+        checkOrderAccess(order);
+        
+        return ResponseEntity.ok(OrderDTO.from(order));
+    }
+    
+    /**
+     * Recorded GPS track of an order as consecutive 16 byte big-endian points
+     * (epoch millis, latitude * 1e6, longitude * 1e6), streamed straight from
+     * the breadcrumb segments.
+     */
+    @GetMapping("/orders/{id}/track")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'DRIVER', 'ADMIN')")
+    public void getOrderTrack(@PathVariable Long id, HttpServletResponse response) throws IOException {
+        Order order = orderRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+        checkOrderAccess(order);
+        
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader("X-Track-Points", String.valueOf(breadcrumbStore.pointCount(id)));
+        breadcrumbStore.writeTrack(id, Channels.newChannel(response.getOutputStream()));
+    }
+    
+    /**
+     * Compact route of an order: the stored polyline once the order is
+     * completed, or one built on the fly from the live track since pickup
+     * before that.
+     */
+    @GetMapping("/orders/{id}/route")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'DRIVER', 'ADMIN')")
+    public ResponseEntity<TripRouteDTO> getOrderRoute(@PathVariable Long id) {
+        Order order = orderRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+        checkOrderAccess(order);
+        
+        if (order.getRoutePolyline() != null) {
+            return ResponseEntity.ok(tripRouteService.fromOrder(order));
+        }
+        return ResponseEntity.ok(tripRouteService.summarize(order));
+    }
+    
+    private void checkOrderAccess(Order order) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userEmail = authentication.getName();
         User user = userRepository.findByEmail(userEmail)
@@ -163,20 +301,34 @@ public class OrderController {
         if (!hasAccess) {
             throw new RuntimeException("Access denied to this order");
         }
-        
-        return ResponseEntity.ok(order);
     }
     
     @GetMapping("/orders/pending")
     @PreAuthorize("hasRole('DRIVER')")
-    public ResponseEntity<List<Order>> getPendingOrders() {
-        List<Order> pendingOrders = orderRepository.findByStatusOrderByCreatedAtDesc(OrderStatus.PENDING);
-        return ResponseEntity.ok(pendingOrders);
+    public ResponseEntity<List<OrderDTO>> getPendingOrders() {
+        List<Order> pendingOrders = orderRepository.findByStatusAndCreatedAtBetweenOrderByCreatedAtDesc(
+                OrderStatus.PENDING, activeOrderRegistry.openOrdersFrom(), activeOrderRegistry.openOrdersUntil());
+        return ResponseEntity.ok(pendingOrders.stream().map(OrderDTO::from).toList());
+    }
+    
+    /**
+     * Pending orders with a pickup near the driver, oldest first, answered from the dispatch partitions
+     */
+    @GetMapping("/orders/pending/nearby")
+    @PreAuthorize("hasRole('DRIVER')")
+    public CompletableFuture<ResponseEntity<List<NearbyOrderDTO>>> getNearbyPendingOrders(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "5") double radiusKm) {
+        if (radiusKm <= 0 || radiusKm > 50) {
+            throw new RuntimeException("Radius must be between 0 and 50 km");
+        }
+        return dispatchService.pendingOrdersNear(lat, lng, radiusKm).thenApply(ResponseEntity::ok);
     }
     
     @GetMapping("/orders/my-active-orders")
     @PreAuthorize("hasRole('DRIVER')")
-    public ResponseEntity<List<Order>> getMyActiveOrders() {
+    public ResponseEntity<List<OrderDTO>> getMyActiveOrders() {
         // Get authenticated user from SecurityContext
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userEmail = authentication.getName();
@@ -186,32 +338,26 @@ public class OrderController {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         // Find the driver associated with this user
-        Driver driver = driverRepository.findAll().stream()
-                .filter(d -> d.getUser().getId().equals(user.getId()))
-                .findFirst()
+        Driver driver = driverRepository.findByUser(user)
                 .orElseThrow(() -> new RuntimeException("Driver record not found for this user"));
         
-        // Fetch all orders for this driver
-        List<Order> driverOrders = orderRepository.findByDriverOrderByCreatedAtDesc(driver);
-        
-        // Filter for active statuses only (ACCEPTED, IN_TRANSIT)
-        List<Order> activeOrders = driverOrders.stream()
-                .filter(order -> order.getStatus() == OrderStatus.ACCEPTED || 
-                               order.getStatus() == OrderStatus.IN_TRANSIT)
-                .toList();
+        // Active statuses only (ACCEPTED, IN_TRANSIT), from the latest order partitions
+        List<Order> activeOrders = orderRepository.findByDriverAndStatusInAndCreatedAtBetweenOrderByCreatedAtDesc(
+                driver, List.of(OrderStatus.ACCEPTED, OrderStatus.IN_TRANSIT), activeOrderRegistry.openOrdersFrom(),
+                activeOrderRegistry.openOrdersUntil());
         
-        return ResponseEntity.ok(activeOrders);
+        return ResponseEntity.ok(activeOrders.stream().map(OrderDTO::from).toList());
     }
     
     @PutMapping("/orders/{orderId}/accept")
     @PreAuthorize("hasRole('DRIVER')")
-    public ResponseEntity<Order> acceptOrder(@PathVariable Long orderId) {
+    public ResponseEntity<OrderDTO> acceptOrder(@PathVariable Long orderId) {
         // Get authenticated user from SecurityContext
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userEmail = authentication.getName();
         
         // Find the order
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findWithDetailsById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
         
         // Check if order is in PENDING status
@@ -224,9 +370,7 @@ public class OrderController {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         // Find the driver associated with this user
-        Driver driver = driverRepository.findAll().stream()
-                .filter(d -> d.getUser().getId().equals(user.getId()))
-                .findFirst()
+        Driver driver = driverRepository.findByUser(user)
                 .orElseThrow(() -> new RuntimeException("Driver record not found for this user"));
         
         // Assign the order to the driver
@@ -237,55 +381,19 @@ public class OrderController {
         driver.setIsAvailable(false);
         
         // Save both entities
-        driverRepository.save(driver);
+        availableDriverMap.onDriverChanged(driverRepository.save(driver));
         Order savedOrder = orderRepository.save(order);
+        activeOrderRegistry.assign(savedOrder, driver);
+        dispatchService.onOrderClosed(savedOrder.getId());
         
-        // Send WebSocket notification to customer
-        try {
-            messagingTemplate.convertAndSend(
-                "/topic/order/" + savedOrder.getId(),
-                new OrderStatusUpdate(
-                    savedOrder.getId(),
-                    "ACCEPTED",
-                    driver.getUser().getName(),
-                    driver.getVehicleType().getName(),
-                    driver.getVehiclePlateNumber(),
-                    driver.getCurrentLatitude(),
-                    driver.getCurrentLongitude()
-                )
-            );
-        } catch (Exception e) {
-            System.err.println("Failed to send WebSocket notification: " + e.getMessage());
-        }
+        // Notify the customer over STOMP and SSE
+        trackingEventHub.publishStatus(savedOrder);
         
-        return ResponseEntity.ok(savedOrder);
-    }
-    
-    // Helper class for WebSocket messages
-    private static class OrderStatusUpdate {
-        public Long orderId;
-        public String status;
-        public String driverName;
-        public String vehicleType;
-        public String vehicleNumber;
-        public Double driverLat;
-        public Double driverLng;
-        
-        public OrderStatusUpdate(Long orderId, String status, String driverName, 
-                                String vehicleType, String vehicleNumber,
-                                Double driverLat, Double driverLng) {
-            this.orderId = orderId;
-            this.status = status;
-            this.driverName = driverName;
-            this.vehicleType = vehicleType;
-            this.vehicleNumber = vehicleNumber;
-            this.driverLat = driverLat;
-            this.driverLng = driverLng;
-        }
+        return ResponseEntity.ok(OrderDTO.from(savedOrder));
     }
     
     @PatchMapping("/orders/{orderId}/status")
-    public ResponseEntity<Order> updateOrderStatus(
+    public ResponseEntity<OrderDTO> updateOrderStatus(
             @PathVariable Long orderId,
             @RequestParam String status) {
         // Get authenticated user from SecurityContext
@@ -293,7 +401,7 @@ public class OrderController {
         String userEmail = authentication.getName();
         
         // Find the order
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findWithDetailsById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
         
         // Get the authenticated user and find their driver record
@@ -301,9 +409,7 @@ public class OrderController {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         // Find the driver associated with this user
-        Driver driver = driverRepository.findAll().stream()
-                .filter(d -> d.getUser().getId().equals(user.getId()))
-                .findFirst()
+        Driver driver = driverRepository.findByUser(user)
                 .orElseThrow(() -> new RuntimeException("Driver record not found for this user"));
         
         // Verify that this driver is assigned to this order
@@ -312,64 +418,107 @@ public class OrderController {
         }
         
         // Parse and update the status
+        OrderStatus newStatus;
         try {
-            OrderStatus newStatus = OrderStatus.valueOf(status.toUpperCase());
-            order.setStatus(newStatus);
+            newStatus = OrderStatus.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid status value: " + status + ". Valid values are: PENDING, ACCEPTED, DRIVER_ARRIVED, IN_TRANSIT, COMPLETED, CANCELLED");
+        }
+        order.setStatus(newStatus);
+        if (newStatus == OrderStatus.IN_TRANSIT && order.getPickedUpAt() == null) {
+            order.setPickedUpAt(LocalDateTime.now());
+        }
+        BigDecimal commission = null;
+        
+        // If order is completed, mark driver as available again
+        if (newStatus == OrderStatus.COMPLETED || newStatus == OrderStatus.CANCELLED) {
+            driver.setIsAvailable(true);
+            availableDriverMap.onDriverChanged(driverRepository.save(driver));
             
-            // If order is completed, mark driver as available again
-            if (newStatus == OrderStatus.COMPLETED || newStatus == OrderStatus.CANCELLED) {
-                driver.setIsAvailable(true);
-                driverRepository.save(driver);
+            // Process payment if order is completed
+            if (newStatus == OrderStatus.COMPLETED) {
+                // Measure the trip from its GPS track since pickup and bill on that distance, held near
+                // the quoted one, when we have one; else the price quoted from the client-supplied distance.
+                // The zone multiplier is the one quoted, not whatever the zone is set to by now.
+                TripRouteDTO route = tripRouteService.summarize(order);
+                BigDecimal orderPrice = tripRouteService.isMeasured(route) && order.getVehicleType() != null
+                        ? calculateFare(order.getVehicleType(), tripRouteService.billedDistanceKm(order, route),
+                                order.getPriceMultiplier() != null
+                                        ? order.getPriceMultiplier()
+                                        : priceMultiplierAt(order.getPickupLat(), order.getPickupLng()))
+                        : order.getPrice();
+                
+                // Calculate platform commission (10% of order price)
+                BigDecimal commissionRate = DriverEarningsService.COMMISSION_RATE;
+                commission = orderPrice.multiply(commissionRate).setScale(2, RoundingMode.HALF_UP);
+                
+                // Calculate driver earning (Price - Commission)
+                BigDecimal driverEarning = orderPrice.subtract(commission);
+                
+                // Get customer and driver user objects
+                User customer = order.getCustomer();
+                User driverUser = order.getDriver().getUser();
+                
+                try {
+                    // Transfer funds from customer to driver
+                    walletService.transferFunds(
+                        customer, 
+                        driverUser, 
+                        driverEarning, 
+                        "Payment for Order #" + order.getId() + " (Driver earning after " + commissionRate.multiply(new BigDecimal("100")) + "% commission)"
+                    );
+                } catch (RuntimeException e) {
+                    // If insufficient funds, revert status and throw error
+                    order.setStatus(OrderStatus.IN_TRANSIT);
+                    orderRepository.save(order);
+                    throw new RuntimeException("Payment failed: " + e.getMessage() + ". Order status reverted to IN_TRANSIT.");
+                }
                 
-                // Process payment if order is completed
-                if (newStatus == OrderStatus.COMPLETED) {
-                    // Calculate platform commission (10% of order price)
-                    BigDecimal orderPrice = order.getPrice();
-                    BigDecimal commissionRate = new BigDecimal("0.10");
-                    BigDecimal commission = orderPrice.multiply(commissionRate).setScale(2, RoundingMode.HALF_UP);
-                    
-                    // Calculate driver earning (Price - Commission)
-                    BigDecimal driverEarning = orderPrice.subtract(commission);
-                    
-                    // Get customer and driver user objects
-                    User customer = order.getCustomer();
-                    User driverUser = order.getDriver().getUser();
-                    
-                    try {
-                        // Transfer funds from customer to driver
-                        walletService.transferFunds(
-                            customer, 
-                            driverUser, 
-                            driverEarning, 
-                            "Payment for Order #" + order.getId() + " (Driver earning after " + commissionRate.multiply(new BigDecimal("100")) + "% commission)"
-                        );
-                    } catch (RuntimeException e) {
-                        // If insufficient funds, revert status and throw error
-                        order.setStatus(OrderStatus.IN_TRANSIT);
-                        orderRepository.save(order);
-                        throw new RuntimeException("Payment failed: " + e.getMessage() + ". Order status reverted to IN_TRANSIT.");
-                    }
-                    
-                    // Send email notification to customer
-                    String customerEmail = order.getCustomer().getEmail();
-                    String subject = "Trip Completed";
-                    String body = "Your trip is finished. Total Price: LKR " + order.getPrice() + ". Amount debited from your wallet.";
-                    emailService.sendEmail(customerEmail, subject, body);
+                order.setFinalPrice(orderPrice);
+                order.setCompletedAt(LocalDateTime.now());
+                if (route.getRawPoints() >= 2) {
+                    order.setRoutePolyline(route.getPolyline());
+                    order.setActualDistance(route.getDistanceKm());
+                    order.setActualDurationSeconds(route.getDurationSeconds());
                 }
+                
+                // Send email notification to customer
+                String customerEmail = order.getCustomer().getEmail();
+                String subject = "Trip Completed";
+                String body = "Your trip is finished. Total Price: LKR " + orderPrice + ". Amount debited from your wallet.";
+                emailService.sendEmail(customerEmail, subject, body);
             }
-            
-            Order savedOrder = orderRepository.save(order);
-            return ResponseEntity.ok(savedOrder);
-        } catch (IllegalArgumentException e) {
-            throw new RuntimeException("Invalid status value: " + status + ". Valid values are: PENDING, ACCEPTED, DRIVER_ARRIVED, IN_TRANSIT, COMPLETED, CANCELLED");
         }
+        
+        // A completed trip goes into the driver's earnings rollup with the order itself
+        Order savedOrder = commission != null
+                ? driverEarningsService.saveCompletedOrder(order, commission)
+                : orderRepository.save(order);
+        activeOrderRegistry.updateStatus(savedOrder.getId(), savedOrder.getStatus());
+        trackingEventHub.publishStatus(savedOrder);
+        
+        // The compact route is stored on the order, so the raw points can age out;
+        // read the track for travel speeds first
+        if (savedOrder.getRoutePolyline() != null) {
+            etaService.learnFromTrack(savedOrder.getId());
+            tripRouteService.releaseRawPoints(savedOrder.getId());
+        }
+        
+        return ResponseEntity.ok(OrderDTO.from(savedOrder));
     }
     
     @GetMapping("/drivers/nearby")
-    public ResponseEntity<List<Driver>> getNearbyDrivers(
+    public ResponseEntity<List<DriverPublicDTO>> getNearbyDrivers(
             @RequestParam double lat,
             @RequestParam double lng) {
         List<Driver> nearbyDrivers = driverService.findDriversForOrder(lat, lng);
-        return ResponseEntity.ok(nearbyDrivers);
+        return ResponseEntity.ok(nearbyDrivers.stream()
+                .map(driver -> DriverPublicDTO.builder()
+                        .id(driver.getId())
+                        .currentLatitude(driver.getCurrentLatitude())
+                        .currentLongitude(driver.getCurrentLongitude())
+                        .vehicleType(driver.getVehicleType().getName())
+                        .build())
+                .toList());
     }
 }
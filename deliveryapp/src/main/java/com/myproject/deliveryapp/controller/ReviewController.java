@@ -7,6 +7,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.myproject.deliveryapp.dto.ReviewDTO;
 import com.myproject.deliveryapp.dto.ReviewRequest;
 import com.myproject.deliveryapp.entity.Driver;
 import com.myproject.deliveryapp.entity.Order;
@@ -28,7 +29,7 @@ public class ReviewController {
     private final DriverRepository driverRepository;
     
     @PostMapping
-    public ResponseEntity<Review> createReview(@Valid @RequestBody ReviewRequest reviewRequest) {
+    public ResponseEntity<ReviewDTO> createReview(@Valid @RequestBody ReviewRequest reviewRequest) {
         // Fetch the order
         Order order = orderRepository.findById(reviewRequest.getOrderId())
                 .orElseThrow(() -> new RuntimeException("Order not found"));
@@ -73,6 +74,13 @@ public class ReviewController {
         
         driverRepository.save(driver);
         
-        return ResponseEntity.status(HttpStatus.CREATED).body(savedReview);
+        return ResponseEntity.status(HttpStatus.CREATED).body(ReviewDTO.builder()
+                .id(savedReview.getId())
+                .orderId(order.getId())
+                .driverId(driver.getId())
+                .rating(savedReview.getRating())
+                .comment(savedReview.getComment())
+                .createdAt(savedReview.getCreatedAt())
+                .build());
     }
 }
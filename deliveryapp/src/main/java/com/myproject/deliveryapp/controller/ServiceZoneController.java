@@ -0,0 +1,128 @@
+package com.myproject.deliveryapp.controller;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.myproject.deliveryapp.dto.ServiceZoneRequest;
+import com.myproject.deliveryapp.entity.ServiceZone;
+import com.myproject.deliveryapp.repository.ServiceZoneRepository;
+import com.myproject.deliveryapp.service.ServiceZoneIndex;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Admin management of service zones. Every change rebuilds the in-memory
+ * zone index, so it applies to the next order or location update.
+ */
+@RestController
+@RequestMapping("/api/admin/zones")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class ServiceZoneController {
+    
+    private final ServiceZoneRepository serviceZoneRepository;
+    private final ServiceZoneIndex serviceZoneIndex;
+    
+    @GetMapping
+    public ResponseEntity<List<ServiceZone>> getAllZones() {
+        return ResponseEntity.ok(serviceZoneRepository.findAll());
+    }
+    
+    @PostMapping
+    public ResponseEntity<ServiceZone> createZone(@Valid @RequestBody ServiceZoneRequest request) {
+        if (serviceZoneRepository.findByName(request.getName()).isPresent()) {
+            throw new RuntimeException("A zone named " + request.getName() + " already exists");
+        }
+        
+        ServiceZone zone = ServiceZone.builder()
+                .name(request.getName())
+                .polygon(toPolygon(request.getPolygon()))
+                .enabled(request.getEnabled() == null || request.getEnabled())
+                .priceMultiplier(checkMultiplier(request.getPriceMultiplier()))
+                .build();
+        
+        ServiceZone savedZone = serviceZoneRepository.save(zone);
+        serviceZoneIndex.rebuild();
+        return ResponseEntity.status(HttpStatus.CREATED).body(savedZone);
+    }
+    
+    @PutMapping("/{id}")
+    public ResponseEntity<ServiceZone> updateZone(@PathVariable Long id, @Valid @RequestBody ServiceZoneRequest request) {
+        ServiceZone zone = serviceZoneRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Service zone not found with id: " + id));
+        if (serviceZoneRepository.findByName(request.getName())
+                .filter(other -> !other.getId().equals(id))
+                .isPresent()) {
+            throw new RuntimeException("A zone named " + request.getName() + " already exists");
+        }
+        
+        zone.setName(request.getName());
+        zone.setPolygon(toPolygon(request.getPolygon()));
+        if (request.getEnabled() != null) {
+            zone.setEnabled(request.getEnabled());
+        }
+        zone.setPriceMultiplier(checkMultiplier(request.getPriceMultiplier()));
+        
+        ServiceZone savedZone = serviceZoneRepository.save(zone);
+        serviceZoneIndex.rebuild();
+        return ResponseEntity.ok(savedZone);
+    }
+    
+    @PatchMapping("/{id}/enabled")
+    public ResponseEntity<ServiceZone> setZoneEnabled(@PathVariable Long id, @RequestParam boolean enabled) {
+        ServiceZone zone = serviceZoneRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Service zone not found with id: " + id));
+        
+        zone.setEnabled(enabled);
+        ServiceZone savedZone = serviceZoneRepository.save(zone);
+        serviceZoneIndex.rebuild();
+        return ResponseEntity.ok(savedZone);
+    }
+    
+    @DeleteMapping("/{id}")
+    public ResponseEntity<String> deleteZone(@PathVariable Long id) {
+        ServiceZone zone = serviceZoneRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Service zone not found with id: " + id));
+        
+        serviceZoneRepository.delete(zone);
+        serviceZoneIndex.rebuild();
+        return ResponseEntity.ok("Service zone deleted successfully");
+    }
+    
+    private String toPolygon(List<List<Double>> points) {
+        for (List<Double> point : points) {
+            if (point == null || point.size() != 2 || point.get(0) == null || point.get(1) == null
+                    || Math.abs(point.get(0)) > 90 || Math.abs(point.get(1)) > 180) {
+                throw new RuntimeException("Each polygon point must be a valid [lat, lng] pair");
+            }
+        }
+        String polygon = points.stream()
+                .map(point -> point.get(0) + "," + point.get(1))
+                .collect(Collectors.joining(";"));
+        serviceZoneIndex.checkSize(ServiceZoneIndex.parsePolygon(polygon));
+        return polygon;
+    }
+    
+    private static BigDecimal checkMultiplier(BigDecimal multiplier) {
+        if (multiplier != null && multiplier.signum() <= 0) {
+            throw new RuntimeException("Price multiplier must be greater than zero");
+        }
+        return multiplier;
+    }
+}
@@ -0,0 +1,68 @@
+package com.myproject.deliveryapp.controller;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.myproject.deliveryapp.dto.TrackingSnapshotDTO;
+import com.myproject.deliveryapp.service.ActiveOrderRegistry;
+import com.myproject.deliveryapp.service.TrackingEventHub;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Live order tracking served from memory. Unlike GET /api/orders/{id}, these
+ * endpoints read nothing from the database themselves. The only lookup is the
+ * JWT's user, which JwtAuthenticationFilter caches for
+ * app.security.principal-cache-ttl-ms, so a client polling or streaming an
+ * order costs at most one users query per cache period.
+ */
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+public class TrackingController {
+    
+    private final ActiveOrderRegistry activeOrderRegistry;
+    private final TrackingEventHub trackingEventHub;
+    
+    @GetMapping("/orders/{id}/tracking")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'DRIVER', 'ADMIN')")
+    public ResponseEntity<TrackingSnapshotDTO> getTrackingSnapshot(@PathVariable Long id, Authentication authentication) {
+        checkTrackingAccess(id, authentication);
+        
+        TrackingSnapshotDTO snapshot = activeOrderRegistry.snapshot(id);
+        if (snapshot == null) {
+            throw new RuntimeException("Order is not being tracked");
+        }
+        return ResponseEntity.ok(snapshot);
+    }
+    
+    /**
+     * Server-Sent Events stream of status changes and driver positions for
+     * clients that cannot keep a STOMP session. Reconnecting clients send
+     * Last-Event-ID to resume where they left off.
+     */
+    @GetMapping(value = "/orders/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'DRIVER', 'ADMIN')")
+    public SseEmitter streamTrackingEvents(@PathVariable Long id,
+                                           @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                           Authentication authentication) {
+        checkTrackingAccess(id, authentication);
+        return trackingEventHub.subscribe(id, lastEventId);
+    }
+    
+    private void checkTrackingAccess(Long orderId, Authentication authentication) {
+        boolean admin = authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+        if (!activeOrderRegistry.canTrack(orderId, authentication.getName(), admin)) {
+            throw new RuntimeException("Order is not being tracked or access denied");
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.myproject.deliveryapp.controller;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -53,14 +55,18 @@ public class WalletController {
     }
     
     @GetMapping("/transactions")
-    public ResponseEntity<List<WalletTransaction>> getTransactions() {
+    public ResponseEntity<List<WalletTransaction>> getTransactions(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate since) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userEmail = authentication.getName();
         
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        List<WalletTransaction> transactions = walletService.getTransactionHistory(user);
+        // With a start date only the monthly partitions from then on are read
+        List<WalletTransaction> transactions = since != null
+                ? walletService.getTransactionHistory(user, since.atStartOfDay())
+                : walletService.getTransactionHistory(user);
         return ResponseEntity.ok(transactions);
     }
 }
@@ -0,0 +1,200 @@
+package com.myproject.deliveryapp.dispatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.myproject.deliveryapp.util.GeoUtils;
+
+/**
+ * Routes dispatch work to region-owned partitions.
+ *
+ * A region is a coarse Web Mercator tile (regionZoom), and each region is
+ * hashed to one of the partitions. Updates for a driver or order go to the
+ * partition owning its region; when a driver crosses into another region the
+ * old owner is told to drop it. Searches whose radius spans several regions
+ * are split per owning partition and the partial results merged here, which
+ * is the only place that ever sees more than one partition's state.
+ *
+ * Which region a driver or order is in is updated together with handing the
+ * update to the partitions, atomically per driver or order, so concurrent
+ * updates for one driver reach the partitions in the order they took effect
+ * here and never leave the driver behind in a region it has left.
+ *
+ * Plain Java so it can be benchmarked without Spring; see DispatchService
+ * for the wiring into the application.
+ */
+public class DispatchCoordinator implements AutoCloseable {
+    
+    private final DispatchPartition[] partitions;
+    private final int regionZoom;
+    
+    private final Map<Long, Long> driverRegions = new ConcurrentHashMap<>();
+    private final Map<Long, Long> orderRegions = new ConcurrentHashMap<>();
+    
+    /**
+     * @param queueCapacity messages each partition queues before callers have to wait
+     */
+    public DispatchCoordinator(int partitionCount, int regionZoom, int cellZoom, int queueCapacity) {
+        this.partitions = new DispatchPartition[Math.max(1, partitionCount)];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new DispatchPartition(i, cellZoom, queueCapacity);
+        }
+        this.regionZoom = regionZoom;
+    }
+    
+    public int partitionCount() {
+        return partitions.length;
+    }
+    
+    public void upsertDriver(long driverId, double lat, double lng, String vehicleType) {
+        long region = regionOf(lat, lng);
+        driverRegions.compute(driverId, (id, previous) -> {
+            if (previous != null && previous != region) {
+                partitionFor(previous).removeDriver(previous, driverId);
+            }
+            partitionFor(region).upsertDriver(region, driverId, lat, lng, vehicleType);
+            return region;
+        });
+    }
+    
+    public void removeDriver(long driverId) {
+        driverRegions.computeIfPresent(driverId, (id, region) -> {
+            partitionFor(region).removeDriver(region, driverId);
+            return null;
+        });
+    }
+    
+    public void addOrder(PendingOrder order) {
+        long region = regionOf(order.getPickupLat(), order.getPickupLng());
+        orderRegions.compute(order.getOrderId(), (id, previous) -> {
+            if (previous != null && previous != region) {
+                partitionFor(previous).removeOrder(previous, id);
+            }
+            partitionFor(region).addOrder(region, order);
+            return region;
+        });
+    }
+    
+    public void removeOrder(long orderId) {
+        orderRegions.computeIfPresent(orderId, (id, region) -> {
+            partitionFor(region).removeOrder(region, orderId);
+            return null;
+        });
+    }
+    
+    /**
+     * @param vehicleType vehicle type name to match, or null for any
+     */
+    public CompletableFuture<List<DriverCandidate>> nearestDrivers(double lat, double lng, double radiusMeters,
+                                                                   String vehicleType, int limit) {
+        List<CompletableFuture<List<DriverCandidate>>> parts = new ArrayList<>();
+        regionsByPartition(lat, lng, radiusMeters).forEach((partition, regions) -> parts.add(
+                partition.nearestDrivers(regions, lat, lng, radiusMeters, vehicleType, limit)));
+        
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture[0])).thenApply(done -> {
+            if (parts.size() == 1) {
+                return parts.get(0).join();
+            }
+            List<DriverCandidate> merged = new ArrayList<>();
+            parts.forEach(part -> merged.addAll(part.join()));
+            return DispatchPartition.nearest(merged, limit);
+        });
+    }
+    
+    /**
+     * Pending orders with a pickup within the radius, oldest first.
+     */
+    public CompletableFuture<List<PendingOrder>> pendingOrdersNear(double lat, double lng, double radiusMeters) {
+        List<CompletableFuture<List<PendingOrder>>> parts = new ArrayList<>();
+        regionsByPartition(lat, lng, radiusMeters).forEach((partition, regions) -> parts.add(
+                partition.pendingOrdersNear(regions, lat, lng, radiusMeters)));
+        
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture[0])).thenApply(done -> {
+            List<PendingOrder> merged = new ArrayList<>();
+            parts.forEach(part -> merged.addAll(part.join()));
+            merged.sort((a, b) -> Long.compare(a.getCreatedAtMillis(), b.getCreatedAtMillis()));
+            return merged;
+        });
+    }
+    
+    public Set<Long> driverIds() {
+        return Set.copyOf(driverRegions.keySet());
+    }
+    
+    public Set<Long> orderIds() {
+        return Set.copyOf(orderRegions.keySet());
+    }
+    
+    /**
+     * Copies every partition's state. Updates made while the copy is taken
+     * may or may not be in it, so a snapshot built from it must be followed
+     * by every update logged from before the copy started.
+     */
+    CompletableFuture<DispatchState> capture() {
+        List<CompletableFuture<DispatchState>> parts = new ArrayList<>();
+        for (DispatchPartition partition : partitions) {
+            parts.add(partition.capture());
+        }
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture[0])).thenApply(done -> {
+            DispatchState merged = new DispatchState();
+            parts.forEach(part -> merged.addAll(part.join()));
+            return merged;
+        });
+    }
+    
+    /**
+     * Completes once every partition has applied the updates handed to it so far.
+     */
+    public CompletableFuture<Void> barrier() {
+        CompletableFuture<?>[] parts = new CompletableFuture[partitions.length];
+        for (int i = 0; i < partitions.length; i++) {
+            parts[i] = partitions[i].barrier();
+        }
+        return CompletableFuture.allOf(parts);
+    }
+    
+    @Override
+    public void close() {
+        for (DispatchPartition partition : partitions) {
+            partition.shutdown();
+        }
+    }
+    
+    /**
+     * The regions overlapping the search circle's bounding box, grouped by owning partition.
+     */
+    private Map<DispatchPartition, List<Long>> regionsByPartition(double lat, double lng, double radiusMeters) {
+        double dLat = DispatchPartition.latDegrees(radiusMeters);
+        double dLng = DispatchPartition.lngDegrees(radiusMeters, lat);
+        int minX = GeoUtils.tileX(lng - dLng, regionZoom);
+        int maxX = GeoUtils.tileX(lng + dLng, regionZoom);
+        int minY = GeoUtils.tileY(lat + dLat, regionZoom);
+        int maxY = GeoUtils.tileY(lat - dLat, regionZoom);
+        
+        Map<DispatchPartition, List<Long>> grouped = new HashMap<>();
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                long region = regionKey(x, y);
+                grouped.computeIfAbsent(partitionFor(region), k -> new ArrayList<>()).add(region);
+            }
+        }
+        return grouped;
+    }
+    
+    private long regionOf(double lat, double lng) {
+        return regionKey(GeoUtils.tileX(lng, regionZoom), GeoUtils.tileY(lat, regionZoom));
+    }
+    
+    private DispatchPartition partitionFor(long region) {
+        return partitions[Math.floorMod(Long.hashCode(region * 0x9E3779B97F4A7C15L), partitions.length)];
+    }
+    
+    private static long regionKey(int x, int y) {
+        return ((long) x << 32) | y;
+    }
+}
@@ -0,0 +1,522 @@
+package com.myproject.deliveryapp.dispatch;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-ahead log and snapshots of dispatch state, so a restarted node can
+ * serve dispatch again without first re-querying every driver and order.
+ *
+ * Each update applied to the coordinator is appended to the current WAL
+ * segment as a length-prefixed, CRC32-checked record. Records are buffered
+ * and only written and forced by {@link #sync()}, which runs every few
+ * hundred milliseconds (group commit); a crash loses at most that window,
+ * which the database reload after startup makes up.
+ *
+ * A snapshot first rolls the log to a new segment, then copies the
+ * coordinator's state into one checksummed file (written to a temporary
+ * file, forced and atomically renamed) that names the segment replay starts
+ * from. Older segments and snapshots are then deleted. Replaying from that
+ * segment is safe even if some of its updates are already in the snapshot,
+ * because every record sets or clears a driver or order outright.
+ *
+ * Recovery loads the newest snapshot whose checksum holds and replays the
+ * segments from the one it names. Within a segment replay stops at the
+ * first torn or corrupt record, which can only be the unsynced tail from a
+ * crash.
+ */
+@Slf4j
+public class DispatchJournal implements AutoCloseable {
+    
+    private static final String WAL_PREFIX = "wal-";
+    private static final String WAL_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    
+    private static final int SNAPSHOT_MAGIC = 0x44535031; // "DSP1"
+    // magic, driver count, order count, replay-from segment
+    private static final int SNAPSHOT_HEADER_BYTES = 4 + 4 + 4 + 8;
+    private static final int SNAPSHOT_TRAILER_BYTES = 8;
+    // length and CRC of each WAL record
+    private static final int RECORD_HEADER_BYTES = 8;
+    
+    private static final byte DRIVER_UPSERT = 1;
+    private static final byte DRIVER_REMOVE = 2;
+    private static final byte ORDER_ADD = 3;
+    private static final byte ORDER_REMOVE = 4;
+    
+    private final Path directory;
+    private final Object snapshotLock = new Object();
+    
+    // Guarded by this
+    private final ByteBuffer buffer;
+    private final RecordEncoder encoder = new RecordEncoder();
+    private final CRC32 crc = new CRC32();
+    private FileChannel wal;
+    private long walSequence;
+    private boolean failed;
+    
+    public DispatchJournal(Path directory, int bufferBytes) {
+        this.directory = directory.toAbsolutePath().normalize();
+        this.buffer = ByteBuffer.allocateDirect(Math.max(4096, bufferBytes));
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not open dispatch journal at " + this.directory, ex);
+        }
+    }
+    
+    /**
+     * What recovery loaded and how long it took.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Recovery {
+        private final int snapshotDrivers;
+        private final int snapshotOrders;
+        private final int replayedRecords;
+        private final long elapsedMillis;
+    }
+    
+    /**
+     * Loads the latest snapshot and the log after it into the coordinator,
+     * waits until the partitions have applied it, and opens a new segment
+     * for further updates. Must be called once before anything is logged.
+     */
+    public synchronized Recovery recover(DispatchCoordinator target) {
+        long started = System.nanoTime();
+        try {
+            TreeMap<Long, Path> snapshots = list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+            TreeMap<Long, Path> segments = list(WAL_PREFIX, WAL_SUFFIX);
+            
+            int drivers = 0;
+            int orders = 0;
+            long replayFrom = segments.isEmpty() ? 0 : segments.firstKey();
+            for (Map.Entry<Long, Path> snapshot : snapshots.descendingMap().entrySet()) {
+                MappedByteBuffer data = map(snapshot.getValue());
+                if (!validSnapshot(data)) {
+                    log.warn("Skipping corrupt dispatch snapshot {}", snapshot.getValue().getFileName());
+                    continue;
+                }
+                drivers = data.getInt(4);
+                orders = data.getInt(8);
+                replayFrom = data.getLong(12);
+                data.position(SNAPSHOT_HEADER_BYTES).limit(data.capacity() - SNAPSHOT_TRAILER_BYTES);
+                while (data.hasRemaining()) {
+                    apply(data, target);
+                }
+                break;
+            }
+            
+            int replayed = 0;
+            for (Map.Entry<Long, Path> segment : segments.tailMap(replayFrom, true).entrySet()) {
+                replayed += replay(segment.getValue(), target);
+            }
+            
+            target.barrier().join();
+            
+            long highest = Math.max(replayFrom, segments.isEmpty() ? 0 : segments.lastKey());
+            walSequence = highest + 1;
+            wal = openSegment(walSequence);
+            deleteBefore(replayFrom, segments, snapshots);
+            
+            return new Recovery(drivers, orders, replayed, (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not recover dispatch journal at " + directory, ex);
+        }
+    }
+    
+    public synchronized void driverUpserted(long driverId, double lat, double lng, String vehicleType) {
+        encoder.begin(DRIVER_UPSERT).putLong(driverId).putDouble(lat).putDouble(lng).putString(vehicleType);
+        append();
+    }
+    
+    public synchronized void driverRemoved(long driverId) {
+        encoder.begin(DRIVER_REMOVE).putLong(driverId);
+        append();
+    }
+    
+    public synchronized void orderAdded(PendingOrder order) {
+        encodeOrder(encoder, order);
+        append();
+    }
+    
+    public synchronized void orderRemoved(long orderId) {
+        encoder.begin(ORDER_REMOVE).putLong(orderId);
+        append();
+    }
+    
+    /**
+     * Writes buffered records and forces them to disk.
+     */
+    public void sync() {
+        FileChannel channel;
+        synchronized (this) {
+            if (wal == null || failed) {
+                return;
+            }
+            writeBuffer();
+            channel = wal;
+        }
+        try {
+            // Forced outside the lock so appends are not held up by the disk
+            channel.force(false);
+        } catch (IOException ex) {
+            // A segment closed by a concurrent roll has already been forced
+            if (channel.isOpen()) {
+                synchronized (this) {
+                    fail(ex);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Writes a snapshot of the coordinator's current state and drops the log before it.
+     */
+    public void snapshot(DispatchCoordinator source) {
+        synchronized (snapshotLock) {
+            long replayFrom;
+            synchronized (this) {
+                if (wal == null || failed) {
+                    return;
+                }
+                // Updates logged from here on land in the new segment, which replay starts from
+                try {
+                    rollSegment();
+                } catch (IOException ex) {
+                    fail(ex);
+                    return;
+                }
+                replayFrom = walSequence;
+            }
+            
+            DispatchState state = source.capture().join();
+            try {
+                writeSnapshot(replayFrom, state);
+                deleteBefore(replayFrom, list(WAL_PREFIX, WAL_SUFFIX), list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX));
+            } catch (IOException ex) {
+                // The log is still complete, so the previous snapshot plus replay stays valid
+                log.warn("Failed to write dispatch snapshot: {}", ex.getMessage());
+            }
+        }
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (wal == null) {
+            return;
+        }
+        try {
+            if (!failed) {
+                writeBuffer();
+                wal.force(false);
+            }
+            wal.close();
+        } catch (IOException ex) {
+            log.warn("Failed to close dispatch journal: {}", ex.getMessage());
+        }
+        wal = null;
+    }
+    
+    private void append() {
+        if (wal == null || failed) {
+            return;
+        }
+        ByteBuffer record = encoder.finish();
+        int length = record.remaining();
+        crc.reset();
+        crc.update(record.array(), 0, length);
+        
+        if (buffer.remaining() < RECORD_HEADER_BYTES + length) {
+            writeBuffer();
+        }
+        if (buffer.remaining() >= RECORD_HEADER_BYTES + length) {
+            buffer.putInt(length).putInt((int) crc.getValue()).put(record);
+            return;
+        }
+        // Larger than the whole buffer (a very long pickup address): write it straight through
+        ByteBuffer large = ByteBuffer.allocate(RECORD_HEADER_BYTES + length);
+        large.putInt(length).putInt((int) crc.getValue()).put(record).flip();
+        try {
+            while (large.hasRemaining()) {
+                wal.write(large);
+            }
+        } catch (IOException ex) {
+            fail(ex);
+        }
+    }
+    
+    private void writeBuffer() {
+        if (failed || buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                wal.write(buffer);
+            }
+        } catch (IOException ex) {
+            fail(ex);
+        } finally {
+            buffer.clear();
+        }
+    }
+    
+    // Journaling is an optimization; on a disk error stop logging and let the next start reload from the database
+    private void fail(IOException ex) {
+        failed = true;
+        log.error("Dispatch journal disabled after write failure: {}", ex.getMessage());
+    }
+    
+    private void rollSegment() throws IOException {
+        writeBuffer();
+        if (failed) {
+            throw new IOException("journal has failed");
+        }
+        wal.force(false);
+        wal.close();
+        walSequence++;
+        wal = openSegment(walSequence);
+    }
+    
+    private FileChannel openSegment(long sequence) throws IOException {
+        return FileChannel.open(directory.resolve(fileName(WAL_PREFIX, sequence, WAL_SUFFIX)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+    
+    private void writeSnapshot(long replayFrom, DispatchState state) throws IOException {
+        Path target = directory.resolve(fileName(SNAPSHOT_PREFIX, replayFrom, SNAPSHOT_SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        CRC32 checksum = new CRC32();
+        RecordEncoder records = new RecordEncoder();
+        ByteBuffer out = ByteBuffer.allocateDirect(1 << 20);
+        
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.putInt(SNAPSHOT_MAGIC).putInt(state.drivers.size()).putInt(state.orders.size()).putLong(replayFrom);
+            for (DispatchState.DriverState driver : state.drivers) {
+                records.begin(DRIVER_UPSERT).putLong(driver.driverId).putDouble(driver.lat).putDouble(driver.lng)
+                        .putString(driver.vehicleType);
+                put(channel, out, records.finish(), checksum);
+            }
+            for (PendingOrder order : state.orders) {
+                encodeOrder(records, order);
+                put(channel, out, records.finish(), checksum);
+            }
+            drain(channel, out, checksum);
+            
+            ByteBuffer trailer = ByteBuffer.allocate(SNAPSHOT_TRAILER_BYTES).putLong(checksum.getValue()).flip();
+            while (trailer.hasRemaining()) {
+                channel.write(trailer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    private static void put(FileChannel channel, ByteBuffer out, ByteBuffer record, CRC32 checksum) throws IOException {
+        if (out.remaining() < record.remaining()) {
+            drain(channel, out, checksum);
+        }
+        if (out.remaining() < record.remaining()) {
+            ByteBuffer large = record.duplicate();
+            checksum.update(record);
+            while (large.hasRemaining()) {
+                channel.write(large);
+            }
+            return;
+        }
+        out.put(record);
+    }
+    
+    private static void drain(FileChannel channel, ByteBuffer out, CRC32 checksum) throws IOException {
+        out.flip();
+        checksum.update(out.duplicate());
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+    
+    private static boolean validSnapshot(MappedByteBuffer data) {
+        int size = data.capacity();
+        if (size < SNAPSHOT_HEADER_BYTES + SNAPSHOT_TRAILER_BYTES || data.getInt(0) != SNAPSHOT_MAGIC) {
+            return false;
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(data.duplicate().position(0).limit(size - SNAPSHOT_TRAILER_BYTES));
+        return checksum.getValue() == data.getLong(size - SNAPSHOT_TRAILER_BYTES);
+    }
+    
+    /**
+     * @return the number of records replayed before the end of the segment (or its torn tail)
+     */
+    private int replay(Path segment, DispatchCoordinator target) throws IOException {
+        MappedByteBuffer data = map(segment);
+        CRC32 checksum = new CRC32();
+        int replayed = 0;
+        while (data.remaining() >= RECORD_HEADER_BYTES) {
+            int length = data.getInt();
+            int expected = data.getInt();
+            if (length <= 0 || length > data.remaining()) {
+                log.warn("Dispatch journal {} ends in a torn record after {} records", segment.getFileName(), replayed);
+                break;
+            }
+            ByteBuffer record = data.slice(data.position(), length);
+            checksum.reset();
+            checksum.update(record.duplicate());
+            if ((int) checksum.getValue() != expected) {
+                log.warn("Dispatch journal {} has a corrupt record after {} records", segment.getFileName(), replayed);
+                break;
+            }
+            apply(record, target);
+            data.position(data.position() + length);
+            replayed++;
+        }
+        return replayed;
+    }
+    
+    private static void apply(ByteBuffer record, DispatchCoordinator target) {
+        byte type = record.get();
+        switch (type) {
+            case DRIVER_UPSERT -> {
+                long driverId = record.getLong();
+                double lat = record.getDouble();
+                double lng = record.getDouble();
+                target.upsertDriver(driverId, lat, lng, getString(record));
+            }
+            case DRIVER_REMOVE -> target.removeDriver(record.getLong());
+            case ORDER_ADD -> {
+                long orderId = record.getLong();
+                double lat = record.getDouble();
+                double lng = record.getDouble();
+                String pickupLocation = getString(record);
+                String vehicleType = getString(record);
+                String price = getString(record);
+                long createdAt = record.getLong();
+                target.addOrder(new PendingOrder(orderId, lat, lng, pickupLocation, vehicleType,
+                        price != null ? new BigDecimal(price) : null, createdAt));
+            }
+            case ORDER_REMOVE -> target.removeOrder(record.getLong());
+            default -> throw new IllegalStateException("Unknown dispatch journal record type " + type);
+        }
+    }
+    
+    private static void encodeOrder(RecordEncoder encoder, PendingOrder order) {
+        encoder.begin(ORDER_ADD)
+                .putLong(order.getOrderId())
+                .putDouble(order.getPickupLat())
+                .putDouble(order.getPickupLng())
+                .putString(order.getPickupLocation())
+                .putString(order.getVehicleType())
+                .putString(order.getPrice() != null ? order.getPrice().toPlainString() : null)
+                .putLong(order.getCreatedAtMillis());
+    }
+    
+    private static String getString(ByteBuffer record) {
+        int length = record.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+    
+    private void deleteBefore(long sequence, TreeMap<Long, Path> segments, TreeMap<Long, Path> snapshots)
+            throws IOException {
+        for (Path segment : segments.headMap(sequence, false).values()) {
+            Files.deleteIfExists(segment);
+        }
+        for (Path snapshot : snapshots.headMap(sequence, false).values()) {
+            Files.deleteIfExists(snapshot);
+        }
+    }
+    
+    private TreeMap<Long, Path> list(String prefix, String suffix) throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : entries) {
+                String name = file.getFileName().toString();
+                files.put(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())), file);
+            }
+        }
+        return files;
+    }
+    
+    private static String fileName(String prefix, long sequence, String suffix) {
+        return String.format("%s%016d%s", prefix, sequence, suffix);
+    }
+    
+    /**
+     * Builds one record (type byte and payload) in a reusable heap buffer.
+     */
+    private static final class RecordEncoder {
+        private ByteBuffer record = ByteBuffer.allocate(256);
+        
+        RecordEncoder begin(byte type) {
+            record.clear();
+            record.put(type);
+            return this;
+        }
+        
+        RecordEncoder putLong(long value) {
+            ensure(8);
+            record.putLong(value);
+            return this;
+        }
+        
+        RecordEncoder putDouble(double value) {
+            ensure(8);
+            record.putDouble(value);
+            return this;
+        }
+        
+        RecordEncoder putString(String value) {
+            if (value == null) {
+                ensure(4);
+                record.putInt(-1);
+                return this;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensure(4 + bytes.length);
+            record.putInt(bytes.length).put(bytes);
+            return this;
+        }
+        
+        ByteBuffer finish() {
+            return record.flip();
+        }
+        
+        private void ensure(int bytes) {
+            if (record.remaining() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(record.capacity() * 2, record.position() + bytes));
+                larger.put(record.flip());
+                record = larger;
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.myproject.deliveryapp.dispatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.myproject.deliveryapp.util.GeoUtils;
+
+/**
+ * One shard of dispatch state. It owns the drivers and pending orders of the
+ * regions hashed to it, and all of it is read and written only on the
+ * partition's own thread: callers hand over messages (tasks) and get futures
+ * back, so partitions never share locks. The queue of messages is bounded; a
+ * caller finding it full waits for room, so a partition that falls behind
+ * slows its callers down instead of growing without limit.
+ */
+final class DispatchPartition {
+    
+    private final int cellZoom;
+    private final ThreadPoolExecutor executor;
+    
+    // Everything below is confined to the executor thread
+    private final Map<Long, Region> regions = new HashMap<>();
+    
+    DispatchPartition(int index, int cellZoom, int queueCapacity) {
+        this.cellZoom = cellZoom;
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "dispatch-" + index);
+                    thread.setDaemon(true);
+                    return thread;
+                }, DispatchPartition::waitForRoom);
+    }
+    
+    void upsertDriver(long regionKey, long driverId, double lat, double lng, String vehicleType) {
+        executor.execute(() -> region(regionKey).upsertDriver(driverId, lat, lng, vehicleType, cellOf(lat, lng)));
+    }
+    
+    void removeDriver(long regionKey, long driverId) {
+        executor.execute(() -> {
+            Region region = regions.get(regionKey);
+            if (region != null) {
+                region.removeDriver(driverId);
+            }
+        });
+    }
+    
+    void addOrder(long regionKey, PendingOrder order) {
+        executor.execute(() -> region(regionKey).orders.put(order.getOrderId(), order));
+    }
+    
+    void removeOrder(long regionKey, long orderId) {
+        executor.execute(() -> {
+            Region region = regions.get(regionKey);
+            if (region != null) {
+                region.orders.remove(orderId);
+            }
+        });
+    }
+    
+    /**
+     * Nearest drivers of the vehicle type (any type if null) within the radius, across the given regions.
+     */
+    CompletableFuture<List<DriverCandidate>> nearestDrivers(List<Long> regionKeys, double lat, double lng,
+                                                            double radiusMeters, String vehicleType, int limit) {
+        return CompletableFuture.supplyAsync(() -> {
+            int minX = GeoUtils.tileX(lng - lngDegrees(radiusMeters, lat), cellZoom);
+            int maxX = GeoUtils.tileX(lng + lngDegrees(radiusMeters, lat), cellZoom);
+            int minY = GeoUtils.tileY(lat + latDegrees(radiusMeters), cellZoom);
+            int maxY = GeoUtils.tileY(lat - latDegrees(radiusMeters), cellZoom);
+            
+            List<DriverCandidate> candidates = new ArrayList<>();
+            for (long regionKey : regionKeys) {
+                Region region = regions.get(regionKey);
+                if (region == null) {
+                    continue;
+                }
+                for (int x = minX; x <= maxX; x++) {
+                    for (int y = minY; y <= maxY; y++) {
+                        Set<DriverEntry> cell = region.cells.get(cellKey(x, y));
+                        if (cell == null) {
+                            continue;
+                        }
+                        for (DriverEntry driver : cell) {
+                            if (vehicleType != null && !vehicleType.equals(driver.vehicleType)) {
+                                continue;
+                            }
+                            double meters = GeoUtils.distanceMeters(lat, lng, driver.lat, driver.lng);
+                            if (meters <= radiusMeters) {
+                                candidates.add(new DriverCandidate(driver.driverId, meters));
+                            }
+                        }
+                    }
+                }
+            }
+            return nearest(candidates, limit);
+        }, executor);
+    }
+    
+    /**
+     * Pending orders with a pickup within the radius, in no particular order.
+     */
+    CompletableFuture<List<PendingOrder>> pendingOrdersNear(List<Long> regionKeys, double lat, double lng,
+                                                            double radiusMeters) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<PendingOrder> nearby = new ArrayList<>();
+            for (long regionKey : regionKeys) {
+                Region region = regions.get(regionKey);
+                if (region == null) {
+                    continue;
+                }
+                for (PendingOrder order : region.orders.values()) {
+                    if (GeoUtils.distanceMeters(lat, lng, order.getPickupLat(), order.getPickupLng()) <= radiusMeters) {
+                        nearby.add(order);
+                    }
+                }
+            }
+            return nearby;
+        }, executor);
+    }
+    
+    /**
+     * Copies the partition's drivers and orders, on its own thread.
+     */
+    CompletableFuture<DispatchState> capture() {
+        return CompletableFuture.supplyAsync(() -> {
+            DispatchState state = new DispatchState();
+            for (Region region : regions.values()) {
+                for (DriverEntry driver : region.drivers.values()) {
+                    state.drivers.add(new DispatchState.DriverState(driver.driverId, driver.lat, driver.lng,
+                            driver.vehicleType));
+                }
+                state.orders.addAll(region.orders.values());
+            }
+            return state;
+        }, executor);
+    }
+    
+    /**
+     * Completes once every update handed over before it has been applied.
+     */
+    CompletableFuture<Void> barrier() {
+        return CompletableFuture.runAsync(() -> { }, executor);
+    }
+    
+    void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Queues a message that found the queue full once there is room. Running
+     * it on the caller's thread instead would break the confinement above.
+     */
+    private static void waitForRoom(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Dispatch partition is shut down");
+        }
+        try {
+            executor.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted waiting for room in a dispatch partition", e);
+        }
+    }
+    
+    static List<DriverCandidate> nearest(List<DriverCandidate> candidates, int limit) {
+        candidates.sort((a, b) -> Double.compare(a.getDistanceMeters(), b.getDistanceMeters()));
+        return candidates.size() > limit ? new ArrayList<>(candidates.subList(0, limit)) : candidates;
+    }
+    
+    static double latDegrees(double meters) {
+        return Math.toDegrees(meters / GeoUtils.EARTH_RADIUS_METERS);
+    }
+    
+    static double lngDegrees(double meters, double lat) {
+        return latDegrees(meters) / Math.max(0.01, Math.cos(Math.toRadians(lat)));
+    }
+    
+    private Region region(long regionKey) {
+        return regions.computeIfAbsent(regionKey, k -> new Region());
+    }
+    
+    private long cellOf(double lat, double lng) {
+        return cellKey(GeoUtils.tileX(lng, cellZoom), GeoUtils.tileY(lat, cellZoom));
+    }
+    
+    private static long cellKey(int x, int y) {
+        return ((long) x << 32) | y;
+    }
+    
+    private static final class DriverEntry {
+        final long driverId;
+        double lat;
+        double lng;
+        String vehicleType;
+        long cell;
+        
+        DriverEntry(long driverId) {
+            this.driverId = driverId;
+        }
+    }
+    
+    private static final class Region {
+        final Map<Long, DriverEntry> drivers = new HashMap<>();
+        final Map<Long, Set<DriverEntry>> cells = new HashMap<>();
+        // Insertion order is creation order, so scans return the oldest orders first
+        final Map<Long, PendingOrder> orders = new LinkedHashMap<>();
+        
+        void upsertDriver(long driverId, double lat, double lng, String vehicleType, long cell) {
+            DriverEntry driver = drivers.get(driverId);
+            if (driver == null) {
+                driver = new DriverEntry(driverId);
+                drivers.put(driverId, driver);
+            } else if (driver.cell != cell) {
+                leaveCell(driver);
+            }
+            driver.lat = lat;
+            driver.lng = lng;
+            driver.vehicleType = vehicleType;
+            driver.cell = cell;
+            cells.computeIfAbsent(cell, k -> new HashSet<>()).add(driver);
+        }
+        
+        void removeDriver(long driverId) {
+            DriverEntry driver = drivers.remove(driverId);
+            if (driver != null) {
+                leaveCell(driver);
+            }
+        }
+        
+        private void leaveCell(DriverEntry driver) {
+            Set<DriverEntry> cell = cells.get(driver.cell);
+            if (cell != null) {
+                cell.remove(driver);
+                if (cell.isEmpty()) {
+                    cells.remove(driver.cell);
+                }
+            }
+        }
+    }
+}
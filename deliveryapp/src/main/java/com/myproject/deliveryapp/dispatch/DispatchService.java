@@ -0,0 +1,252 @@
+package com.myproject.deliveryapp.dispatch;
+
+import java.nio.file.Paths;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.myproject.deliveryapp.dto.NearbyOrderDTO;
+import com.myproject.deliveryapp.entity.Order;
+import com.myproject.deliveryapp.enums.OrderStatus;
+import com.myproject.deliveryapp.repository.OrderRepository;
+import com.myproject.deliveryapp.service.ActiveOrderRegistry;
+import com.myproject.deliveryapp.util.GeoUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Application side of dispatch: feeds available drivers and pending orders
+ * into the region-partitioned {@link DispatchCoordinator}, offers each new
+ * order to the nearest matching drivers, and answers drivers' "orders near
+ * me" queries from memory.
+ *
+ * State changes are journaled (see {@link DispatchJournal}), so after a
+ * restart dispatch is served from the recovered state within seconds. The
+ * usual database load still runs afterwards and reconciles it.
+ */
+@Service
+@Slf4j
+public class DispatchService implements DisposableBean {
+    
+    private static final int JOURNAL_LOCK_STRIPES = 64;
+    
+    private final DispatchCoordinator coordinator;
+    private final OrderRepository orderRepository;
+    private final ActiveOrderRegistry activeOrderRegistry;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final double offerRadiusMeters;
+    private final int offerDrivers;
+    // Null when journaling is off
+    private final DispatchJournal journal;
+    // Striped by driver or order id: an update is handed to its partition and journaled under the same
+    // lock, so the journal holds a driver's or order's updates in the order the partitions applied them
+    private final Object[] journalLocks = new Object[JOURNAL_LOCK_STRIPES];
+    
+    public DispatchService(OrderRepository orderRepository, ActiveOrderRegistry activeOrderRegistry,
+                           SimpMessagingTemplate messagingTemplate,
+                           @Value("${app.dispatch.partitions:0}") int partitions,
+                           @Value("${app.dispatch.region-zoom:10}") int regionZoom,
+                           @Value("${app.dispatch.cell-zoom:14}") int cellZoom,
+                           @Value("${app.dispatch.queue-capacity:65536}") int queueCapacity,
+                           @Value("${app.dispatch.offer-radius-km:5}") double offerRadiusKm,
+                           @Value("${app.dispatch.offer-drivers:3}") int offerDrivers,
+                           @Value("${app.dispatch.journal.enabled:true}") boolean journalEnabled,
+                           @Value("${app.dispatch.journal.dir:data/dispatch}") String journalDir,
+                           @Value("${app.dispatch.journal.buffer-bytes:262144}") int journalBufferBytes) {
+        int partitionCount = partitions > 0 ? partitions : Runtime.getRuntime().availableProcessors();
+        this.coordinator = new DispatchCoordinator(partitionCount, regionZoom, cellZoom, queueCapacity);
+        this.orderRepository = orderRepository;
+        this.activeOrderRegistry = activeOrderRegistry;
+        this.messagingTemplate = messagingTemplate;
+        this.offerRadiusMeters = offerRadiusKm * 1000.0;
+        this.offerDrivers = offerDrivers;
+        this.journal = journalEnabled ? new DispatchJournal(Paths.get(journalDir), journalBufferBytes) : null;
+        for (int i = 0; i < journalLocks.length; i++) {
+            journalLocks[i] = new Object();
+        }
+    }
+    
+    // Right after the zones, before the driver map and the order load below feed in database state
+    @EventListener(ApplicationReadyEvent.class)
+    @org.springframework.core.annotation.Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void recover() {
+        if (journal == null) {
+            return;
+        }
+        DispatchJournal.Recovery recovery = journal.recover(coordinator);
+        log.info("Recovered dispatch state in {} ms: snapshot of {} drivers and {} orders, {} logged updates",
+                recovery.getElapsedMillis(), recovery.getSnapshotDrivers(), recovery.getSnapshotOrders(),
+                recovery.getReplayedRecords());
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Set<Long> pendingIds = new HashSet<>();
+        for (Order order : orderRepository.findByStatusInAndCreatedAtBetween(List.of(OrderStatus.PENDING),
+                activeOrderRegistry.openOrdersFrom(), activeOrderRegistry.openOrdersUntil())) {
+            if (hasPickup(order)) {
+                addOrder(toPendingOrder(order));
+                pendingIds.add(order.getId());
+            }
+        }
+        // Recovered orders that were taken or cancelled while this node was down
+        for (Long orderId : coordinator.orderIds()) {
+            if (!pendingIds.contains(orderId)) {
+                onOrderClosed(orderId);
+            }
+        }
+        log.info("Loaded {} pending orders into {} dispatch partitions", pendingIds.size(), coordinator.partitionCount());
+    }
+    
+    /**
+     * Drops recovered drivers that the freshly loaded driver map no longer lists as available.
+     */
+    public void retainDrivers(Collection<Long> availableDriverIds) {
+        Set<Long> available = new HashSet<>(availableDriverIds);
+        for (Long driverId : coordinator.driverIds()) {
+            if (!available.contains(driverId)) {
+                onDriverUnavailable(driverId);
+            }
+        }
+    }
+    
+    public void onDriverAvailable(long driverId, double lat, double lng, String vehicleType) {
+        synchronized (journalLock(driverId)) {
+            coordinator.upsertDriver(driverId, lat, lng, vehicleType);
+            if (journal != null) {
+                journal.driverUpserted(driverId, lat, lng, vehicleType);
+            }
+        }
+    }
+    
+    public void onDriverUnavailable(long driverId) {
+        synchronized (journalLock(driverId)) {
+            coordinator.removeDriver(driverId);
+            if (journal != null) {
+                journal.driverRemoved(driverId);
+            }
+        }
+    }
+    
+    /**
+     * Queues the order for dispatch and offers it to the nearest available drivers of its vehicle type.
+     */
+    public void onOrderCreated(Order order) {
+        // Orders without pickup coordinates cannot be placed; drivers still see them in the full pending list
+        if (!hasPickup(order)) {
+            return;
+        }
+        PendingOrder pending = toPendingOrder(order);
+        addOrder(pending);
+        coordinator.nearestDrivers(pending.getPickupLat(), pending.getPickupLng(), offerRadiusMeters,
+                pending.getVehicleType(), offerDrivers)
+                .thenAccept(candidates -> candidates.forEach(candidate -> messagingTemplate.convertAndSend(
+                        "/topic/driver-offers/" + candidate.getDriverId(),
+                        toDTO(pending, candidate.getDistanceMeters()))))
+                .exceptionally(e -> {
+                    log.warn("Failed to offer order {}: {}", pending.getOrderId(), e.getMessage());
+                    return null;
+                });
+    }
+    
+    /**
+     * Takes the order out of dispatch once it is accepted or cancelled.
+     */
+    public void onOrderClosed(long orderId) {
+        synchronized (journalLock(orderId)) {
+            coordinator.removeOrder(orderId);
+            if (journal != null) {
+                journal.orderRemoved(orderId);
+            }
+        }
+    }
+    
+    public CompletableFuture<List<NearbyOrderDTO>> pendingOrdersNear(double lat, double lng, double radiusKm) {
+        return coordinator.pendingOrdersNear(lat, lng, radiusKm * 1000.0)
+                .thenApply(orders -> orders.stream()
+                        .map(order -> toDTO(order,
+                                GeoUtils.distanceMeters(lat, lng, order.getPickupLat(), order.getPickupLng())))
+                        .toList());
+    }
+    
+    @Scheduled(fixedDelayString = "${app.dispatch.journal.sync-ms:200}")
+    public void syncJournal() {
+        if (journal != null) {
+            journal.sync();
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${app.dispatch.journal.snapshot-interval-ms:60000}",
+            initialDelayString = "${app.dispatch.journal.snapshot-interval-ms:60000}")
+    public void snapshotJournal() {
+        if (journal != null) {
+            journal.snapshot(coordinator);
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        // A final snapshot leaves no log to replay on the next start
+        if (journal != null) {
+            journal.snapshot(coordinator);
+            journal.close();
+        }
+        coordinator.close();
+    }
+    
+    // Journaled only after the update is handed to its partition (here and above), so a snapshot
+    // can never miss an update whose record went to the segment before it
+    private void addOrder(PendingOrder pending) {
+        synchronized (journalLock(pending.getOrderId())) {
+            coordinator.addOrder(pending);
+            if (journal != null) {
+                journal.orderAdded(pending);
+            }
+        }
+    }
+    
+    private Object journalLock(long id) {
+        return journalLocks[(int) (id & (JOURNAL_LOCK_STRIPES - 1))];
+    }
+    
+    private static boolean hasPickup(Order order) {
+        return order.getPickupLat() != null && order.getPickupLng() != null;
+    }
+    
+    private static PendingOrder toPendingOrder(Order order) {
+        return new PendingOrder(
+                order.getId(),
+                order.getPickupLat(),
+                order.getPickupLng(),
+                order.getPickupLocation(),
+                order.getVehicleType() != null ? order.getVehicleType().getName() : null,
+                order.getPrice(),
+                order.getCreatedAt() != null
+                        ? order.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                        : System.currentTimeMillis());
+    }
+    
+    private static NearbyOrderDTO toDTO(PendingOrder order, double distanceMeters) {
+        return NearbyOrderDTO.builder()
+                .orderId(order.getOrderId())
+                .pickupLocation(order.getPickupLocation())
+                .pickupLat(order.getPickupLat())
+                .pickupLng(order.getPickupLng())
+                .vehicleType(order.getVehicleType())
+                .price(order.getPrice())
+                .distanceKm(Math.round(distanceMeters / 10.0) / 100.0)
+                .build();
+    }
+}
@@ -0,0 +1,33 @@
+package com.myproject.deliveryapp.dispatch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A copy of dispatch state, as captured from the partitions for a snapshot
+ * or read back from one.
+ */
+final class DispatchState {
+    
+    final List<DriverState> drivers = new ArrayList<>();
+    final List<PendingOrder> orders = new ArrayList<>();
+    
+    void addAll(DispatchState other) {
+        drivers.addAll(other.drivers);
+        orders.addAll(other.orders);
+    }
+    
+    static final class DriverState {
+        final long driverId;
+        final double lat;
+        final double lng;
+        final String vehicleType;
+        
+        DriverState(long driverId, double lat, double lng, String vehicleType) {
+            this.driverId = driverId;
+            this.lat = lat;
+            this.lng = lng;
+            this.vehicleType = vehicleType;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.myproject.deliveryapp.dispatch;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A driver found by a nearest-driver search, with its straight-line distance.
+ */
+@Getter
+@AllArgsConstructor
+public class DriverCandidate {
+    private final long driverId;
+    private final double distanceMeters;
+}
@@ -0,0 +1,22 @@
+package com.myproject.deliveryapp.dispatch;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The parts of a pending order dispatch needs, detached from the entity so
+ * partitions can hold it without touching JPA state.
+ */
+@Getter
+@AllArgsConstructor
+public class PendingOrder {
+    private final long orderId;
+    private final double pickupLat;
+    private final double pickupLng;
+    private final String pickupLocation;
+    private final String vehicleType;
+    private final BigDecimal price;
+    private final long createdAtMillis;
+}
@@ -0,0 +1,24 @@
+package com.myproject.deliveryapp.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsResultDTO {
+    private LocalDate from;
+    private LocalDate to;
+    private String groupBy;
+    // Archived days read and trips scanned in them
+    private int days;
+    private long scannedTrips;
+    private long elapsedMillis;
+    private List<AnalyticsRowDTO> rows;
+}
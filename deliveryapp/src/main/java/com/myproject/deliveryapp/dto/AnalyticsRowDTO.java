@@ -0,0 +1,25 @@
+package com.myproject.deliveryapp.dto;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsRowDTO {
+    private String key;
+    private long trips;
+    private BigDecimal revenue;
+    // Null when no trip in the group has a known distance or duration
+    private Double averageDistanceKm;
+    private Double averageDurationMinutes;
+    private int drivers;
+    private double tripsPerDriver;
+    // Hours spent on trips per driver: utilisation over the queried days
+    private double tripHoursPerDriver;
+}
@@ -0,0 +1,21 @@
+package com.myproject.deliveryapp.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailableDriversDeltaDTO {
+    // Version to send as ?since= on the next poll
+    private long version;
+    // True when drivers is the whole map and the client should replace its copy
+    private boolean full;
+    private List<DriverPublicDTO> drivers;
+    private List<Long> removed;
+}
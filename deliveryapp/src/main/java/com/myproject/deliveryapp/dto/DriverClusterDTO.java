@@ -0,0 +1,20 @@
+package com.myproject.deliveryapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DriverClusterDTO {
+    // Centroid of the drivers in the cluster
+    private Double latitude;
+    private Double longitude;
+    private Integer count;
+    private String vehicleType;
+    // Set only when the cluster is a single driver, so it can be drawn as a plain marker
+    private Long driverId;
+}
@@ -0,0 +1,52 @@
+package com.myproject.deliveryapp.dto;
+
+import com.myproject.deliveryapp.entity.Driver;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A driver as the admin driver lists and the availability toggle return it;
+ * bank details stay on the pending-approval view and the OTP is never sent.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DriverDTO {
+    private Long id;
+    private UserSummaryDTO user;
+    private VehicleTypeSummaryDTO vehicleType;
+    private String licenseNumber;
+    private String vehiclePlateNumber;
+    private Boolean isAvailable;
+    private Boolean isApproved;
+    private Boolean isBlocked;
+    private Double currentLatitude;
+    private Double currentLongitude;
+    private Double averageRating;
+    private Integer ratingCount;
+    private String profilePhotoUrl;
+    private String licensePhotoUrl;
+    
+    public static DriverDTO from(Driver driver) {
+        return DriverDTO.builder()
+                .id(driver.getId())
+                .user(UserSummaryDTO.from(driver.getUser()))
+                .vehicleType(VehicleTypeSummaryDTO.from(driver.getVehicleType()))
+                .licenseNumber(driver.getLicenseNumber())
+                .vehiclePlateNumber(driver.getVehiclePlateNumber())
+                .isAvailable(driver.getIsAvailable())
+                .isApproved(driver.getIsApproved())
+                .isBlocked(driver.getIsBlocked())
+                .currentLatitude(driver.getCurrentLatitude())
+                .currentLongitude(driver.getCurrentLongitude())
+                .averageRating(driver.getAverageRating())
+                .ratingCount(driver.getRatingCount())
+                .profilePhotoUrl(driver.getProfilePhotoUrl())
+                .licensePhotoUrl(driver.getLicensePhotoUrl())
+                .build();
+    }
+}
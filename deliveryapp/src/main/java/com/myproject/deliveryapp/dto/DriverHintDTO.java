@@ -0,0 +1,25 @@
+package com.myproject.deliveryapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Repositioning suggestion pushed to an idle driver on /topic/driver-hints/{driverId}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DriverHintDTO {
+    private Long driverId;
+    // Center of the area expected to be short of drivers
+    private Double targetLat;
+    private Double targetLng;
+    private Double distanceKm;
+    // Pickups expected there over the forecast horizon, minus drivers already there
+    private Double expectedShortfall;
+    // Epoch millis after which the hint should be ignored
+    private Long validUntil;
+}
@@ -0,0 +1,44 @@
+package com.myproject.deliveryapp.dto;
+
+import com.myproject.deliveryapp.entity.Driver;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The driver assigned to an order, as the customer and admin screens show it
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DriverSummaryDTO {
+    private Long id;
+    private UserSummaryDTO user;
+    private String vehicleType;
+    private String vehiclePlateNumber;
+    private String licenseNumber;
+    private Double currentLatitude;
+    private Double currentLongitude;
+    private Double averageRating;
+    private Integer ratingCount;
+    
+    public static DriverSummaryDTO from(Driver driver) {
+        if (driver == null) {
+            return null;
+        }
+        return DriverSummaryDTO.builder()
+                .id(driver.getId())
+                .user(UserSummaryDTO.from(driver.getUser()))
+                .vehicleType(driver.getVehicleType() != null ? driver.getVehicleType().getName() : null)
+                .vehiclePlateNumber(driver.getVehiclePlateNumber())
+                .licenseNumber(driver.getLicenseNumber())
+                .currentLatitude(driver.getCurrentLatitude())
+                .currentLongitude(driver.getCurrentLongitude())
+                .averageRating(driver.getAverageRating())
+                .ratingCount(driver.getRatingCount())
+                .build();
+    }
+}
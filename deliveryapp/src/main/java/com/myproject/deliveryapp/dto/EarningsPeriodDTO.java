@@ -0,0 +1,25 @@
+package com.myproject.deliveryapp.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EarningsPeriodDTO {
+    // First day of the day, week (Monday) or month
+    private LocalDate periodStart;
+    private int trips;
+    private BigDecimal gross;
+    private BigDecimal commission;
+    // Gross less commission: what the driver keeps
+    private BigDecimal net;
+    private BigDecimal cashCollected;
+    private double distanceKm;
+}
@@ -0,0 +1,23 @@
+package com.myproject.deliveryapp.dto;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FareQuoteDTO {
+    private Long vehicleTypeId;
+    private String vehicleType;
+    private Double distanceKm;
+    private BigDecimal price;
+    // Estimated seconds from pickup to drop
+    private Long tripEtaSeconds;
+    // Estimated seconds for the nearest available driver of this type to reach the pickup, null if none is online
+    private Long pickupEtaSeconds;
+}
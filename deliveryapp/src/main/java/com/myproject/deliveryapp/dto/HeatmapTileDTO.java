@@ -0,0 +1,20 @@
+package com.myproject.deliveryapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HeatmapTileDTO {
+    private int z;
+    private int x;
+    private int y;
+    // Bins per tile side; counts is size * size long, row-major from the north-west corner
+    private int size;
+    private int[] counts;
+    private long total;
+}
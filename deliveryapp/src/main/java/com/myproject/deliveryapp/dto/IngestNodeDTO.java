@@ -0,0 +1,22 @@
+package com.myproject.deliveryapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The node a driver should send location pings to, returned by
+ * /api/drivers/{driverId}/ingest-node and pushed on
+ * /topic/driver-ingest/{driverId} when pings reach the wrong node.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestNodeDTO {
+    private Long driverId;
+    private String nodeId;
+    // Base URL to reconnect to; null if the node does not advertise one
+    private String address;
+}
@@ -0,0 +1,27 @@
+package com.myproject.deliveryapp.dto;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A pending order near a driver, as listed for drivers and pushed as an offer
+ * on /topic/driver-offers/{driverId}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyOrderDTO {
+    private Long orderId;
+    private String pickupLocation;
+    private Double pickupLat;
+    private Double pickupLng;
+    private String vehicleType;
+    private BigDecimal price;
+    // Straight-line distance from the driver to the pickup
+    private Double distanceKm;
+}
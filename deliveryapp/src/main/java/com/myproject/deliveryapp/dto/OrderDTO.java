@@ -0,0 +1,69 @@
+package com.myproject.deliveryapp.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.myproject.deliveryapp.entity.Order;
+import com.myproject.deliveryapp.enums.OrderStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An order as the order endpoints return it. The route polyline is served by
+ * /orders/{id}/route instead; the customer, driver and vehicle type are the
+ * summaries the apps display, read from the Order.DETAILS fetch graph.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderDTO {
+    private Long id;
+    private OrderStatus status;
+    private UserSummaryDTO customer;
+    private DriverSummaryDTO driver;
+    private VehicleTypeSummaryDTO vehicleType;
+    private String pickupLocation;
+    private Double pickupLat;
+    private Double pickupLng;
+    private String dropLocation;
+    private Double dropLat;
+    private Double dropLng;
+    private BigDecimal price;
+    private BigDecimal finalPrice;
+    private String paymentMethod;
+    private Double distance;
+    private Double actualDistance;
+    private Long actualDurationSeconds;
+    private String pickupOtp;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+    
+    public static OrderDTO from(Order order) {
+        return OrderDTO.builder()
+                .id(order.getId())
+                .status(order.getStatus())
+                .customer(UserSummaryDTO.from(order.getCustomer()))
+                .driver(DriverSummaryDTO.from(order.getDriver()))
+                .vehicleType(VehicleTypeSummaryDTO.from(order.getVehicleType()))
+                .pickupLocation(order.getPickupLocation())
+                .pickupLat(order.getPickupLat())
+                .pickupLng(order.getPickupLng())
+                .dropLocation(order.getDropLocation())
+                .dropLat(order.getDropLat())
+                .dropLng(order.getDropLng())
+                .price(order.getPrice())
+                .finalPrice(order.getFinalPrice())
+                .paymentMethod(order.getPaymentMethod())
+                .distance(order.getDistance())
+                .actualDistance(order.getActualDistance())
+                .actualDurationSeconds(order.getActualDurationSeconds())
+                .pickupOtp(order.getPickupOtp())
+                .createdAt(order.getCreatedAt())
+                .completedAt(order.getCompletedAt())
+                .build();
+    }
+}
@@ -0,0 +1,26 @@
+package com.myproject.deliveryapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Order status change pushed to /topic/order/{id} and to the order's SSE stream.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusUpdate {
+    private Long orderId;
+    private String status;
+    private String driverName;
+    private String vehicleType;
+    private String vehicleNumber;
+    private Double driverLat;
+    private Double driverLng;
+    // Estimated seconds until the driver reaches the pickup / drop, when known
+    private Long pickupEtaSeconds;
+    private Long dropEtaSeconds;
+}
@@ -0,0 +1,21 @@
+package com.myproject.deliveryapp.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewDTO {
+    private Long id;
+    private Long orderId;
+    private Long driverId;
+    private Integer rating;
+    private String comment;
+    private LocalDateTime createdAt;
+}
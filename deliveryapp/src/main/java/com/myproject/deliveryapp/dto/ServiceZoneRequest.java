@@ -0,0 +1,29 @@
+package com.myproject.deliveryapp.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ServiceZoneRequest {
+    
+    @NotBlank(message = "Zone name is required")
+    private String name;
+    
+    // Vertices as [lat, lng] pairs, in order around the zone
+    @NotNull(message = "Zone polygon is required")
+    @Size(min = 3, max = 1000, message = "Zone polygon needs 3 to 1000 points")
+    private List<List<Double>> polygon;
+    
+    private Boolean enabled;
+    
+    private BigDecimal priceMultiplier;
+}
@@ -0,0 +1,22 @@
+package com.myproject.deliveryapp.dto;
+
+import com.myproject.deliveryapp.enums.OrderStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrackingSnapshotDTO {
+    private Long orderId;
+    private OrderStatus status;
+    private Long driverId;
+    private Double driverLat;
+    private Double driverLng;
+    // Epoch millis of the driver position, null if no position is known yet
+    private Long positionTimestamp;
+}
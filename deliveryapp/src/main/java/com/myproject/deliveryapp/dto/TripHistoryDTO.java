@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
@@ -17,4 +18,11 @@ public class TripHistoryDTO {
     private Double finalPrice;
     private String paymentMethod;
     private LocalDateTime completedAt;
+    
+    // For the JPQL constructor expression in OrderRepository, which selects the stored BigDecimal fare
+    public TripHistoryDTO(Long id, String pickupAddress, String dropAddress, Double distance,
+                          BigDecimal finalPrice, String paymentMethod, LocalDateTime completedAt) {
+        this(id, pickupAddress, dropAddress, distance, finalPrice != null ? finalPrice.doubleValue() : 0.0,
+                paymentMethod, completedAt);
+    }
 }
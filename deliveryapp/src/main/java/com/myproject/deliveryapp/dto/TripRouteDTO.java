@@ -0,0 +1,20 @@
+package com.myproject.deliveryapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripRouteDTO {
+    private Long orderId;
+    // Encoded polyline (precision 1e5) of the simplified track
+    private String polyline;
+    private Double distanceKm;
+    private Long durationSeconds;
+    private Integer rawPoints;
+    private Integer routePoints;
+}
@@ -0,0 +1,30 @@
+package com.myproject.deliveryapp.dto;
+
+import com.myproject.deliveryapp.entity.User;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The contact details of a customer or driver shown alongside an order or
+ * driver; never the password or verification codes.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSummaryDTO {
+    private Long id;
+    private String name;
+    private String email;
+    private String phone;
+    
+    public static UserSummaryDTO from(User user) {
+        if (user == null) {
+            return null;
+        }
+        return new UserSummaryDTO(user.getId(), user.getName(), user.getEmail(), user.getPhone());
+    }
+}
@@ -0,0 +1,29 @@
+package com.myproject.deliveryapp.dto;
+
+import java.math.BigDecimal;
+
+import com.myproject.deliveryapp.entity.VehicleType;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VehicleTypeSummaryDTO {
+    private Long id;
+    private String name;
+    private BigDecimal pricePerKm;
+    private BigDecimal baseFare;
+    
+    public static VehicleTypeSummaryDTO from(VehicleType vehicleType) {
+        if (vehicleType == null) {
+            return null;
+        }
+        return new VehicleTypeSummaryDTO(vehicleType.getId(), vehicleType.getName(),
+                vehicleType.getPricePerKm(), vehicleType.getBaseFare());
+    }
+}
@@ -0,0 +1,30 @@
+package com.myproject.deliveryapp.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * A running app node, kept alive by its own heartbeat.
+ */
+@Entity
+@Table(name = "cluster_members")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ClusterMember {
+    
+    @Id
+    @Column(length = 64)
+    private String nodeId;
+    
+    // Base URL drivers are redirected to, e.g. http://10.0.0.5:8080
+    private String address;
+    
+    // Database time of the last heartbeat, so node clocks never need to agree
+    @Column(nullable = false)
+    private LocalDateTime heartbeatAt;
+}
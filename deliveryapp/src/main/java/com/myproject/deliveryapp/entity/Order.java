@@ -4,6 +4,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.PartitionKey;
 
 import com.myproject.deliveryapp.enums.OrderStatus;
 
@@ -11,11 +12,15 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -23,6 +28,15 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+// Everything an order response or the live order registries read, fetched in the same select
+@NamedEntityGraph(name = Order.DETAILS, attributeNodes = {
+        @NamedAttributeNode("customer"),
+        @NamedAttributeNode("vehicleType"),
+        @NamedAttributeNode(value = "driver", subgraph = "driver")
+}, subgraphs = @NamedSubgraph(name = "driver", attributeNodes = {
+        @NamedAttributeNode("user"),
+        @NamedAttributeNode("vehicleType")
+}))
 @Entity
 @Table(name = "orders")
 @Getter
@@ -32,19 +46,21 @@ import lombok.Setter;
 @Builder
 public class Order {
     
+    public static final String DETAILS = "Order.details";
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id", nullable = false)
     private User customer;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "driver_id")
     private Driver driver;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "vehicle_type_id")
     private VehicleType vehicleType;
     
@@ -76,6 +92,10 @@ public class Order {
     @Column(precision = 10, scale = 2)
     private BigDecimal finalPrice;
     
+    // The pickup zone's multiplier the price was quoted with; a measured fare applies it again
+    @Column(precision = 5, scale = 2)
+    private BigDecimal priceMultiplier;
+    
     private String paymentMethod;
     
     private Double distance;
@@ -84,7 +104,20 @@ public class Order {
     
     private LocalDateTime completedAt;
     
+    // Set when the trip starts (IN_TRANSIT); the measured route begins here
+    private LocalDateTime pickedUpAt;
+    
+    // Measured route, filled in from the GPS track when the order completes
+    @Column(columnDefinition = "TEXT")
+    private String routePolyline;
+    
+    private Double actualDistance;
+    
+    private Long actualDurationSeconds;
+    
+    // The partition key: updates and deletes match on it as well as the id, so they touch one partition
     @CreationTimestamp
+    @PartitionKey
     @Column(updatable = false, columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
     private LocalDateTime createdAt;
 }
@@ -0,0 +1,27 @@
+package com.myproject.deliveryapp.entity;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.Immutable;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * An order's id and the created_at of its partition, written by a trigger on
+ * orders (V8). Read-only here; by-id order lookups go through it so they
+ * only touch one partition.
+ */
+@Entity
+@Immutable
+@Table(name = "order_keys")
+@Getter
+@NoArgsConstructor
+public class OrderKey {
+    
+    @Id
+    private Long id;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
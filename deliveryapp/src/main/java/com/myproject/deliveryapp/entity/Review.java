@@ -3,6 +3,8 @@ package com.myproject.deliveryapp.entity;
 import java.time.LocalDateTime;
 
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.NotFound;
+import org.hibernate.annotations.NotFoundAction;
 
 import jakarta.persistence.*;
 import lombok.*;
@@ -26,7 +28,9 @@ public class Review {
     @Column(length = 1000)
     private String comment;
     
+    // Null once the order's month has been archived out of the partitioned orders table
     @OneToOne
+    @NotFound(action = NotFoundAction.IGNORE)
     @JoinColumn(name = "order_id", nullable = false, unique = true)
     private Order order;
     
@@ -0,0 +1,34 @@
+package com.myproject.deliveryapp.entity;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Table(name = "service_zones")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ServiceZone {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false, unique = true)
+    private String name;
+    
+    // Polygon vertices as "lat,lng;lat,lng;..." (closing vertex optional)
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String polygon;
+    
+    @Column(nullable = false)
+    private Boolean enabled;
+    
+    // Multiplies the vehicle type fare for pickups in this zone; null means no override
+    @Column(precision = 5, scale = 2)
+    private BigDecimal priceMultiplier;
+}
@@ -0,0 +1,7 @@
+package com.myproject.deliveryapp.enums;
+
+public enum EarningsGranularity {
+    DAY,
+    WEEK,
+    MONTH
+}
@@ -5,9 +5,11 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -15,13 +17,32 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Authenticates requests carrying a Bearer token. The user a token names is
+ * looked up once and then kept for app.security.principal-cache-ttl-ms, so
+ * clients polling every few seconds (tracking, nearby orders) do not read
+ * the users table on each request. Users are never deleted and their roles
+ * never change, so the cached principal only goes stale by its expiry.
+ */
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtUtils jwtUtils;
     private final UserDetailsService userDetailsService;
+    private final long principalCacheTtlMs;
+    
+    private final Map<String, CachedPrincipal> principals = new ConcurrentHashMap<>();
+    
+    public JwtAuthenticationFilter(JwtUtils jwtUtils,
+                                   UserDetailsService userDetailsService,
+                                   @Value("${app.security.principal-cache-ttl-ms:60000}") long principalCacheTtlMs) {
+        this.jwtUtils = jwtUtils;
+        this.userDetailsService = userDetailsService;
+        this.principalCacheTtlMs = principalCacheTtlMs;
+    }
     
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) throws ServletException {
@@ -51,7 +72,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         // If token is valid and no authentication is set in context
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            UserDetails userDetails = loadPrincipal(username);
             
             if (jwtUtils.validateToken(token)) {
                 UsernamePasswordAuthenticationToken authToken = 
@@ -67,4 +88,33 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         filterChain.doFilter(request, response);
     }
+    
+    @Scheduled(fixedDelayString = "${app.security.principal-cache-ttl-ms:60000}")
+    public void evictExpiredPrincipals() {
+        long now = System.currentTimeMillis();
+        principals.values().removeIf(cached -> cached.expiresAt < now);
+    }
+    
+    UserDetails loadPrincipal(String username) {
+        long now = System.currentTimeMillis();
+        CachedPrincipal cached = principals.get(username);
+        if (cached != null && cached.expiresAt >= now) {
+            return cached.userDetails;
+        }
+        UserDetails loaded = userDetailsService.loadUserByUsername(username);
+        // Only the name and roles are needed past this point; the password hash is not kept
+        UserDetails principal = new User(loaded.getUsername(), "", loaded.getAuthorities());
+        principals.put(username, new CachedPrincipal(principal, now + principalCacheTtlMs));
+        return principal;
+    }
+    
+    private static final class CachedPrincipal {
+        final UserDetails userDetails;
+        final long expiresAt;
+        
+        CachedPrincipal(UserDetails userDetails, long expiresAt) {
+            this.userDetails = userDetails;
+            this.expiresAt = expiresAt;
+        }
+    }
 }
@@ -0,0 +1,51 @@
+package com.myproject.deliveryapp.filter;
+
+import java.io.IOException;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.myproject.deliveryapp.querystats.QueryStats;
+import com.myproject.deliveryapp.querystats.QueryStatsRecorder;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Counts the SQL each HTTP request runs, the authentication lookup included,
+ * and records it against the route pattern that handled it
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class QueryStatsFilter extends OncePerRequestFilter {
+    
+    private final QueryStatsRecorder queryStatsRecorder;
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) throws ServletException {
+        // SockJS transports; STOMP messages are counted by QueryStatsChannelInterceptor
+        return !queryStatsRecorder.isEnabled() || request.getRequestURI().startsWith("/ws");
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        QueryStats stats = QueryStats.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            stats.end();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            queryStatsRecorder.record("http", request.getMethod() + " " + (pattern != null ? pattern : "UNMATCHED"),
+                    stats);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.myproject.deliveryapp.querystats;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQL statements executed, rows read and time spent in JDBC by one unit of
+ * work (an HTTP request, a STOMP message, a test), counted by
+ * QueryStatsListener on the thread doing the work. Queries on other threads,
+ * such as the async dispatch lookups, are not included. Scopes nest: an inner
+ * scope counts on its own and is added to the enclosing one when it ends.
+ */
+public final class QueryStats {
+    
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+    
+    private final QueryStats outer;
+    private int statements;
+    private long rows;
+    private long elapsedNanos;
+    private long queryStartedAt;
+    
+    private QueryStats(QueryStats outer) {
+        this.outer = outer;
+    }
+    
+    /**
+     * Starts counting on this thread until {@link #end()}
+     */
+    public static QueryStats begin() {
+        QueryStats stats = new QueryStats(CURRENT.get());
+        CURRENT.set(stats);
+        return stats;
+    }
+    
+    /**
+     * The scope queries on this thread are counted against, or null
+     */
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+    
+    public static QueryStats measure(Runnable work) {
+        QueryStats stats = begin();
+        try {
+            work.run();
+        } finally {
+            stats.end();
+        }
+        return stats;
+    }
+    
+    /**
+     * Stops counting and adds the counts to the enclosing scope, if any
+     */
+    public QueryStats end() {
+        if (CURRENT.get() != this) {
+            throw new IllegalStateException("Query stats scopes must end innermost first");
+        }
+        if (outer != null) {
+            outer.statements += statements;
+            outer.rows += rows;
+            outer.elapsedNanos += elapsedNanos;
+            CURRENT.set(outer);
+        } else {
+            CURRENT.remove();
+        }
+        return this;
+    }
+    
+    void queryStarted() {
+        queryStartedAt = System.nanoTime();
+    }
+    
+    void queryFinished() {
+        statements++;
+        elapsedNanos += System.nanoTime() - queryStartedAt;
+    }
+    
+    void rowRead() {
+        rows++;
+    }
+    
+    public int getStatements() {
+        return statements;
+    }
+    
+    public long getRows() {
+        return rows;
+    }
+    
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+    
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+    
+    @Override
+    public String toString() {
+        return statements + " statements, " + rows + " rows, " + getElapsedMillis() + " ms";
+    }
+}
@@ -0,0 +1,29 @@
+package com.myproject.deliveryapp.querystats;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+
+@Configuration
+public class QueryStatsConfig {
+    
+    // Static so the DataSource is wrapped before JPA, Flyway or the JdbcTemplates pick it up
+    @Bean
+    public static BeanPostProcessor queryStatsDataSourceProxy(
+            @Value("${app.query-stats.enabled:true}") boolean enabled) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (enabled && bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return QueryStatsListener.instrument(dataSource, beanName);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package com.myproject.deliveryapp.querystats;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Adds the request's query counts so far as X-Query-Count, X-Query-Rows and
+ * X-Query-Time-Ms to every response body, for development (off by default).
+ * They are taken just before the body is written; the full counts go to the
+ * sql.* metrics.
+ */
+@ControllerAdvice
+public class QueryStatsHeaderAdvice implements ResponseBodyAdvice<Object> {
+    
+    @Value("${app.query-stats.headers:false}")
+    private boolean headers;
+    
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return headers;
+    }
+    
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        QueryStats stats = QueryStats.current();
+        if (stats != null) {
+            HttpHeaders responseHeaders = response.getHeaders();
+            responseHeaders.set("X-Query-Count", String.valueOf(stats.getStatements()));
+            responseHeaders.set("X-Query-Rows", String.valueOf(stats.getRows()));
+            responseHeaders.set("X-Query-Time-Ms", String.valueOf(stats.getElapsedMillis()));
+        }
+        return body;
+    }
+}
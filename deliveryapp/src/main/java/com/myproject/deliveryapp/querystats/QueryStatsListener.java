@@ -0,0 +1,67 @@
+package com.myproject.deliveryapp.querystats;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * datasource-proxy listener that adds every statement (a JDBC batch counts
+ * once), its execution time and every row read from its result set to the
+ * current QueryStats scope. Threads without a scope pay one ThreadLocal read
+ * per call.
+ */
+public class QueryStatsListener implements QueryExecutionListener, MethodExecutionListener {
+    
+    /**
+     * Wraps a DataSource so the statements run through it are counted
+     */
+    public static DataSource instrument(DataSource dataSource, String name) {
+        QueryStatsListener listener = new QueryStatsListener();
+        return ProxyDataSourceBuilder.create(dataSource)
+                .name(name)
+                .listener(listener)
+                .methodListener(listener)
+                .proxyResultSet()
+                .build();
+    }
+    
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        QueryStats stats = QueryStats.current();
+        if (stats != null) {
+            stats.queryStarted();
+        }
+    }
+    
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        QueryStats stats = QueryStats.current();
+        if (stats != null) {
+            stats.queryFinished();
+        }
+    }
+    
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+    }
+    
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        if (executionContext.getTarget() instanceof ResultSet
+                && Boolean.TRUE.equals(executionContext.getResult())
+                && "next".equals(executionContext.getMethod().getName())) {
+            QueryStats stats = QueryStats.current();
+            if (stats != null) {
+                stats.rowRead();
+            }
+        }
+    }
+}
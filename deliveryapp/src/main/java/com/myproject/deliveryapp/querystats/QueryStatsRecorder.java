@@ -0,0 +1,49 @@
+package com.myproject.deliveryapp.querystats;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Exports the QueryStats of each HTTP request and STOMP message as
+ * sql.statements, sql.rows and sql.time, tagged with the kind of work and the
+ * endpoint (route pattern or normalised destination), and logs units of work
+ * that run more statements than the warning threshold, the usual sign of an
+ * N+1.
+ */
+@Component
+@Slf4j
+public class QueryStatsRecorder {
+    
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int warnStatements;
+    
+    public QueryStatsRecorder(MeterRegistry meterRegistry,
+                              @Value("${app.query-stats.enabled:true}") boolean enabled,
+                              @Value("${app.query-stats.warn-statements:20}") int warnStatements) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.warnStatements = warnStatements;
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void record(String kind, String endpoint, QueryStats stats) {
+        Tags tags = Tags.of("kind", kind, "endpoint", endpoint);
+        meterRegistry.summary("sql.statements", tags).record(stats.getStatements());
+        meterRegistry.summary("sql.rows", tags).record(stats.getRows());
+        meterRegistry.timer("sql.time", tags).record(stats.getElapsedNanos(), TimeUnit.NANOSECONDS);
+        
+        if (stats.getStatements() > warnStatements) {
+            log.warn("{} {} ran {}", kind, endpoint, stats);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.myproject.deliveryapp.replication;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.myproject.deliveryapp.entity.ClusterMember;
+import com.myproject.deliveryapp.repository.ClusterMemberRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Live app nodes and which of them owns each driver's location stream.
+ *
+ * Every node heartbeats a row in cluster_members and reads back the rows
+ * fresh within the TTL; drivers are spread over those nodes with a
+ * {@link ConsistentHashRing}. A node that stops heartbeating drops out
+ * after the TTL (or at once on a clean shutdown) and only its drivers move.
+ *
+ * With affinity off, or replication off, this node owns every driver.
+ */
+@Service
+@Slf4j
+public class ClusterMembership implements DisposableBean {
+    
+    private final ClusterMemberRepository clusterMemberRepository;
+    private final String nodeId;
+    private final boolean enabled;
+    private final String address;
+    private final long memberTtlMs;
+    private final int virtualNodes;
+    
+    private volatile ConsistentHashRing ring = ConsistentHashRing.of(List.of(), 1);
+    private volatile Map<String, String> addresses = Map.of();
+    
+    public ClusterMembership(ClusterMemberRepository clusterMemberRepository, ReplicationBus replicationBus,
+                             @Value("${app.cluster.affinity:false}") boolean affinity,
+                             @Value("${app.cluster.advertised-address:}") String address,
+                             @Value("${app.cluster.member-ttl-ms:6000}") long memberTtlMs,
+                             @Value("${app.cluster.virtual-nodes:128}") int virtualNodes) {
+        this.clusterMemberRepository = clusterMemberRepository;
+        this.nodeId = replicationBus.nodeId();
+        this.address = address;
+        this.memberTtlMs = memberTtlMs;
+        this.virtualNodes = Math.max(1, virtualNodes);
+        // Pings for other nodes' drivers are forwarded over the replication channel
+        this.enabled = affinity && replicationBus.isEnabled();
+        if (affinity && !enabled) {
+            log.warn("Driver affinity needs app.replication.enabled=true; this node will own every driver");
+        }
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void join() {
+        heartbeat();
+    }
+    
+    @Scheduled(fixedDelayString = "${app.cluster.heartbeat-ms:2000}")
+    public void heartbeat() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            clusterMemberRepository.heartbeat(nodeId, address);
+            List<ClusterMember> live = clusterMemberRepository.findLive(memberTtlMs / 1000.0);
+            update(live);
+            // Rows from nodes long gone only clutter the table
+            clusterMemberRepository.deleteStale(memberTtlMs * 10 / 1000.0);
+        } catch (RuntimeException e) {
+            // Keep routing on the last known ring rather than claiming every driver
+            log.warn("Cluster heartbeat failed: {}", e.getMessage());
+        }
+    }
+    
+    public String nodeId() {
+        return nodeId;
+    }
+    
+    /**
+     * @return the ID of the node owning the driver's location stream
+     */
+    public String ownerOf(long driverId) {
+        if (!enabled) {
+            return nodeId;
+        }
+        String owner = ring.owner(driverId);
+        return owner != null ? owner : nodeId;
+    }
+    
+    public boolean ownsDriver(long driverId) {
+        return nodeId.equals(ownerOf(driverId));
+    }
+    
+    /**
+     * @return the advertised base URL of the node, or null if it has none
+     */
+    public String addressOf(String memberId) {
+        String memberAddress = addresses.get(memberId);
+        return memberAddress == null || memberAddress.isBlank() ? null : memberAddress;
+    }
+    
+    public List<String> members() {
+        return enabled ? ring.members() : List.of(nodeId);
+    }
+    
+    @Override
+    public void destroy() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            // Leave at once so the other nodes take over this node's drivers without waiting for the TTL
+            clusterMemberRepository.deleteById(nodeId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to leave the cluster: {}", e.getMessage());
+        }
+    }
+    
+    private void update(List<ClusterMember> live) {
+        List<String> nodeIds = live.stream().map(ClusterMember::getNodeId).sorted().toList();
+        if (!nodeIds.equals(ring.members())) {
+            log.info("Cluster members changed: {} -> {}", ring.members(), nodeIds);
+            ring = ConsistentHashRing.of(nodeIds, virtualNodes);
+        }
+        Map<String, String> byNode = new HashMap<>();
+        live.forEach(member -> byNode.put(member.getNodeId(), member.getAddress() != null ? member.getAddress() : ""));
+        addresses = byNode;
+    }
+}
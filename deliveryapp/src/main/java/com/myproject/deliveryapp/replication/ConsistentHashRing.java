@@ -0,0 +1,114 @@
+package com.myproject.deliveryapp.replication;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable consistent-hash ring of node IDs.
+ *
+ * Each node is placed at a number of pseudo-random points (virtual nodes)
+ * and a key belongs to the first point clockwise from its hash. When a node
+ * joins or leaves only the keys next to its points move, about 1/N of them,
+ * and the virtual nodes keep the share per node even. Lookups are a binary
+ * search over a sorted array, so a ring can be read from any thread.
+ */
+public final class ConsistentHashRing {
+    
+    private static final ConsistentHashRing EMPTY = new ConsistentHashRing(new long[0], new String[0], List.of());
+    
+    private final long[] points;
+    private final String[] owners;
+    private final List<String> members;
+    
+    private ConsistentHashRing(long[] points, String[] owners, List<String> members) {
+        this.points = points;
+        this.owners = owners;
+        this.members = members;
+    }
+    
+    public static ConsistentHashRing of(Collection<String> nodeIds, int virtualNodes) {
+        if (nodeIds.isEmpty()) {
+            return EMPTY;
+        }
+        List<String> members = nodeIds.stream().distinct().sorted().toList();
+        int count = members.size() * virtualNodes;
+        long[] entries = new long[count];
+        String[] byEntry = new String[count];
+        Integer[] order = new Integer[count];
+        int n = 0;
+        for (String nodeId : members) {
+            for (int i = 0; i < virtualNodes; i++) {
+                entries[n] = hash(nodeId + "#" + i);
+                byEntry[n] = nodeId;
+                order[n] = n;
+                n++;
+            }
+        }
+        // Ties (vanishingly rare) go to the smaller node ID so every node builds the same ring
+        Arrays.sort(order, (a, b) -> entries[a] != entries[b]
+                ? Long.compareUnsigned(entries[a], entries[b])
+                : byEntry[a].compareTo(byEntry[b]));
+        long[] points = new long[count];
+        String[] owners = new String[count];
+        for (int i = 0; i < count; i++) {
+            points[i] = entries[order[i]];
+            owners[i] = byEntry[order[i]];
+        }
+        return new ConsistentHashRing(points, owners, members);
+    }
+    
+    public List<String> members() {
+        return members;
+    }
+    
+    public boolean isEmpty() {
+        return points.length == 0;
+    }
+    
+    /**
+     * @return the node owning the key, or null if the ring is empty
+     */
+    public String owner(long key) {
+        if (points.length == 0) {
+            return null;
+        }
+        long hash = mix(key);
+        int low = 0;
+        int high = points.length - 1;
+        // First point at or after the hash, wrapping to the start of the ring
+        if (Long.compareUnsigned(hash, points[high]) > 0) {
+            return owners[0];
+        }
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(points[mid], hash) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return owners[low];
+    }
+    
+    // FNV-1a over the UTF-8 bytes, then mixed so similar IDs spread around the ring
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+    
+    // MurmurHash3 64-bit finalizer
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,147 @@
+package com.myproject.deliveryapp.replication;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import com.myproject.deliveryapp.dispatch.DispatchService;
+import com.myproject.deliveryapp.dto.LocationUpdateRequest;
+import com.myproject.deliveryapp.entity.Order;
+import com.myproject.deliveryapp.enums.OrderStatus;
+import com.myproject.deliveryapp.repository.DriverRepository;
+import com.myproject.deliveryapp.repository.OrderRepository;
+import com.myproject.deliveryapp.service.ActiveOrderRegistry;
+import com.myproject.deliveryapp.service.AvailableDriverMap;
+import com.myproject.deliveryapp.service.DemandForecaster;
+import com.myproject.deliveryapp.service.DemandHeatmap;
+import com.myproject.deliveryapp.service.EtaService;
+import com.myproject.deliveryapp.service.LocationIngestService;
+import com.myproject.deliveryapp.service.PhoneOtpStore;
+import com.myproject.deliveryapp.service.ServiceZoneIndex;
+import com.myproject.deliveryapp.service.TrackingEventHub;
+import com.myproject.deliveryapp.service.TripRouteService;
+import com.myproject.deliveryapp.tracking.BreadcrumbStore;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Applies other nodes' changes to this node's caches and pushes them to the
+ * clients connected here, mirroring what the originating node did after its
+ * database write (which is not repeated).
+ */
+@Component
+@RequiredArgsConstructor
+public class ReplicationApplier implements ReplicationBus.Listener, DisposableBean {
+    
+    private final ReplicationBus replicationBus;
+    private final DriverRepository driverRepository;
+    private final OrderRepository orderRepository;
+    private final AvailableDriverMap availableDriverMap;
+    private final ActiveOrderRegistry activeOrderRegistry;
+    private final BreadcrumbStore breadcrumbStore;
+    private final TrackingEventHub trackingEventHub;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final DispatchService dispatchService;
+    private final DemandHeatmap demandHeatmap;
+    private final DemandForecaster demandForecaster;
+    private final EtaService etaService;
+    private final TripRouteService tripRouteService;
+    private final ServiceZoneIndex serviceZoneIndex;
+    private final PhoneOtpStore phoneOtpStore;
+    private final LocationIngestService locationIngestService;
+    
+    // Forwarded fixes are ingested in arrival order on one thread, off the listener so
+    // the owner's ingest is replicated like any other
+    private final ExecutorService forwardedIngest = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "forwarded-ingest");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    @PostConstruct
+    public void register() {
+        replicationBus.setListener(this);
+    }
+    
+    @Override
+    public void onEvent(ReplicationEvent event) {
+        switch (event.getType()) {
+            case LOCATION -> applyLocation(event);
+            case FORWARDED_FIX -> {
+                if (replicationBus.nodeId().equals(event.getKey())) {
+                    forwardedIngest.execute(() -> locationIngestService.ingestForwarded(event.getId(),
+                            event.getLat(), event.getLng(), event.getTimestampMillis()));
+                }
+            }
+            case DRIVER -> driverRepository.findWithDetailsById(event.getId()).ifPresentOrElse(
+                    availableDriverMap::onDriverChanged,
+                    () -> availableDriverMap.onDriverRemoved(event.getId()));
+            case ORDER -> applyOrder(event.getId());
+            case ZONES -> serviceZoneIndex.rebuild();
+            case PHONE_OTP -> {
+                if (event.getValue() != null) {
+                    phoneOtpStore.put(event.getKey(), event.getValue());
+                } else {
+                    phoneOtpStore.remove(event.getKey());
+                }
+            }
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        forwardedIngest.shutdown();
+    }
+    
+    private void applyLocation(ReplicationEvent event) {
+        long driverId = event.getId();
+        availableDriverMap.onPosition(driverId, event.getLat(), event.getLng());
+        activeOrderRegistry.onPosition(driverId, event.getLat(), event.getLng(), event.getTimestampMillis());
+        
+        // Keep a copy of the trail so the trip can be completed from any node
+        long orderId = activeOrderRegistry.orderFor(driverId);
+        breadcrumbStore.append(driverId, orderId, event.getTimestampMillis(), event.getLatE6(), event.getLngE6());
+        
+        LocationUpdateRequest update = new LocationUpdateRequest(driverId, event.getLat(), event.getLng());
+        trackingEventHub.publishPosition(orderId, update);
+        messagingTemplate.convertAndSend("/topic/admin/drivers", update);
+    }
+    
+    private void applyOrder(long orderId) {
+        Order order = orderRepository.findWithDetailsById(orderId).orElse(null);
+        if (order == null) {
+            dispatchService.onOrderClosed(orderId);
+            return;
+        }
+        
+        // The row may already be past the change that was sent, so apply whatever state it is in now
+        boolean firstSeen = activeOrderRegistry.snapshot(orderId) == null;
+        if (firstSeen && order.getStatus() != OrderStatus.COMPLETED && order.getStatus() != OrderStatus.CANCELLED) {
+            demandHeatmap.record(order);
+            demandForecaster.record(order);
+        }
+        
+        if (order.getStatus() == OrderStatus.PENDING) {
+            activeOrderRegistry.register(order);
+            dispatchService.onOrderCreated(order);
+            return;
+        }
+        
+        dispatchService.onOrderClosed(orderId);
+        if (order.getStatus() == OrderStatus.COMPLETED || order.getStatus() == OrderStatus.CANCELLED) {
+            activeOrderRegistry.updateStatus(orderId, order.getStatus());
+        } else if (order.getDriver() != null) {
+            activeOrderRegistry.assign(order, order.getDriver());
+        }
+        trackingEventHub.publishStatus(order);
+        
+        if (order.getStatus() == OrderStatus.COMPLETED && order.getRoutePolyline() != null) {
+            etaService.learnFromTrack(orderId);
+            tripRouteService.releaseRawPoints(orderId);
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.myproject.deliveryapp.replication;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.regex.Pattern;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the in-memory state of several app nodes in step through Postgres
+ * LISTEN/NOTIFY.
+ *
+ * Published events are buffered and flushed every few milliseconds: a
+ * driver's location pings coalesce to the newest one per flush, everything
+ * else keeps its order, and the lot is packed into as few NOTIFY payloads as
+ * fit under Postgres's 8000-byte limit and sent in one round trip. Each
+ * payload starts with the sending node's ID so a node skips its own.
+ *
+ * A dedicated connection LISTENs and hands other nodes' events to the
+ * registered {@link Listener} on its own thread. Anything published while
+ * applying a remote event is dropped, so changes never echo back. Events
+ * sent while the listener was disconnected are lost; each cache catches up
+ * with the next change to the same driver or order.
+ *
+ * Disabled by default, in which case publishing is a no-op and a single
+ * node behaves exactly as before.
+ */
+@Service
+@Slf4j
+public class ReplicationBus implements DisposableBean {
+    
+    public interface Listener {
+        void onEvent(ReplicationEvent event);
+    }
+    
+    // NOTIFY payloads must stay under 8000 bytes
+    static final int MAX_PAYLOAD_BYTES = 7900;
+    
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]{0,62}");
+    // Node IDs head every payload and are embedded in forwarded fixes
+    private static final Pattern NODE_ID = Pattern.compile("[A-Za-z0-9_.-]{1,64}");
+    private static final long RECONNECT_DELAY_MS = 2000;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final String channel;
+    private final String nodeId;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final long pollMs;
+    
+    // Newest unsent location per driver
+    private final Map<Long, ReplicationEvent> pendingLocations = new ConcurrentHashMap<>();
+    private final Queue<ReplicationEvent> pendingEvents = new ConcurrentLinkedQueue<>();
+    
+    private final Counter published;
+    private final Counter coalesced;
+    private final Counter notifications;
+    private final Counter received;
+    
+    private volatile Listener listener;
+    private volatile Thread listenerThread;
+    private volatile boolean running;
+    
+    public ReplicationBus(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                          @Value("${app.replication.enabled:false}") boolean enabled,
+                          @Value("${app.replication.channel:delivery_sync}") String channel,
+                          @Value("${app.replication.node-id:}") String nodeId,
+                          @Value("${app.replication.poll-ms:500}") long pollMs,
+                          @Value("${spring.datasource.url}") String url,
+                          @Value("${spring.datasource.username}") String username,
+                          @Value("${spring.datasource.password}") String password) {
+        if (!CHANNEL_NAME.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid replication channel name: " + channel);
+        }
+        if (!nodeId.isBlank() && !NODE_ID.matcher(nodeId).matches()) {
+            throw new IllegalArgumentException("Invalid replication node ID: " + nodeId);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.channel = channel;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString().substring(0, 8) : nodeId;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.pollMs = pollMs;
+        this.published = Counter.builder("replication.events.published").register(meterRegistry);
+        this.coalesced = Counter.builder("replication.events.coalesced")
+                .description("Location events replaced by a newer one for the same driver before being sent")
+                .register(meterRegistry);
+        this.notifications = Counter.builder("replication.notifications.sent").register(meterRegistry);
+        this.received = Counter.builder("replication.events.received").register(meterRegistry);
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public String nodeId() {
+        return nodeId;
+    }
+    
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+    
+    /**
+     * Queues the event for the other nodes. Inside a transaction it is queued
+     * only once the transaction commits, so other nodes reloading the row see
+     * the committed change.
+     */
+    public void publish(ReplicationEvent event) {
+        if (!enabled || Thread.currentThread() == listenerThread) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(event);
+                }
+            });
+        } else {
+            enqueue(event);
+        }
+    }
+    
+    // Starts after the caches have loaded from the database, so nothing sent from here on is missed
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::listen, "replication-listener");
+        thread.setDaemon(true);
+        listenerThread = thread;
+        thread.start();
+        log.info("Replication enabled on channel {} as node {}", channel, nodeId);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.replication.flush-ms:50}")
+    public void flush() {
+        if (!enabled || (pendingEvents.isEmpty() && pendingLocations.isEmpty())) {
+            return;
+        }
+        List<String> payloads = new ArrayList<>();
+        StringBuilder payload = new StringBuilder(nodeId);
+        int bytes = payload.length();
+        
+        // Ordered events first, so an order is known to be accepted before its driver's pings arrive
+        List<String> lines = new ArrayList<>();
+        ReplicationEvent event;
+        while ((event = pendingEvents.poll()) != null) {
+            lines.add(event.encode());
+        }
+        for (Long driverId : pendingLocations.keySet()) {
+            ReplicationEvent location = pendingLocations.remove(driverId);
+            if (location != null) {
+                lines.add(location.encode());
+            }
+        }
+        
+        for (String line : lines) {
+            int lineBytes = line.getBytes(StandardCharsets.UTF_8).length + 1;
+            if (bytes + lineBytes > MAX_PAYLOAD_BYTES) {
+                payloads.add(payload.toString());
+                payload = new StringBuilder(nodeId);
+                bytes = payload.length();
+            }
+            payload.append('\n').append(line);
+            bytes += lineBytes;
+        }
+        payloads.add(payload.toString());
+        
+        try {
+            send(payloads);
+            notifications.increment(payloads.size());
+        } catch (RuntimeException e) {
+            // The other nodes catch up with the next change; retrying would only send stale positions
+            log.warn("Dropped {} replication events: {}", lines.size(), e.getMessage());
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        running = false;
+        Thread thread = listenerThread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        flush();
+    }
+    
+    private void enqueue(ReplicationEvent event) {
+        published.increment();
+        if (event.getType() == ReplicationEvent.Type.LOCATION) {
+            if (pendingLocations.put(event.getId(), event) != null) {
+                coalesced.increment();
+            }
+        } else {
+            pendingEvents.add(event);
+        }
+    }
+    
+    private void send(List<String> payloads) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            Array array = connection.createArrayOf("text", payloads.toArray());
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT pg_notify(?, payload) FROM unnest(?) AS payload")) {
+                statement.setString(1, channel);
+                statement.setArray(2, array);
+                try (ResultSet ignored = statement.executeQuery()) {
+                    return null;
+                }
+            } finally {
+                array.free();
+            }
+        });
+    }
+    
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                log.info("Listening for replication events on {}", channel);
+                
+                while (running) {
+                    PGNotification[] batch = pgConnection.getNotifications((int) pollMs);
+                    if (batch == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : batch) {
+                        apply(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Replication listener disconnected, retrying in {} ms: {}", RECONNECT_DELAY_MS, e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    private void apply(String payload) {
+        String[] lines = payload.split("\n");
+        if (lines[0].equals(nodeId) || listener == null) {
+            return;
+        }
+        for (int i = 1; i < lines.length; i++) {
+            try {
+                listener.onEvent(ReplicationEvent.decode(lines[i]));
+                received.increment();
+            } catch (RuntimeException e) {
+                log.warn("Failed to apply replication event '{}' from node {}: {}", lines[i], lines[0], e.getMessage());
+            }
+        }
+    }
+}
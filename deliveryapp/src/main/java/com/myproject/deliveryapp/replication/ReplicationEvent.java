@@ -0,0 +1,170 @@
+package com.myproject.deliveryapp.replication;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One change another node has to mirror, encoded as a short comma-separated
+ * line so that a single NOTIFY payload can carry a couple of hundred of them.
+ *
+ * Locations carry the position itself since they are far too frequent to
+ * re-read. A forwarded fix is a raw ping passed to the node that owns the
+ * driver, which ingests it as if the driver had sent it there. Driver and order changes carry only the ID, and the receiving
+ * node reloads the row, so it never applies a half-built copy of an entity.
+ */
+public final class ReplicationEvent {
+    
+    public enum Type {
+        LOCATION('L'),
+        FORWARDED_FIX('F'),
+        DRIVER('D'),
+        ORDER('O'),
+        ZONES('Z'),
+        PHONE_OTP('P');
+        
+        private final char code;
+        
+        Type(char code) {
+            this.code = code;
+        }
+        
+        static Type of(char code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown replication event type: " + code);
+        }
+    }
+    
+    private final Type type;
+    private final long id;
+    private final int latE6;
+    private final int lngE6;
+    private final long timestampMillis;
+    private final String key;
+    private final String value;
+    
+    private ReplicationEvent(Type type, long id, int latE6, int lngE6, long timestampMillis, String key, String value) {
+        this.type = type;
+        this.id = id;
+        this.latE6 = latE6;
+        this.lngE6 = lngE6;
+        this.timestampMillis = timestampMillis;
+        this.key = key;
+        this.value = value;
+    }
+    
+    public static ReplicationEvent location(long driverId, double lat, double lng, long timestampMillis) {
+        return new ReplicationEvent(Type.LOCATION, driverId, (int) Math.round(lat * 1e6), (int) Math.round(lng * 1e6),
+                timestampMillis, null, null);
+    }
+    
+    /**
+     * @param ownerNodeId the node to ingest the fix; every other node ignores it
+     */
+    public static ReplicationEvent forwardedFix(String ownerNodeId, long driverId, double lat, double lng,
+                                                long timestampMillis) {
+        return new ReplicationEvent(Type.FORWARDED_FIX, driverId, (int) Math.round(lat * 1e6),
+                (int) Math.round(lng * 1e6), timestampMillis, ownerNodeId, null);
+    }
+    
+    public static ReplicationEvent driverChanged(long driverId) {
+        return new ReplicationEvent(Type.DRIVER, driverId, 0, 0, 0, null, null);
+    }
+    
+    public static ReplicationEvent orderChanged(long orderId) {
+        return new ReplicationEvent(Type.ORDER, orderId, 0, 0, 0, null, null);
+    }
+    
+    public static ReplicationEvent zonesChanged() {
+        return new ReplicationEvent(Type.ZONES, 0, 0, 0, 0, null, null);
+    }
+    
+    /**
+     * @param otp the OTP now issued for the phone, or null once it is used up
+     */
+    public static ReplicationEvent phoneOtp(String phone, String otp) {
+        return new ReplicationEvent(Type.PHONE_OTP, 0, 0, 0, 0, phone, otp);
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    /**
+     * The driver ID for locations, forwarded fixes and driver changes, the order ID for order changes.
+     */
+    public long getId() {
+        return id;
+    }
+    
+    public double getLat() {
+        return latE6 / 1e6;
+    }
+    
+    public int getLatE6() {
+        return latE6;
+    }
+    
+    public double getLng() {
+        return lngE6 / 1e6;
+    }
+    
+    public int getLngE6() {
+        return lngE6;
+    }
+    
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+    
+    /**
+     * The phone number for OTPs, the owning node's ID for forwarded fixes.
+     */
+    public String getKey() {
+        return key;
+    }
+    
+    public String getValue() {
+        return value;
+    }
+    
+    String encode() {
+        StringBuilder line = new StringBuilder().append(type.code);
+        switch (type) {
+            case LOCATION -> line.append(',').append(id).append(',').append(latE6).append(',').append(lngE6)
+                    .append(',').append(timestampMillis);
+            case FORWARDED_FIX -> line.append(',').append(key).append(',').append(id).append(',').append(latE6)
+                    .append(',').append(lngE6).append(',').append(timestampMillis);
+            case DRIVER, ORDER -> line.append(',').append(id);
+            case PHONE_OTP -> {
+                // Phone numbers are free text from the client; keep separators out of the line
+                line.append(',').append(URLEncoder.encode(key, StandardCharsets.UTF_8));
+                if (value != null) {
+                    line.append(',').append(value);
+                }
+            }
+            case ZONES -> {
+            }
+        }
+        return line.toString();
+    }
+    
+    static ReplicationEvent decode(String line) {
+        String[] parts = line.split(",");
+        Type type = Type.of(line.charAt(0));
+        return switch (type) {
+            case LOCATION -> new ReplicationEvent(type, Long.parseLong(parts[1]), Integer.parseInt(parts[2]),
+                    Integer.parseInt(parts[3]), Long.parseLong(parts[4]), null, null);
+            case FORWARDED_FIX -> new ReplicationEvent(type, Long.parseLong(parts[2]), Integer.parseInt(parts[3]),
+                    Integer.parseInt(parts[4]), Long.parseLong(parts[5]), parts[1], null);
+            case DRIVER, ORDER -> new ReplicationEvent(type, Long.parseLong(parts[1]), 0, 0, 0, null, null);
+            case ZONES -> zonesChanged();
+            case PHONE_OTP -> new ReplicationEvent(type, 0, 0, 0, 0, URLDecoder.decode(parts[1], StandardCharsets.UTF_8),
+                    parts.length > 2 ? parts[2] : null);
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package com.myproject.deliveryapp.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.myproject.deliveryapp.entity.ClusterMember;
+
+@Repository
+public interface ClusterMemberRepository extends JpaRepository<ClusterMember, String> {
+    
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO cluster_members (node_id, address, heartbeat_at) VALUES (:nodeId, :address, now()) " +
+            "ON CONFLICT (node_id) DO UPDATE SET address = EXCLUDED.address, heartbeat_at = now()",
+            nativeQuery = true)
+    void heartbeat(@Param("nodeId") String nodeId, @Param("address") String address);
+    
+    @Query(value = "SELECT * FROM cluster_members " +
+            "WHERE heartbeat_at > now() - make_interval(secs => :ttlSeconds) " +
+            "ORDER BY node_id",
+            nativeQuery = true)
+    List<ClusterMember> findLive(@Param("ttlSeconds") double ttlSeconds);
+    
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM cluster_members WHERE heartbeat_at < now() - make_interval(secs => :ttlSeconds)",
+            nativeQuery = true)
+    int deleteStale(@Param("ttlSeconds") double ttlSeconds);
+}
@@ -3,6 +3,7 @@ package com.myproject.deliveryapp.repository;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -16,12 +17,21 @@ public interface DriverRepository extends JpaRepository<Driver, Long> {
     
     Optional<Driver> findByUser(User user);
     
+    // Driver.DETAILS fetches the lazy user and vehicle type in the same select
+    @EntityGraph(Driver.DETAILS)
+    Optional<Driver> findWithDetailsById(Long id);
+    
+    @EntityGraph(Driver.DETAILS)
+    List<Driver> findAllByOrderByIdAsc();
+    
     Optional<Driver> findByUserId(Long userId);
     
+    @EntityGraph(Driver.DETAILS)
     List<Driver> findByIsApproved(Boolean isApproved);
     
     Long countByIsApproved(Boolean isApproved);
     
+    @EntityGraph(Driver.DETAILS)
     List<Driver> findByIsAvailableAndIsApproved(Boolean isAvailable, Boolean isApproved);
     
     @Query(value = "SELECT d.* FROM drivers d " +
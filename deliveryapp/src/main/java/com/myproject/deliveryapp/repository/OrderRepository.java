@@ -1,10 +1,19 @@
 package com.myproject.deliveryapp.repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.myproject.deliveryapp.dto.TripHistoryDTO;
 import com.myproject.deliveryapp.entity.Driver;
 import com.myproject.deliveryapp.entity.Order;
 import com.myproject.deliveryapp.entity.User;
@@ -12,10 +21,64 @@ import com.myproject.deliveryapp.enums.OrderStatus;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
+    // By id, with the order's created_at read from order_keys in the same select, so Postgres prunes the
+    // partitioned orders table to that month's partition at run time instead of probing every one
+    String BY_ID = "SELECT o FROM Order o WHERE o.id = :id " +
+            "AND o.createdAt = (SELECT k.createdAt FROM OrderKey k WHERE k.id = :id)";
+    
+    @Override
+    @Query(BY_ID)
+    Optional<Order> findById(@Param("id") Long id);
+    
+    // Associations are lazy; the methods below that feed order responses fetch them in one select
+    // (Order.DETAILS: customer, vehicle type, driver with user and vehicle type)
+    @EntityGraph(Order.DETAILS)
+    @Query(BY_ID)
+    Optional<Order> findWithDetailsById(@Param("id") Long id);
+    @EntityGraph(Order.DETAILS)
     List<Order> findByCustomerOrderByCreatedAtDesc(User customer);
-    List<Order> findByStatusOrderByCreatedAtDesc(OrderStatus status);
+    @EntityGraph(Order.DETAILS)
     List<Order> findByDriverOrderByCreatedAtDesc(Driver driver);
+    @EntityGraph(Order.DETAILS)
     List<Order> findAllByOrderByCreatedAtDesc();
-    List<Order> findByDriverAndStatusAndCompletedAtBetween(Driver driver, OrderStatus status, java.time.LocalDateTime start, java.time.LocalDateTime end);
-    List<Order> findByDriverAndStatusOrderByCompletedAtDesc(Driver driver, OrderStatus status);
+    
+    // Admin dashboard totals, aggregated in the database
+    @Query("SELECT COALESCE(SUM(o.price), 0) FROM Order o WHERE o.status = :status")
+    BigDecimal sumPriceByStatus(@Param("status") OrderStatus status);
+    long countByStatusIn(Collection<OrderStatus> statuses);
+    
+    // orders is partitioned by month of created_at, and partitions are created months ahead; bounding
+    // created_at on both sides (ActiveOrderRegistry's open-order range) keeps these on the latest partitions
+    @EntityGraph(Order.DETAILS)
+    List<Order> findByStatusAndCreatedAtBetweenOrderByCreatedAtDesc(OrderStatus status,
+            LocalDateTime createdFrom, LocalDateTime createdTo);
+    @EntityGraph(Order.DETAILS)
+    List<Order> findByStatusInAndCreatedAtBetween(Collection<OrderStatus> statuses,
+            LocalDateTime createdFrom, LocalDateTime createdTo);
+    @EntityGraph(Order.DETAILS)
+    List<Order> findByDriverAndStatusInAndCreatedAtBetweenOrderByCreatedAtDesc(Driver driver,
+            Collection<OrderStatus> statuses, LocalDateTime createdFrom, LocalDateTime createdTo);
+    
+    // Where that range starts; one probe of each partition's (status, created_at) index, once a minute
+    @Query("SELECT MIN(o.createdAt) FROM Order o WHERE o.status IN :statuses")
+    LocalDateTime findOldestCreatedAt(@Param("statuses") Collection<OrderStatus> statuses);
+    
+    // A driver's completed trips newest first, one page after a (completedAt, id) keyset cursor; only
+    // the DTO columns are selected. A trip is created before it completes, so bounding created_at by the
+    // end of the completion range lets a month's page skip the partitions after it.
+    @Query("SELECT new com.myproject.deliveryapp.dto.TripHistoryDTO(o.id, o.pickupLocation, o.dropLocation, " +
+            "o.distance, o.finalPrice, o.paymentMethod, o.completedAt) " +
+            "FROM Order o " +
+            "WHERE o.driver = :driver " +
+            "AND o.status = com.myproject.deliveryapp.enums.OrderStatus.COMPLETED " +
+            "AND o.completedAt >= :completedFrom " +
+            "AND (o.completedAt < :cursorCompletedAt OR (o.completedAt = :cursorCompletedAt AND o.id < :cursorId)) " +
+            "AND o.createdAt < :createdBefore " +
+            "ORDER BY o.completedAt DESC, o.id DESC")
+    List<TripHistoryDTO> findTripHistoryPage(@Param("driver") Driver driver,
+                                             @Param("completedFrom") LocalDateTime completedFrom,
+                                             @Param("cursorCompletedAt") LocalDateTime cursorCompletedAt,
+                                             @Param("cursorId") Long cursorId,
+                                             @Param("createdBefore") LocalDateTime createdBefore,
+                                             Pageable page);
 }
@@ -3,6 +3,7 @@ package com.myproject.deliveryapp.repository;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -14,4 +15,8 @@ import com.myproject.deliveryapp.entity.Review;
 public interface ReviewRepository extends JpaRepository<Review, Long> {
     Optional<Review> findByOrder(Order order);
     List<Review> findByDriverOrderByCreatedAtDesc(Driver driver);
+    
+    // Admin review list: the driver's and customer's emails in the same select
+    @EntityGraph(attributePaths = {"driver.user", "order.customer"})
+    List<Review> findAllByOrderByCreatedAtDesc();
 }
@@ -0,0 +1,16 @@
+package com.myproject.deliveryapp.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.myproject.deliveryapp.entity.ServiceZone;
+
+@Repository
+public interface ServiceZoneRepository extends JpaRepository<ServiceZone, Long> {
+    Optional<ServiceZone> findByName(String name);
+    
+    List<ServiceZone> findByEnabledTrue();
+}
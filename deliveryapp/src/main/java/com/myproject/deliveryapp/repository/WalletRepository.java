@@ -1,14 +1,20 @@
 package com.myproject.deliveryapp.repository;
 
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import com.myproject.deliveryapp.entity.User;
 import com.myproject.deliveryapp.entity.Wallet;
+import com.myproject.deliveryapp.enums.UserRole;
 
 @Repository
 public interface WalletRepository extends JpaRepository<Wallet, Long> {
     Optional<Wallet> findByUser(User user);
+    
+    @EntityGraph(attributePaths = "user")
+    List<Wallet> findByUserRole(UserRole role);
 }
@@ -1,5 +1,6 @@
 package com.myproject.deliveryapp.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -11,4 +12,8 @@ import com.myproject.deliveryapp.entity.WalletTransaction;
 @Repository
 public interface WalletTransactionRepository extends JpaRepository<WalletTransaction, Long> {
     List<WalletTransaction> findByWalletOrderByTimestampDesc(Wallet wallet);
+    
+    // wallet_transactions is partitioned by month of timestamp; only the partitions between the bounds are read
+    List<WalletTransaction> findByWalletAndTimestampBetweenOrderByTimestampDesc(Wallet wallet,
+            LocalDateTime from, LocalDateTime to);
 }
@@ -0,0 +1,261 @@
+package com.myproject.deliveryapp.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.myproject.deliveryapp.dto.TrackingSnapshotDTO;
+import com.myproject.deliveryapp.entity.Driver;
+import com.myproject.deliveryapp.entity.Order;
+import com.myproject.deliveryapp.enums.OrderStatus;
+import com.myproject.deliveryapp.replication.ReplicationBus;
+import com.myproject.deliveryapp.replication.ReplicationEvent;
+import com.myproject.deliveryapp.repository.OrderRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory view of every open order: its status, assigned driver and the
+ * driver's latest position from the location stream.
+ *
+ * It is loaded once at startup and then kept current by the order endpoints
+ * (after each status change is saved) and by location ingest. Status changes
+ * made here are replicated to the other nodes. The location
+ * path uses it to tag pings with an order, and tracking reads are served
+ * from it without touching the database. Completed and cancelled orders
+ * stay visible for a short grace period, so trackers see the final status.
+ * Open orders with no status change for app.tracking.idle-order-retention-ms
+ * (a pending order nobody took, a trip never finished) are dropped the same
+ * way, so they do not stay in memory for good; the order itself stays open.
+ *
+ * It also keeps the created_at range every open order falls in, which the
+ * open-order queries are bounded by so they stay on the latest partitions.
+ */
+@Service
+@Slf4j
+public class ActiveOrderRegistry {
+    
+    static final List<OrderStatus> OPEN_STATUSES = List.of(
+            OrderStatus.PENDING, OrderStatus.ACCEPTED, OrderStatus.DRIVER_ARRIVED, OrderStatus.IN_TRANSIT);
+    
+    // Orders being created while the oldest open order is read, here or on a node with a clock behind
+    private static final Duration CREATION_SLACK = Duration.ofDays(1);
+    
+    private final OrderRepository orderRepository;
+    private final ReplicationBus replicationBus;
+    private final long closedOrderTtlMs;
+    private final long idleOrderRetentionMs;
+    
+    private final Map<Long, ActiveOrder> byOrder = new ConcurrentHashMap<>();
+    private final Map<Long, ActiveOrder> byDriver = new ConcurrentHashMap<>();
+    private volatile LocalDateTime openOrdersFrom;
+    
+    public ActiveOrderRegistry(OrderRepository orderRepository,
+                               ReplicationBus replicationBus,
+                               @Value("${app.tracking.closed-order-ttl-ms:600000}") long closedOrderTtlMs,
+                               @Value("${app.tracking.idle-order-retention-ms:172800000}") long idleOrderRetentionMs) {
+        this.orderRepository = orderRepository;
+        this.replicationBus = replicationBus;
+        this.closedOrderTtlMs = closedOrderTtlMs;
+        this.idleOrderRetentionMs = idleOrderRetentionMs;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (Order order : orderRepository.findByStatusInAndCreatedAtBetween(OPEN_STATUSES, openOrdersFrom(),
+                openOrdersUntil())) {
+            ActiveOrder active = track(order);
+            if (order.getDriver() != null) {
+                attach(active, order.getDriver());
+            }
+        }
+        log.info("Loaded {} open orders for tracking", byOrder.size());
+    }
+    
+    /**
+     * Lower created_at bound for open-order queries: no open order was created
+     * before it. It is the creation time of the oldest open order (or a day
+     * back when there are none) as of the last refresh. Orders only ever close
+     * or are created later, so it stays a safe bound until the next refresh
+     * moves it up. An order left open for long keeps it back, and the
+     * open-order queries read the partitions since then.
+     */
+    public LocalDateTime openOrdersFrom() {
+        LocalDateTime from = openOrdersFrom;
+        return from != null ? from : refreshOpenOrdersFrom();
+    }
+    
+    /**
+     * Upper created_at bound for open-order queries, a day ahead to allow for
+     * clock skew. It keeps them off the empty partitions created months ahead.
+     */
+    public LocalDateTime openOrdersUntil() {
+        return LocalDateTime.now().plusDays(1);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.orders.open-range-refresh-ms:60000}")
+    public LocalDateTime refreshOpenOrdersFrom() {
+        LocalDateTime from = LocalDateTime.now().minus(CREATION_SLACK);
+        LocalDateTime oldest = orderRepository.findOldestCreatedAt(OPEN_STATUSES);
+        if (oldest != null && oldest.isBefore(from)) {
+            from = oldest;
+        }
+        openOrdersFrom = from;
+        return from;
+    }
+    
+    public void register(Order order) {
+        track(order);
+        replicationBus.publish(ReplicationEvent.orderChanged(order.getId()));
+    }
+    
+    /**
+     * Records a driver accepting an order; the driver's last known position
+     * becomes the first tracked position.
+     */
+    public void assign(Order order, Driver driver) {
+        ActiveOrder active = byOrder.get(order.getId());
+        if (active == null) {
+            active = track(order);
+        }
+        active.status = order.getStatus();
+        active.changedAt = System.currentTimeMillis();
+        attach(active, driver);
+        replicationBus.publish(ReplicationEvent.orderChanged(order.getId()));
+    }
+    
+    public void updateStatus(Long orderId, OrderStatus status) {
+        replicationBus.publish(ReplicationEvent.orderChanged(orderId));
+        ActiveOrder active = byOrder.get(orderId);
+        if (active == null) {
+            return;
+        }
+        active.status = status;
+        active.changedAt = System.currentTimeMillis();
+        if (status == OrderStatus.COMPLETED || status == OrderStatus.CANCELLED) {
+            close(active, System.currentTimeMillis());
+        }
+    }
+    
+    public void onPosition(long driverId, double lat, double lng, long timestampMillis) {
+        ActiveOrder active = byDriver.get(driverId);
+        if (active != null) {
+            active.position = new Position(lat, lng, timestampMillis);
+        }
+    }
+    
+    /**
+     * @return the order the driver is serving, or 0 if none
+     */
+    public long orderFor(long driverId) {
+        ActiveOrder active = byDriver.get(driverId);
+        return active != null ? active.orderId : 0L;
+    }
+    
+    /**
+     * @return the tracking snapshot, or null if the order is not open (or
+     *         closed longer ago than the grace period)
+     */
+    public TrackingSnapshotDTO snapshot(Long orderId) {
+        ActiveOrder active = byOrder.get(orderId);
+        if (active == null) {
+            return null;
+        }
+        Position position = active.position;
+        return TrackingSnapshotDTO.builder()
+                .orderId(active.orderId)
+                .status(active.status)
+                .driverId(active.driverId)
+                .driverLat(position != null ? position.lat : null)
+                .driverLng(position != null ? position.lng : null)
+                .positionTimestamp(position != null ? position.timestamp : null)
+                .build();
+    }
+    
+    /**
+     * Whether the given user may track the order: its customer, its driver,
+     * or an admin. Decided from the cached emails, without a database lookup.
+     */
+    public boolean canTrack(Long orderId, String email, boolean admin) {
+        ActiveOrder active = byOrder.get(orderId);
+        if (active == null) {
+            return false;
+        }
+        return admin || email.equals(active.customerEmail) || email.equals(active.driverEmail);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.tracking.cleanup-interval-ms:60000}")
+    public void evictClosed() {
+        long now = System.currentTimeMillis();
+        long cutoff = now - closedOrderTtlMs;
+        long idleCutoff = now - idleOrderRetentionMs;
+        byOrder.values().removeIf(active -> {
+            // Idle orders get the same grace period before they go
+            if (active.closedAt == 0 && active.changedAt < idleCutoff) {
+                close(active, now);
+            }
+            return active.closedAt != 0 && active.closedAt < cutoff;
+        });
+    }
+    
+    private void close(ActiveOrder active, long now) {
+        if (active.driverId != null) {
+            byDriver.remove(active.driverId, active);
+        }
+        active.closedAt = now;
+    }
+    
+    private ActiveOrder track(Order order) {
+        ActiveOrder active = new ActiveOrder(order.getId(), order.getCustomer().getEmail());
+        active.status = order.getStatus();
+        active.changedAt = System.currentTimeMillis();
+        byOrder.put(order.getId(), active);
+        return active;
+    }
+    
+    private void attach(ActiveOrder active, Driver driver) {
+        active.driverId = driver.getId();
+        active.driverEmail = driver.getUser().getEmail();
+        if (driver.getCurrentLatitude() != null && driver.getCurrentLongitude() != null) {
+            active.position = new Position(driver.getCurrentLatitude(), driver.getCurrentLongitude(),
+                    System.currentTimeMillis());
+        }
+        byDriver.put(driver.getId(), active);
+    }
+    
+    private static final class ActiveOrder {
+        final long orderId;
+        final String customerEmail;
+        volatile OrderStatus status;
+        volatile long changedAt;
+        volatile Long driverId;
+        volatile String driverEmail;
+        volatile Position position;
+        volatile long closedAt;
+        
+        ActiveOrder(long orderId, String customerEmail) {
+            this.orderId = orderId;
+            this.customerEmail = customerEmail;
+        }
+    }
+    
+    private static final class Position {
+        final double lat;
+        final double lng;
+        final long timestamp;
+        
+        Position(double lat, double lng, long timestamp) {
+            this.lat = lat;
+            this.lng = lng;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.myproject.deliveryapp.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.myproject.deliveryapp.dispatch.DispatchService;
+import com.myproject.deliveryapp.dto.AvailableDriversDeltaDTO;
+import com.myproject.deliveryapp.dto.DriverPublicDTO;
+import com.myproject.deliveryapp.entity.Driver;
+import com.myproject.deliveryapp.replication.ReplicationBus;
+import com.myproject.deliveryapp.replication.ReplicationEvent;
+import com.myproject.deliveryapp.repository.DriverRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Versioned in-memory map of the drivers customers see on the map (available
+ * and approved). Every position, availability or approval change bumps the
+ * version and is appended to a fixed-size change log, so clients polling with
+ * the version they last saw get only the drivers that changed or left. A
+ * client that fell behind the oldest logged change gets a full snapshot.
+ * The same changes keep DriverClusterIndex and the dispatch partitions current. Drivers outside every
+ * enabled service zone are left off the map until they drive back in.
+ *
+ * There is no map-wide lock: each change replaces one driver's entry
+ * atomically, and the zone lookup, the dependents and the replication
+ * publish all run outside that update. Changes to different drivers
+ * proceed in parallel; the dependents of one driver are brought up to date
+ * by one thread at a time, from the map's latest entry.
+ */
+@Service
+@Slf4j
+public class AvailableDriverMap {
+    
+    private final DriverRepository driverRepository;
+    private final DriverClusterIndex driverClusterIndex;
+    private final ServiceZoneIndex serviceZoneIndex;
+    private final DispatchService dispatchService;
+    private final ReplicationBus replicationBus;
+    
+    // Entries of a driver in both maps only change inside drivers.compute for that driver
+    private final Map<Long, DriverPublicDTO> drivers = new ConcurrentHashMap<>();
+    // Available drivers outside every service zone; not shown, but kept so they reappear when they drive back in
+    private final Map<Long, DriverPublicDTO> outsideZones = new ConcurrentHashMap<>();
+    // Per driver, the changes not yet passed on to the cluster index and dispatch
+    private final Map<Long, AtomicInteger> pendingSyncs = new ConcurrentHashMap<>();
+    
+    // Change log ring: slot (v mod size) holds the ID of the driver changed at version v
+    private final AtomicLongArray changedDriverIds;
+    // Versions are claimed by writers, then published in order once their slot is written
+    private final AtomicLong claimedVersion;
+    private volatile long version;
+    // First version of this run; the log holds nothing older
+    private final long baseVersion;
+    
+    public AvailableDriverMap(DriverRepository driverRepository,
+                              DriverClusterIndex driverClusterIndex,
+                              ServiceZoneIndex serviceZoneIndex,
+                              DispatchService dispatchService,
+                              ReplicationBus replicationBus,
+                              @Value("${app.fleet.change-log-size:65536}") int changeLogSize) {
+        this.driverRepository = driverRepository;
+        this.driverClusterIndex = driverClusterIndex;
+        this.serviceZoneIndex = serviceZoneIndex;
+        this.dispatchService = dispatchService;
+        this.replicationBus = replicationBus;
+        this.changedDriverIds = new AtomicLongArray(Math.max(16, changeLogSize));
+        // Start from a random point so a version from a previous run, or from
+        // another node behind the load balancer, falls outside this log and
+        // the client gets a full snapshot instead of a wrong delta
+        this.baseVersion = ThreadLocalRandom.current().nextLong(1L << 32, 1L << 62);
+        this.claimedVersion = new AtomicLong(baseVersion);
+        this.version = baseVersion;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (Driver driver : driverRepository.findByIsAvailableAndIsApproved(true, true)) {
+            DriverPublicDTO dto = toPublicDTO(driver);
+            update(dto.getId(), dto, isServiced(dto), false);
+        }
+        // Dispatch may have recovered drivers from its journal that went offline since
+        dispatchService.retainDrivers(drivers.values().stream()
+                .filter(driver -> driver.getCurrentLatitude() != null && driver.getCurrentLongitude() != null)
+                .map(DriverPublicDTO::getId)
+                .toList());
+        log.info("Loaded {} available drivers into the fleet map", drivers.size());
+    }
+    
+    /**
+     * Re-evaluates a driver after its availability, approval or block status was saved.
+     */
+    public void onDriverChanged(Driver driver) {
+        replicationBus.publish(ReplicationEvent.driverChanged(driver.getId()));
+        boolean visible = Boolean.TRUE.equals(driver.getIsAvailable())
+                && Boolean.TRUE.equals(driver.getIsApproved());
+        if (visible) {
+            DriverPublicDTO dto = toPublicDTO(driver);
+            update(driver.getId(), dto, isServiced(dto), false);
+        } else {
+            update(driver.getId(), null, false, false);
+        }
+    }
+    
+    public void onDriverRemoved(Long driverId) {
+        replicationBus.publish(ReplicationEvent.driverChanged(driverId));
+        update(driverId, null, false, false);
+    }
+    
+    public void onPosition(long driverId, double lat, double lng) {
+        DriverPublicDTO current = drivers.get(driverId);
+        if (current == null) {
+            current = outsideZones.get(driverId);
+        }
+        if (current == null) {
+            return;
+        }
+        // Entries are replaced rather than mutated so responses being serialized stay stable
+        DriverPublicDTO moved = DriverPublicDTO.builder()
+                .id(driverId)
+                .currentLatitude(lat)
+                .currentLongitude(lng)
+                .vehicleType(current.getVehicleType())
+                .build();
+        update(driverId, moved, isServiced(moved), true);
+    }
+    
+    public long version() {
+        return version;
+    }
+    
+    public List<DriverPublicDTO> snapshot() {
+        return new ArrayList<>(drivers.values());
+    }
+    
+    /**
+     * @param since the version the client last saw
+     * @return the drivers changed or removed after that version, or the full
+     *         map if those changes are no longer in the log
+     */
+    public AvailableDriversDeltaDTO changesSince(long since) {
+        // Read before the map, so whatever the map shows is at least this new
+        long current = version;
+        int logSize = changedDriverIds.length();
+        long oldest = Math.max(baseVersion, current - logSize);
+        if (since < oldest || since > current) {
+            return AvailableDriversDeltaDTO.builder()
+                    .version(current)
+                    .full(true)
+                    .drivers(snapshot())
+                    .removed(List.of())
+                    .build();
+        }
+        
+        Set<Long> seen = new HashSet<>();
+        List<DriverPublicDTO> changed = new ArrayList<>();
+        List<Long> removed = new ArrayList<>();
+        
+        // Walk newest first so each driver is reported once with its latest state
+        for (long v = current; v > since; v--) {
+            long driverId = changedDriverIds.get((int) (v % logSize));
+            if (!seen.add(driverId)) {
+                continue;
+            }
+            DriverPublicDTO shown = drivers.get(driverId);
+            if (shown != null) {
+                changed.add(shown);
+            } else {
+                removed.add(driverId);
+            }
+        }
+        
+        // Writers may have wrapped the ring over the oldest slots while they were read
+        if (version - logSize > since) {
+            return changesSince(Long.MIN_VALUE);
+        }
+        return AvailableDriversDeltaDTO.builder()
+                .version(current)
+                .full(false)
+                .drivers(changed)
+                .removed(removed)
+                .build();
+    }
+    
+    /**
+     * Atomically replaces the driver's entry: shown if inside a service zone
+     * (or position unknown), set aside if outside, or dropped when
+     * {@code driver} is null. Then records the change and brings the
+     * dependents up to date, outside the update.
+     *
+     * @param onlyIfPresent leave the driver out if it went off the map meanwhile
+     */
+    private void update(long driverId, DriverPublicDTO driver, boolean serviced, boolean onlyIfPresent) {
+        boolean[] changed = new boolean[1];
+        drivers.compute(driverId, (id, shown) -> {
+            if (onlyIfPresent && shown == null && !outsideZones.containsKey(id)) {
+                return null;
+            }
+            if (driver != null && serviced) {
+                outsideZones.remove(id);
+                changed[0] = true;
+                return driver;
+            }
+            if (driver != null) {
+                outsideZones.put(id, driver);
+            } else {
+                outsideZones.remove(id);
+            }
+            changed[0] = shown != null;
+            return null;
+        });
+        if (changed[0]) {
+            record(driverId);
+        }
+        syncDependents(driverId);
+    }
+    
+    private boolean isServiced(DriverPublicDTO driver) {
+        return driver.getCurrentLatitude() == null || driver.getCurrentLongitude() == null
+                || serviceZoneIndex.isServiced(driver.getCurrentLatitude(), driver.getCurrentLongitude());
+    }
+    
+    /**
+     * Passes the driver's current map entry on to the cluster index and
+     * dispatch. Only one thread does so per driver at a time; it repeats
+     * while other changes arrived, so the dependents end on the latest entry
+     * whatever order concurrent changes finish in.
+     */
+    private void syncDependents(long driverId) {
+        AtomicInteger pending = pendingSyncs.computeIfAbsent(driverId, id -> new AtomicInteger());
+        int requests = pending.incrementAndGet();
+        if (requests > 1) {
+            return;
+        }
+        do {
+            DriverPublicDTO shown = drivers.get(driverId);
+            // Drivers without a known position are listed but cannot be placed in a cluster or offered orders
+            if (shown != null && shown.getCurrentLatitude() != null && shown.getCurrentLongitude() != null) {
+                driverClusterIndex.put(driverId, shown.getCurrentLatitude(), shown.getCurrentLongitude(),
+                        shown.getVehicleType());
+                dispatchService.onDriverAvailable(driverId, shown.getCurrentLatitude(),
+                        shown.getCurrentLongitude(), shown.getVehicleType());
+            } else {
+                driverClusterIndex.remove(driverId);
+                dispatchService.onDriverUnavailable(driverId);
+            }
+        } while (!pending.compareAndSet(requests, 0) && (requests = pending.get()) > 0);
+    }
+    
+    private void record(long driverId) {
+        long claimed = claimedVersion.incrementAndGet();
+        changedDriverIds.set((int) (claimed % changedDriverIds.length()), driverId);
+        // Publish in version order, so a reader never walks a slot that is not written yet
+        while (version != claimed - 1) {
+            Thread.onSpinWait();
+        }
+        version = claimed;
+    }
+    
+    private static DriverPublicDTO toPublicDTO(Driver driver) {
+        return DriverPublicDTO.builder()
+                .id(driver.getId())
+                .currentLatitude(driver.getCurrentLatitude())
+                .currentLongitude(driver.getCurrentLongitude())
+                .vehicleType(driver.getVehicleType() != null
+                        ? driver.getVehicleType().getName()
+                        : "Unknown")
+                .build();
+    }
+}
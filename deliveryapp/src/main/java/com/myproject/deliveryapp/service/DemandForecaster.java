@@ -0,0 +1,323 @@
+package com.myproject.deliveryapp.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.myproject.deliveryapp.dto.DriverHintDTO;
+import com.myproject.deliveryapp.dto.DriverPublicDTO;
+import com.myproject.deliveryapp.entity.Order;
+import com.myproject.deliveryapp.util.GeoUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Short-term pickup demand forecast per grid cell, used to nudge idle drivers
+ * towards areas about to run short of supply.
+ *
+ * Each cell keeps an exponentially smoothed pickup rate for each hour of the
+ * week. Pickups are counted as orders are created and folded into the model
+ * when the hour ends, so an update never rescans history; only the seed at
+ * startup reads the orders table. Every run forecasts the next horizon from
+ * those rates (blended with what the current hour has shown so far), compares
+ * it with the idle drivers per cell and sends "move towards" hints to drivers
+ * in over-supplied cells on /topic/driver-hints/{driverId}.
+ */
+@Service
+@Slf4j
+public class DemandForecaster {
+    
+    private static final int HOURS_PER_WEEK = 168;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final AvailableDriverMap availableDriverMap;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final Timer updateTimer;
+    private final int cellZoom;
+    private final double smoothing;
+    private final int horizonMinutes;
+    private final int seedWeeks;
+    private final double minShortfall;
+    private final double maxHintDistanceKm;
+    
+    // cell -> smoothed pickups per hour, indexed by hour of week
+    private final Map<Long, double[]> hourlyRates = new HashMap<>();
+    
+    // Pickups in the hour that is still running, and which hour that is
+    private final Map<Long, AtomicInteger> currentHourCounts = new ConcurrentHashMap<>();
+    private LocalDateTime currentHour;
+    
+    public DemandForecaster(JdbcTemplate jdbcTemplate, AvailableDriverMap availableDriverMap,
+                            SimpMessagingTemplate messagingTemplate, MeterRegistry meterRegistry,
+                            @Value("${app.forecast.cell-zoom:14}") int cellZoom,
+                            @Value("${app.forecast.smoothing:0.3}") double smoothing,
+                            @Value("${app.forecast.horizon-minutes:30}") int horizonMinutes,
+                            @Value("${app.forecast.seed-weeks:8}") int seedWeeks,
+                            @Value("${app.forecast.min-shortfall:0.5}") double minShortfall,
+                            @Value("${app.forecast.max-hint-distance-km:5}") double maxHintDistanceKm) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.availableDriverMap = availableDriverMap;
+        this.messagingTemplate = messagingTemplate;
+        this.updateTimer = Timer.builder("forecast.update")
+                .description("Time to roll the demand model and compute repositioning hints")
+                .register(meterRegistry);
+        this.cellZoom = cellZoom;
+        this.smoothing = smoothing;
+        this.horizonMinutes = horizonMinutes;
+        this.seedWeeks = Math.max(1, seedWeeks);
+        this.minShortfall = minShortfall;
+        this.maxHintDistanceKm = maxHintDistanceKm;
+    }
+    
+    /**
+     * Counts an order's pickup in the current hour. Orders without a pickup
+     * location are left out here and in the seed alike.
+     */
+    public void record(Order order) {
+        if (order.getPickupLat() == null || order.getPickupLng() == null) {
+            return;
+        }
+        currentHourCounts.computeIfAbsent(cellOf(order.getPickupLat(), order.getPickupLng()),
+                k -> new AtomicInteger()).incrementAndGet();
+    }
+    
+    /**
+     * Seeds the hourly rates by smoothing the last few weeks of pickups, oldest week first.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        seed(LocalDateTime.now().truncatedTo(ChronoUnit.HOURS));
+    }
+    
+    synchronized void seed(LocalDateTime hourStart) {
+        LocalDateTime from = hourStart.minusWeeks(seedWeeks);
+        
+        // cell -> pickups per (weeks ago * 168 + hour of week)
+        Map<Long, int[]> history = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT pickup_lat, pickup_lng, created_at FROM orders"
+                        + " WHERE created_at >= ? AND pickup_lat IS NOT NULL AND pickup_lng IS NOT NULL",
+                (RowCallbackHandler) rs -> {
+                    LocalDateTime createdAt = rs.getTimestamp("created_at").toLocalDateTime();
+                    long cell = cellOf(rs.getDouble("pickup_lat"), rs.getDouble("pickup_lng"));
+                    if (!createdAt.isBefore(hourStart)) {
+                        currentHourCounts.computeIfAbsent(cell, k -> new AtomicInteger()).incrementAndGet();
+                        return;
+                    }
+                    // Whole hours from the pickup's hour, so each hour of week falls
+                    // in weeks 0 (the latest) to seedWeeks - 1 however late in it the pickup was
+                    long hoursAgo = Duration.between(createdAt.truncatedTo(ChronoUnit.HOURS), hourStart).toHours();
+                    int weeksAgo = (int) ((hoursAgo - 1) / HOURS_PER_WEEK);
+                    if (weeksAgo >= seedWeeks) {
+                        return;
+                    }
+                    history.computeIfAbsent(cell, k -> new int[seedWeeks * HOURS_PER_WEEK])
+                            [weeksAgo * HOURS_PER_WEEK + DemandHeatmap.hourOfWeek(createdAt)]++;
+                },
+                Timestamp.valueOf(from));
+        
+        history.forEach((cell, counts) -> {
+            double[] rates = new double[HOURS_PER_WEEK];
+            for (int hour = 0; hour < HOURS_PER_WEEK; hour++) {
+                double rate = counts[(seedWeeks - 1) * HOURS_PER_WEEK + hour];
+                for (int weeksAgo = seedWeeks - 2; weeksAgo >= 0; weeksAgo--) {
+                    rate = smoothing * counts[weeksAgo * HOURS_PER_WEEK + hour] + (1 - smoothing) * rate;
+                }
+                rates[hour] = rate;
+            }
+            hourlyRates.put(cell, rates);
+        });
+        currentHour = hourStart;
+        log.info("Seeded demand forecast for {} cells from {} weeks of orders", hourlyRates.size(), seedWeeks);
+    }
+    
+    @Scheduled(initialDelayString = "${app.forecast.interval-ms:300000}",
+               fixedDelayString = "${app.forecast.interval-ms:300000}")
+    public void update() {
+        update(LocalDateTime.now());
+    }
+    
+    synchronized void update(LocalDateTime now) {
+        if (currentHour == null) {
+            return;
+        }
+        long started = System.nanoTime();
+        rollHour(now.truncatedTo(ChronoUnit.HOURS));
+        
+        Map<Long, Double> demand = forecast(now);
+        
+        // Idle supply per cell
+        Map<Long, List<DriverPublicDTO>> idleByCell = new HashMap<>();
+        for (DriverPublicDTO driver : availableDriverMap.snapshot()) {
+            if (driver.getCurrentLatitude() != null && driver.getCurrentLongitude() != null) {
+                idleByCell.computeIfAbsent(cellOf(driver.getCurrentLatitude(), driver.getCurrentLongitude()),
+                        k -> new ArrayList<>()).add(driver);
+            }
+        }
+        
+        // Cells expected to run short, and drivers beyond what their own cell needs
+        Map<Long, Double> shortfalls = new HashMap<>();
+        demand.forEach((cell, expected) -> {
+            double shortfall = expected - idleByCell.getOrDefault(cell, List.of()).size();
+            if (shortfall >= minShortfall) {
+                shortfalls.put(cell, shortfall);
+            }
+        });
+        List<DriverPublicDTO> spare = new ArrayList<>();
+        idleByCell.forEach((cell, drivers) -> {
+            int surplus = (int) Math.floor(drivers.size() - demand.getOrDefault(cell, 0.0));
+            for (int i = 0; i < surplus && i < drivers.size(); i++) {
+                spare.add(drivers.get(i));
+            }
+        });
+        
+        int hints = assignHints(shortfalls, spare);
+        
+        long elapsed = System.nanoTime() - started;
+        updateTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        log.debug("Demand forecast: {} cells, {} short, {} spare drivers, {} hints in {} ms",
+                demand.size(), shortfalls.size(), spare.size(), hints, elapsed / 1_000_000);
+    }
+    
+    /**
+     * Folds the finished hour's pickup counts into the smoothed rate for that
+     * hour of week. Hours no update ran in (a long pause, or an interval over
+     * an hour) had no pickups counted, so their rates are decayed as zeros.
+     */
+    private void rollHour(LocalDateTime hourStart) {
+        if (!hourStart.isAfter(currentHour)) {
+            return;
+        }
+        int hour = DemandHeatmap.hourOfWeek(currentHour);
+        long skipped = Duration.between(currentHour, hourStart).toHours() - 1;
+        // Per hour of week, the decay for each time that hour was skipped
+        double[] decay = new double[HOURS_PER_WEEK];
+        for (int h = 0; h < HOURS_PER_WEEK; h++) {
+            long times = skipped / HOURS_PER_WEEK
+                    + (Math.floorMod(h - hour - 1, HOURS_PER_WEEK) < skipped % HOURS_PER_WEEK ? 1 : 0);
+            decay[h] = Math.pow(1 - smoothing, times);
+        }
+        for (Long cell : currentHourCounts.keySet()) {
+            hourlyRates.computeIfAbsent(cell, k -> new double[HOURS_PER_WEEK]);
+        }
+        hourlyRates.entrySet().removeIf(entry -> {
+            AtomicInteger count = currentHourCounts.remove(entry.getKey());
+            double[] rates = entry.getValue();
+            rates[hour] = smoothing * (count != null ? count.get() : 0) + (1 - smoothing) * rates[hour];
+            for (int h = 0; h < HOURS_PER_WEEK; h++) {
+                rates[h] *= decay[h];
+            }
+            // Drop cells whose demand has decayed to nothing at every hour
+            for (double rate : rates) {
+                if (rate >= 0.01) {
+                    return false;
+                }
+            }
+            return true;
+        });
+        currentHour = hourStart;
+    }
+    
+    /**
+     * Expected pickups per cell over the horizon, spread across the current and next hour.
+     */
+    private Map<Long, Double> forecast(LocalDateTime now) {
+        int hour = DemandHeatmap.hourOfWeek(now);
+        int nextHour = (hour + 1) % HOURS_PER_WEEK;
+        double minutesIntoHour = now.getMinute() + now.getSecond() / 60.0;
+        double minutesThisHour = Math.min(horizonMinutes, 60 - minutesIntoHour);
+        double minutesNextHour = horizonMinutes - minutesThisHour;
+        
+        Map<Long, Double> demand = new HashMap<>();
+        hourlyRates.forEach((cell, rates) -> {
+            double rate = rates[hour];
+            // Once enough of the hour has passed, let what it has shown pull the rate
+            AtomicInteger count = currentHourCounts.get(cell);
+            if (count != null && minutesIntoHour >= 15) {
+                rate = smoothing * (count.get() * 60.0 / minutesIntoHour) + (1 - smoothing) * rate;
+            }
+            double expected = (rate * minutesThisHour + rates[nextHour] * minutesNextHour) / 60.0;
+            if (expected > 0) {
+                demand.put(cell, expected);
+            }
+        });
+        return demand;
+    }
+    
+    /**
+     * Greedily sends the nearest spare driver to each short cell, biggest shortfall first.
+     */
+    private int assignHints(Map<Long, Double> shortfalls, List<DriverPublicDTO> spare) {
+        List<Long> shortCells = new ArrayList<>(shortfalls.keySet());
+        shortCells.sort((a, b) -> Double.compare(shortfalls.get(b), shortfalls.get(a)));
+        long validUntil = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(horizonMinutes);
+        int hints = 0;
+        
+        for (long cell : shortCells) {
+            double targetLat = GeoUtils.tileToLat((int) cell + 0.5, cellZoom);
+            double targetLng = GeoUtils.tileToLng((int) (cell >>> 32) + 0.5, cellZoom);
+            double shortfall = shortfalls.get(cell);
+            
+            while (shortfall >= minShortfall && !spare.isEmpty()) {
+                int nearest = -1;
+                double nearestKm = maxHintDistanceKm;
+                for (int i = 0; i < spare.size(); i++) {
+                    DriverPublicDTO driver = spare.get(i);
+                    double km = GeoUtils.distanceMeters(driver.getCurrentLatitude(), driver.getCurrentLongitude(),
+                            targetLat, targetLng) / 1000.0;
+                    if (km <= nearestKm) {
+                        nearest = i;
+                        nearestKm = km;
+                    }
+                }
+                if (nearest < 0) {
+                    break;
+                }
+                
+                DriverPublicDTO driver = spare.remove(nearest);
+                messagingTemplate.convertAndSend("/topic/driver-hints/" + driver.getId(), DriverHintDTO.builder()
+                        .driverId(driver.getId())
+                        .targetLat(targetLat)
+                        .targetLng(targetLng)
+                        .distanceKm(Math.round(nearestKm * 100.0) / 100.0)
+                        .expectedShortfall(Math.round(shortfall * 10.0) / 10.0)
+                        .validUntil(validUntil)
+                        .build());
+                shortfall -= 1;
+                hints++;
+            }
+        }
+        return hints;
+    }
+    
+    /**
+     * Smoothed pickups per hour for the cell containing a point, at an hour of week
+     */
+    synchronized double rate(double lat, double lng, int hourOfWeek) {
+        double[] rates = hourlyRates.get(cellOf(lat, lng));
+        return rates != null ? rates[hourOfWeek] : 0;
+    }
+    
+    private long cellOf(double lat, double lng) {
+        return ((long) GeoUtils.tileX(lng, cellZoom) << 32) | GeoUtils.tileY(lat, cellZoom);
+    }
+}
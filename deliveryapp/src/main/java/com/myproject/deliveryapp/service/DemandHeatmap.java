@@ -0,0 +1,307 @@
+package com.myproject.deliveryapp.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import com.myproject.deliveryapp.dto.HeatmapTileDTO;
+import com.myproject.deliveryapp.entity.Order;
+import com.myproject.deliveryapp.util.GeoUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Order pickup counts aggregated into Web Mercator tiles for every zoom level
+ * up to MAX_ZOOM. Each tile is a BINS x BINS grid of counts, kept separately
+ * per hour of week and vehicle type so operations can slice demand.
+ *
+ * New orders are added as they are created. History is loaded once at startup
+ * by a fork-join backfill that splits the orders table into ID ranges; orders
+ * created while it runs are counted live and skipped by the backfill. Orders
+ * recorded before the backfill has fixed its upper ID are held back and
+ * counted once it has, so none fall between the two.
+ */
+@Service
+@Slf4j
+public class DemandHeatmap implements DisposableBean {
+    
+    static final int MAX_ZOOM = 14;
+    static final int BIN_BITS = 4;
+    static final int BINS = 1 << BIN_BITS;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final int backfillChunk;
+    private final ForkJoinPool backfillPool;
+    
+    // tile key -> slice key (vehicle type, hour of week) -> bin counts
+    private final Map<Long, Map<Long, AtomicIntegerArray>> tiles = new ConcurrentHashMap<>();
+    
+    // Orders up to this ID are left to the backfill; -1 until it has looked at the table
+    private volatile long backfillUpperId = -1L;
+    // Orders recorded while the upper ID was unknown, counted against it once it is
+    private final Queue<Order> early = new ConcurrentLinkedQueue<>();
+    // The running or finished backfill, null when there was no history to read
+    private volatile ForkJoinTask<?> backfillTask;
+    
+    public DemandHeatmap(JdbcTemplate jdbcTemplate,
+                         @Value("${app.heatmap.backfill-chunk:20000}") int backfillChunk,
+                         @Value("${app.heatmap.backfill-parallelism:4}") int backfillParallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.backfillChunk = Math.max(1000, backfillChunk);
+        this.backfillPool = new ForkJoinPool(Math.max(1, backfillParallelism));
+    }
+    
+    public void record(Order order) {
+        if (order.getId() == null) {
+            return;
+        }
+        if (backfillUpperId < 0) {
+            early.add(order);
+            // The backfill may have fixed its bound and drained the queue since the check
+            if (backfillUpperId >= 0) {
+                countEarly();
+            }
+            return;
+        }
+        if (order.getId() > backfillUpperId) {
+            count(order);
+        }
+    }
+    
+    /**
+     * Counts the held-back orders the backfill will not see. Each is taken off
+     * the queue once, by whichever thread gets to it.
+     */
+    private void countEarly() {
+        Order order;
+        while ((order = early.poll()) != null) {
+            if (order.getId() > backfillUpperId) {
+                count(order);
+            }
+        }
+    }
+    
+    private void count(Order order) {
+        if (order.getPickupLat() == null || order.getPickupLng() == null || order.getCreatedAt() == null) {
+            return;
+        }
+        long slice = sliceKey(order.getVehicleType() != null ? order.getVehicleType().getId() : null,
+                hourOfWeek(order.getCreatedAt()));
+        index(order.getPickupLat(), order.getPickupLng(), (tileKey, bin) -> tiles
+                .computeIfAbsent(tileKey, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(slice, k -> new AtomicIntegerArray(BINS * BINS))
+                .incrementAndGet(bin));
+    }
+    
+    /**
+     * @param hourOfWeek 0 (Monday 00:00) to 167, or null for every hour
+     * @param vehicleTypeId vehicle type to count, or null for all types
+     */
+    public HeatmapTileDTO tile(int z, int x, int y, Integer hourOfWeek, Long vehicleTypeId) {
+        if (z < 0 || z > MAX_ZOOM) {
+            throw new RuntimeException("Zoom must be between 0 and " + MAX_ZOOM);
+        }
+        int[] counts = new int[BINS * BINS];
+        long total = 0;
+        
+        Map<Long, AtomicIntegerArray> slices = tiles.get(tileKey(z, x, y));
+        if (slices != null) {
+            for (Map.Entry<Long, AtomicIntegerArray> slice : slices.entrySet()) {
+                if (hourOfWeek != null && hourOfWeek != (int) (slice.getKey() & 0xFF)) {
+                    continue;
+                }
+                if (vehicleTypeId != null && vehicleTypeId != (slice.getKey() >>> 8)) {
+                    continue;
+                }
+                AtomicIntegerArray bins = slice.getValue();
+                for (int i = 0; i < counts.length; i++) {
+                    int count = bins.get(i);
+                    counts[i] += count;
+                    total += count;
+                }
+            }
+        }
+        
+        return HeatmapTileDTO.builder()
+                .z(z)
+                .x(x)
+                .y(y)
+                .size(BINS)
+                .counts(counts)
+                .total(total)
+                .build();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM orders", Long.class);
+        if (maxId == null) {
+            backfillUpperId = 0L;
+            countEarly();
+            return;
+        }
+        backfillUpperId = maxId;
+        countEarly();
+        long minId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM orders", Long.class);
+        
+        // Runs in the background; demand shows up on the map as soon as it is merged
+        long started = System.currentTimeMillis();
+        backfillTask = backfillPool.submit(() -> {
+            try {
+                Accumulator history = new BackfillTask(minId, maxId).invoke();
+                history.mergeInto(tiles);
+                log.info("Heatmap backfill of orders {}..{} finished in {} ms", minId, maxId,
+                        System.currentTimeMillis() - started);
+            } catch (RuntimeException e) {
+                log.error("Heatmap backfill failed", e);
+            }
+        });
+    }
+    
+    /**
+     * Waits until the history read by the backfill has been merged in
+     */
+    void awaitBackfill(long timeoutMillis) throws InterruptedException, ExecutionException, TimeoutException {
+        ForkJoinTask<?> task = backfillTask;
+        if (task != null) {
+            task.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        backfillPool.shutdownNow();
+    }
+    
+    /**
+     * Calls the sink once per zoom level with the tile and bin holding the point.
+     */
+    private static void index(double lat, double lng, BinSink sink) {
+        int finestZoom = MAX_ZOOM + BIN_BITS;
+        int fx = GeoUtils.tileX(lng, finestZoom);
+        int fy = GeoUtils.tileY(lat, finestZoom);
+        for (int z = 0; z <= MAX_ZOOM; z++) {
+            int shift = MAX_ZOOM - z;
+            int bx = fx >>> shift;
+            int by = fy >>> shift;
+            int bin = (by & (BINS - 1)) * BINS + (bx & (BINS - 1));
+            sink.accept(tileKey(z, bx >>> BIN_BITS, by >>> BIN_BITS), bin);
+        }
+    }
+    
+    private static long tileKey(int z, int x, int y) {
+        return ((long) z << 48) | ((long) x << 24) | y;
+    }
+    
+    private static long sliceKey(Long vehicleTypeId, int hourOfWeek) {
+        return ((vehicleTypeId != null ? vehicleTypeId : 0L) << 8) | hourOfWeek;
+    }
+    
+    static int hourOfWeek(LocalDateTime time) {
+        return (time.getDayOfWeek().getValue() - 1) * 24 + time.getHour();
+    }
+    
+    private interface BinSink {
+        void accept(long tileKey, int bin);
+    }
+    
+    /**
+     * Plain (unsynchronized) counts gathered by one backfill task.
+     */
+    private static final class Accumulator {
+        final Map<Long, Map<Long, int[]>> tiles = new HashMap<>();
+        
+        void add(double lat, double lng, long slice) {
+            index(lat, lng, (tileKey, bin) -> tiles
+                    .computeIfAbsent(tileKey, k -> new HashMap<>())
+                    .computeIfAbsent(slice, k -> new int[BINS * BINS])[bin]++);
+        }
+        
+        Accumulator merge(Accumulator other) {
+            other.tiles.forEach((tileKey, slices) -> slices.forEach((slice, counts) -> {
+                int[] target = tiles.computeIfAbsent(tileKey, k -> new HashMap<>())
+                        .computeIfAbsent(slice, k -> new int[BINS * BINS]);
+                for (int i = 0; i < counts.length; i++) {
+                    target[i] += counts[i];
+                }
+            }));
+            return this;
+        }
+        
+        void mergeInto(Map<Long, Map<Long, AtomicIntegerArray>> live) {
+            tiles.forEach((tileKey, slices) -> slices.forEach((slice, counts) -> {
+                AtomicIntegerArray target = live.computeIfAbsent(tileKey, k -> new ConcurrentHashMap<>())
+                        .computeIfAbsent(slice, k -> new AtomicIntegerArray(BINS * BINS));
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] != 0) {
+                        target.addAndGet(i, counts[i]);
+                    }
+                }
+            }));
+        }
+    }
+    
+    private final class BackfillTask extends RecursiveTask<Accumulator> {
+        private final long fromId;
+        private final long toId;
+        
+        BackfillTask(long fromId, long toId) {
+            this.fromId = fromId;
+            this.toId = toId;
+        }
+        
+        @Override
+        protected Accumulator compute() {
+            if (toId - fromId >= backfillChunk) {
+                long mid = fromId + (toId - fromId) / 2;
+                BackfillTask left = new BackfillTask(fromId, mid);
+                BackfillTask right = new BackfillTask(mid + 1, toId);
+                left.fork();
+                Accumulator result = right.compute();
+                return result.merge(left.join());
+            }
+            
+            Accumulator accumulator = new Accumulator();
+            jdbcTemplate.query(
+                    "SELECT pickup_lat, pickup_lng, vehicle_type_id, created_at FROM orders WHERE id BETWEEN ? AND ?",
+                    (RowCallbackHandler) rs -> {
+                        // Left out as the live path leaves them out, rather than read as 0 and counted at (0, 0)
+                        double lat = rs.getDouble("pickup_lat");
+                        if (rs.wasNull()) {
+                            return;
+                        }
+                        double lng = rs.getDouble("pickup_lng");
+                        if (rs.wasNull()) {
+                            return;
+                        }
+                        Timestamp createdAt = rs.getTimestamp("created_at");
+                        if (createdAt == null) {
+                            return;
+                        }
+                        long vehicleTypeId = rs.getLong("vehicle_type_id");
+                        accumulator.add(lat, lng, sliceKey(vehicleTypeId, hourOfWeek(createdAt.toLocalDateTime())));
+                    },
+                    fromId, toId);
+            return accumulator;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.myproject.deliveryapp.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+
+import com.myproject.deliveryapp.dto.DriverClusterDTO;
+import com.myproject.deliveryapp.util.GeoUtils;
+
+/**
+ * Hierarchical grid of available drivers for server-side map clustering.
+ *
+ * Level z holds Web Mercator tile cells at zoom z; a map at zoom level Z is
+ * clustered on level Z + CELL_BITS, which gives cells of 256 / 2^CELL_BITS
+ * pixels on screen. Each cell keeps per-vehicle-type counts and coordinate
+ * sums, so a driver moving only adjusts one cell per level and a query only
+ * looks up the cells of one level inside the viewport. Kept current by
+ * AvailableDriverMap.
+ */
+@Service
+public class DriverClusterIndex {
+    
+    static final int MAX_LEVEL = 22;
+    static final int CELL_BITS = 2;
+    
+    // levels[z]: cell key -> vehicle type -> aggregate
+    private final List<Map<Long, Map<String, Aggregate>>> levels = new ArrayList<>(MAX_LEVEL + 1);
+    private final Map<Long, Entry> entries = new HashMap<>();
+    
+    public DriverClusterIndex() {
+        for (int z = 0; z <= MAX_LEVEL; z++) {
+            levels.add(new HashMap<>());
+        }
+    }
+    
+    public synchronized void put(long driverId, double lat, double lng, String vehicleType) {
+        Entry next = new Entry(lat, lng, vehicleType, GeoUtils.tileX(lng, MAX_LEVEL), GeoUtils.tileY(lat, MAX_LEVEL));
+        Entry previous = entries.put(driverId, next);
+        if (previous != null) {
+            apply(driverId, previous, -1);
+        }
+        apply(driverId, next, 1);
+    }
+    
+    public synchronized void remove(long driverId) {
+        Entry previous = entries.remove(driverId);
+        if (previous != null) {
+            apply(driverId, previous, -1);
+        }
+    }
+    
+    /**
+     * Clusters within the viewport for a map at the given zoom. A viewport with
+     * minLng greater than maxLng crosses the antimeridian.
+     */
+    public synchronized List<DriverClusterDTO> clusters(double minLat, double minLng, double maxLat, double maxLng, int zoom) {
+        int z = Math.max(0, Math.min(MAX_LEVEL, zoom + CELL_BITS));
+        int minX = GeoUtils.tileX(minLng, z);
+        int maxX = GeoUtils.tileX(maxLng, z);
+        // Tile Y grows southwards
+        int minY = GeoUtils.tileY(maxLat, z);
+        int maxY = GeoUtils.tileY(minLat, z);
+        boolean wraps = minX > maxX;
+        long width = wraps ? (1L << z) - minX + maxX + 1 : maxX - minX + 1;
+        long height = maxY - minY + 1;
+        
+        Map<Long, Map<String, Aggregate>> level = levels.get(z);
+        List<DriverClusterDTO> clusters = new ArrayList<>();
+        if (width * height <= level.size()) {
+            // A screen-sized viewport is a few hundred cells at the requested zoom
+            for (long i = 0; i < width; i++) {
+                int x = (int) ((minX + i) % (1L << z));
+                for (int y = minY; y <= maxY; y++) {
+                    Map<String, Aggregate> cell = level.get(key(x, y));
+                    if (cell != null) {
+                        addClusters(cell, clusters);
+                    }
+                }
+            }
+            return clusters;
+        }
+        
+        // A viewport far wider than its zoom: fewer cells are occupied than are in view
+        for (Map.Entry<Long, Map<String, Aggregate>> cell : level.entrySet()) {
+            long key = cell.getKey();
+            int x = (int) (key >>> 32);
+            int y = (int) key;
+            boolean inX = wraps ? (x >= minX || x <= maxX) : (x >= minX && x <= maxX);
+            if (inX && y >= minY && y <= maxY) {
+                addClusters(cell.getValue(), clusters);
+            }
+        }
+        return clusters;
+    }
+    
+    private static void addClusters(Map<String, Aggregate> cell, List<DriverClusterDTO> clusters) {
+        cell.forEach((vehicleType, aggregate) -> clusters.add(DriverClusterDTO.builder()
+                .latitude(aggregate.sumLat / aggregate.count)
+                .longitude(aggregate.sumLng / aggregate.count)
+                .count(aggregate.count)
+                .vehicleType(vehicleType)
+                // With one driver left, the ID sum is that driver's ID
+                .driverId(aggregate.count == 1 ? aggregate.sumDriverIds : null)
+                .build()));
+    }
+    
+    private static long key(int x, int y) {
+        return ((long) x << 32) | y;
+    }
+    
+    private void apply(long driverId, Entry entry, int sign) {
+        for (int z = 0; z <= MAX_LEVEL; z++) {
+            int shift = MAX_LEVEL - z;
+            long key = key(entry.x >>> shift, entry.y >>> shift);
+            Map<Long, Map<String, Aggregate>> level = levels.get(z);
+            Map<String, Aggregate> cell = level.computeIfAbsent(key, k -> new HashMap<>(4));
+            Aggregate aggregate = cell.computeIfAbsent(entry.vehicleType, k -> new Aggregate());
+            aggregate.count += sign;
+            aggregate.sumLat += sign * entry.lat;
+            aggregate.sumLng += sign * entry.lng;
+            aggregate.sumDriverIds += sign * driverId;
+            if (aggregate.count == 0) {
+                cell.remove(entry.vehicleType);
+                if (cell.isEmpty()) {
+                    level.remove(key);
+                }
+            }
+        }
+    }
+    
+    private static final class Entry {
+        final double lat;
+        final double lng;
+        final String vehicleType;
+        final int x;
+        final int y;
+        
+        Entry(double lat, double lng, String vehicleType, int x, int y) {
+            this.lat = lat;
+            this.lng = lng;
+            this.vehicleType = vehicleType;
+            this.x = x;
+            this.y = y;
+        }
+    }
+    
+    private static final class Aggregate {
+        int count;
+        double sumLat;
+        double sumLng;
+        long sumDriverIds;
+    }
+}
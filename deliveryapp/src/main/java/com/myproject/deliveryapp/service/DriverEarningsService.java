@@ -0,0 +1,152 @@
+package com.myproject.deliveryapp.service;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.myproject.deliveryapp.dto.DailyEarningsDTO;
+import com.myproject.deliveryapp.dto.EarningsPeriodDTO;
+import com.myproject.deliveryapp.entity.Driver;
+import com.myproject.deliveryapp.entity.Order;
+import com.myproject.deliveryapp.enums.EarningsGranularity;
+import com.myproject.deliveryapp.repository.OrderRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-driver daily earnings rollups (driver_daily_earnings, see the V4
+ * migration). A completed order is added to its driver's row for the day in
+ * the same transaction that saves it, so the earnings endpoints read a
+ * handful of rollup rows instead of the orders behind them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DriverEarningsService {
+    
+    // Platform commission on the fare of every completed trip
+    public static final BigDecimal COMMISSION_RATE = new BigDecimal("0.10");
+    
+    private static final String ADD_TRIP_SQL = """
+            INSERT INTO driver_daily_earnings (driver_id, day, trips, gross, commission, cash_collected, distance_km)
+            VALUES (?, ?, 1, ?, ?, ?, ?)
+            ON CONFLICT (driver_id, day) DO UPDATE SET
+                trips = driver_daily_earnings.trips + 1,
+                gross = driver_daily_earnings.gross + EXCLUDED.gross,
+                commission = driver_daily_earnings.commission + EXCLUDED.commission,
+                cash_collected = driver_daily_earnings.cash_collected + EXCLUDED.cash_collected,
+                distance_km = driver_daily_earnings.distance_km + EXCLUDED.distance_km
+            """;
+    
+    private static final String PERIODS_SQL = """
+            SELECT date_trunc(?, day::TIMESTAMP)::DATE AS period_start, sum(trips) AS trips, sum(gross) AS gross,
+                   sum(commission) AS commission, sum(cash_collected) AS cash_collected,
+                   sum(distance_km) AS distance_km
+            FROM driver_daily_earnings
+            WHERE driver_id = ? AND day BETWEEN ? AND ?
+            GROUP BY 1
+            ORDER BY 1
+            """;
+    
+    // Same aggregation as the V4 backfill, over a range of completion days
+    private static final String REBUILD_SQL = """
+            INSERT INTO driver_daily_earnings (driver_id, day, trips, gross, commission, cash_collected, distance_km)
+            SELECT o.driver_id, o.completed_at::DATE, count(*),
+                   sum(COALESCE(o.final_price, o.price)),
+                   sum(round(COALESCE(o.final_price, o.price) * ?, 2)),
+                   COALESCE(sum(COALESCE(o.final_price, o.price)) FILTER (WHERE o.payment_method = 'CASH'), 0),
+                   COALESCE(sum(COALESCE(o.actual_distance, o.distance)), 0)
+            FROM orders o
+            WHERE o.status = 'COMPLETED' AND o.driver_id IS NOT NULL
+              AND o.completed_at >= ? AND o.completed_at < ?
+            GROUP BY o.driver_id, o.completed_at::DATE
+            ON CONFLICT (driver_id, day) DO UPDATE SET
+                trips = EXCLUDED.trips,
+                gross = EXCLUDED.gross,
+                commission = EXCLUDED.commission,
+                cash_collected = EXCLUDED.cash_collected,
+                distance_km = EXCLUDED.distance_km
+            """;
+    
+    private final OrderRepository orderRepository;
+    private final JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Saves an order that has just been completed and adds it to its driver's
+     * rollup for the day, atomically
+     */
+    @Transactional
+    public Order saveCompletedOrder(Order order, BigDecimal commission) {
+        Order saved = orderRepository.save(order);
+        BigDecimal gross = saved.getFinalPrice();
+        Double distance = saved.getActualDistance() != null ? saved.getActualDistance() : saved.getDistance();
+        jdbcTemplate.update(ADD_TRIP_SQL,
+                saved.getDriver().getId(),
+                Date.valueOf(saved.getCompletedAt().toLocalDate()),
+                gross,
+                commission,
+                "CASH".equals(saved.getPaymentMethod()) ? gross : BigDecimal.ZERO,
+                distance != null ? distance : 0.0);
+        return saved;
+    }
+    
+    /**
+     * Earnings for each day, week or month between two days (both inclusive),
+     * oldest first; periods without trips are left out. Weeks and months at
+     * the edges only count the days inside the range.
+     */
+    public List<EarningsPeriodDTO> getEarnings(Driver driver, LocalDate from, LocalDate to,
+                                               EarningsGranularity granularity) {
+        return jdbcTemplate.query(PERIODS_SQL, (rs, rowNum) -> {
+            BigDecimal gross = rs.getBigDecimal("gross");
+            BigDecimal commission = rs.getBigDecimal("commission");
+            return EarningsPeriodDTO.builder()
+                    .periodStart(rs.getDate("period_start").toLocalDate())
+                    .trips(rs.getInt("trips"))
+                    .gross(gross)
+                    .commission(commission)
+                    .net(gross.subtract(commission))
+                    .cashCollected(rs.getBigDecimal("cash_collected"))
+                    .distanceKm(rs.getDouble("distance_km"))
+                    .build();
+        }, granularity.name().toLowerCase(), driver.getId(), Date.valueOf(from), Date.valueOf(to));
+    }
+    
+    /**
+     * Today's trips, gross earnings and cash collected
+     */
+    public DailyEarningsDTO getTodaysEarnings(Driver driver) {
+        LocalDate today = LocalDate.now();
+        List<EarningsPeriodDTO> periods = getEarnings(driver, today, today, EarningsGranularity.DAY);
+        if (periods.isEmpty()) {
+            return new DailyEarningsDTO(0, 0.0, 0.0);
+        }
+        EarningsPeriodDTO period = periods.get(0);
+        return new DailyEarningsDTO(period.getTrips(), period.getGross().doubleValue(),
+                period.getCashCollected().doubleValue());
+    }
+    
+    /**
+     * Recomputes the rollups of the completion days between from and to (both
+     * inclusive) from the orders. Days whose orders are no longer in the
+     * database (archived months) keep the rows they have. Completions wait
+     * for the rebuild, so none of them is lost or counted twice.
+     *
+     * @return the number of driver-days written
+     */
+    @Transactional
+    public int rebuild(LocalDate from, LocalDate to) {
+        jdbcTemplate.execute("LOCK TABLE driver_daily_earnings IN SHARE ROW EXCLUSIVE MODE");
+        int rows = jdbcTemplate.update(REBUILD_SQL, COMMISSION_RATE,
+                Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+        log.info("Rebuilt {} driver earnings rollups for {} to {}", rows, from, to);
+        return rows;
+    }
+}
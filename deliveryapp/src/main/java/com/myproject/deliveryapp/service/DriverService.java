@@ -7,6 +7,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.myproject.deliveryapp.entity.Driver;
 import com.myproject.deliveryapp.repository.DriverRepository;
+import com.myproject.deliveryapp.tracking.LocationFilter;
 
 import lombok.RequiredArgsConstructor;
 
@@ -15,6 +16,8 @@ import lombok.RequiredArgsConstructor;
 public class DriverService {
     
     private final DriverRepository driverRepository;
+    private final AvailableDriverMap availableDriverMap;
+    private final LocationFilter locationFilter;
     
     public List<Driver> findDriversForOrder(double lat, double lng) {
         return driverRepository.findNearestDrivers(lat, lng, 5.0);
@@ -28,12 +31,14 @@ public class DriverService {
         driver.setCurrentLatitude(lat);
         driver.setCurrentLongitude(lng);
         
-        return driverRepository.save(driver);
+        Driver savedDriver = driverRepository.save(driver);
+        availableDriverMap.onPosition(driverId, lat, lng);
+        return savedDriver;
     }
     
     @Transactional
     public Driver updateAvailability(Long driverId, boolean isAvailable) {
-        Driver driver = driverRepository.findById(driverId)
+        Driver driver = driverRepository.findWithDetailsById(driverId)
                 .orElseThrow(() -> new RuntimeException("Driver not found with id: " + driverId));
         
         // Check if driver is approved by admin (registration approval)
@@ -48,6 +53,12 @@ public class DriverService {
         
         driver.setIsAvailable(isAvailable);
         
-        return driverRepository.save(driver);
+        Driver savedDriver = driverRepository.save(driver);
+        availableDriverMap.onDriverChanged(savedDriver);
+        if (!isAvailable) {
+            // Gone offline: its filter slot goes to the next driver to come online
+            locationFilter.release(driverId);
+        }
+        return savedDriver;
     }
 }
@@ -0,0 +1,264 @@
+package com.myproject.deliveryapp.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.myproject.deliveryapp.util.GeoUtils;
+
+/**
+ * Travel-speed model behind {@link EtaService}, kept free of Spring so it can
+ * be benchmarked on its own.
+ *
+ * Observed meters and seconds are summed per grid cell and hour of day. An
+ * estimate walks the straight line between the two points cell by cell and
+ * adds up the time each stretch takes at that cell's learned speed, falling
+ * back to the cell's all-day speed, then the city-wide speed for the hour,
+ * then a default. The resulting pace (seconds per meter) is cached per
+ * origin cell, destination cell and hour in an LRU map.
+ */
+public class EtaModel {
+    
+    private static final int HOURS = 24;
+    // Below this much observed driving a speed is too noisy to trust
+    private static final double MIN_OBSERVED_SECONDS = 120;
+    // Totals are halved past this, so recent trips keep moving the average
+    private static final double MAX_OBSERVED_SECONDS = 6 * 3600;
+    private static final int MAX_WALK_CELLS = 4096;
+    
+    private final int cellZoom;
+    private final double defaultSpeedMps;
+    private final double detourFactor;
+    private final long cacheTtlMillis;
+    
+    // cell -> [meters by hour (24), seconds by hour (24)]
+    private final Map<Long, double[]> cells = new ConcurrentHashMap<>();
+    private final double[] cityTotals = new double[HOURS * 2];
+    private final PaceCache paceCache;
+    
+    public EtaModel(int cellZoom, double defaultSpeedKmh, double detourFactor, int cacheSize, long cacheTtlMillis) {
+        this.cellZoom = cellZoom;
+        this.defaultSpeedMps = defaultSpeedKmh / 3.6;
+        this.detourFactor = detourFactor;
+        this.cacheTtlMillis = cacheTtlMillis;
+        this.paceCache = new PaceCache(cacheSize);
+    }
+    
+    /**
+     * Records a stretch of driving that started at the given point and hour.
+     */
+    public void observe(double lat, double lng, int hour, double meters, double seconds) {
+        if (meters <= 0 || seconds <= 0) {
+            return;
+        }
+        add(cells.computeIfAbsent(cellOf(lat, lng), k -> new double[HOURS * 2]), hour, meters, seconds);
+        add(cityTotals, hour, meters, seconds);
+    }
+    
+    /**
+     * Spreads a whole trip over the cells on the straight line between its ends,
+     * for trips known only by total distance and duration.
+     */
+    public void observeTrip(double fromLat, double fromLng, double toLat, double toLng, int hour,
+                            double meters, double seconds) {
+        if (meters <= 0 || seconds <= 0) {
+            return;
+        }
+        walk(fromLat, fromLng, toLat, toLng, (cell, fraction) -> add(
+                cells.computeIfAbsent(cell, k -> new double[HOURS * 2]), hour, meters * fraction, seconds * fraction));
+        add(cityTotals, hour, meters, seconds);
+    }
+    
+    /**
+     * @return estimated driving time in seconds between the two points
+     */
+    public long estimateSeconds(double fromLat, double fromLng, double toLat, double toLng, int hour) {
+        double meters = GeoUtils.distanceMeters(fromLat, fromLng, toLat, toLng) * detourFactor;
+        if (meters < 1) {
+            return 0L;
+        }
+        return Math.round(meters * pace(cellOf(fromLat, fromLng), cellOf(toLat, toLng), hour));
+    }
+    
+    public int cachedPaces() {
+        return paceCache.size();
+    }
+    
+    /**
+     * Seconds per meter between the centers of two cells at the given hour.
+     */
+    double pace(long fromCell, long toCell, int hour) {
+        long now = System.currentTimeMillis();
+        PaceKey key = new PaceKey(fromCell, toCell, hour);
+        CachedPace cached = paceCache.get(key);
+        if (cached != null && now - cached.computedAt < cacheTtlMillis) {
+            return cached.secondsPerMeter;
+        }
+        
+        double secondsPerMeter;
+        if (fromCell == toCell) {
+            secondsPerMeter = 1.0 / speed(fromCell, hour);
+        } else {
+            double fromLat = GeoUtils.tileToLat((int) fromCell + 0.5, cellZoom);
+            double fromLng = GeoUtils.tileToLng((int) (fromCell >>> 32) + 0.5, cellZoom);
+            double toLat = GeoUtils.tileToLat((int) toCell + 0.5, cellZoom);
+            double toLng = GeoUtils.tileToLng((int) (toCell >>> 32) + 0.5, cellZoom);
+            double[] total = new double[1];
+            walk(fromLat, fromLng, toLat, toLng, (cell, fraction) -> total[0] += fraction / speed(cell, hour));
+            secondsPerMeter = total[0];
+        }
+        paceCache.put(key, new CachedPace(secondsPerMeter, now));
+        return secondsPerMeter;
+    }
+    
+    /**
+     * Learned speed in meters per second for the cell and hour.
+     */
+    double speed(long cell, int hour) {
+        double[] totals = cells.get(cell);
+        if (totals != null) {
+            if (totals[HOURS + hour] >= MIN_OBSERVED_SECONDS) {
+                return totals[hour] / totals[HOURS + hour];
+            }
+            double meters = 0;
+            double seconds = 0;
+            for (int h = 0; h < HOURS; h++) {
+                meters += totals[h];
+                seconds += totals[HOURS + h];
+            }
+            if (seconds >= MIN_OBSERVED_SECONDS) {
+                return meters / seconds;
+            }
+        }
+        if (cityTotals[HOURS + hour] >= MIN_OBSERVED_SECONDS) {
+            return cityTotals[hour] / cityTotals[HOURS + hour];
+        }
+        return defaultSpeedMps;
+    }
+    
+    /**
+     * Walks the grid cells crossed by the straight (Mercator) line between two
+     * points, reporting each cell with the fraction of the line inside it.
+     */
+    void walk(double fromLat, double fromLng, double toLat, double toLng, CellVisitor visitor) {
+        double x0 = GeoUtils.mercatorX(fromLng, cellZoom);
+        double x1 = GeoUtils.mercatorX(toLng, cellZoom);
+        double y0 = GeoUtils.mercatorY(fromLat, cellZoom);
+        double y1 = GeoUtils.mercatorY(toLat, cellZoom);
+        
+        int cx = (int) Math.floor(x0);
+        int cy = (int) Math.floor(y0);
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        int stepX = dx > 0 ? 1 : -1;
+        int stepY = dy > 0 ? 1 : -1;
+        double tDeltaX = dx != 0 ? Math.abs(1.0 / dx) : Double.POSITIVE_INFINITY;
+        double tDeltaY = dy != 0 ? Math.abs(1.0 / dy) : Double.POSITIVE_INFINITY;
+        double tMaxX = dx > 0 ? (cx + 1 - x0) / dx : dx < 0 ? (x0 - cx) / -dx : Double.POSITIVE_INFINITY;
+        double tMaxY = dy > 0 ? (cy + 1 - y0) / dy : dy < 0 ? (y0 - cy) / -dy : Double.POSITIVE_INFINITY;
+        
+        double t = 0;
+        for (int visited = 0; visited < MAX_WALK_CELLS; visited++) {
+            double next = Math.min(1.0, Math.min(tMaxX, tMaxY));
+            if (next > t) {
+                visitor.visit(((long) cx << 32) | (cy & 0xFFFFFFFFL), next - t);
+            }
+            t = next;
+            if (t >= 1.0) {
+                return;
+            }
+            if (tMaxX < tMaxY) {
+                cx += stepX;
+                tMaxX += tDeltaX;
+            } else {
+                cy += stepY;
+                tMaxY += tDeltaY;
+            }
+        }
+        // Absurdly long line; count the rest at the last cell reached
+        visitor.visit(((long) cx << 32) | (cy & 0xFFFFFFFFL), 1.0 - t);
+    }
+    
+    private long cellOf(double lat, double lng) {
+        return ((long) GeoUtils.tileX(lng, cellZoom) << 32) | GeoUtils.tileY(lat, cellZoom);
+    }
+    
+    private static void add(double[] totals, int hour, double meters, double seconds) {
+        synchronized (totals) {
+            totals[hour] += meters;
+            totals[HOURS + hour] += seconds;
+            if (totals[HOURS + hour] > MAX_OBSERVED_SECONDS) {
+                totals[hour] /= 2;
+                totals[HOURS + hour] /= 2;
+            }
+        }
+    }
+    
+    interface CellVisitor {
+        void visit(long cell, double fraction);
+    }
+    
+    private static final class PaceKey {
+        final long fromCell;
+        final long toCell;
+        final int hour;
+        
+        PaceKey(long fromCell, long toCell, int hour) {
+            this.fromCell = fromCell;
+            this.toCell = toCell;
+            this.hour = hour;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PaceKey)) {
+                return false;
+            }
+            PaceKey other = (PaceKey) o;
+            return fromCell == other.fromCell && toCell == other.toCell && hour == other.hour;
+        }
+        
+        @Override
+        public int hashCode() {
+            return Long.hashCode(fromCell * 31 + toCell) * 31 + hour;
+        }
+    }
+    
+    private static final class CachedPace {
+        final double secondsPerMeter;
+        final long computedAt;
+        
+        CachedPace(double secondsPerMeter, long computedAt) {
+            this.secondsPerMeter = secondsPerMeter;
+            this.computedAt = computedAt;
+        }
+    }
+    
+    /**
+     * Access-ordered LinkedHashMap evicting the least recently used pace.
+     */
+    private static final class PaceCache {
+        private final Map<PaceKey, CachedPace> entries;
+        
+        PaceCache(int capacity) {
+            this.entries = new LinkedHashMap<>(Math.min(capacity, 1 << 16), 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<PaceKey, CachedPace> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+        
+        synchronized CachedPace get(PaceKey key) {
+            return entries.get(key);
+        }
+        
+        synchronized void put(PaceKey key, CachedPace pace) {
+            entries.put(key, pace);
+        }
+        
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+}
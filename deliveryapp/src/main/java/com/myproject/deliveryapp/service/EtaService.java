@@ -0,0 +1,137 @@
+package com.myproject.deliveryapp.service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import com.myproject.deliveryapp.dto.DriverPublicDTO;
+import com.myproject.deliveryapp.tracking.BreadcrumbStore;
+import com.myproject.deliveryapp.util.GeoUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Driving-time estimates learned from completed trips.
+ *
+ * Recorded GPS tracks teach the model per-cell speeds stretch by stretch as
+ * orders complete. At startup it is seeded from the measured distance and
+ * duration stored on recent completed orders, spread along the straight line
+ * from pickup to drop. See {@link EtaModel} for how estimates are made.
+ */
+@Service
+@Slf4j
+public class EtaService {
+    
+    // Gaps longer than this between track points are stops or signal loss, not driving
+    private static final long MAX_STRETCH_MILLIS = 120_000;
+    private static final double MAX_SPEED_MPS = 55;
+    
+    private final EtaModel model;
+    private final JdbcTemplate jdbcTemplate;
+    private final BreadcrumbStore breadcrumbStore;
+    private final AvailableDriverMap availableDriverMap;
+    private final int seedDays;
+    
+    public EtaService(JdbcTemplate jdbcTemplate, BreadcrumbStore breadcrumbStore, AvailableDriverMap availableDriverMap,
+                      @Value("${app.eta.cell-zoom:14}") int cellZoom,
+                      @Value("${app.eta.default-speed-kmh:25}") double defaultSpeedKmh,
+                      @Value("${app.eta.detour-factor:1.3}") double detourFactor,
+                      @Value("${app.eta.cache-size:100000}") int cacheSize,
+                      @Value("${app.eta.cache-ttl-ms:600000}") long cacheTtlMs,
+                      @Value("${app.eta.seed-days:90}") int seedDays) {
+        this.model = new EtaModel(cellZoom, defaultSpeedKmh, detourFactor, cacheSize, cacheTtlMs);
+        this.jdbcTemplate = jdbcTemplate;
+        this.breadcrumbStore = breadcrumbStore;
+        this.availableDriverMap = availableDriverMap;
+        this.seedDays = seedDays;
+    }
+    
+    /**
+     * @return estimated driving time in seconds, or null if the start is unknown
+     */
+    public Long estimateSeconds(Double fromLat, Double fromLng, double toLat, double toLng) {
+        if (fromLat == null || fromLng == null) {
+            return null;
+        }
+        return model.estimateSeconds(fromLat, fromLng, toLat, toLng, LocalDateTime.now().getHour());
+    }
+    
+    /**
+     * @return estimated seconds for the closest available driver of the vehicle
+     *         type to reach the point, or null if none is online
+     */
+    public Long nearestDriverEtaSeconds(String vehicleType, double lat, double lng) {
+        DriverPublicDTO nearest = null;
+        double nearestMeters = Double.MAX_VALUE;
+        for (DriverPublicDTO driver : availableDriverMap.snapshot()) {
+            if (driver.getCurrentLatitude() == null || driver.getCurrentLongitude() == null
+                    || !vehicleType.equals(driver.getVehicleType())) {
+                continue;
+            }
+            double meters = GeoUtils.distanceMeters(driver.getCurrentLatitude(), driver.getCurrentLongitude(), lat, lng);
+            if (meters < nearestMeters) {
+                nearest = driver;
+                nearestMeters = meters;
+            }
+        }
+        return nearest != null
+                ? estimateSeconds(nearest.getCurrentLatitude(), nearest.getCurrentLongitude(), lat, lng)
+                : null;
+    }
+    
+    /**
+     * Learns from the GPS track of a completed order, one stretch between consecutive points at a time.
+     */
+    public void learnFromTrack(long orderId) {
+        long[] previous = new long[3];
+        boolean[] first = { true };
+        breadcrumbStore.forEachPoint(orderId, (timestampMillis, latE6, lngE6) -> {
+            if (!first[0]) {
+                long elapsed = timestampMillis - previous[0];
+                if (elapsed > 0 && elapsed <= MAX_STRETCH_MILLIS) {
+                    double lat = previous[1] / 1e6;
+                    double lng = previous[2] / 1e6;
+                    double meters = GeoUtils.distanceMeters(lat, lng, latE6 / 1e6, lngE6 / 1e6);
+                    double seconds = elapsed / 1000.0;
+                    if (meters / seconds <= MAX_SPEED_MPS) {
+                        model.observe(lat, lng, hourOf(previous[0]), meters, seconds);
+                    }
+                }
+            }
+            first[0] = false;
+            previous[0] = timestampMillis;
+            previous[1] = latE6;
+            previous[2] = lngE6;
+        });
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        int[] trips = new int[1];
+        jdbcTemplate.query(
+                "SELECT pickup_lat, pickup_lng, drop_lat, drop_lng, actual_distance, actual_duration_seconds, completed_at "
+                        + "FROM orders WHERE status = 'COMPLETED' AND actual_duration_seconds > 0 AND completed_at >= ?",
+                (RowCallbackHandler) rs -> {
+                    long seconds = rs.getLong("actual_duration_seconds");
+                    LocalDateTime started = rs.getTimestamp("completed_at").toLocalDateTime().minusSeconds(seconds);
+                    model.observeTrip(rs.getDouble("pickup_lat"), rs.getDouble("pickup_lng"),
+                            rs.getDouble("drop_lat"), rs.getDouble("drop_lng"), started.getHour(),
+                            rs.getDouble("actual_distance") * 1000.0, seconds);
+                    trips[0]++;
+                },
+                Timestamp.valueOf(LocalDateTime.now().minusDays(seedDays)));
+        log.info("Seeded ETA model from {} completed trips", trips[0]);
+    }
+    
+    private static int hourOf(long timestampMillis) {
+        return Instant.ofEpochMilli(timestampMillis).atZone(ZoneId.systemDefault()).getHour();
+    }
+}
@@ -0,0 +1,122 @@
+package com.myproject.deliveryapp.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import com.myproject.deliveryapp.dto.IngestNodeDTO;
+import com.myproject.deliveryapp.dto.LocationUpdateRequest;
+import com.myproject.deliveryapp.replication.ClusterMembership;
+import com.myproject.deliveryapp.replication.ReplicationBus;
+import com.myproject.deliveryapp.replication.ReplicationEvent;
+import com.myproject.deliveryapp.tracking.BreadcrumbStore;
+import com.myproject.deliveryapp.tracking.LocationFilter;
+import com.myproject.deliveryapp.websocket.LocationFixSink;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Single entry point for driver location pings, whether they arrive as JSON
+ * or as binary frames. Filters out jitter and stationary repeats, then
+ * persists the latest position and fans it out to the tracking topics.
+ *
+ * With several nodes each driver's pings are ingested on the node that owns
+ * the driver. Pings reaching another node are forwarded to the owner, and the
+ * driver is told (at most every few seconds) which node to reconnect to.
+ */
+@Service
+@RequiredArgsConstructor
+public class LocationIngestService implements LocationFixSink {
+    
+    private final DriverService driverService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final BreadcrumbStore breadcrumbStore;
+    private final ActiveOrderRegistry activeOrderRegistry;
+    private final LocationFilter locationFilter;
+    private final TrackingEventHub trackingEventHub;
+    private final ReplicationBus replicationBus;
+    private final ClusterMembership clusterMembership;
+    
+    @Value("${app.cluster.redirect-hint-interval-ms:10000}")
+    private long redirectHintIntervalMs;
+    
+    private final Map<Long, Long> lastRedirectHint = new ConcurrentHashMap<>();
+    
+    @Override
+    public void onFix(long driverId, int latE6, int lngE6, long timestampMillis, int headingDeciDeg, int speedCmPerSec) {
+        ingest(driverId, latE6 / 1e6, lngE6 / 1e6, timestampMillis, headingDeciDeg, speedCmPerSec);
+    }
+    
+    public void ingest(LocationUpdateRequest request) {
+        ingest(request.getDriverId(), request.getLatitude(), request.getLongitude(),
+                System.currentTimeMillis(), -1, -1);
+    }
+    
+    public void ingest(long driverId, double rawLat, double rawLng, long timestampMillis, int headingDeciDeg, int speedCmPerSec) {
+        String owner = clusterMembership.ownerOf(driverId);
+        if (!owner.equals(clusterMembership.nodeId())) {
+            replicationBus.publish(ReplicationEvent.forwardedFix(owner, driverId, rawLat, rawLng, timestampMillis));
+            hintOwner(driverId, owner);
+            return;
+        }
+        accept(driverId, rawLat, rawLng, timestampMillis);
+    }
+    
+    /**
+     * A ping another node passed on because this node owns the driver. Never
+     * forwarded again, so nodes briefly disagreeing on the owner cannot bounce it.
+     */
+    public void ingestForwarded(long driverId, double rawLat, double rawLng, long timestampMillis) {
+        accept(driverId, rawLat, rawLng, timestampMillis);
+    }
+    
+    private void accept(long driverId, double rawLat, double rawLng, long timestampMillis) {
+        // Only meaningful movement goes any further
+        double[] position = locationFilter.accept(driverId, rawLat, rawLng, timestampMillis);
+        if (position == null) {
+            return;
+        }
+        double lat = position[0];
+        double lng = position[1];
+        
+        // Save location to database
+        driverService.updateLocation(driverId, lat, lng);
+        
+        // Tracking reads are served from memory, so refresh the open order first
+        activeOrderRegistry.onPosition(driverId, lat, lng, timestampMillis);
+        
+        // Keep the full trail on disk; the database only holds the latest position
+        long orderId = activeOrderRegistry.orderFor(driverId);
+        breadcrumbStore.append(driverId, orderId, timestampMillis,
+                (int) Math.round(lat * 1e6), (int) Math.round(lng * 1e6));
+        
+        // Other nodes relay it to the trackers connected to them
+        replicationBus.publish(ReplicationEvent.location(driverId, lat, lng, timestampMillis));
+        
+        // Subscribers always receive the JSON shape, whichever format the driver sent
+        LocationUpdateRequest update = new LocationUpdateRequest(driverId, lat, lng);
+        
+        // Driver tracking topic plus the order's SSE stream
+        trackingEventHub.publishPosition(orderId, update);
+        
+        // Also broadcast to global admin topic for all driver movements
+        messagingTemplate.convertAndSend("/topic/admin/drivers", update);
+    }
+    
+    private void hintOwner(long driverId, String owner) {
+        long now = System.currentTimeMillis();
+        Long last = lastRedirectHint.get(driverId);
+        if (last != null && now - last < redirectHintIntervalMs) {
+            return;
+        }
+        lastRedirectHint.put(driverId, now);
+        messagingTemplate.convertAndSend("/topic/driver-ingest/" + driverId, IngestNodeDTO.builder()
+                .driverId(driverId)
+                .nodeId(owner)
+                .address(clusterMembership.addressOf(owner))
+                .build());
+    }
+}
@@ -0,0 +1,40 @@
+package com.myproject.deliveryapp.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Service;
+
+import com.myproject.deliveryapp.replication.ReplicationBus;
+import com.myproject.deliveryapp.replication.ReplicationEvent;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Temporary storage for phone OTPs during registration. Issued and used-up
+ * OTPs are replicated, so the verify request may land on a different node
+ * than the one that sent the code.
+ */
+@Service
+@RequiredArgsConstructor
+public class PhoneOtpStore {
+    
+    private final ReplicationBus replicationBus;
+    
+    private final Map<String, String> otps = new ConcurrentHashMap<>();
+    
+    public void put(String phone, String otp) {
+        otps.put(phone, otp);
+        replicationBus.publish(ReplicationEvent.phoneOtp(phone, otp));
+    }
+    
+    public String get(String phone) {
+        return otps.get(phone);
+    }
+    
+    public void remove(String phone) {
+        if (otps.remove(phone) != null) {
+            replicationBus.publish(ReplicationEvent.phoneOtp(phone, null));
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.myproject.deliveryapp.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import com.myproject.deliveryapp.entity.ServiceZone;
+import com.myproject.deliveryapp.replication.ReplicationBus;
+import com.myproject.deliveryapp.replication.ReplicationEvent;
+import com.myproject.deliveryapp.repository.ServiceZoneRepository;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Point-in-zone lookups for the enabled service zones.
+ *
+ * Zones are bucketed on a lat/lng grid by bounding box, so a lookup hashes
+ * the point's bucket and runs a ray-casting test only against the few zones
+ * overlapping it. The index is immutable and swapped in whole whenever an
+ * admin edits a zone (on any node), so lookups never lock. A zone is listed
+ * in every bucket its bounding box covers, so zones wider than
+ * app.zones.max-span-degrees are refused.
+ */
+@Service
+@Slf4j
+public class ServiceZoneIndex {
+    
+    private final ServiceZoneRepository serviceZoneRepository;
+    private final ReplicationBus replicationBus;
+    private final double bucketDegrees;
+    private final double maxSpanDegrees;
+    
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), 0);
+    
+    public ServiceZoneIndex(ServiceZoneRepository serviceZoneRepository,
+                            ReplicationBus replicationBus,
+                            @Value("${app.zones.bucket-degrees:0.02}") double bucketDegrees,
+                            @Value("${app.zones.max-span-degrees:2}") double maxSpanDegrees) {
+        this.serviceZoneRepository = serviceZoneRepository;
+        this.replicationBus = replicationBus;
+        this.bucketDegrees = bucketDegrees;
+        this.maxSpanDegrees = maxSpanDegrees;
+    }
+    
+    // Zones must be in place before anything that loads drivers or orders checks them
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void load() {
+        build(serviceZoneRepository.findByEnabledTrue());
+        log.info("Loaded {} enabled service zones", snapshot.zoneCount);
+    }
+    
+    /**
+     * Reloads the zones after an edit and has the other nodes do the same.
+     */
+    public void rebuild() {
+        build(serviceZoneRepository.findByEnabledTrue());
+        replicationBus.publish(ReplicationEvent.zonesChanged());
+    }
+    
+    void build(List<ServiceZone> zones) {
+        Map<Long, Zone[]> buckets = new HashMap<>();
+        Map<Long, List<Zone>> building = new HashMap<>();
+        int indexed = 0;
+        for (ServiceZone serviceZone : zones) {
+            Zone zone = new Zone(serviceZone);
+            // Saved before zones were size-checked; indexing it could exhaust the heap
+            if (!fits(zone.minLat, zone.maxLat, zone.minLng, zone.maxLng)) {
+                log.warn("Skipping service zone {}: wider than {} degrees", zone.name, maxSpanDegrees);
+                continue;
+            }
+            indexed++;
+            for (long by = bucket(zone.minLat); by <= bucket(zone.maxLat); by++) {
+                for (long bx = bucket(zone.minLng); bx <= bucket(zone.maxLng); bx++) {
+                    building.computeIfAbsent(key(by, bx), k -> new ArrayList<>()).add(zone);
+                }
+            }
+        }
+        building.forEach((key, list) -> buckets.put(key, list.toArray(new Zone[0])));
+        snapshot = new Snapshot(buckets, indexed);
+    }
+    
+    /**
+     * Refuses a polygon whose bounding box spans more than
+     * app.zones.max-span-degrees of latitude or longitude.
+     */
+    public void checkSize(double[][] polygon) {
+        double[] lats = polygon[0];
+        double[] lngs = polygon[1];
+        double minLat = Double.MAX_VALUE;
+        double maxLat = -Double.MAX_VALUE;
+        double minLng = Double.MAX_VALUE;
+        double maxLng = -Double.MAX_VALUE;
+        for (int i = 0; i < lats.length; i++) {
+            minLat = Math.min(minLat, lats[i]);
+            maxLat = Math.max(maxLat, lats[i]);
+            minLng = Math.min(minLng, lngs[i]);
+            maxLng = Math.max(maxLng, lngs[i]);
+        }
+        if (!fits(minLat, maxLat, minLng, maxLng)) {
+            throw new RuntimeException("A zone can span at most " + maxSpanDegrees
+                    + " degrees of latitude and longitude; split larger areas into several zones");
+        }
+    }
+    
+    private boolean fits(double minLat, double maxLat, double minLng, double maxLng) {
+        return maxLat - minLat <= maxSpanDegrees && maxLng - minLng <= maxSpanDegrees;
+    }
+    
+    /**
+     * @return the enabled zone containing the point, or null if none does
+     */
+    public Zone zoneAt(double lat, double lng) {
+        Zone[] candidates = snapshot.buckets.get(key(bucket(lat), bucket(lng)));
+        if (candidates == null) {
+            return null;
+        }
+        for (Zone zone : candidates) {
+            if (zone.contains(lat, lng)) {
+                return zone;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Until at least one zone is enabled, everywhere counts as serviced.
+     */
+    public boolean isServiced(double lat, double lng) {
+        return snapshot.zoneCount == 0 || zoneAt(lat, lng) != null;
+    }
+    
+    public boolean hasZones() {
+        return snapshot.zoneCount > 0;
+    }
+    
+    /**
+     * Parses "lat,lng;lat,lng;..." into separate coordinate arrays.
+     */
+    public static double[][] parsePolygon(String polygon) {
+        String[] points = polygon.split(";");
+        double[] lats = new double[points.length];
+        double[] lngs = new double[points.length];
+        for (int i = 0; i < points.length; i++) {
+            String[] parts = points[i].split(",");
+            lats[i] = Double.parseDouble(parts[0].trim());
+            lngs[i] = Double.parseDouble(parts[1].trim());
+        }
+        return new double[][] { lats, lngs };
+    }
+    
+    private long bucket(double degrees) {
+        return (long) Math.floor(degrees / bucketDegrees);
+    }
+    
+    private static long key(long latBucket, long lngBucket) {
+        return (latBucket << 32) ^ (lngBucket & 0xFFFFFFFFL);
+    }
+    
+    private static final class Snapshot {
+        final Map<Long, Zone[]> buckets;
+        final int zoneCount;
+        
+        Snapshot(Map<Long, Zone[]> buckets, int zoneCount) {
+            this.buckets = buckets;
+            this.zoneCount = zoneCount;
+        }
+    }
+    
+    public static final class Zone {
+        @Getter
+        private final Long id;
+        @Getter
+        private final String name;
+        @Getter
+        private final BigDecimal priceMultiplier;
+        private final double[] lats;
+        private final double[] lngs;
+        final double minLat;
+        final double maxLat;
+        final double minLng;
+        final double maxLng;
+        
+        Zone(ServiceZone zone) {
+            this.id = zone.getId();
+            this.name = zone.getName();
+            this.priceMultiplier = zone.getPriceMultiplier();
+            double[][] polygon = parsePolygon(zone.getPolygon());
+            this.lats = polygon[0];
+            this.lngs = polygon[1];
+            double minLatValue = Double.MAX_VALUE;
+            double maxLatValue = -Double.MAX_VALUE;
+            double minLngValue = Double.MAX_VALUE;
+            double maxLngValue = -Double.MAX_VALUE;
+            for (int i = 0; i < lats.length; i++) {
+                minLatValue = Math.min(minLatValue, lats[i]);
+                maxLatValue = Math.max(maxLatValue, lats[i]);
+                minLngValue = Math.min(minLngValue, lngs[i]);
+                maxLngValue = Math.max(maxLngValue, lngs[i]);
+            }
+            this.minLat = minLatValue;
+            this.maxLat = maxLatValue;
+            this.minLng = minLngValue;
+            this.maxLng = maxLngValue;
+        }
+        
+        /**
+         * Even-odd ray casting, treating lat/lng as planar (fine at city scale).
+         */
+        boolean contains(double lat, double lng) {
+            if (lat < minLat || lat > maxLat || lng < minLng || lng > maxLng) {
+                return false;
+            }
+            boolean inside = false;
+            for (int i = 0, j = lats.length - 1; i < lats.length; j = i++) {
+                if ((lats[i] > lat) != (lats[j] > lat)
+                        && lng < (lngs[j] - lngs[i]) * (lat - lats[i]) / (lats[j] - lats[i]) + lngs[i]) {
+                    inside = !inside;
+                }
+            }
+            return inside;
+        }
+    }
+}
@@ -0,0 +1,497 @@
+package com.myproject.deliveryapp.service;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.myproject.deliveryapp.dto.LocationUpdateRequest;
+import com.myproject.deliveryapp.dto.OrderStatusUpdate;
+import com.myproject.deliveryapp.dto.TrackingSnapshotDTO;
+import com.myproject.deliveryapp.entity.Driver;
+import com.myproject.deliveryapp.entity.Order;
+import com.myproject.deliveryapp.enums.OrderStatus;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Single source of order tracking events. Every status change and driver
+ * position goes out to the STOMP topics and to the order's Server-Sent Events
+ * stream from here, so both transports always see the same events.
+ *
+ * SSE subscribers are async servlet responses and hold no thread while idle.
+ * Each order keeps a small ring of recent events with increasing ids, so a
+ * client reconnecting with Last-Event-ID gets what it missed; if it fell
+ * further behind, it gets a fresh snapshot instead.
+ *
+ * Publishers never write to a client themselves: each client has a bounded
+ * queue of its own, drained in order by a small pool of sender threads, so a
+ * slow client holds up neither the location path nor the other clients. A
+ * client is dropped, and reconnects with Last-Event-ID, when a send fails,
+ * when its queue fills up, or when a send has been stuck for longer than
+ * {@code sse-send-timeout-ms}; the stuck sender thread is interrupted.
+ */
+@Service
+@Slf4j
+public class TrackingEventHub implements DisposableBean {
+    
+    static final String EVENT_SNAPSHOT = "snapshot";
+    static final String EVENT_STATUS = "status";
+    static final String EVENT_POSITION = "position";
+    
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ActiveOrderRegistry activeOrderRegistry;
+    private final EtaService etaService;
+    private final long emitterTimeoutMs;
+    private final int replaySize;
+    private final int queueSize;
+    private final long sendTimeoutMs;
+    private final ExecutorService senders;
+    
+    private final Map<Long, OrderStream> streams = new ConcurrentHashMap<>();
+    
+    public TrackingEventHub(SimpMessagingTemplate messagingTemplate,
+                            ActiveOrderRegistry activeOrderRegistry,
+                            EtaService etaService,
+                            @Value("${app.tracking.sse-timeout-ms:1800000}") long emitterTimeoutMs,
+                            @Value("${app.tracking.sse-replay-size:32}") int replaySize,
+                            @Value("${app.tracking.sse-queue-size:256}") int queueSize,
+                            @Value("${app.tracking.sse-senders:4}") int senderThreads,
+                            @Value("${app.tracking.sse-send-timeout-ms:5000}") long sendTimeoutMs) {
+        this.messagingTemplate = messagingTemplate;
+        this.activeOrderRegistry = activeOrderRegistry;
+        this.etaService = etaService;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.replaySize = replaySize;
+        this.queueSize = queueSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+        AtomicInteger threads = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(Math.max(1, senderThreads), runnable -> {
+            Thread thread = new Thread(runnable, "sse-sender-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    public void publishStatus(Order order) {
+        OrderStatusUpdate update = OrderStatusUpdate.builder()
+                .orderId(order.getId())
+                .status(order.getStatus().name())
+                .build();
+        
+        Driver driver = order.getDriver();
+        if (driver != null) {
+            update.setDriverName(driver.getUser().getName());
+            update.setVehicleType(driver.getVehicleType().getName());
+            update.setVehicleNumber(driver.getVehiclePlateNumber());
+            update.setDriverLat(driver.getCurrentLatitude());
+            update.setDriverLng(driver.getCurrentLongitude());
+            addEtas(order, driver, update);
+        }
+        
+        try {
+            messagingTemplate.convertAndSend("/topic/order/" + order.getId(), update);
+        } catch (Exception e) {
+            log.warn("Failed to send status update for order {}: {}", order.getId(), e.getMessage());
+        }
+        
+        OrderStream stream = streams.computeIfAbsent(order.getId(), id -> newStream());
+        stream.publish(EVENT_STATUS, update);
+        
+        // Nothing follows a terminal status; late reconnects get the snapshot
+        // from the registry while the order is still in its grace period
+        if (isClosed(order.getStatus())) {
+            streams.remove(order.getId());
+            stream.completeAll();
+        }
+    }
+    
+    /**
+     * @param orderId the order the driver is serving, or 0 if none
+     */
+    public void publishPosition(long orderId, LocationUpdateRequest update) {
+        messagingTemplate.convertAndSend("/topic/tracking/" + update.getDriverId(), update);
+        
+        if (orderId != 0L) {
+            OrderStream stream = streams.get(orderId);
+            if (stream == null && activeOrderRegistry.snapshot(orderId) != null) {
+                stream = streams.computeIfAbsent(orderId, id -> newStream());
+            }
+            if (stream != null) {
+                stream.publish(EVENT_POSITION, update);
+            }
+        }
+    }
+    
+    /**
+     * Opens an SSE stream for the order. Callers must check access first.
+     *
+     * @param lastEventId the Last-Event-ID sent by a reconnecting client, or null
+     */
+    public SseEmitter subscribe(Long orderId, String lastEventId) {
+        return subscribe(orderId, lastEventId, new SseEmitter(emitterTimeoutMs));
+    }
+    
+    SseEmitter subscribe(Long orderId, String lastEventId, SseEmitter emitter) {
+        TrackingSnapshotDTO snapshot = activeOrderRegistry.snapshot(orderId);
+        if (snapshot == null) {
+            throw new RuntimeException("Order is not being tracked");
+        }
+        
+        if (isClosed(snapshot.getStatus())) {
+            try {
+                emitter.send(SseEmitter.event().name(EVENT_SNAPSHOT).data(snapshot));
+                emitter.complete();
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+            return emitter;
+        }
+        
+        OrderStream stream = streams.computeIfAbsent(orderId, id -> newStream());
+        Subscriber subscriber = stream.attach(emitter, parseEventId(lastEventId),
+                () -> activeOrderRegistry.snapshot(orderId));
+        emitter.onCompletion(() -> stream.remove(subscriber));
+        emitter.onTimeout(() -> stream.remove(subscriber));
+        emitter.onError(e -> stream.remove(subscriber));
+        return emitter;
+    }
+    
+    /**
+     * Keeps idle connections alive through proxies and drops streams for
+     * orders that left the registry without a terminal status being published.
+     */
+    @Scheduled(fixedDelayString = "${app.tracking.sse-heartbeat-ms:15000}")
+    public void heartbeat() {
+        streams.forEach((orderId, stream) -> {
+            if (activeOrderRegistry.snapshot(orderId) == null) {
+                streams.remove(orderId, stream);
+                stream.completeAll();
+            } else {
+                stream.heartbeat();
+            }
+        });
+    }
+    
+    /**
+     * Drops clients whose send has been stuck for longer than the send
+     * timeout, so a cut-off client takes between one and two timeouts.
+     */
+    @Scheduled(fixedDelayString = "${app.tracking.sse-send-timeout-ms:5000}")
+    public void dropStalled() {
+        long cutoff = System.nanoTime() - sendTimeoutMs * 1_000_000L;
+        streams.values().forEach(stream -> stream.dropStalled(cutoff));
+    }
+    
+    @Override
+    public void destroy() {
+        senders.shutdown();
+    }
+    
+    private OrderStream newStream() {
+        return new OrderStream(replaySize, queueSize, senders);
+    }
+    
+    private void addEtas(Order order, Driver driver, OrderStatusUpdate update) {
+        Double driverLat = driver.getCurrentLatitude();
+        Double driverLng = driver.getCurrentLongitude();
+        if (order.getStatus() == OrderStatus.ACCEPTED) {
+            Long toPickup = etaService.estimateSeconds(driverLat, driverLng, order.getPickupLat(), order.getPickupLng());
+            Long trip = etaService.estimateSeconds(order.getPickupLat(), order.getPickupLng(),
+                    order.getDropLat(), order.getDropLng());
+            update.setPickupEtaSeconds(toPickup);
+            update.setDropEtaSeconds(toPickup != null ? toPickup + trip : null);
+        } else if (order.getStatus() == OrderStatus.DRIVER_ARRIVED) {
+            update.setPickupEtaSeconds(0L);
+            update.setDropEtaSeconds(etaService.estimateSeconds(order.getPickupLat(), order.getPickupLng(),
+                    order.getDropLat(), order.getDropLng()));
+        } else if (order.getStatus() == OrderStatus.IN_TRANSIT) {
+            update.setDropEtaSeconds(etaService.estimateSeconds(driverLat, driverLng,
+                    order.getDropLat(), order.getDropLng()));
+        }
+    }
+    
+    private static boolean isClosed(OrderStatus status) {
+        return status == OrderStatus.COMPLETED || status == OrderStatus.CANCELLED;
+    }
+    
+    private static long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+    
+    private static final class TrackingEvent {
+        final long id;
+        final String name;
+        final Object data;
+        
+        TrackingEvent(long id, String name, Object data) {
+            this.id = id;
+            this.name = name;
+            this.data = data;
+        }
+    }
+    
+    /**
+     * A write to one client, run on a sender thread
+     */
+    @FunctionalInterface
+    private interface Send {
+        void to(SseEmitter emitter) throws IOException;
+    }
+    
+    /**
+     * Events and subscribers of one order. Publishing and attaching hand the
+     * event to every subscriber's queue under the lock, so a resuming client
+     * can neither miss nor repeat events, and nothing writes to a client while
+     * holding the lock.
+     */
+    private static final class OrderStream {
+        
+        private final TrackingEvent[] recent;
+        private final int queueSize;
+        private final ExecutorService senders;
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private long lastId;
+        
+        OrderStream(int replaySize, int queueSize, ExecutorService senders) {
+            this.recent = new TrackingEvent[Math.max(1, replaySize)];
+            this.queueSize = Math.max(1, queueSize);
+            this.senders = senders;
+        }
+        
+        synchronized void publish(String name, Object data) {
+            TrackingEvent event = new TrackingEvent(++lastId, name, data);
+            recent[(int) (event.id % recent.length)] = event;
+            offerAll(emitter -> send(emitter, event));
+        }
+        
+        /**
+         * Subscribes the client from the current event on. A client that can
+         * be caught up from the replay ring gets the events it missed; any
+         * other gets a snapshot read only once it is subscribed, so the
+         * snapshot is never older than the events queued behind it.
+         */
+        synchronized Subscriber attach(SseEmitter emitter, long lastEventId,
+                                       Supplier<TrackingSnapshotDTO> snapshot) {
+            Subscriber subscriber = new Subscriber(emitter, queueSize + recent.length, senders);
+            long oldest = Math.max(1L, lastId - recent.length + 1);
+            if (lastEventId >= oldest - 1 && lastEventId <= lastId) {
+                for (long id = lastEventId + 1; id <= lastId; id++) {
+                    TrackingEvent event = recent[(int) (id % recent.length)];
+                    subscriber.offer(client -> send(client, event));
+                }
+            } else {
+                long snapshotId = lastId;
+                subscriber.offer(client -> {
+                    TrackingSnapshotDTO current = snapshot.get();
+                    if (current == null) {
+                        // No longer tracked: the client finds out when it reconnects
+                        client.complete();
+                        return;
+                    }
+                    send(client, new TrackingEvent(snapshotId, EVENT_SNAPSHOT, current));
+                });
+            }
+            subscribers.add(subscriber);
+            return subscriber;
+        }
+        
+        void remove(Subscriber subscriber) {
+            subscribers.remove(subscriber);
+            subscriber.close();
+        }
+        
+        synchronized void heartbeat() {
+            offerAll(emitter -> emitter.send(SseEmitter.event().comment("keepalive")));
+        }
+        
+        synchronized void completeAll() {
+            offerAll(SseEmitter::complete);
+            subscribers.clear();
+        }
+        
+        void dropStalled(long cutoffNanos) {
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.cutOffIfStalled(cutoffNanos)) {
+                    subscribers.remove(subscriber);
+                }
+            }
+        }
+        
+        private void offerAll(Send send) {
+            for (Subscriber subscriber : subscribers) {
+                // Too far behind to catch up live: it resumes from the replay ring or a snapshot
+                if (!subscriber.offer(send)) {
+                    remove(subscriber);
+                }
+            }
+        }
+        
+        private static void send(SseEmitter emitter, TrackingEvent event) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .id(Long.toString(event.id))
+                    .name(event.name)
+                    .data(event.data));
+        }
+    }
+    
+    /**
+     * One client's queue of sends. Only its drain task writes to or completes
+     * the emitter, so a client cut off mid-send is completed by the sender
+     * thread once the stuck write returns, never by the thread cutting it off.
+     */
+    private static final class Subscriber {
+        
+        // Sends run per drain task before the client goes to the back of the pool's queue
+        private static final int DRAIN_BATCH = 64;
+        
+        private final SseEmitter emitter;
+        private final int capacity;
+        private final ExecutorService senders;
+        private final Deque<Send> pending = new ArrayDeque<>();
+        private boolean draining;
+        private boolean closed;
+        // The emitter has been completed, or is about to be
+        private boolean completed;
+        // Set while a send is in progress
+        private Thread sendingThread;
+        private long sendingSince;
+        
+        Subscriber(SseEmitter emitter, int capacity, ExecutorService senders) {
+            this.emitter = emitter;
+            this.capacity = capacity;
+            this.senders = senders;
+        }
+        
+        /**
+         * @return false if the queue is full; the subscriber is left as is
+         */
+        synchronized boolean offer(Send send) {
+            if (closed) {
+                return true;
+            }
+            if (pending.size() >= capacity) {
+                return false;
+            }
+            pending.add(send);
+            schedule();
+            return true;
+        }
+        
+        /**
+         * Stops sending to the client; it is completed by the drain task
+         */
+        synchronized void close() {
+            if (!closed) {
+                closed = true;
+                pending.clear();
+                schedule();
+            }
+        }
+        
+        synchronized boolean cutOffIfStalled(long cutoffNanos) {
+            if (sendingThread == null || sendingSince - cutoffNanos > 0) {
+                return false;
+            }
+            close();
+            sendingThread.interrupt();
+            return true;
+        }
+        
+        private void schedule() {
+            if (!draining) {
+                draining = true;
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down; clients reconnect to another node
+                    draining = false;
+                    pending.clear();
+                }
+            }
+        }
+        
+        private void drain() {
+            for (int i = 0; i < DRAIN_BATCH; i++) {
+                Send send;
+                synchronized (this) {
+                    send = closed ? null : pending.poll();
+                    if (send == null) {
+                        draining = false;
+                        if (!closed || completed) {
+                            return;
+                        }
+                        completed = true;
+                    } else {
+                        sendingThread = Thread.currentThread();
+                        sendingSince = System.nanoTime();
+                    }
+                }
+                if (send == null) {
+                    // Closed while idle, or cut off mid-send: finished off here
+                    complete();
+                    return;
+                }
+                try {
+                    send.to(emitter);
+                } catch (Exception e) {
+                    synchronized (this) {
+                        closed = true;
+                        completed = true;
+                        pending.clear();
+                    }
+                    drop(e);
+                } finally {
+                    synchronized (this) {
+                        sendingThread = null;
+                    }
+                    // An interrupt meant for the send that just returned
+                    Thread.interrupted();
+                }
+            }
+            senders.execute(this::drain);
+        }
+        
+        private void complete() {
+            try {
+                emitter.complete();
+            } catch (RuntimeException e) {
+                // Already completed
+            }
+        }
+        
+        /**
+         * Stops sending to a client after any failed send: a gone client, a
+         * completed emitter or an event that could not be written
+         */
+        private void drop(Exception cause) {
+            try {
+                emitter.completeWithError(cause);
+            } catch (RuntimeException e) {
+                // Already completed
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.myproject.deliveryapp.service;
+
+import java.time.ZoneId;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.myproject.deliveryapp.dto.TripRouteDTO;
+import com.myproject.deliveryapp.entity.Order;
+import com.myproject.deliveryapp.tracking.BreadcrumbStore;
+import com.myproject.deliveryapp.tracking.PolylineEncoder;
+import com.myproject.deliveryapp.tracking.RouteSimplifier;
+import com.myproject.deliveryapp.tracking.TrackBuffer;
+import com.myproject.deliveryapp.util.GeoUtils;
+
+/**
+ * Turns the raw breadcrumb track of an order's trip into a compact route:
+ * simplified with Douglas-Peucker, encoded as a polyline, with measured
+ * distance and duration.
+ */
+@Service
+public class TripRouteService {
+    
+    private final BreadcrumbStore breadcrumbStore;
+    private final double toleranceMeters;
+    private final double billedDistanceBand;
+    
+    public TripRouteService(BreadcrumbStore breadcrumbStore,
+                            @Value("${app.routes.simplify-tolerance-m:5}") double toleranceMeters,
+                            @Value("${app.routes.billed-distance-band:0.3}") double billedDistanceBand) {
+        this.breadcrumbStore = breadcrumbStore;
+        this.toleranceMeters = toleranceMeters;
+        this.billedDistanceBand = Math.max(0, billedDistanceBand);
+    }
+    
+    /**
+     * Builds the route from the track recorded since pickup; the driver's way
+     * to the pickup is not part of the trip. Distance is measured along the
+     * simplified line, which also removes GPS zig-zag that would otherwise
+     * inflate the sum of raw segment lengths. An order not picked up yet has
+     * an empty route.
+     */
+    public TripRouteDTO summarize(Order order) {
+        long orderId = order.getId();
+        long pickedUpMillis = order.getPickedUpAt() != null
+                ? order.getPickedUpAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : Long.MAX_VALUE;
+        TrackBuffer track = new TrackBuffer(breadcrumbStore.pointCount(orderId));
+        breadcrumbStore.forEachPoint(orderId, (timestampMillis, latE6, lngE6) -> {
+            if (timestampMillis >= pickedUpMillis) {
+                track.accept(timestampMillis, latE6, lngE6);
+            }
+        });
+        
+        int[] kept = RouteSimplifier.simplify(track, toleranceMeters);
+        double distanceMeters = 0;
+        for (int i = 1; i < kept.length; i++) {
+            distanceMeters += GeoUtils.distanceMeters(
+                    track.lat(kept[i - 1]), track.lng(kept[i - 1]),
+                    track.lat(kept[i]), track.lng(kept[i]));
+        }
+        long durationSeconds = track.size() > 1
+                ? Math.max(0, (track.timestamp(track.size() - 1) - track.timestamp(0)) / 1000)
+                : 0;
+        
+        return TripRouteDTO.builder()
+                .orderId(orderId)
+                .polyline(PolylineEncoder.encode(track, kept))
+                .distanceKm(distanceMeters / 1000.0)
+                .durationSeconds(durationSeconds)
+                .rawPoints(track.size())
+                .routePoints(kept.length)
+                .build();
+    }
+    
+    /**
+     * Whether the route has enough data to bill on its measured distance.
+     */
+    public boolean isMeasured(TripRouteDTO route) {
+        return route.getRoutePoints() >= 2 && route.getDistanceKm() > 0;
+    }
+    
+    /**
+     * The distance a measured trip is billed on: the measured distance, held
+     * within app.routes.billed-distance-band (a fraction) of the distance the
+     * order was quoted on. A detour, or GPS drift the simplification kept,
+     * cannot run the fare far past the quote, and a track with gaps cannot
+     * bill it far below. Orders without a quoted distance are billed as
+     * measured.
+     */
+    public double billedDistanceKm(Order order, TripRouteDTO route) {
+        double measured = route.getDistanceKm();
+        Double quoted = order.getDistance();
+        if (quoted == null || quoted <= 0) {
+            return measured;
+        }
+        return Math.min(Math.max(measured, quoted * (1 - billedDistanceBand)), quoted * (1 + billedDistanceBand));
+    }
+    
+    public TripRouteDTO fromOrder(Order order) {
+        return TripRouteDTO.builder()
+                .orderId(order.getId())
+                .polyline(order.getRoutePolyline())
+                .distanceKm(order.getActualDistance())
+                .durationSeconds(order.getActualDurationSeconds())
+                .build();
+    }
+    
+    /**
+     * Lets compaction drop the raw points once the route is stored on the order.
+     */
+    public void releaseRawPoints(long orderId) {
+        breadcrumbStore.release(orderId);
+    }
+}
@@ -1,6 +1,7 @@
 package com.myproject.deliveryapp.service;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import org.springframework.stereotype.Service;
@@ -149,4 +150,15 @@ public class WalletService {
                 .orElseGet(() -> createWallet(user));
         return walletTransactionRepository.findByWalletOrderByTimestampDesc(wallet);
     }
+    
+    /**
+     * Gets the transactions after a point in time, reading only the monthly partitions from then on
+     * (up to tomorrow's, not the empty ones created ahead)
+     */
+    public List<WalletTransaction> getTransactionHistory(User user, LocalDateTime after) {
+        Wallet wallet = walletRepository.findByUser(user)
+                .orElseGet(() -> createWallet(user));
+        return walletTransactionRepository.findByWalletAndTimestampBetweenOrderByTimestampDesc(wallet, after,
+                LocalDateTime.now().plusDays(1));
+    }
 }
@@ -0,0 +1,336 @@
+package com.myproject.deliveryapp.tracking;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only GPS breadcrumb store backed by memory-mapped segment files.
+ *
+ * Every ping is appended to the active hot segment as a fixed-size record.
+ * Full segments are sealed and, in the background, compacted into track
+ * segments where each order's points are contiguous and idle-driver points
+ * (no active order) are dropped, as are points of released orders whose
+ * route has already been stored. Compacted segments older than the retention
+ * period are deleted.
+ */
+@Component
+@Slf4j
+public class BreadcrumbStore implements DisposableBean {
+    
+    private static final String HOT_PREFIX = "hot-";
+    private static final String TRACK_PREFIX = "track-";
+    private static final String SUFFIX = ".seg";
+    
+    private final Path directory;
+    private final int segmentRecords;
+    private final Duration retention;
+    
+    private final Object lock = new Object();
+    private final List<HotSegment> sealed = new ArrayList<>();
+    private final ConcurrentSkipListMap<Long, TrackSegment> compacted = new ConcurrentSkipListMap<>();
+    private final Set<Long> releasedOrders = ConcurrentHashMap.newKeySet();
+    private final List<TrackSegment> retired = new ArrayList<>();
+    private HotSegment active;
+    private long nextSequence;
+    
+    public BreadcrumbStore(
+            @Value("${app.breadcrumbs.dir:data/breadcrumbs}") String directory,
+            @Value("${app.breadcrumbs.segment-records:1048576}") int segmentRecords,
+            @Value("${app.breadcrumbs.retention-days:30}") int retentionDays) {
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.segmentRecords = segmentRecords;
+        this.retention = Duration.ofDays(retentionDays);
+        
+        try {
+            Files.createDirectories(this.directory);
+            load();
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not open breadcrumb store at " + this.directory, ex);
+        }
+    }
+    
+    private void load() throws IOException {
+        TreeMap<Long, Path> hotFiles = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(TRACK_PREFIX)) {
+                    long sequence = parseSequence(name, TRACK_PREFIX);
+                    compacted.put(sequence, TrackSegment.open(file, sequence));
+                } else if (name.startsWith(HOT_PREFIX)) {
+                    hotFiles.put(parseSequence(name, HOT_PREFIX), file);
+                }
+            }
+        }
+        
+        for (Map.Entry<Long, Path> entry : hotFiles.entrySet()) {
+            long sequence = entry.getKey();
+            if (compacted.containsKey(sequence)) {
+                // Compaction finished but the hot file was not removed before shutdown
+                Files.deleteIfExists(entry.getValue());
+                continue;
+            }
+            sealed.add(HotSegment.open(entry.getValue(), sequence));
+        }
+        
+        long highest = Math.max(hotFiles.isEmpty() ? 0 : hotFiles.lastKey(),
+                compacted.isEmpty() ? 0 : compacted.lastKey());
+        nextSequence = highest + 1;
+        
+        // Keep appending to the newest hot segment if it still has room
+        if (!sealed.isEmpty() && !sealed.get(sealed.size() - 1).isFull()) {
+            active = sealed.remove(sealed.size() - 1);
+        } else {
+            active = newHotSegment();
+        }
+        log.info("Breadcrumb store opened at {} ({} compacted, {} sealed segments)",
+                directory, compacted.size(), sealed.size());
+    }
+    
+    private static long parseSequence(String fileName, String prefix) {
+        return Long.parseLong(fileName.substring(prefix.length(), fileName.length() - SUFFIX.length()));
+    }
+    
+    private HotSegment newHotSegment() throws IOException {
+        long sequence = nextSequence++;
+        return HotSegment.create(directory.resolve(fileName(HOT_PREFIX, sequence)), sequence, segmentRecords);
+    }
+    
+    private static String fileName(String prefix, long sequence) {
+        return String.format("%s%016d%s", prefix, sequence, SUFFIX);
+    }
+    
+    /**
+     * Appends one location record. {@code orderId} is 0 when the driver is not
+     * on a trip; such points are kept only until their segment is compacted.
+     */
+    public void append(long driverId, long orderId, long timestampMillis, int latE6, int lngE6) {
+        synchronized (lock) {
+            if (active.isFull()) {
+                roll();
+            }
+            active.append(driverId, orderId, timestampMillis, latE6, lngE6);
+        }
+    }
+    
+    private void roll() {
+        active.force();
+        sealed.add(active);
+        try {
+            active = newHotSegment();
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not create breadcrumb segment in " + directory, ex);
+        }
+    }
+    
+    /**
+     * Streams the recorded track of an order, oldest segment first.
+     */
+    public void forEachPoint(long orderId, PointConsumer consumer) {
+        Track track = track(orderId);
+        for (TrackSegment segment : track.compacted) {
+            segment.forEachPoint(orderId, consumer);
+        }
+        for (int i = 0; i < track.hot.size(); i++) {
+            track.hot.get(i).forEachPoint(track.hotRecords.get(i), consumer);
+        }
+    }
+    
+    public int pointCount(long orderId) {
+        Track track = track(orderId);
+        int points = 0;
+        for (TrackSegment segment : track.compacted) {
+            points += segment.pointCount(orderId);
+        }
+        for (int[] records : track.hotRecords) {
+            points += records.length;
+        }
+        return points;
+    }
+    
+    /**
+     * Writes an order's track as consecutive 16 byte points (timestamp,
+     * latitude * 1e6, longitude * 1e6, big-endian). Compacted parts are
+     * handed to {@link java.nio.channels.FileChannel#transferTo}; recent parts
+     * are written from views over the mapped segments. The lock is only held
+     * while the segments are picked, not while the client is written to.
+     *
+     * @return the number of bytes written
+     */
+    public long writeTrack(long orderId, WritableByteChannel out) throws IOException {
+        Track track = track(orderId);
+        long written = 0;
+        for (TrackSegment segment : track.compacted) {
+            written += segment.transferPoints(orderId, out);
+        }
+        for (int i = 0; i < track.hot.size(); i++) {
+            written += track.hot.get(i).writePoints(track.hotRecords.get(i), out);
+        }
+        return written;
+    }
+    
+    /**
+     * The segments holding an order's points and, for hot segments, the
+     * records published so far. Taken in one go under the lock, which
+     * compaction also holds while it moves a segment from sealed to
+     * compacted, so every segment is seen exactly once.
+     */
+    private Track track(long orderId) {
+        synchronized (lock) {
+            Track track = new Track(new ArrayList<>(compacted.values()), sealed.size() + 1);
+            for (HotSegment segment : sealed) {
+                track.add(segment, segment.records(orderId));
+            }
+            track.add(active, active.records(orderId));
+            return track;
+        }
+    }
+    
+    private static final class Track {
+        
+        final List<TrackSegment> compacted;
+        final List<HotSegment> hot;
+        final List<int[]> hotRecords;
+        
+        Track(List<TrackSegment> compacted, int hotSegments) {
+            this.compacted = compacted;
+            this.hot = new ArrayList<>(hotSegments);
+            this.hotRecords = new ArrayList<>(hotSegments);
+        }
+        
+        void add(HotSegment segment, int[] records) {
+            if (records.length > 0) {
+                hot.add(segment);
+                hotRecords.add(records);
+            }
+        }
+    }
+    
+    /**
+     * Points recorded for a driver between two instants, including time spent
+     * without an order. Only segments that have not been compacted yet still
+     * hold idle-driver points.
+     */
+    public void forEachDriverPoint(long driverId, long fromMillis, long toMillis, PointConsumer consumer) {
+        synchronized (lock) {
+            for (HotSegment segment : sealed) {
+                segment.forEachDriverPoint(driverId, fromMillis, toMillis, consumer);
+            }
+            active.forEachDriverPoint(driverId, fromMillis, toMillis, consumer);
+        }
+    }
+    
+    /**
+     * Marks an order's raw points as no longer needed. They are left out when
+     * the segments holding them are next compacted.
+     */
+    public void release(long orderId) {
+        releasedOrders.add(orderId);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.breadcrumbs.compaction-interval-ms:60000}")
+    public void compact() {
+        List<HotSegment> toCompact;
+        synchronized (lock) {
+            toCompact = new ArrayList<>(sealed);
+        }
+        
+        // Sealed segments are immutable, so they can be rewritten outside the lock
+        for (HotSegment segment : toCompact) {
+            try {
+                Path target = directory.resolve(fileName(TRACK_PREFIX, segment.sequence));
+                TrackSegment track = TrackSegment.compact(segment, target,
+                        orderId -> !releasedOrders.contains(orderId));
+                synchronized (lock) {
+                    compacted.put(track.sequence, track);
+                    sealed.remove(segment);
+                }
+                segment.close();
+                Files.deleteIfExists(segment.path);
+                log.info("Compacted breadcrumb segment {} ({} records)", segment.sequence, segment.count());
+            } catch (IOException ex) {
+                log.error("Failed to compact breadcrumb segment {}: {}", segment.sequence, ex.getMessage(), ex);
+                return;
+            }
+        }
+        
+        // Released ids only matter while a hot segment still holds their points
+        synchronized (lock) {
+            releasedOrders.removeIf(orderId -> active.pointCount(orderId) == 0
+                    && sealed.stream().allMatch(segment -> segment.pointCount(orderId) == 0));
+        }
+        
+        // Segments expired on the previous run have had a whole interval for
+        // reads that picked them to finish transferring from their channel
+        for (TrackSegment segment : retired) {
+            closeRetired(segment);
+        }
+        retired.clear();
+        
+        long cutoff = System.currentTimeMillis() - retention.toMillis();
+        for (TrackSegment segment : compacted.values()) {
+            if (segment.newestTimestamp() < cutoff) {
+                deleteCompacted(segment);
+            }
+        }
+    }
+    
+    private void deleteCompacted(TrackSegment segment) {
+        synchronized (lock) {
+            compacted.remove(segment.sequence);
+        }
+        try {
+            // Unlinked now, closed on the next run
+            Files.deleteIfExists(segment.path);
+            retired.add(segment);
+            log.info("Deleted expired breadcrumb segment {}", segment.sequence);
+        } catch (IOException ex) {
+            log.warn("Could not delete breadcrumb segment {}: {}", segment.path, ex.getMessage());
+            closeRetired(segment);
+        }
+    }
+    
+    private static void closeRetired(TrackSegment segment) {
+        try {
+            segment.close();
+        } catch (IOException ex) {
+            log.warn("Could not close breadcrumb segment {}: {}", segment.path, ex.getMessage());
+        }
+    }
+    
+    @Override
+    public void destroy() throws IOException {
+        synchronized (lock) {
+            active.force();
+            active.close();
+            for (HotSegment segment : sealed) {
+                segment.close();
+            }
+        }
+        for (TrackSegment segment : compacted.values()) {
+            segment.close();
+        }
+        for (TrackSegment segment : retired) {
+            segment.close();
+        }
+    }
+}
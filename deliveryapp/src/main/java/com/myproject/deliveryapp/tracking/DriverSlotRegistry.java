@@ -0,0 +1,72 @@
+package com.myproject.deliveryapp.tracking;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands out a dense, stable int slot per driver id so per-driver state can be
+ * kept in primitive arrays indexed by slot instead of maps of objects.
+ * A slot stays with its driver until released, e.g. when the driver goes
+ * offline, and is then handed to the next new driver, so the arrays grow with
+ * the drivers online at once rather than every driver seen since startup.
+ */
+@Component
+public class DriverSlotRegistry {
+    
+    private final ConcurrentHashMap<Long, Integer> slots = new ConcurrentHashMap<>();
+    private final Queue<Integer> released = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    
+    public int slotOf(long driverId) {
+        Integer slot = slots.get(driverId);
+        if (slot != null) {
+            return slot;
+        }
+        return slots.computeIfAbsent(driverId, id -> {
+            Integer reused = released.poll();
+            return reused != null ? reused : nextSlot.getAndIncrement();
+        });
+    }
+    
+    /**
+     * @return the driver's slot, or -1 if it has none
+     */
+    public int find(long driverId) {
+        Integer slot = slots.get(driverId);
+        return slot != null ? slot : -1;
+    }
+    
+    /**
+     * Takes the slot away from the driver for reuse. Whoever keeps state in it
+     * must have cleared it first, as the next driver may be handed it at once.
+     *
+     * @return false if the driver no longer held that slot
+     */
+    public boolean release(long driverId, int slot) {
+        if (!slots.remove(driverId, slot)) {
+            return false;
+        }
+        released.add(slot);
+        return true;
+    }
+    
+    public void forEach(BiConsumer<Long, Integer> action) {
+        slots.forEach(action);
+    }
+    
+    /**
+     * @return one past the highest slot handed out so far
+     */
+    public int size() {
+        return nextSlot.get();
+    }
+    
+    public int inUse() {
+        return slots.size();
+    }
+}
@@ -0,0 +1,229 @@
+package com.myproject.deliveryapp.tracking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Memory-mapped, append-only segment of fixed-size breadcrumb records.
+ *
+ * Layout: a 64 byte header (magic, version, record count, capacity, sequence)
+ * followed by {@value #RECORD_SIZE} byte records:
+ * <pre>
+ *   i64 orderId (0 when the driver has no active order)
+ *   i64 driverId
+ *   i64 timestamp (epoch millis)  -+
+ *   i32 latitude  * 1e6            | the trailing 16 bytes are a track point
+ *   i32 longitude * 1e6           -+ in wire format
+ * </pre>
+ * A sparse time index keeps the min/max timestamp of every block of
+ * {@value #BLOCK} records so driver/time range queries skip whole blocks.
+ *
+ * Writes and index updates are guarded by the owning {@link BreadcrumbStore}.
+ * Readers take an order's record indexes under that lock and read the
+ * records afterwards without it: a published record never changes, and the
+ * mapping stays readable after the segment is compacted and closed.
+ */
+final class HotSegment {
+    
+    static final int MAGIC = 0x42435248; // "BCRH"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 32;
+    static final int POINT_OFFSET = 16;
+    static final int POINT_SIZE = 16;
+    static final int BLOCK = 256;
+    
+    private static final int COUNT_OFFSET = 8;
+    
+    final long sequence;
+    final Path path;
+    final int capacity;
+    
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long[] blockMinTs;
+    private final long[] blockMaxTs;
+    private final Map<Long, IntList> recordsByOrder = new HashMap<>();
+    private volatile int count;
+    private long newestTimestamp;
+    
+    private HotSegment(long sequence, Path path, int capacity, FileChannel channel, MappedByteBuffer buffer) {
+        this.sequence = sequence;
+        this.path = path;
+        this.capacity = capacity;
+        this.channel = channel;
+        this.buffer = buffer;
+        int blocks = (capacity + BLOCK - 1) / BLOCK;
+        this.blockMinTs = new long[blocks];
+        this.blockMaxTs = new long[blocks];
+        Arrays.fill(blockMinTs, Long.MAX_VALUE);
+        Arrays.fill(blockMaxTs, Long.MIN_VALUE);
+    }
+    
+    static HotSegment create(Path path, long sequence, int capacity) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                HEADER_SIZE + (long) capacity * RECORD_SIZE);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(COUNT_OFFSET, 0);
+        buffer.putInt(12, capacity);
+        buffer.putLong(16, sequence);
+        return new HotSegment(sequence, path, capacity, channel, buffer);
+    }
+    
+    static HotSegment open(Path path, long sequence) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() < HEADER_SIZE) {
+            channel.close();
+            throw new IOException("Truncated breadcrumb segment " + path);
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException("Not a breadcrumb segment: " + path);
+        }
+        int capacity = buffer.getInt(12);
+        HotSegment segment = new HotSegment(sequence, path, capacity, channel, buffer);
+        
+        // Rebuild the in-memory indexes with one sequential pass over the mapping
+        int stored = Math.min(buffer.getInt(COUNT_OFFSET), capacity);
+        for (int i = 0; i < stored; i++) {
+            int pos = HEADER_SIZE + i * RECORD_SIZE;
+            segment.index(i, buffer.getLong(pos), buffer.getLong(pos + POINT_OFFSET));
+        }
+        segment.count = stored;
+        return segment;
+    }
+    
+    boolean isFull() {
+        return count >= capacity;
+    }
+    
+    int count() {
+        return count;
+    }
+    
+    long newestTimestamp() {
+        return newestTimestamp;
+    }
+    
+    void append(long driverId, long orderId, long timestampMillis, int latE6, int lngE6) {
+        int index = count;
+        int pos = HEADER_SIZE + index * RECORD_SIZE;
+        buffer.putLong(pos, orderId);
+        buffer.putLong(pos + 8, driverId);
+        buffer.putLong(pos + POINT_OFFSET, timestampMillis);
+        buffer.putInt(pos + 24, latE6);
+        buffer.putInt(pos + 28, lngE6);
+        index(index, orderId, timestampMillis);
+        
+        // Publish the record only after its bytes are in place
+        count = index + 1;
+        buffer.putInt(COUNT_OFFSET, index + 1);
+    }
+    
+    private void index(int index, long orderId, long timestampMillis) {
+        int block = index / BLOCK;
+        if (timestampMillis < blockMinTs[block]) {
+            blockMinTs[block] = timestampMillis;
+        }
+        if (timestampMillis > blockMaxTs[block]) {
+            blockMaxTs[block] = timestampMillis;
+        }
+        if (timestampMillis > newestTimestamp) {
+            newestTimestamp = timestampMillis;
+        }
+        if (orderId != 0) {
+            recordsByOrder.computeIfAbsent(orderId, id -> new IntList(64)).add(index);
+        }
+    }
+    
+    Map<Long, IntList> recordsByOrder() {
+        return recordsByOrder;
+    }
+    
+    long driverOfRecord(int index) {
+        return buffer.getLong(HEADER_SIZE + index * RECORD_SIZE + 8);
+    }
+    
+    /**
+     * Indexes of the order's records published so far; taken under the
+     * store's lock, since appends grow the per-order lists.
+     */
+    int[] records(long orderId) {
+        IntList records = recordsByOrder.get(orderId);
+        return records != null ? records.toArray() : new int[0];
+    }
+    
+    void forEachPoint(int[] records, PointConsumer consumer) {
+        for (int record : records) {
+            int pos = HEADER_SIZE + record * RECORD_SIZE + POINT_OFFSET;
+            consumer.accept(buffer.getLong(pos), buffer.getInt(pos + 8), buffer.getInt(pos + 12));
+        }
+    }
+    
+    /**
+     * Writes the given records' points from read-only views over the record
+     * tails in the mapping.
+     */
+    long writePoints(int[] records, WritableByteChannel out) throws IOException {
+        ByteBuffer view = buffer.asReadOnlyBuffer();
+        long written = 0;
+        for (int record : records) {
+            int pos = HEADER_SIZE + record * RECORD_SIZE + POINT_OFFSET;
+            view.limit(pos + POINT_SIZE).position(pos);
+            while (view.hasRemaining()) {
+                written += out.write(view);
+            }
+        }
+        return written;
+    }
+    
+    int pointCount(long orderId) {
+        IntList records = recordsByOrder.get(orderId);
+        return records != null ? records.size() : 0;
+    }
+    
+    /**
+     * Streams the points of one driver between two instants, using the block
+     * time index to skip blocks that cannot contain matching records.
+     */
+    void forEachDriverPoint(long driverId, long fromMillis, long toMillis, PointConsumer consumer) {
+        int stored = count;
+        int blocks = (stored + BLOCK - 1) / BLOCK;
+        for (int block = 0; block < blocks; block++) {
+            if (blockMaxTs[block] < fromMillis || blockMinTs[block] > toMillis) {
+                continue;
+            }
+            int end = Math.min(stored, (block + 1) * BLOCK);
+            for (int i = block * BLOCK; i < end; i++) {
+                int pos = HEADER_SIZE + i * RECORD_SIZE;
+                if (buffer.getLong(pos + 8) != driverId) {
+                    continue;
+                }
+                long ts = buffer.getLong(pos + POINT_OFFSET);
+                if (ts >= fromMillis && ts <= toMillis) {
+                    consumer.accept(ts, buffer.getInt(pos + 24), buffer.getInt(pos + 28));
+                }
+            }
+        }
+    }
+    
+    void force() {
+        buffer.force();
+    }
+    
+    void close() throws IOException {
+        channel.close();
+    }
+}
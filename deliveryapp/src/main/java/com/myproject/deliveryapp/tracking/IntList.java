@@ -0,0 +1,36 @@
+package com.myproject.deliveryapp.tracking;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints, used for per-order record indexes so the
+ * segment index does not box one Integer per GPS point.
+ */
+final class IntList {
+    
+    private int[] values;
+    private int size;
+    
+    IntList(int initialCapacity) {
+        this.values = new int[Math.max(4, initialCapacity)];
+    }
+    
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+    
+    int get(int index) {
+        return values[index];
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
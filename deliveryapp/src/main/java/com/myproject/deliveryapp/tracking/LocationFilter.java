@@ -0,0 +1,275 @@
+package com.myproject.deliveryapp.tracking;
+
+import java.util.Arrays;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.myproject.deliveryapp.util.GeoUtils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Per-driver GPS filter that runs before a ping is persisted or broadcast.
+ *
+ * Each fix goes through, in order:
+ * <ol>
+ *   <li>a minimum-interval gate against the last forwarded fix;</li>
+ *   <li>a speed-plausibility check that rejects jumps faster than a road
+ *       vehicle can move (accepted again after a few consecutive rejects, so
+ *       a genuine jump after a GPS outage is not locked out);</li>
+ *   <li>a constant-position Kalman filter that smooths jitter;</li>
+ *   <li>a minimum-displacement gate, with a heartbeat so a parked driver
+ *       still refreshes its position every {@code max-silence-ms}.</li>
+ * </ol>
+ * State lives in primitive arrays indexed by {@link DriverSlotRegistry} slot.
+ * A driver's pings can reach the filter from more than one thread at once: a
+ * websocket inbound lane, the REST endpoint, and pings forwarded from other
+ * nodes. Each fix is therefore run under a lock striped by slot, so a slot's
+ * state is only ever updated by one fix at a time.
+ *
+ * A driver's slot is released when the driver goes offline, or when no fix
+ * has arrived for {@code idle-release-ms} (an app killed, or a driver who
+ * went offline through another node), and its state cleared under the same
+ * lock before the slot is handed to another driver.
+ */
+@Component
+public class LocationFilter {
+    
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int MAX_CONSECUTIVE_REJECTS = 3;
+    private static final int LOCK_STRIPES = 64;
+    
+    private final DriverSlotRegistry slotRegistry;
+    private final boolean enabled;
+    private final long minIntervalMs;
+    private final double minDisplacementMeters;
+    private final long maxSilenceMs;
+    private final double maxSpeedMps;
+    private final double processNoiseMps;
+    private final double accuracyMeters;
+    private final long idleReleaseMs;
+    
+    private final Counter received;
+    private final Counter droppedInterval;
+    private final Counter droppedImplausible;
+    private final Counter droppedStationary;
+    
+    private final Object growLock = new Object();
+    private volatile Chunk[] chunks = new Chunk[0];
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    
+    public LocationFilter(DriverSlotRegistry slotRegistry, MeterRegistry meterRegistry,
+                          @Value("${app.location-filter.enabled:true}") boolean enabled,
+                          @Value("${app.location-filter.min-interval-ms:1000}") long minIntervalMs,
+                          @Value("${app.location-filter.min-displacement-m:15}") double minDisplacementMeters,
+                          @Value("${app.location-filter.max-silence-ms:30000}") long maxSilenceMs,
+                          @Value("${app.location-filter.max-speed-mps:55}") double maxSpeedMps,
+                          @Value("${app.location-filter.process-noise-mps:3}") double processNoiseMps,
+                          @Value("${app.location-filter.accuracy-m:10}") double accuracyMeters,
+                          @Value("${app.location-filter.idle-release-ms:900000}") long idleReleaseMs) {
+        this.slotRegistry = slotRegistry;
+        this.enabled = enabled;
+        this.minIntervalMs = minIntervalMs;
+        this.minDisplacementMeters = minDisplacementMeters;
+        this.maxSilenceMs = maxSilenceMs;
+        this.maxSpeedMps = maxSpeedMps;
+        this.processNoiseMps = processNoiseMps;
+        this.accuracyMeters = accuracyMeters;
+        this.idleReleaseMs = idleReleaseMs;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        
+        this.received = Counter.builder("location.filter.received").register(meterRegistry);
+        this.droppedInterval = dropCounter(meterRegistry, "interval");
+        this.droppedImplausible = dropCounter(meterRegistry, "implausible");
+        this.droppedStationary = dropCounter(meterRegistry, "stationary");
+        Gauge.builder("location.filter.drop.ratio", this, LocationFilter::dropRatio)
+                .description("Share of received pings the filter has not forwarded")
+                .register(meterRegistry);
+        Gauge.builder("location.filter.slots", slotRegistry, DriverSlotRegistry::inUse)
+                .description("Drivers with filter state held")
+                .register(meterRegistry);
+    }
+    
+    private static Counter dropCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("location.filter.dropped").tag("reason", reason).register(meterRegistry);
+    }
+    
+    public double dropRatio() {
+        double total = received.count();
+        if (total == 0) {
+            return 0;
+        }
+        return (droppedInterval.count() + droppedImplausible.count() + droppedStationary.count()) / total;
+    }
+    
+    /**
+     * Runs one fix through the filter.
+     *
+     * @return the smoothed position to forward as {lat, lng}, or null if the
+     *         fix should be dropped
+     */
+    public double[] accept(long driverId, double lat, double lng, long timestampMillis) {
+        received.increment();
+        while (true) {
+            int slot = slotRegistry.slotOf(driverId);
+            Chunk chunk = chunkFor(slot);
+            int i = slot & CHUNK_MASK;
+            synchronized (lockFor(slot)) {
+                // Released, and perhaps handed to another driver, since it was looked up
+                if (slotRegistry.find(driverId) != slot) {
+                    continue;
+                }
+                chunk.receivedAt[i] = System.currentTimeMillis();
+                if (!accept(chunk, i, lat, lng, timestampMillis)) {
+                    return null;
+                }
+                return new double[] {chunk.forwardedLat[i], chunk.forwardedLng[i]};
+            }
+        }
+    }
+    
+    /**
+     * Forgets the driver, freeing its slot for the next one; its next fix is
+     * taken as a first fix again.
+     */
+    public void release(long driverId) {
+        release(driverId, Long.MAX_VALUE);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.location-filter.idle-sweep-ms:60000}")
+    public void releaseIdle() {
+        long cutoff = System.currentTimeMillis() - idleReleaseMs;
+        slotRegistry.forEach((driverId, slot) -> release(driverId, cutoff));
+    }
+    
+    /**
+     * Releases the driver's slot if no fix has arrived since the cutoff.
+     */
+    private void release(long driverId, long cutoff) {
+        int slot = slotRegistry.find(driverId);
+        if (slot < 0) {
+            return;
+        }
+        Chunk chunk = chunkFor(slot);
+        int i = slot & CHUNK_MASK;
+        synchronized (lockFor(slot)) {
+            if (chunk.receivedAt[i] < cutoff && slotRegistry.find(driverId) == slot) {
+                chunk.clear(i);
+                slotRegistry.release(driverId, slot);
+            }
+        }
+    }
+    
+    private Object lockFor(int slot) {
+        return locks[slot & (LOCK_STRIPES - 1)];
+    }
+    
+    /**
+     * Filters a fix into slot i of the chunk; callers hold the slot's lock.
+     *
+     * @return whether the fix should be forwarded
+     */
+    private boolean accept(Chunk chunk, int i, double lat, double lng, long timestampMillis) {
+        if (!enabled || chunk.forwardedTs[i] == 0) {
+            chunk.reset(i, lat, lng, timestampMillis, accuracyMeters);
+            return true;
+        }
+        
+        long sinceForwarded = timestampMillis - chunk.forwardedTs[i];
+        if (sinceForwarded < minIntervalMs) {
+            droppedInterval.increment();
+            return false;
+        }
+        
+        // Reject teleports relative to the filtered position
+        double dtSeconds = Math.max(0.001, (timestampMillis - chunk.filterTs[i]) / 1000.0);
+        double jump = GeoUtils.distanceMeters(chunk.filterLat[i], chunk.filterLng[i], lat, lng);
+        if (jump / dtSeconds > maxSpeedMps) {
+            if (++chunk.rejects[i] < MAX_CONSECUTIVE_REJECTS) {
+                droppedImplausible.increment();
+                return false;
+            }
+            // Consistently far away: trust the new position
+            chunk.reset(i, lat, lng, timestampMillis, accuracyMeters);
+            return true;
+        }
+        chunk.rejects[i] = 0;
+        
+        // Kalman update with a constant-position model; uncertainty grows with time
+        double variance = chunk.variance[i] + dtSeconds * processNoiseMps * processNoiseMps;
+        double gain = variance / (variance + accuracyMeters * accuracyMeters);
+        chunk.filterLat[i] += gain * (lat - chunk.filterLat[i]);
+        chunk.filterLng[i] += gain * (lng - chunk.filterLng[i]);
+        chunk.variance[i] = (1 - gain) * variance;
+        chunk.filterTs[i] = timestampMillis;
+        
+        double moved = GeoUtils.distanceMeters(chunk.forwardedLat[i], chunk.forwardedLng[i],
+                chunk.filterLat[i], chunk.filterLng[i]);
+        if (moved < minDisplacementMeters && sinceForwarded < maxSilenceMs) {
+            droppedStationary.increment();
+            return false;
+        }
+        
+        chunk.forwardedLat[i] = chunk.filterLat[i];
+        chunk.forwardedLng[i] = chunk.filterLng[i];
+        chunk.forwardedTs[i] = timestampMillis;
+        return true;
+    }
+    
+    private Chunk chunkFor(int slot) {
+        int index = slot >>> CHUNK_BITS;
+        Chunk[] current = chunks;
+        if (index < current.length) {
+            return current[index];
+        }
+        synchronized (growLock) {
+            current = chunks;
+            if (index >= current.length) {
+                Chunk[] grown = Arrays.copyOf(current, index + 1);
+                for (int c = current.length; c < grown.length; c++) {
+                    grown[c] = new Chunk();
+                }
+                chunks = grown;
+                current = grown;
+            }
+            return current[index];
+        }
+    }
+    
+    private static final class Chunk {
+        final long[] forwardedTs = new long[CHUNK_SIZE];
+        final double[] forwardedLat = new double[CHUNK_SIZE];
+        final double[] forwardedLng = new double[CHUNK_SIZE];
+        final long[] filterTs = new long[CHUNK_SIZE];
+        final double[] filterLat = new double[CHUNK_SIZE];
+        final double[] filterLng = new double[CHUNK_SIZE];
+        final double[] variance = new double[CHUNK_SIZE];
+        final int[] rejects = new int[CHUNK_SIZE];
+        // Local clock when the slot's last fix arrived, for the idle release
+        final long[] receivedAt = new long[CHUNK_SIZE];
+        
+        void reset(int i, double lat, double lng, long timestampMillis, double accuracyMeters) {
+            forwardedTs[i] = timestampMillis;
+            forwardedLat[i] = lat;
+            forwardedLng[i] = lng;
+            filterTs[i] = timestampMillis;
+            filterLat[i] = lat;
+            filterLng[i] = lng;
+            variance[i] = accuracyMeters * accuracyMeters;
+            rejects[i] = 0;
+        }
+        
+        void clear(int i) {
+            forwardedTs[i] = 0;
+            receivedAt[i] = 0;
+        }
+    }
+}
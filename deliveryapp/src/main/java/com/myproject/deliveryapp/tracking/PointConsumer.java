@@ -0,0 +1,10 @@
+package com.myproject.deliveryapp.tracking;
+
+/**
+ * Receives track points as primitives, in the order they were recorded.
+ */
+@FunctionalInterface
+public interface PointConsumer {
+    
+    void accept(long timestampMillis, int latE6, int lngE6);
+}
@@ -0,0 +1,35 @@
+package com.myproject.deliveryapp.tracking;
+
+/**
+ * Encoded polyline algorithm format (precision 1e5), as understood by
+ * Google Maps, Leaflet and Mapbox polyline decoders.
+ */
+public final class PolylineEncoder {
+    
+    private PolylineEncoder() {
+    }
+    
+    public static String encode(TrackBuffer track, int[] indexes) {
+        StringBuilder encoded = new StringBuilder(indexes.length * 8);
+        long previousLat = 0;
+        long previousLng = 0;
+        for (int index : indexes) {
+            long lat = Math.round(track.lat(index) * 1e5);
+            long lng = Math.round(track.lng(index) * 1e5);
+            encodeValue(lat - previousLat, encoded);
+            encodeValue(lng - previousLng, encoded);
+            previousLat = lat;
+            previousLng = lng;
+        }
+        return encoded.toString();
+    }
+    
+    private static void encodeValue(long value, StringBuilder out) {
+        long shifted = value < 0 ? ~(value << 1) : value << 1;
+        while (shifted >= 0x20) {
+            out.append((char) ((0x20 | (shifted & 0x1f)) + 63));
+            shifted >>= 5;
+        }
+        out.append((char) (shifted + 63));
+    }
+}
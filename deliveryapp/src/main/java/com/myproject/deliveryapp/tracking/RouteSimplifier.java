@@ -0,0 +1,96 @@
+package com.myproject.deliveryapp.tracking;
+
+import com.myproject.deliveryapp.util.GeoUtils;
+
+/**
+ * Douglas-Peucker line simplification over a {@link TrackBuffer}.
+ *
+ * Works on an iterative stack so very long trips cannot overflow the call
+ * stack, and measures offsets in meters on a local equirectangular
+ * projection, which is accurate enough at city scale.
+ */
+public final class RouteSimplifier {
+    
+    private RouteSimplifier() {
+    }
+    
+    /**
+     * @return indexes of the points to keep, in track order
+     */
+    public static int[] simplify(TrackBuffer track, double toleranceMeters) {
+        int n = track.size();
+        if (n <= 2) {
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        
+        double metersPerDegLat = Math.toRadians(1) * GeoUtils.EARTH_RADIUS_METERS;
+        double metersPerDegLng = metersPerDegLat * Math.cos(Math.toRadians(track.lat(0)));
+        
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+        int[] stack = new int[2 * n];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            
+            double ax = track.lng(first) * metersPerDegLng;
+            double ay = track.lat(first) * metersPerDegLat;
+            double bx = track.lng(last) * metersPerDegLng;
+            double by = track.lat(last) * metersPerDegLat;
+            
+            double maxDistance = -1;
+            int farthest = -1;
+            for (int i = first + 1; i < last; i++) {
+                double d = segmentDistance(track.lng(i) * metersPerDegLng, track.lat(i) * metersPerDegLat,
+                        ax, ay, bx, by);
+                if (d > maxDistance) {
+                    maxDistance = d;
+                    farthest = i;
+                }
+            }
+            
+            if (farthest >= 0 && maxDistance > toleranceMeters) {
+                keep[farthest] = true;
+                stack[top++] = first;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = last;
+            }
+        }
+        
+        int kept = 0;
+        for (boolean k : keep) {
+            if (k) {
+                kept++;
+            }
+        }
+        int[] indexes = new int[kept];
+        for (int i = 0, j = 0; i < n; i++) {
+            if (keep[i]) {
+                indexes[j++] = i;
+            }
+        }
+        return indexes;
+    }
+    
+    private static double segmentDistance(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        if (lengthSquared == 0) {
+            return Math.hypot(px - ax, py - ay);
+        }
+        double t = ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        return Math.hypot(px - (ax + t * dx), py - (ay + t * dy));
+    }
+}
@@ -0,0 +1,55 @@
+package com.myproject.deliveryapp.tracking;
+
+import java.util.Arrays;
+
+/**
+ * Collects a track into parallel primitive arrays.
+ */
+public final class TrackBuffer implements PointConsumer {
+    
+    private long[] timestamps;
+    private double[] lats;
+    private double[] lngs;
+    private int size;
+    
+    public TrackBuffer(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        this.timestamps = new long[capacity];
+        this.lats = new double[capacity];
+        this.lngs = new double[capacity];
+    }
+    
+    @Override
+    public void accept(long timestampMillis, int latE6, int lngE6) {
+        add(timestampMillis, latE6 / 1e6, lngE6 / 1e6);
+    }
+    
+    public void add(long timestampMillis, double lat, double lng) {
+        if (size == timestamps.length) {
+            int capacity = size * 2;
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            lats = Arrays.copyOf(lats, capacity);
+            lngs = Arrays.copyOf(lngs, capacity);
+        }
+        timestamps[size] = timestampMillis;
+        lats[size] = lat;
+        lngs[size] = lng;
+        size++;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public long timestamp(int i) {
+        return timestamps[i];
+    }
+    
+    public double lat(int i) {
+        return lats[i];
+    }
+    
+    public double lng(int i) {
+        return lngs[i];
+    }
+}
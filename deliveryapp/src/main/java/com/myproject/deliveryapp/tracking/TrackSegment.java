@@ -0,0 +1,181 @@
+package com.myproject.deliveryapp.tracking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.LongPredicate;
+
+/**
+ * Compacted, read-only breadcrumb segment where every order's points are
+ * stored contiguously, so a track is served with a single
+ * {@link FileChannel#transferTo} call.
+ *
+ * Layout: a 24 byte header (magic, version, order count, newest timestamp),
+ * a directory of 32 byte entries sorted by orderId
+ * (orderId, driverId, file offset, point count), then the 16 byte points
+ * (timestamp, latitude * 1e6, longitude * 1e6).
+ */
+final class TrackSegment {
+    
+    static final int MAGIC = 0x42435254; // "BCRT"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 24;
+    static final int ENTRY_SIZE = 32;
+    
+    final long sequence;
+    final Path path;
+    
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long[] orderIds;
+    private final long[] offsets;
+    private final int[] counts;
+    private final long newestTimestamp;
+    
+    private TrackSegment(long sequence, Path path, FileChannel channel, MappedByteBuffer buffer) throws IOException {
+        this.sequence = sequence;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a compacted breadcrumb segment: " + path);
+        }
+        int orders = buffer.getInt(8);
+        this.newestTimestamp = buffer.getLong(16);
+        this.orderIds = new long[orders];
+        this.offsets = new long[orders];
+        this.counts = new int[orders];
+        for (int i = 0; i < orders; i++) {
+            int entry = HEADER_SIZE + i * ENTRY_SIZE;
+            orderIds[i] = buffer.getLong(entry);
+            offsets[i] = buffer.getLong(entry + 16);
+            counts[i] = buffer.getInt(entry + 24);
+        }
+    }
+    
+    static TrackSegment open(Path path, long sequence) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new TrackSegment(sequence, path, channel, buffer);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Rewrites a sealed hot segment grouped by order, dropping points that do
+     * not belong to an order or whose order is no longer kept. The file is
+     * written to a temporary name and moved into place atomically.
+     */
+    static TrackSegment compact(HotSegment source, Path target, LongPredicate keepOrder) throws IOException {
+        Map<Long, IntList> byOrder = source.recordsByOrder();
+        long[] kept = byOrder.keySet().stream()
+                .mapToLong(Long::longValue)
+                .filter(keepOrder)
+                .sorted()
+                .toArray();
+        
+        int points = 0;
+        for (long orderId : kept) {
+            points += byOrder.get(orderId).size();
+        }
+        long pointsStart = HEADER_SIZE + (long) kept.length * ENTRY_SIZE;
+        ByteBuffer out = ByteBuffer.allocateDirect((int) (pointsStart + (long) points * HotSegment.POINT_SIZE));
+        
+        out.putInt(0, MAGIC);
+        out.putInt(4, VERSION);
+        out.putInt(8, kept.length);
+        out.putLong(16, source.newestTimestamp());
+        
+        int pointPos = (int) pointsStart;
+        ByteBuffer pointWriter = out.duplicate();
+        for (int i = 0; i < kept.length; i++) {
+            long orderId = kept[i];
+            IntList records = byOrder.get(orderId);
+            int entry = HEADER_SIZE + i * ENTRY_SIZE;
+            out.putLong(entry, orderId);
+            out.putLong(entry + 8, source.driverOfRecord(records.get(0)));
+            out.putLong(entry + 16, pointPos);
+            out.putInt(entry + 24, records.size());
+            
+            pointWriter.position(pointPos);
+            source.forEachPoint(records.toArray(), (ts, lat, lng) -> pointWriter.putLong(ts).putInt(lat).putInt(lng));
+            pointPos += records.size() * HotSegment.POINT_SIZE;
+        }
+        
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            out.clear();
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return open(target, source.sequence);
+    }
+    
+    long newestTimestamp() {
+        return newestTimestamp;
+    }
+    
+    private int find(long orderId) {
+        return Arrays.binarySearch(orderIds, orderId);
+    }
+    
+    int pointCount(long orderId) {
+        int i = find(orderId);
+        return i >= 0 ? counts[i] : 0;
+    }
+    
+    void forEachPoint(long orderId, PointConsumer consumer) {
+        int i = find(orderId);
+        if (i < 0) {
+            return;
+        }
+        int pos = (int) offsets[i];
+        for (int p = 0; p < counts[i]; p++, pos += HotSegment.POINT_SIZE) {
+            consumer.accept(buffer.getLong(pos), buffer.getInt(pos + 8), buffer.getInt(pos + 12));
+        }
+    }
+    
+    /**
+     * Transfers the order's contiguous point block from the file to the
+     * target channel, letting the kernel move the bytes (sendfile) when the
+     * target is a socket.
+     */
+    long transferPoints(long orderId, WritableByteChannel out) throws IOException {
+        int i = find(orderId);
+        if (i < 0) {
+            return 0;
+        }
+        long position = offsets[i];
+        long remaining = (long) counts[i] * HotSegment.POINT_SIZE;
+        long written = 0;
+        while (remaining > 0) {
+            long n = channel.transferTo(position, remaining, out);
+            if (n <= 0) {
+                break;
+            }
+            position += n;
+            remaining -= n;
+            written += n;
+        }
+        return written;
+    }
+    
+    void close() throws IOException {
+        channel.close();
+    }
+}
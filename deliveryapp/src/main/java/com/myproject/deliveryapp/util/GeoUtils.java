@@ -0,0 +1,74 @@
+package com.myproject.deliveryapp.util;
+
+/**
+ * Small spherical-earth helpers shared by the tracking and dispatch code.
+ */
+public final class GeoUtils {
+    
+    public static final double EARTH_RADIUS_METERS = 6_371_000.0;
+    
+    // Web Mercator stops short of the poles
+    private static final double MAX_MERCATOR_LAT = 85.05112878;
+    
+    private GeoUtils() {
+    }
+    
+    /**
+     * Great-circle distance between two points in meters (haversine).
+     */
+    public static double distanceMeters(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+    
+    /**
+     * Web Mercator (slippy map) tile column containing the longitude at the zoom level.
+     */
+    public static int tileX(double lng, int zoom) {
+        int n = 1 << zoom;
+        return Math.max(0, Math.min(n - 1, (int) Math.floor(mercatorX(lng, zoom))));
+    }
+    
+    /**
+     * Web Mercator (slippy map) tile row containing the latitude at the zoom level; rows grow southwards.
+     */
+    public static int tileY(double lat, int zoom) {
+        int n = 1 << zoom;
+        return Math.max(0, Math.min(n - 1, (int) Math.floor(mercatorY(lat, zoom))));
+    }
+    
+    /**
+     * Fractional tile column of the longitude at the zoom level.
+     */
+    public static double mercatorX(double lng, int zoom) {
+        return (lng + 180.0) / 360.0 * (1 << zoom);
+    }
+    
+    /**
+     * Fractional tile row of the latitude at the zoom level.
+     */
+    public static double mercatorY(double lat, int zoom) {
+        double clamped = Math.max(-MAX_MERCATOR_LAT, Math.min(MAX_MERCATOR_LAT, lat));
+        double latRad = Math.toRadians(clamped);
+        return (1.0 - Math.log(Math.tan(latRad) + 1.0 / Math.cos(latRad)) / Math.PI) / 2.0 * (1 << zoom);
+    }
+    
+    /**
+     * Longitude at a (fractional) tile column; x + 0.5 gives the tile's center.
+     */
+    public static double tileToLng(double x, int zoom) {
+        return x / (1 << zoom) * 360.0 - 180.0;
+    }
+    
+    /**
+     * Latitude at a (fractional) tile row; y + 0.5 gives the tile's center.
+     */
+    public static double tileToLat(double y, int zoom) {
+        double n = Math.PI * (1.0 - 2.0 * y / (1 << zoom));
+        return Math.toDegrees(Math.atan(Math.sinh(n)));
+    }
+}
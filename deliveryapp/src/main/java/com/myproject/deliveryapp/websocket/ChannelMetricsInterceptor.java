@@ -0,0 +1,192 @@
+package com.myproject.deliveryapp.websocket;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Exports per-destination queue depth and handling latency for one message
+ * channel. Destinations are normalised so numeric ids collapse into a single
+ * series, e.g. "/topic/tracking/42" is reported as "/topic/tracking/{id}".
+ *
+ * A channel hands each message to every subscribed handler (three on the
+ * inbound channel, two on the broker channel), so each message sent is
+ * tracked until the last of them is done: it stops counting as pending when
+ * the first handler starts, and its handling time runs from then until the
+ * last handler finishes. Messages are told apart by identity, as those with
+ * headers left mutable carry no id while on the channel, so register it as
+ * the channel's first interceptor, before any that replace the message.
+ */
+public class ChannelMetricsInterceptor implements ExecutorChannelInterceptor {
+    
+    private final String channel;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, DestinationStats> stats = new ConcurrentHashMap<>();
+    private final Map<MessageKey, Handling> inFlight = new ConcurrentHashMap<>();
+    
+    public ChannelMetricsInterceptor(String channel, MeterRegistry meterRegistry) {
+        this.channel = channel;
+        this.meterRegistry = meterRegistry;
+    }
+    
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        int handlers = channel instanceof AbstractSubscribableChannel subscribable
+                ? subscribable.getSubscribers().size() : 1;
+        DestinationStats destinationStats = handlers > 0 ? statsFor(message) : null;
+        if (destinationStats != null) {
+            destinationStats.pending.incrementAndGet();
+            inFlight.put(new MessageKey(message), new Handling(destinationStats, handlers));
+        }
+        return message;
+    }
+    
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        // Dropped by a later interceptor, or a handler run on this thread failed: not all handlers will run
+        if (!sent || ex != null) {
+            Handling handling = handling(message, true);
+            if (handling != null && handling.started.compareAndSet(0L, System.nanoTime())) {
+                handling.stats.pending.decrementAndGet();
+            }
+        }
+    }
+    
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        Handling handling = handling(message, false);
+        if (handling != null && handling.started.compareAndSet(0L, System.nanoTime())) {
+            handling.stats.pending.decrementAndGet();
+        }
+        return message;
+    }
+    
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        Handling handling = handling(message, false);
+        if (handling != null && handling.remaining.decrementAndGet() == 0) {
+            inFlight.remove(new MessageKey(message));
+            handling.stats.handleTime.record(System.nanoTime() - handling.started.get(), TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    private Handling handling(Message<?> message, boolean remove) {
+        MessageKey key = new MessageKey(message);
+        return remove ? inFlight.remove(key) : inFlight.get(key);
+    }
+    
+    private DestinationStats statsFor(Message<?> message) {
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null) {
+            return null;
+        }
+        return stats.computeIfAbsent(normalize(destination), this::register);
+    }
+    
+    private DestinationStats register(String destination) {
+        DestinationStats destinationStats = new DestinationStats();
+        Gauge.builder("websocket.destination.pending", destinationStats.pending, AtomicInteger::get)
+                .description("Messages accepted for a destination but not yet handled")
+                .tag("channel", channel)
+                .tag("destination", destination)
+                .register(meterRegistry);
+        destinationStats.handleTime = Timer.builder("websocket.destination.handle")
+                .description("Time spent handling a message for a destination")
+                .tag("channel", channel)
+                .tag("destination", destination)
+                .register(meterRegistry);
+        return destinationStats;
+    }
+    
+    /**
+     * Replaces every purely numeric path segment with "{id}" so the metric
+     * cardinality stays bounded by the number of topic shapes, not drivers.
+     */
+    static String normalize(String destination) {
+        StringBuilder normalized = null;
+        int segmentStart = 0;
+        int length = destination.length();
+        for (int i = 0; i <= length; i++) {
+            if (i == length || destination.charAt(i) == '/') {
+                if (i > segmentStart && isNumeric(destination, segmentStart, i)) {
+                    if (normalized == null) {
+                        normalized = new StringBuilder(length).append(destination, 0, segmentStart);
+                    }
+                    normalized.append("{id}");
+                } else if (normalized != null) {
+                    normalized.append(destination, segmentStart, i);
+                }
+                if (i < length && normalized != null) {
+                    normalized.append('/');
+                }
+                segmentStart = i + 1;
+            }
+        }
+        return normalized != null ? normalized.toString() : destination;
+    }
+    
+    private static boolean isNumeric(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static final class DestinationStats {
+        private final AtomicInteger pending = new AtomicInteger();
+        private Timer handleTime;
+    }
+    
+    /**
+     * Compares messages by identity, messages with equal headers and payload
+     * being different sends
+     */
+    private static final class MessageKey {
+        private final Message<?> message;
+        
+        MessageKey(Message<?> message) {
+            this.message = message;
+        }
+        
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof MessageKey key && key.message == message;
+        }
+        
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(message);
+        }
+    }
+    
+    /**
+     * One message on its way through the channel's handlers
+     */
+    private static final class Handling {
+        private final DestinationStats stats;
+        private final AtomicInteger remaining;
+        // System.nanoTime() when the first handler started, 0 before
+        private final AtomicLong started = new AtomicLong();
+        
+        Handling(DestinationStats stats, int handlers) {
+            this.stats = stats;
+            this.remaining = new AtomicInteger(handlers);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.myproject.deliveryapp.websocket;
+
+/**
+ * Receives decoded driver location fixes as primitives, so decoding a frame
+ * never has to box a coordinate or build a request object per field.
+ */
+public interface LocationFixSink {
+    
+    /**
+     * @param driverId        driver the fix belongs to
+     * @param latE6           latitude in millionths of a degree
+     * @param lngE6           longitude in millionths of a degree
+     * @param timestampMillis device time of the fix, epoch milliseconds
+     * @param headingDeciDeg  heading in tenths of a degree (0-3599), or -1 if unknown
+     * @param speedCmPerSec   ground speed in cm/s, or -1 if unknown
+     */
+    void onFix(long driverId, int latE6, int lngE6, long timestampMillis, int headingDeciDeg, int speedCmPerSec);
+}
@@ -0,0 +1,173 @@
+package com.myproject.deliveryapp.websocket;
+
+import org.springframework.util.MimeType;
+
+/**
+ * Decoder for the compact binary driver location payload sent to
+ * {@code /app/driver-location} with content-type
+ * {@code application/vnd.delivery.location}.
+ *
+ * All integers are big-endian. A frame starts with a 2 byte header:
+ * <pre>
+ *   u8  version   (1)
+ *   u8  type      (1 = single fix, 2 = batch)
+ * </pre>
+ * A batch frame follows the header with a {@code u16} fix count. Each fix is
+ * {@value #FIX_SIZE} bytes:
+ * <pre>
+ *   i64 driverId
+ *   i32 latitude  * 1e6
+ *   i32 longitude * 1e6
+ *   i64 timestamp (epoch millis)
+ *   u16 heading   (tenths of a degree, 0xFFFF = unknown)
+ *   u16 speed     (cm/s, 0xFFFF = unknown)
+ * </pre>
+ * A single fix frame is 30 bytes against roughly 70 for the JSON form.
+ */
+public final class LocationFrameDecoder {
+    
+    public static final MimeType MIME_TYPE = new MimeType("application", "vnd.delivery.location");
+    
+    public static final int VERSION = 1;
+    public static final int TYPE_SINGLE = 1;
+    public static final int TYPE_BATCH = 2;
+    public static final int FIX_SIZE = 28;
+    public static final int MAX_BATCH = 512;
+    
+    private static final int UNKNOWN = 0xFFFF;
+    
+    private LocationFrameDecoder() {
+    }
+    
+    public static boolean isLocationFrame(Object contentType) {
+        if (contentType instanceof MimeType mimeType) {
+            return MIME_TYPE.equalsTypeAndSubtype(mimeType);
+        }
+        if (contentType instanceof String value) {
+            return value.startsWith(MIME_TYPE.toString());
+        }
+        return false;
+    }
+    
+    /**
+     * Decodes a single or batch frame, handing each fix to the sink. The whole
+     * frame is checked first, so a malformed frame delivers no fixes at all.
+     *
+     * @return the number of fixes decoded
+     * @throws IllegalArgumentException if the frame is malformed
+     */
+    public static int decode(byte[] frame, LocationFixSink sink) {
+        if (frame.length < 2) {
+            throw new IllegalArgumentException("Location frame too short: " + frame.length + " bytes");
+        }
+        if ((frame[0] & 0xFF) != VERSION) {
+            throw new IllegalArgumentException("Unsupported location frame version: " + (frame[0] & 0xFF));
+        }
+        
+        int type = frame[1] & 0xFF;
+        if (type == TYPE_SINGLE) {
+            checkLength(frame, 2 + FIX_SIZE);
+            checkFix(frame, 2);
+            readFix(frame, 2, sink);
+            return 1;
+        }
+        if (type == TYPE_BATCH) {
+            if (frame.length < 4) {
+                throw new IllegalArgumentException("Location batch frame missing count");
+            }
+            int count = readU16(frame, 2);
+            if (count > MAX_BATCH) {
+                throw new IllegalArgumentException("Location batch too large: " + count + " fixes");
+            }
+            checkLength(frame, 4 + count * FIX_SIZE);
+            for (int offset = 4; offset < frame.length; offset += FIX_SIZE) {
+                checkFix(frame, offset);
+            }
+            for (int offset = 4; offset < frame.length; offset += FIX_SIZE) {
+                readFix(frame, offset, sink);
+            }
+            return count;
+        }
+        throw new IllegalArgumentException("Unknown location frame type: " + type);
+    }
+    
+    /**
+     * Writes one fix at the given offset. Used by load-test clients and tests
+     * to produce frames in the same layout the decoder expects.
+     */
+    public static int writeFix(byte[] frame, int offset, long driverId, int latE6, int lngE6,
+                               long timestampMillis, int headingDeciDeg, int speedCmPerSec) {
+        writeLong(frame, offset, driverId);
+        writeInt(frame, offset + 8, latE6);
+        writeInt(frame, offset + 12, lngE6);
+        writeLong(frame, offset + 16, timestampMillis);
+        writeU16(frame, offset + 24, headingDeciDeg < 0 ? UNKNOWN : headingDeciDeg);
+        writeU16(frame, offset + 26, speedCmPerSec < 0 ? UNKNOWN : speedCmPerSec);
+        return offset + FIX_SIZE;
+    }
+    
+    public static int writeHeader(byte[] frame, int type, int count) {
+        frame[0] = (byte) VERSION;
+        frame[1] = (byte) type;
+        if (type == TYPE_BATCH) {
+            writeU16(frame, 2, count);
+            return 4;
+        }
+        return 2;
+    }
+    
+    private static void checkFix(byte[] frame, int offset) {
+        int latE6 = readInt(frame, offset + 8);
+        int lngE6 = readInt(frame, offset + 12);
+        if (latE6 < -90_000_000 || latE6 > 90_000_000 || lngE6 < -180_000_000 || lngE6 > 180_000_000) {
+            throw new IllegalArgumentException("Coordinates out of range for driver " + readLong(frame, offset));
+        }
+    }
+    
+    private static void readFix(byte[] frame, int offset, LocationFixSink sink) {
+        long driverId = readLong(frame, offset);
+        int latE6 = readInt(frame, offset + 8);
+        int lngE6 = readInt(frame, offset + 12);
+        long timestamp = readLong(frame, offset + 16);
+        int heading = readU16(frame, offset + 24);
+        int speed = readU16(frame, offset + 26);
+        sink.onFix(driverId, latE6, lngE6, timestamp,
+                heading == UNKNOWN ? -1 : heading,
+                speed == UNKNOWN ? -1 : speed);
+    }
+    
+    private static void checkLength(byte[] frame, int expected) {
+        if (frame.length != expected) {
+            throw new IllegalArgumentException("Location frame length " + frame.length + ", expected " + expected);
+        }
+    }
+    
+    private static int readU16(byte[] b, int i) {
+        return ((b[i] & 0xFF) << 8) | (b[i + 1] & 0xFF);
+    }
+    
+    private static int readInt(byte[] b, int i) {
+        return ((b[i] & 0xFF) << 24) | ((b[i + 1] & 0xFF) << 16) | ((b[i + 2] & 0xFF) << 8) | (b[i + 3] & 0xFF);
+    }
+    
+    private static long readLong(byte[] b, int i) {
+        return ((long) readInt(b, i) << 32) | (readInt(b, i + 4) & 0xFFFFFFFFL);
+    }
+    
+    private static void writeU16(byte[] b, int i, int v) {
+        b[i] = (byte) (v >>> 8);
+        b[i + 1] = (byte) v;
+    }
+    
+    private static void writeInt(byte[] b, int i, int v) {
+        b[i] = (byte) (v >>> 24);
+        b[i + 1] = (byte) (v >>> 16);
+        b[i + 2] = (byte) (v >>> 8);
+        b[i + 3] = (byte) v;
+    }
+    
+    private static void writeLong(byte[] b, int i, long v) {
+        writeInt(b, i, (int) (v >>> 32));
+        writeInt(b, i + 4, (int) v);
+    }
+}
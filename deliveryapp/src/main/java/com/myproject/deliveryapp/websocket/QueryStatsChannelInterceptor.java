@@ -0,0 +1,52 @@
+package com.myproject.deliveryapp.websocket;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.annotation.support.SimpAnnotationMethodMessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+
+import com.myproject.deliveryapp.querystats.QueryStats;
+import com.myproject.deliveryapp.querystats.QueryStatsRecorder;
+
+/**
+ * Counts the SQL run by each inbound STOMP message handled by a
+ * {@code @MessageMapping} method, on the lane thread that handles it, and
+ * records it against the normalised destination.
+ */
+public class QueryStatsChannelInterceptor implements ExecutorChannelInterceptor {
+    
+    private final QueryStatsRecorder queryStatsRecorder;
+    
+    public QueryStatsChannelInterceptor(QueryStatsRecorder queryStatsRecorder) {
+        this.queryStatsRecorder = queryStatsRecorder;
+    }
+    
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        if (counted(message, handler)) {
+            QueryStats.begin();
+        }
+        return message;
+    }
+    
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        QueryStats stats = QueryStats.current();
+        if (stats != null && counted(message, handler)) {
+            stats.end();
+            String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+            queryStatsRecorder.record("stomp", ChannelMetricsInterceptor.normalize(destination), stats);
+        }
+    }
+    
+    // The broker and user-destination handlers see the same messages but never touch the database
+    private boolean counted(Message<?> message, MessageHandler handler) {
+        return queryStatsRecorder.isEnabled()
+                && handler instanceof SimpAnnotationMethodMessageHandler
+                && SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE
+                && SimpMessageHeaderAccessor.getDestination(message.getHeaders()) != null;
+    }
+}
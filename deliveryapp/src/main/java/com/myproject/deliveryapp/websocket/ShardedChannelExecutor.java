@@ -0,0 +1,147 @@
+package com.myproject.deliveryapp.websocket;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executor for STOMP message channels that routes every message to one of N
+ * single-threaded lanes, picked by hashing a key taken from the message
+ * (session id for client channels, destination for the broker channel).
+ *
+ * Messages with the same key are handled in order on the same lane, while
+ * different keys spread across cores without sharing a queue or a lock.
+ * When a lane's queue is full the sender blocks, pushing back on the
+ * producer instead of dropping or reordering messages.
+ *
+ * It is a TaskExecutor so it can stand in for the channel executor beans
+ * that WebSocketMessageBrokerStats looks up by type.
+ */
+@Slf4j
+public class ShardedChannelExecutor implements TaskExecutor, DisposableBean {
+    
+    private final String name;
+    private final ThreadPoolExecutor[] lanes;
+    private final Function<Message<?>, Object> shardKey;
+    private final Timer queueWait;
+    
+    public ShardedChannelExecutor(String name, int laneCount, int queueCapacity,
+                                  ThreadFactory threadFactory,
+                                  Function<Message<?>, Object> shardKey,
+                                  MeterRegistry meterRegistry) {
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("Lane count must be at least 1 for channel " + name);
+        }
+        this.name = name;
+        this.shardKey = shardKey;
+        this.lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity), threadFactory, ShardedChannelExecutor::blockUntilQueued);
+        }
+        
+        this.queueWait = Timer.builder("websocket.channel.queue.wait")
+                .description("Time a message spends queued before its lane picks it up")
+                .tag("channel", name)
+                .register(meterRegistry);
+        Gauge.builder("websocket.channel.queue.depth", this, ShardedChannelExecutor::queueDepth)
+                .description("Messages waiting across all lanes of the channel")
+                .tag("channel", name)
+                .register(meterRegistry);
+        Gauge.builder("websocket.channel.lanes", lanes, l -> l.length)
+                .tag("channel", name)
+                .register(meterRegistry);
+    }
+    
+    @Override
+    public void execute(Runnable task) {
+        lanes[laneFor(task)].execute(new TimedTask(task, System.nanoTime()));
+    }
+    
+    public int queueDepth() {
+        int depth = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            depth += lane.getQueue().size();
+        }
+        return depth;
+    }
+    
+    public int laneCount() {
+        return lanes.length;
+    }
+    
+    private int laneFor(Runnable task) {
+        if (lanes.length == 1 || !(task instanceof MessageHandlingRunnable runnable)) {
+            return 0;
+        }
+        Object key = shardKey.apply(runnable.getMessage());
+        if (key == null) {
+            return 0;
+        }
+        // Spread the hash bits so keys like "/topic/tracking/1", ".../2" don't cluster
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return Math.floorMod(h, lanes.length);
+    }
+    
+    private static void blockUntilQueued(Runnable task, ThreadPoolExecutor lane) {
+        if (lane.isShutdown()) {
+            throw new RejectedExecutionException("Channel lane is shut down");
+        }
+        try {
+            BlockingQueue<Runnable> queue = lane.getQueue();
+            queue.put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for channel lane", e);
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            try {
+                if (!lane.awaitTermination(5, TimeUnit.SECONDS)) {
+                    lane.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                lane.shutdownNow();
+            }
+        }
+        log.info("Channel executor '{}' stopped ({} lanes)", name, lanes.length);
+    }
+    
+    private final class TimedTask implements Runnable {
+        private final Runnable delegate;
+        private final long enqueuedAt;
+        
+        private TimedTask(Runnable delegate, long enqueuedAt) {
+            this.delegate = delegate;
+            this.enqueuedAt = enqueuedAt;
+        }
+        
+        @Override
+        public void run() {
+            queueWait.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+            delegate.run();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+-- Added after the baseline: measured trip route, distance and duration on orders,
+-- admin-managed service zones and the replication cluster membership table.
+-- IF NOT EXISTS covers databases where ddl-auto=update already created them
+-- before they were baselined at V1.
+
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS route_polyline TEXT;
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS actual_distance DOUBLE PRECISION;
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS actual_duration_seconds BIGINT;
+
+CREATE TABLE IF NOT EXISTS service_zones (
+    id                  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name                VARCHAR(255) NOT NULL UNIQUE,
+    polygon             TEXT NOT NULL,
+    enabled             BOOLEAN NOT NULL,
+    price_multiplier    NUMERIC(5, 2)
+);
+
+CREATE TABLE IF NOT EXISTS cluster_members (
+    node_id             VARCHAR(64) PRIMARY KEY,
+    address             VARCHAR(255),
+    heartbeat_at        TIMESTAMP(6) NOT NULL
+);
@@ -0,0 +1,91 @@
+-- Schema as Hibernate generated it with ddl-auto=update. Databases created that way
+-- are baselined at this version (spring.flyway.baseline-on-migrate) and skip it.
+
+CREATE TABLE users (
+    id                  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email               VARCHAR(255) NOT NULL UNIQUE,
+    password            VARCHAR(255) NOT NULL,
+    name                VARCHAR(255),
+    phone               VARCHAR(255),
+    role                VARCHAR(255) NOT NULL CHECK (role IN ('ADMIN', 'CUSTOMER', 'DRIVER')),
+    verification_code   VARCHAR(255),
+    is_email_verified   BOOLEAN NOT NULL,
+    phone_otp           VARCHAR(255),
+    is_phone_verified   BOOLEAN NOT NULL
+);
+
+CREATE TABLE vehicle_types (
+    id                  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name                VARCHAR(255) NOT NULL UNIQUE,
+    price_per_km        NUMERIC(10, 2) NOT NULL,
+    base_fare           NUMERIC(10, 2) NOT NULL
+);
+
+CREATE TABLE drivers (
+    id                  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id             BIGINT NOT NULL UNIQUE REFERENCES users (id),
+    vehicle_type_id     BIGINT NOT NULL REFERENCES vehicle_types (id),
+    license_number      VARCHAR(255) NOT NULL UNIQUE,
+    vehicle_plate_number VARCHAR(255) NOT NULL,
+    is_available        BOOLEAN NOT NULL,
+    is_approved         BOOLEAN NOT NULL DEFAULT FALSE,
+    is_blocked          BOOLEAN NOT NULL DEFAULT FALSE,
+    current_latitude    DOUBLE PRECISION,
+    current_longitude   DOUBLE PRECISION,
+    average_rating      DOUBLE PRECISION NOT NULL DEFAULT 0.0,
+    rating_count        INTEGER NOT NULL DEFAULT 0,
+    profile_photo_url   VARCHAR(255),
+    license_photo_url   VARCHAR(255),
+    bank_name           VARCHAR(255),
+    branch_name         VARCHAR(255),
+    account_number      VARCHAR(255),
+    account_holder_name VARCHAR(255),
+    mobile_otp          VARCHAR(255)
+);
+
+CREATE TABLE orders (
+    id                  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    customer_id         BIGINT NOT NULL REFERENCES users (id),
+    driver_id           BIGINT REFERENCES drivers (id),
+    vehicle_type_id     BIGINT REFERENCES vehicle_types (id),
+    status              VARCHAR(255) NOT NULL CHECK (status IN
+                            ('PENDING', 'ACCEPTED', 'DRIVER_ARRIVED', 'IN_TRANSIT', 'COMPLETED', 'CANCELLED')),
+    pickup_location     VARCHAR(255) NOT NULL,
+    pickup_lat          DOUBLE PRECISION NOT NULL,
+    pickup_lng          DOUBLE PRECISION NOT NULL,
+    drop_location       VARCHAR(255) NOT NULL,
+    drop_lat            DOUBLE PRECISION NOT NULL,
+    drop_lng            DOUBLE PRECISION NOT NULL,
+    price               NUMERIC(10, 2) NOT NULL,
+    final_price         NUMERIC(10, 2),
+    payment_method      VARCHAR(255),
+    distance            DOUBLE PRECISION,
+    pickup_otp          VARCHAR(255),
+    completed_at        TIMESTAMP(6),
+    created_at          TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE reviews (
+    id                  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    rating              INTEGER NOT NULL,
+    comment             VARCHAR(1000),
+    order_id            BIGINT NOT NULL UNIQUE REFERENCES orders (id),
+    driver_id           BIGINT NOT NULL REFERENCES drivers (id),
+    created_at          TIMESTAMP(6)
+);
+
+CREATE TABLE wallets (
+    id                  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id             BIGINT NOT NULL UNIQUE REFERENCES users (id),
+    balance             NUMERIC(10, 2) NOT NULL,
+    created_at          TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE wallet_transactions (
+    id                  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    wallet_id           BIGINT NOT NULL REFERENCES wallets (id),
+    amount              NUMERIC(10, 2) NOT NULL,
+    type                VARCHAR(255) NOT NULL CHECK (type IN ('CREDIT', 'DEBIT')),
+    description         VARCHAR(255) NOT NULL,
+    timestamp           TIMESTAMP(6) NOT NULL
+);
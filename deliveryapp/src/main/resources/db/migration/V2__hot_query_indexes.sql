@@ -0,0 +1,56 @@
+-- Indexes for the repository and JdbcTemplate queries on hot paths. Built
+-- CONCURRENTLY (see the .conf next to this file) so a live database keeps
+-- taking writes; IF NOT EXISTS lets a failed run be retried.
+-- RepositoryQueryPlanTest checks every query against these.
+
+-- Admin order list, demand forecast seeding (created_at >= ?)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_created_at
+    ON orders (created_at);
+
+-- Orders by status newest first, open orders on startup (status IN ...)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_status_created_at
+    ON orders (status, created_at);
+
+-- Pending orders for drivers: small, since orders leave it once accepted
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_pending_created_at
+    ON orders (created_at) WHERE status = 'PENDING';
+
+-- Customer order history
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_customer_created_at
+    ON orders (customer_id, created_at);
+
+-- Driver order history
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_driver_created_at
+    ON orders (driver_id, created_at);
+
+-- Driver earnings and completed trips
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_driver_status_completed_at
+    ON orders (driver_id, status, completed_at);
+
+-- Completed trips with a measured duration, for ETA model seeding
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_measured_completed_at
+    ON orders (completed_at) WHERE status = 'COMPLETED' AND actual_duration_seconds > 0;
+
+-- Available drivers (fleet map load, nearest drivers)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_drivers_available_approved
+    ON drivers (is_available, is_approved);
+
+-- Admin approval queue and driver counts
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_drivers_approved
+    ON drivers (is_approved);
+
+-- Phone OTP login
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_phone
+    ON users (phone);
+
+-- Wallet history
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_wallet_transactions_wallet_timestamp
+    ON wallet_transactions (wallet_id, timestamp);
+
+-- Driver reviews
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_reviews_driver_created_at
+    ON reviews (driver_id, created_at);
+
+-- Live and stale cluster members
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_cluster_members_heartbeat_at
+    ON cluster_members (heartbeat_at);
@@ -0,0 +1,146 @@
+-- Monthly range partitions for the two tables that only ever grow: orders by
+-- created_at and wallet_transactions by timestamp. Existing rows are copied
+-- into the partitioned tables. PartitionMaintenance keeps creating months
+-- ahead and archives (detaches, exports, drops) months past the retention.
+
+-- Creates the month's partition of a table (parent_pYYYYMM) if it is missing
+CREATE OR REPLACE FUNCTION create_monthly_partition(parent TEXT, month DATE) RETURNS VOID AS $$
+DECLARE
+    month_start DATE := date_trunc('month', month)::DATE;
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                   parent || '_p' || to_char(month_start, 'YYYYMM'), parent,
+                   month_start, (month_start + INTERVAL '1 month')::DATE);
+END
+$$ LANGUAGE plpgsql;
+
+-- Unique keys on a partitioned table must include the partition key, so
+-- orders(id) can no longer be referenced; reviews.order_id stays unique
+DO $$
+DECLARE
+    fk RECORD;
+BEGIN
+    FOR fk IN SELECT conname FROM pg_constraint
+              WHERE contype = 'f' AND conrelid = 'reviews'::regclass AND confrelid = 'orders'::regclass
+    LOOP
+        EXECUTE format('ALTER TABLE reviews DROP CONSTRAINT %I', fk.conname);
+    END LOOP;
+END
+$$;
+
+-- orders
+
+ALTER TABLE orders RENAME TO orders_unpartitioned;
+ALTER TABLE orders_unpartitioned ALTER COLUMN id DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE orders_id_seq;
+
+CREATE TABLE orders (
+    id                  BIGINT NOT NULL DEFAULT nextval('orders_id_seq'),
+    customer_id         BIGINT NOT NULL REFERENCES users (id),
+    driver_id           BIGINT REFERENCES drivers (id),
+    vehicle_type_id     BIGINT REFERENCES vehicle_types (id),
+    status              VARCHAR(255) NOT NULL CHECK (status IN
+                            ('PENDING', 'ACCEPTED', 'DRIVER_ARRIVED', 'IN_TRANSIT', 'COMPLETED', 'CANCELLED')),
+    pickup_location     VARCHAR(255) NOT NULL,
+    pickup_lat          DOUBLE PRECISION NOT NULL,
+    pickup_lng          DOUBLE PRECISION NOT NULL,
+    drop_location       VARCHAR(255) NOT NULL,
+    drop_lat            DOUBLE PRECISION NOT NULL,
+    drop_lng            DOUBLE PRECISION NOT NULL,
+    price               NUMERIC(10, 2) NOT NULL,
+    final_price         NUMERIC(10, 2),
+    payment_method      VARCHAR(255),
+    distance            DOUBLE PRECISION,
+    pickup_otp          VARCHAR(255),
+    completed_at        TIMESTAMP(6),
+    route_polyline      TEXT,
+    actual_distance     DOUBLE PRECISION,
+    actual_duration_seconds BIGINT,
+    created_at          TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE orders_id_seq OWNED BY orders.id;
+
+DO $$
+DECLARE
+    month DATE;
+    last_month DATE;
+BEGIN
+    SELECT date_trunc('month', coalesce(min(created_at), now())),
+           date_trunc('month', greatest(max(created_at), now()) + INTERVAL '3 months')
+    INTO month, last_month
+    FROM orders_unpartitioned;
+    WHILE month <= last_month LOOP
+        PERFORM create_monthly_partition('orders', month);
+        month := month + INTERVAL '1 month';
+    END LOOP;
+END
+$$;
+
+INSERT INTO orders (id, customer_id, driver_id, vehicle_type_id, status, pickup_location, pickup_lat, pickup_lng,
+                    drop_location, drop_lat, drop_lng, price, final_price, payment_method, distance, pickup_otp,
+                    completed_at, route_polyline, actual_distance, actual_duration_seconds, created_at)
+SELECT id, customer_id, driver_id, vehicle_type_id, status, pickup_location, pickup_lat, pickup_lng,
+       drop_location, drop_lat, drop_lng, price, final_price, payment_method, distance, pickup_otp,
+       completed_at, route_polyline, actual_distance, actual_duration_seconds,
+       coalesce(created_at, completed_at, now())
+FROM orders_unpartitioned;
+
+SELECT setval('orders_id_seq', coalesce((SELECT max(id) FROM orders), 0) + 1, false);
+
+-- Takes the V2 indexes with it; they are recreated on the partitioned table below
+DROP TABLE orders_unpartitioned;
+
+CREATE INDEX idx_orders_created_at ON orders (created_at);
+CREATE INDEX idx_orders_status_created_at ON orders (status, created_at);
+CREATE INDEX idx_orders_pending_created_at ON orders (created_at) WHERE status = 'PENDING';
+CREATE INDEX idx_orders_customer_created_at ON orders (customer_id, created_at);
+CREATE INDEX idx_orders_driver_created_at ON orders (driver_id, created_at);
+CREATE INDEX idx_orders_driver_status_completed_at ON orders (driver_id, status, completed_at);
+CREATE INDEX idx_orders_measured_completed_at ON orders (completed_at)
+    WHERE status = 'COMPLETED' AND actual_duration_seconds > 0;
+
+-- wallet_transactions
+
+ALTER TABLE wallet_transactions RENAME TO wallet_transactions_unpartitioned;
+ALTER TABLE wallet_transactions_unpartitioned ALTER COLUMN id DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE wallet_transactions_id_seq;
+
+CREATE TABLE wallet_transactions (
+    id                  BIGINT NOT NULL DEFAULT nextval('wallet_transactions_id_seq'),
+    wallet_id           BIGINT NOT NULL REFERENCES wallets (id),
+    amount              NUMERIC(10, 2) NOT NULL,
+    type                VARCHAR(255) NOT NULL CHECK (type IN ('CREDIT', 'DEBIT')),
+    description         VARCHAR(255) NOT NULL,
+    "timestamp"         TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id, "timestamp")
+) PARTITION BY RANGE ("timestamp");
+
+ALTER SEQUENCE wallet_transactions_id_seq OWNED BY wallet_transactions.id;
+
+DO $$
+DECLARE
+    month DATE;
+    last_month DATE;
+BEGIN
+    SELECT date_trunc('month', coalesce(min("timestamp"), now())),
+           date_trunc('month', greatest(max("timestamp"), now()) + INTERVAL '3 months')
+    INTO month, last_month
+    FROM wallet_transactions_unpartitioned;
+    WHILE month <= last_month LOOP
+        PERFORM create_monthly_partition('wallet_transactions', month);
+        month := month + INTERVAL '1 month';
+    END LOOP;
+END
+$$;
+
+INSERT INTO wallet_transactions (id, wallet_id, amount, type, description, "timestamp")
+SELECT id, wallet_id, amount, type, description, "timestamp"
+FROM wallet_transactions_unpartitioned;
+
+SELECT setval('wallet_transactions_id_seq', coalesce((SELECT max(id) FROM wallet_transactions), 0) + 1, false);
+
+DROP TABLE wallet_transactions_unpartitioned;
+
+CREATE INDEX idx_wallet_transactions_wallet_timestamp ON wallet_transactions (wallet_id, "timestamp");
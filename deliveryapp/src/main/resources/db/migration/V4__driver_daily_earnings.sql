@@ -0,0 +1,26 @@
+-- One row per driver per day of completed trips, kept up to date by
+-- DriverEarningsService in the transaction that completes an order, so the
+-- earnings endpoints never read orders. Money columns follow the order:
+-- gross is the fare, commission the platform's cut, cash_collected the gross
+-- of trips paid in cash. Rows outlive archived order partitions.
+CREATE TABLE driver_daily_earnings (
+    driver_id           BIGINT NOT NULL REFERENCES drivers (id),
+    day                 DATE NOT NULL,
+    trips               INTEGER NOT NULL DEFAULT 0,
+    gross               NUMERIC(12, 2) NOT NULL DEFAULT 0,
+    commission          NUMERIC(12, 2) NOT NULL DEFAULT 0,
+    cash_collected      NUMERIC(12, 2) NOT NULL DEFAULT 0,
+    distance_km         DOUBLE PRECISION NOT NULL DEFAULT 0,
+    PRIMARY KEY (driver_id, day)
+);
+
+-- Backfill from the order history (the same statement as DriverEarningsService.rebuild)
+INSERT INTO driver_daily_earnings (driver_id, day, trips, gross, commission, cash_collected, distance_km)
+SELECT o.driver_id, o.completed_at::DATE, count(*),
+       sum(COALESCE(o.final_price, o.price)),
+       sum(round(COALESCE(o.final_price, o.price) * 0.10, 2)),
+       COALESCE(sum(COALESCE(o.final_price, o.price)) FILTER (WHERE o.payment_method = 'CASH'), 0),
+       COALESCE(sum(COALESCE(o.actual_distance, o.distance)), 0)
+FROM orders o
+WHERE o.status = 'COMPLETED' AND o.driver_id IS NOT NULL AND o.completed_at IS NOT NULL
+GROUP BY o.driver_id, o.completed_at::DATE;
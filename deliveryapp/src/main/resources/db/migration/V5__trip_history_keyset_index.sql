@@ -0,0 +1,9 @@
+-- Trip history pages walk a driver's completed trips by (completed_at, id)
+-- descending; with id in the index the tie-break needs no sort. Replaces the
+-- (driver_id, status, completed_at) index, a prefix of this one. Partitioned
+-- tables cannot be indexed CONCURRENTLY, so this blocks order writes while
+-- it builds.
+CREATE INDEX IF NOT EXISTS idx_orders_driver_status_completed_at_id
+    ON orders (driver_id, status, completed_at, id);
+
+DROP INDEX IF EXISTS idx_orders_driver_status_completed_at;
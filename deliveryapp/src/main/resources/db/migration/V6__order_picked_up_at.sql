@@ -0,0 +1,4 @@
+-- When the trip started (the order went IN_TRANSIT). The measured route,
+-- distance and duration, and so the measured fare, only cover GPS points
+-- from here on, not the driver's way to the pickup.
+ALTER TABLE orders ADD COLUMN picked_up_at TIMESTAMP(6);
@@ -0,0 +1,7 @@
+-- The nightly trip export reads a day of completed trips by completed_at
+-- alone; their created_at can be any time before, so it cannot narrow the
+-- partitions below the day. The measured-trip index only covers trips with
+-- a GPS duration. Partitioned tables cannot be indexed CONCURRENTLY, so this
+-- blocks order writes while it builds.
+CREATE INDEX IF NOT EXISTS idx_orders_completed_at
+    ON orders (completed_at) WHERE status = 'COMPLETED';
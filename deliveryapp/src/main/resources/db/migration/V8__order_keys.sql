@@ -0,0 +1,33 @@
+-- The partitioned orders table is keyed by (id, created_at), so a lookup by
+-- id alone has to probe every monthly partition. order_keys maps each order
+-- id to its created_at, kept in step by a trigger; by-id lookups read it
+-- first and the planner prunes orders to the one partition at run time.
+-- It also gives reviews.order_id something unique to reference again,
+-- which V3 had to drop. Archiving drops whole partitions without firing
+-- the trigger, so the keys of archived orders stay, as their reviews do.
+CREATE TABLE order_keys (
+    id          BIGINT PRIMARY KEY,
+    created_at  TIMESTAMP NOT NULL
+);
+
+INSERT INTO order_keys (id, created_at)
+SELECT id, created_at FROM orders;
+
+CREATE OR REPLACE FUNCTION sync_order_keys() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO order_keys (id, created_at) VALUES (NEW.id, NEW.created_at);
+    ELSIF TG_OP = 'UPDATE' THEN
+        UPDATE order_keys SET id = NEW.id, created_at = NEW.created_at WHERE id = OLD.id;
+    ELSE
+        DELETE FROM order_keys WHERE id = OLD.id;
+    END IF;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER orders_sync_order_keys
+    AFTER INSERT OR UPDATE OF id, created_at OR DELETE ON orders
+    FOR EACH ROW EXECUTE FUNCTION sync_order_keys();
+
+ALTER TABLE reviews ADD CONSTRAINT fk_reviews_order_keys FOREIGN KEY (order_id) REFERENCES order_keys (id);
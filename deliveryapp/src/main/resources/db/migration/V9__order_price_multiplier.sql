@@ -0,0 +1,6 @@
+-- The pickup zone's price multiplier as quoted when the order was placed
+-- (1 outside any zone). A trip billed on its measured distance at
+-- completion applies this one, not whatever the zone is set to by then.
+-- Orders placed before this migration have none and use the zone's current
+-- multiplier, as they did before.
+ALTER TABLE orders ADD COLUMN price_multiplier NUMERIC(5, 2);
@@ -0,0 +1,91 @@
+package com.myproject.deliveryapp;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.HibernatePersistenceConfiguration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * The Postgres the database tests run against, and the throwaway schemas
+ * they migrate on it. Tests that need it are annotated with
+ * {@code @EnabledIfEnvironmentVariable(named = TestDatabase.URL_VARIABLE, matches = ".+")}
+ * so they only run with TEST_DB_URL set, e.g.
+ * TEST_DB_URL=jdbc:postgresql://localhost:5432/delivery_db5
+ * (plus TEST_DB_USER / TEST_DB_PASSWORD).
+ */
+public final class TestDatabase implements AutoCloseable {
+
+    public static final String URL_VARIABLE = "TEST_DB_URL";
+
+    public static final String URL = System.getenv(URL_VARIABLE);
+    public static final String USER = System.getenv().getOrDefault("TEST_DB_USER", "postgres");
+    public static final String PASSWORD = System.getenv().getOrDefault("TEST_DB_PASSWORD", "");
+
+    private final String schema;
+    private final SingleConnectionDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    private TestDatabase(String schema) {
+        this.schema = schema;
+        this.dataSource = new SingleConnectionDataSource(URL, USER, PASSWORD, true);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("SET search_path TO " + schema);
+    }
+
+    /**
+     * Creates a schema named after the prefix and runs every migration on it.
+     * The returned connection has it as its search path.
+     */
+    public static TestDatabase migrate(String prefix) {
+        String schema = prefix + "_" + ThreadLocalRandom.current().nextInt(1_000_000);
+        Flyway.configure()
+                .dataSource(URL, USER, PASSWORD)
+                .schemas(schema)
+                .createSchemas(true)
+                .locations("classpath:db/migration")
+                // Same as spring.flyway.postgresql.transactional-lock=false, for V2's CONCURRENTLY
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+        return new TestDatabase(schema);
+    }
+
+    public String schema() {
+        return schema;
+    }
+
+    public DataSource dataSource() {
+        return dataSource;
+    }
+
+    public JdbcTemplate jdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    /**
+     * Hibernate on the schema, mapped the way Spring Boot maps the entities
+     */
+    public HibernatePersistenceConfiguration hibernate(String name, DataSource dataSource,
+                                                       Class<?>... managedClasses) {
+        return new HibernatePersistenceConfiguration(name)
+                .managedClasses(managedClasses)
+                .property(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, dataSource)
+                .property(AvailableSettings.DEFAULT_SCHEMA, schema)
+                // actualDistance -> actual_distance, as the migrations name the columns
+                .property(AvailableSettings.PHYSICAL_NAMING_STRATEGY,
+                        CamelCaseToUnderscoresNamingStrategy.class.getName());
+    }
+
+    @Override
+    public void close() {
+        jdbcTemplate.execute("DROP SCHEMA " + schema + " CASCADE");
+        dataSource.destroy();
+    }
+}
@@ -0,0 +1,187 @@
+package com.myproject.deliveryapp.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.myproject.deliveryapp.dto.AnalyticsResultDTO;
+import com.myproject.deliveryapp.dto.AnalyticsRowDTO;
+
+/**
+ * A month of synthetic trips written as day segments, queried through the
+ * engine and checked against the same aggregates computed row by row.
+ */
+class TripQueryEngineTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 3, 1);
+    private static final int DAYS = 31;
+    private static final int TRIPS_PER_DAY = 40_000;
+    private static final int DRIVERS = 2_000;
+
+    private static final String[] VEHICLE_TYPES = {"Bike", "Tuk", "Car", "Van"};
+    private static final String[] PAYMENT_METHODS = {"CASH", "WALLET", "CARD"};
+
+    @TempDir
+    Path directory;
+
+    private record Trip(LocalDate day, long completedAt, Long driverId, String vehicleType, String paymentMethod,
+                        long fareCents, int distanceMeters, int durationSeconds) {
+    }
+
+    @Test
+    void matchesRowByRowAggregates() throws Exception {
+        List<Trip> trips = writeSegments();
+        TripQueryEngine engine = new TripQueryEngine(directory.toString(), 0);
+        try {
+            AnalyticsQuery byVehicleType = AnalyticsQuery.builder()
+                    .from(FIRST_DAY.plusDays(3))
+                    .to(FIRST_DAY.plusDays(20))
+                    .groupBy(GroupBy.VEHICLE_TYPE)
+                    .paymentMethod("wallet")
+                    .build();
+            check(trips, byVehicleType, engine.query(byVehicleType));
+
+            AnalyticsQuery byHour = AnalyticsQuery.builder()
+                    .from(FIRST_DAY)
+                    .to(FIRST_DAY.plusDays(DAYS - 1))
+                    .groupBy(GroupBy.HOUR_OF_DAY)
+                    .vehicleType("Car")
+                    .build();
+            check(trips, byHour, engine.query(byHour));
+
+            AnalyticsQuery byWeek = AnalyticsQuery.builder()
+                    .from(FIRST_DAY)
+                    .to(FIRST_DAY.plusDays(DAYS - 1))
+                    .groupBy(GroupBy.WEEK)
+                    .build();
+            check(trips, byWeek, engine.query(byWeek));
+
+            AnalyticsQuery oneDriver = AnalyticsQuery.builder()
+                    .from(FIRST_DAY)
+                    .to(FIRST_DAY.plusDays(DAYS - 1))
+                    .groupBy(GroupBy.DRIVER)
+                    .driverId(17L)
+                    .build();
+            check(trips, oneDriver, engine.query(oneDriver));
+
+            // Filter value no segment has: nothing matches, but every day is still scanned
+            AnalyticsResultDTO none = engine.query(AnalyticsQuery.builder()
+                    .from(FIRST_DAY)
+                    .to(FIRST_DAY.plusDays(DAYS - 1))
+                    .vehicleType("Lorry")
+                    .build());
+            assertEquals(0, none.getRows().size());
+            assertEquals((long) DAYS * TRIPS_PER_DAY, none.getScannedTrips());
+
+            // Whole month, no filter: the throughput figure
+            AnalyticsQuery month = AnalyticsQuery.builder()
+                    .from(FIRST_DAY)
+                    .to(FIRST_DAY.plusDays(DAYS - 1))
+                    .build();
+            for (int i = 0; i < 5; i++) {
+                engine.query(month);
+            }
+            long started = System.nanoTime();
+            int runs = 20;
+            for (int i = 0; i < runs; i++) {
+                engine.query(month);
+            }
+            double millis = (System.nanoTime() - started) / 1e6 / runs;
+            System.out.printf("Scanned %,d trips in %.1f ms (%.0f M trips/s)%n",
+                    (long) DAYS * TRIPS_PER_DAY, millis, DAYS * TRIPS_PER_DAY / millis / 1000);
+        } finally {
+            engine.destroy();
+        }
+    }
+
+    private List<Trip> writeSegments() throws Exception {
+        Random random = new Random(46);
+        List<Trip> trips = new ArrayList<>();
+        long orderId = 1;
+        for (int d = 0; d < DAYS; d++) {
+            LocalDate day = FIRST_DAY.plusDays(d);
+            TripSegmentWriter writer = new TripSegmentWriter(day);
+            long midnight = day.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+            for (int i = 0; i < TRIPS_PER_DAY; i++) {
+                Trip trip = new Trip(day, midnight + random.nextInt(86_400),
+                        random.nextInt(100) == 0 ? null : (long) random.nextInt(DRIVERS),
+                        random.nextInt(50) == 0 ? null : VEHICLE_TYPES[random.nextInt(VEHICLE_TYPES.length)],
+                        PAYMENT_METHODS[random.nextInt(PAYMENT_METHODS.length)],
+                        15_000 + random.nextInt(500_000),
+                        random.nextInt(10) == 0 ? -1 : 500 + random.nextInt(30_000),
+                        random.nextInt(10) == 0 ? -1 : 300 + random.nextInt(5_000));
+                trips.add(trip);
+                writer.add(orderId++, trip.completedAt(), 1 + random.nextInt(50_000), trip.driverId(),
+                        trip.vehicleType(), trip.paymentMethod(), trip.fareCents(), trip.distanceMeters(),
+                        trip.durationSeconds(), 6.9f, 79.86f);
+            }
+            writer.write(TripSegment.path(directory, day));
+        }
+        return trips;
+    }
+
+    private static void check(List<Trip> trips, AnalyticsQuery query, AnalyticsResultDTO result) {
+        Map<String, long[]> expected = new HashMap<>();
+        Map<String, Set<Long>> drivers = new HashMap<>();
+        for (Trip trip : trips) {
+            if (trip.day().isBefore(query.getFrom()) || trip.day().isAfter(query.getTo())
+                    || (query.getVehicleType() != null && !query.getVehicleType().equalsIgnoreCase(trip.vehicleType()))
+                    || (query.getPaymentMethod() != null && !query.getPaymentMethod().equalsIgnoreCase(trip.paymentMethod()))
+                    || (query.getDriverId() != null && !query.getDriverId().equals(trip.driverId()))) {
+                continue;
+            }
+            String key = switch (query.getGroupBy()) {
+                case VEHICLE_TYPE -> trip.vehicleType() == null ? "Unknown" : trip.vehicleType();
+                case HOUR_OF_DAY -> String.format("%02d:00", Math.floorMod(trip.completedAt(), 86_400L) / 3600);
+                case WEEK -> trip.day().minusDays(trip.day().getDayOfWeek().getValue() - 1).toString();
+                case DRIVER -> trip.driverId() == null ? "None" : trip.driverId().toString();
+                default -> "All";
+            };
+            long[] sums = expected.computeIfAbsent(key, k -> new long[5]);
+            sums[0]++;
+            sums[1] += trip.fareCents();
+            if (trip.distanceMeters() >= 0) {
+                sums[2] += trip.distanceMeters();
+                sums[3]++;
+            }
+            if (trip.durationSeconds() >= 0) {
+                sums[4] += trip.durationSeconds();
+            }
+            if (trip.driverId() != null) {
+                drivers.computeIfAbsent(key, k -> new HashSet<>()).add(trip.driverId());
+            }
+        }
+
+        assertEquals(expected.size(), result.getRows().size(), query.getGroupBy() + " groups");
+        for (AnalyticsRowDTO row : result.getRows()) {
+            long[] sums = expected.get(row.getKey());
+            assertEquals(sums[0], row.getTrips(), row.getKey());
+            assertEquals(BigDecimal.valueOf(sums[1], 2), row.getRevenue(), row.getKey());
+            assertEquals(sums[2] / 1000.0 / sums[3], row.getAverageDistanceKm(), 1e-9, row.getKey());
+            int driverCount = drivers.getOrDefault(row.getKey(), Set.of()).size();
+            assertEquals(driverCount, row.getDrivers(), row.getKey());
+            if (driverCount > 0) {
+                assertEquals(sums[4] / 3600.0 / driverCount, row.getTripHoursPerDriver(), 1e-9, row.getKey());
+            }
+        }
+        if (query.getDriverId() != null) {
+            assertNull(expected.get("None"));
+        }
+        System.out.printf("%s: %d groups over %d days in %d ms%n",
+                query.getGroupBy(), result.getRows().size(), result.getDays(), result.getElapsedMillis());
+    }
+}
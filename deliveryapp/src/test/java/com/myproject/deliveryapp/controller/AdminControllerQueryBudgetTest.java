@@ -0,0 +1,173 @@
+package com.myproject.deliveryapp.controller;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.myproject.deliveryapp.TestDatabase;
+import com.myproject.deliveryapp.entity.Driver;
+import com.myproject.deliveryapp.entity.Order;
+import com.myproject.deliveryapp.entity.OrderKey;
+import com.myproject.deliveryapp.entity.Review;
+import com.myproject.deliveryapp.entity.User;
+import com.myproject.deliveryapp.entity.VehicleType;
+import com.myproject.deliveryapp.entity.Wallet;
+import com.myproject.deliveryapp.querystats.QueryBudget;
+import com.myproject.deliveryapp.querystats.QueryStatsListener;
+import com.myproject.deliveryapp.repository.DriverRepository;
+import com.myproject.deliveryapp.repository.OrderRepository;
+import com.myproject.deliveryapp.repository.ReviewRepository;
+import com.myproject.deliveryapp.repository.UserRepository;
+import com.myproject.deliveryapp.repository.WalletRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Query budgets for the admin list and dashboard endpoints. Every row the
+ * seed data returns points at a different user, driver or order, so an
+ * association loaded per row blows the budget. The controller runs on
+ * repositories over a DataSource wrapped by QueryStatsListener, with the
+ * services these endpoints do not use left out.
+ *
+ * Migrates a throwaway schema on the TestDatabase, so it only runs with
+ * TEST_DB_URL set.
+ */
+@EnabledIfEnvironmentVariable(named = TestDatabase.URL_VARIABLE, matches = ".+")
+class AdminControllerQueryBudgetTest {
+
+    private static TestDatabase database;
+    private static JdbcTemplate jdbcTemplate;
+    private static EntityManagerFactory entityManagerFactory;
+    private static EntityManager entityManager;
+    private static AdminController adminController;
+
+    @BeforeAll
+    static void setUp() {
+        database = TestDatabase.migrate("query_budget_test");
+        jdbcTemplate = database.jdbcTemplate();
+        seed();
+
+        DataSource instrumented = QueryStatsListener.instrument(database.dataSource(), "query-budget-test");
+        entityManagerFactory = database.hibernate("query-budget-test", instrumented,
+                        User.class, VehicleType.class, Driver.class, Order.class, OrderKey.class, Wallet.class,
+                        Review.class)
+                .createEntityManagerFactory();
+        entityManager = entityManagerFactory.createEntityManager();
+
+        JpaRepositoryFactory repositoryFactory = new JpaRepositoryFactory(entityManager);
+        adminController = new AdminController(
+                repositoryFactory.getRepository(DriverRepository.class),
+                repositoryFactory.getRepository(UserRepository.class),
+                repositoryFactory.getRepository(OrderRepository.class),
+                repositoryFactory.getRepository(WalletRepository.class),
+                repositoryFactory.getRepository(ReviewRepository.class),
+                null,
+                null,
+                null);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (entityManagerFactory != null) {
+            entityManager.close();
+            entityManagerFactory.close();
+        }
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    private static void seed() {
+        jdbcTemplate.update("INSERT INTO vehicle_types (name, price_per_km, base_fare) "
+                + "VALUES ('Bike', 50, 100), ('Tuk', 80, 150), ('Car', 120, 250)");
+        jdbcTemplate.update("INSERT INTO users (email, password, name, phone, role, is_email_verified, is_phone_verified) "
+                + "SELECT 'customer' || i || '@example.com', 'x', 'Customer ' || i, '077' || lpad(i::TEXT, 7, '0'), "
+                + "'CUSTOMER', true, true FROM generate_series(1, 30) i");
+        jdbcTemplate.update("INSERT INTO users (email, password, name, phone, role, is_email_verified, is_phone_verified) "
+                + "SELECT 'driver' || i || '@example.com', 'x', 'Driver ' || i, '071' || lpad(i::TEXT, 7, '0'), "
+                + "'DRIVER', true, true FROM generate_series(1, 20) i");
+        // Every fourth driver is still waiting for approval
+        jdbcTemplate.update("INSERT INTO drivers (user_id, vehicle_type_id, license_number, vehicle_plate_number, "
+                + "is_available, is_approved) "
+                + "SELECT u.id, (SELECT id FROM vehicle_types ORDER BY id OFFSET u.id % 3 LIMIT 1), "
+                + "'B' || u.id, 'CAB-' || u.id, u.id % 2 = 0, u.id % 4 <> 0 "
+                + "FROM users u WHERE u.role = 'DRIVER'");
+        jdbcTemplate.update("INSERT INTO wallets (user_id, balance, created_at) SELECT id, 1000, now() FROM users");
+        jdbcTemplate.update("INSERT INTO orders (customer_id, driver_id, vehicle_type_id, status, pickup_location, "
+                + "pickup_lat, pickup_lng, drop_location, drop_lat, drop_lng, price, final_price, completed_at, created_at) "
+                + "SELECT c.id, d.id, d.vehicle_type_id, CASE WHEN i % 5 = 0 THEN 'IN_TRANSIT' ELSE 'COMPLETED' END, "
+                + "'Pickup ' || i, 6.9, 79.86, 'Drop ' || i, 6.95, 79.9, 500, 500, "
+                + "CASE WHEN i % 5 <> 0 THEN now() END, now() - i * INTERVAL '1 minute' "
+                + "FROM generate_series(1, 100) i "
+                + "JOIN (SELECT id, row_number() OVER (ORDER BY id) AS n FROM users WHERE role = 'CUSTOMER') c "
+                + "ON c.n = i % 30 + 1 "
+                + "JOIN (SELECT id, vehicle_type_id, row_number() OVER (ORDER BY id) AS n FROM drivers "
+                + "WHERE is_approved) d ON d.n = i % 15 + 1");
+        jdbcTemplate.update("INSERT INTO reviews (rating, comment, order_id, driver_id, created_at) "
+                + "SELECT 1 + o.id % 5, 'Trip ' || o.id, o.id, o.driver_id, now() "
+                + "FROM orders o WHERE o.status = 'COMPLETED' AND o.id % 2 = 0");
+    }
+
+    @BeforeEach
+    void clearPersistenceContext() {
+        entityManager.clear();
+    }
+
+    @Test
+    @QueryBudget(statements = 1)
+    void pendingDrivers() {
+        assertFalse(adminController.getPendingDrivers().getBody().isEmpty());
+    }
+
+    @Test
+    @QueryBudget(statements = 1)
+    void onlineDrivers() {
+        assertFalse(adminController.getOnlineDrivers().getBody().isEmpty());
+    }
+
+    @Test
+    @QueryBudget(statements = 1)
+    void allDrivers() {
+        assertFalse(adminController.getAllDrivers().getBody().isEmpty());
+    }
+
+    @Test
+    @QueryBudget(statements = 1)
+    void allOrders() {
+        assertFalse(adminController.getAllOrders().getBody().isEmpty());
+    }
+
+    @Test
+    @QueryBudget(statements = 1)
+    void driverWallets() {
+        List<AdminController.DriverWalletInfo> wallets = adminController.getDriverWallets().getBody();
+        assertTrue(wallets.size() == 20, "Expected the 20 driver wallets, got " + wallets.size());
+    }
+
+    @Test
+    @QueryBudget(statements = 1)
+    void reviews() {
+        List<AdminController.ReviewInfo> reviews = adminController.getAllReviews().getBody();
+        assertFalse(reviews.isEmpty());
+        assertTrue(reviews.stream().noneMatch(review -> "Unknown".equals(review.getCustomerName())));
+    }
+
+    // Users, approved drivers, orders, revenue and active orders: one aggregate each
+    @Test
+    @QueryBudget(statements = 5)
+    void dashboardStats() {
+        assertTrue(adminController.getDashboardStats().getBody().getActiveOrders() == 20);
+    }
+}
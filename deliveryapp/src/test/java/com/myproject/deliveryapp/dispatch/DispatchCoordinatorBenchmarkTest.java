@@ -0,0 +1,119 @@
+package com.myproject.deliveryapp.dispatch;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Dispatch throughput as partitions are added: a mix of driver position
+ * updates and nearest-driver searches spread over several cities, driven by
+ * as many client threads as there are cores. The clock stops once the
+ * partitions have applied every update, not when the clients have handed
+ * the last one over.
+ */
+@Tag("benchmark")
+@Slf4j
+class DispatchCoordinatorBenchmarkTest {
+
+    // City centers the synthetic fleet is spread around (Colombo, Kandy, Galle, Jaffna, Kurunegala, Matara)
+    private static final double[][] CITIES = {
+        {6.93, 79.86}, {7.29, 80.63}, {6.05, 80.22}, {9.66, 80.02}, {7.49, 80.36}, {5.95, 80.54}
+    };
+
+    private static final int DRIVERS = 20_000;
+    private static final int OPS_PER_CLIENT = 100_000;
+    // One search per this many position updates
+    private static final int UPDATES_PER_SEARCH = 4;
+
+    @Test
+    void opsPerSecondByPartitionCount() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> counts = new ArrayList<>(List.of(1, 2, 4));
+        if (!counts.contains(cores)) {
+            counts.add(cores);
+        }
+
+        for (int partitions : counts) {
+            double opsPerSecond = run(partitions, cores);
+            log.info(String.format("Dispatch ops/sec with %d partition(s), %d clients: %.0f",
+                    partitions, cores, opsPerSecond));
+            assertTrue(opsPerSecond > 0);
+        }
+    }
+
+    private static double run(int partitions, int clients) throws Exception {
+        try (DispatchCoordinator coordinator = new DispatchCoordinator(partitions, 10, 14, 65_536)) {
+            Random seed = new Random(7);
+            for (int i = 0; i < DRIVERS; i++) {
+                double[] point = around(seed);
+                coordinator.upsertDriver(i, point[0], point[1], i % 3 == 0 ? "Bike" : "Car");
+            }
+            // Let the initial load drain before timing
+            coordinator.barrier().get();
+
+            ExecutorService pool = Executors.newFixedThreadPool(clients);
+            try {
+                long started = System.nanoTime();
+                List<Future<Integer>> results = new ArrayList<>();
+                for (int c = 0; c < clients; c++) {
+                    int client = c;
+                    results.add(pool.submit(() -> drive(coordinator, new Random(client))));
+                }
+                long found = 0;
+                for (Future<Integer> result : results) {
+                    found += result.get();
+                }
+                coordinator.barrier().get();
+                long elapsed = System.nanoTime() - started;
+                assertTrue(found > 0);
+                return (double) clients * OPS_PER_CLIENT / (elapsed / 1e9);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static int drive(DispatchCoordinator coordinator, Random random) {
+        int found = 0;
+        List<CompletableFuture<List<DriverCandidate>>> inFlight = new ArrayList<>();
+        for (int i = 0; i < OPS_PER_CLIENT; i++) {
+            double[] point = around(random);
+            if (i % (UPDATES_PER_SEARCH + 1) == 0) {
+                inFlight.add(coordinator.nearestDrivers(point[0], point[1], 3000, "Car", 3));
+            } else {
+                coordinator.upsertDriver(random.nextInt(DRIVERS), point[0], point[1], "Car");
+            }
+            // Bound the outstanding searches the way request threads would
+            if (inFlight.size() == 64) {
+                for (CompletableFuture<List<DriverCandidate>> search : inFlight) {
+                    found += search.join().size();
+                }
+                inFlight.clear();
+            }
+        }
+        for (CompletableFuture<List<DriverCandidate>> search : inFlight) {
+            found += search.join().size();
+        }
+        return found;
+    }
+
+    // A point within about 15 km of a random city center
+    private static double[] around(Random random) {
+        double[] city = CITIES[random.nextInt(CITIES.length)];
+        return new double[] {
+            city[0] + (random.nextDouble() - 0.5) * 0.27,
+            city[1] + (random.nextDouble() - 0.5) * 0.27
+        };
+    }
+}
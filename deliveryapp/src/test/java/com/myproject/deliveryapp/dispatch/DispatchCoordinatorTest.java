@@ -0,0 +1,104 @@
+package com.myproject.deliveryapp.dispatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Concurrent updates for the same drivers, moving them between regions
+ * owned by different partitions and taking them offline, leave each driver
+ * in exactly one region or none, with partition queues far smaller than the
+ * burst of updates.
+ */
+class DispatchCoordinatorTest {
+
+    // Far enough apart to be in different regions, and with four partitions mostly different owners
+    private static final double[][] POINTS = {
+        {6.93, 79.86}, {7.29, 80.63}, {6.05, 80.22}, {9.66, 80.02}, {7.49, 80.36}, {5.95, 80.54}
+    };
+    private static final int DRIVERS = 16;
+    private static final int THREADS = 8;
+    private static final int UPDATES_PER_THREAD = 20_000;
+
+    @Test
+    void concurrentMovesLeaveEachDriverInOneRegion() throws Exception {
+        try (DispatchCoordinator coordinator = new DispatchCoordinator(4, 10, 14, 8)) {
+            ExecutorService clients = Executors.newFixedThreadPool(THREADS);
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                Random random = new Random(t);
+                done.add(clients.submit(() -> {
+                    for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                        long driverId = random.nextInt(DRIVERS);
+                        if (random.nextInt(5) == 0) {
+                            coordinator.removeDriver(driverId);
+                        } else {
+                            double[] point = POINTS[random.nextInt(POINTS.length)];
+                            coordinator.upsertDriver(driverId, point[0], point[1], "Car");
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get();
+            }
+            clients.shutdown();
+            assertTrue(clients.awaitTermination(5, TimeUnit.SECONDS));
+
+            coordinator.barrier().get();
+            DispatchState state = coordinator.capture().get();
+            Set<Long> captured = new HashSet<>();
+            for (DispatchState.DriverState driver : state.drivers) {
+                assertTrue(captured.add(driver.driverId), "driver " + driver.driverId + " in two regions");
+            }
+            assertEquals(coordinator.driverIds(), captured);
+        }
+    }
+
+    @Test
+    void ordersMovedOrClosedConcurrentlyAreKeptOnce() throws Exception {
+        try (DispatchCoordinator coordinator = new DispatchCoordinator(4, 10, 14, 8)) {
+            ExecutorService clients = Executors.newFixedThreadPool(THREADS);
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                Random random = new Random(100 + t);
+                done.add(clients.submit(() -> {
+                    for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                        long orderId = random.nextInt(DRIVERS);
+                        if (random.nextInt(3) == 0) {
+                            coordinator.removeOrder(orderId);
+                        } else {
+                            double[] point = POINTS[random.nextInt(POINTS.length)];
+                            coordinator.addOrder(new PendingOrder(orderId, point[0], point[1], "Pickup", "Car",
+                                    BigDecimal.TEN, 0L));
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get();
+            }
+            clients.shutdown();
+            assertTrue(clients.awaitTermination(5, TimeUnit.SECONDS));
+
+            coordinator.barrier().get();
+            Set<Long> captured = new HashSet<>();
+            for (PendingOrder order : coordinator.capture().get().orders) {
+                assertTrue(captured.add(order.getOrderId()), "order " + order.getOrderId() + " in two regions");
+            }
+            assertEquals(coordinator.orderIds(), captured);
+        }
+    }
+}
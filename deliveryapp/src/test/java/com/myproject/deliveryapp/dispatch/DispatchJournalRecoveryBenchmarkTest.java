@@ -0,0 +1,142 @@
+package com.myproject.deliveryapp.dispatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Warm restart at 100k drivers: a snapshot plus a log tail of position
+ * updates, recovered into a fresh coordinator.
+ */
+@Slf4j
+class DispatchJournalRecoveryBenchmarkTest {
+
+    private static final int DRIVERS = 100_000;
+    private static final int ORDERS = 5_000;
+    private static final int TAIL_UPDATES = 200_000;
+
+    // Roughly greater Colombo
+    private static final double MIN_LAT = 6.80;
+    private static final double MAX_LAT = 7.05;
+    private static final double MIN_LNG = 79.82;
+    private static final double MAX_LNG = 80.05;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @Tag("benchmark")
+    void recoversSnapshotAndLogTail() throws Exception {
+        Random random = new Random(11);
+        try (DispatchCoordinator coordinator = new DispatchCoordinator(4, 10, 14, 65_536);
+             DispatchJournal journal = new DispatchJournal(directory, 1 << 18)) {
+            journal.recover(coordinator);
+            for (int i = 0; i < DRIVERS; i++) {
+                upsert(coordinator, journal, i, random);
+            }
+            for (int i = 0; i < ORDERS; i++) {
+                PendingOrder order = new PendingOrder(i, lat(random), lng(random), "Pickup " + i,
+                        i % 2 == 0 ? "Car" : "Bike", new BigDecimal("450.00"), 1_700_000_000_000L + i);
+                coordinator.addOrder(order);
+                journal.orderAdded(order);
+            }
+            journal.snapshot(coordinator);
+
+            // Updates after the snapshot only live in the log
+            for (int i = 0; i < TAIL_UPDATES; i++) {
+                upsert(coordinator, journal, random.nextInt(DRIVERS), random);
+            }
+            coordinator.removeDriver(0);
+            journal.driverRemoved(0);
+            coordinator.removeOrder(1);
+            journal.orderRemoved(1);
+            journal.sync();
+        }
+
+        try (DispatchCoordinator restarted = new DispatchCoordinator(4, 10, 14, 65_536);
+             DispatchJournal journal = new DispatchJournal(directory, 1 << 18)) {
+            DispatchJournal.Recovery recovery = journal.recover(restarted);
+            log.info("Recovered {} drivers, {} orders and {} logged updates in {} ms",
+                    recovery.getSnapshotDrivers(), recovery.getSnapshotOrders(), recovery.getReplayedRecords(),
+                    recovery.getElapsedMillis());
+
+            assertEquals(DRIVERS, recovery.getSnapshotDrivers());
+            assertEquals(ORDERS, recovery.getSnapshotOrders());
+            assertEquals(TAIL_UPDATES + 2, recovery.getReplayedRecords());
+            assertEquals(DRIVERS - 1, restarted.driverIds().size());
+            assertEquals(ORDERS - 1, restarted.orderIds().size());
+            assertFalse(restarted.driverIds().contains(0L));
+            assertTrue(restarted.nearestDrivers(6.93, 79.86, 2000, "Car", 5).join().size() > 0);
+            // Recovery should be well within the "seconds" budget
+            assertTrue(recovery.getElapsedMillis() < 10_000);
+        }
+    }
+
+    @Test
+    void stopsAtTornTail() throws Exception {
+        Random random = new Random(3);
+        try (DispatchCoordinator coordinator = new DispatchCoordinator(1, 10, 14, 65_536);
+             DispatchJournal journal = new DispatchJournal(directory, 1 << 16)) {
+            journal.recover(coordinator);
+            for (int i = 0; i < 100; i++) {
+                upsert(coordinator, journal, i, random);
+            }
+            journal.sync();
+        }
+
+        // A crash in the middle of writing the last record
+        Path segment = newestSegment();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+
+        try (DispatchCoordinator restarted = new DispatchCoordinator(1, 10, 14, 65_536);
+             DispatchJournal journal = new DispatchJournal(directory, 1 << 16)) {
+            DispatchJournal.Recovery recovery = journal.recover(restarted);
+            assertEquals(99, recovery.getReplayedRecords());
+            assertEquals(99, restarted.driverIds().size());
+        }
+    }
+
+    private Path newestSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = files.filter(file -> file.getFileName().toString().startsWith("wal-"))
+                    .filter(file -> file.toFile().length() > 0)
+                    .sorted()
+                    .toList();
+            return segments.get(segments.size() - 1);
+        }
+    }
+
+    private static void upsert(DispatchCoordinator coordinator, DispatchJournal journal, long driverId, Random random) {
+        double lat = lat(random);
+        double lng = lng(random);
+        String vehicleType = driverId % 3 == 0 ? "Bike" : "Car";
+        coordinator.upsertDriver(driverId, lat, lng, vehicleType);
+        journal.driverUpserted(driverId, lat, lng, vehicleType);
+    }
+
+    private static double lat(Random random) {
+        return MIN_LAT + random.nextDouble() * (MAX_LAT - MIN_LAT);
+    }
+
+    private static double lng(Random random) {
+        return MIN_LNG + random.nextDouble() * (MAX_LNG - MIN_LNG);
+    }
+}
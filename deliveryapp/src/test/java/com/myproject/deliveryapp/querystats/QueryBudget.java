@@ -0,0 +1,23 @@
+package com.myproject.deliveryapp.querystats;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/**
+ * Fails the test if its body runs more SQL statements than allowed, so an
+ * N+1 shows up as a failing build. Only statements through a DataSource
+ * wrapped by QueryStatsListener count (the application's DataSource when
+ * app.query-stats.enabled, or one wrapped with QueryStatsListener.instrument
+ * in the test); @BeforeEach methods are not counted.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(QueryBudgetExtension.class)
+public @interface QueryBudget {
+
+    int statements();
+}
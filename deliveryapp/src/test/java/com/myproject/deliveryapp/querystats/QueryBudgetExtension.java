@@ -0,0 +1,29 @@
+package com.myproject.deliveryapp.querystats;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+/**
+ * Counts the statements of a {@link QueryBudget} test's body and checks them against its budget
+ */
+class QueryBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(QueryBudgetExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        context.getStore(NAMESPACE).put(context.getUniqueId(), QueryStats.begin());
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        QueryStats stats = context.getStore(NAMESPACE).remove(context.getUniqueId(), QueryStats.class).end();
+        int budget = context.getRequiredTestMethod().getAnnotation(QueryBudget.class).statements();
+        System.out.printf("%-40s %s (budget %d)%n", context.getDisplayName(), stats, budget);
+        assertTrue(stats.getStatements() <= budget,
+                context.getDisplayName() + " ran " + stats + ", over its budget of " + budget + " statements");
+    }
+}
@@ -0,0 +1,61 @@
+package com.myproject.deliveryapp.querystats;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+
+class QueryStatsTest {
+
+    private final QueryStatsListener listener = new QueryStatsListener();
+
+    @Test
+    void statementsOutsideAScopeAreNotCounted() {
+        runStatements(3);
+        QueryStats stats = QueryStats.measure(() -> runStatements(2));
+        runStatements(3);
+
+        assertEquals(2, stats.getStatements());
+        assertNull(QueryStats.current());
+    }
+
+    @Test
+    void innerScopesAddToTheEnclosingOne() {
+        QueryStats outer = QueryStats.begin();
+        runStatements(1);
+        QueryStats inner = QueryStats.measure(() -> runStatements(4));
+        assertSame(outer, QueryStats.current());
+        runStatements(1);
+        outer.end();
+
+        assertEquals(4, inner.getStatements());
+        assertEquals(6, outer.getStatements());
+        assertNull(QueryStats.current());
+    }
+
+    @Test
+    void scopesEndInnermostFirst() {
+        QueryStats outer = QueryStats.begin();
+        QueryStats inner = QueryStats.begin();
+
+        assertThrows(IllegalStateException.class, outer::end);
+
+        inner.end();
+        outer.end();
+        assertNull(QueryStats.current());
+    }
+
+    private void runStatements(int count) {
+        for (int i = 0; i < count; i++) {
+            ExecutionInfo execInfo = new ExecutionInfo();
+            listener.beforeQuery(execInfo, List.of());
+            listener.afterQuery(execInfo, List.of());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.myproject.deliveryapp.replication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Balance of drivers over nodes, and how many move when a node joins or leaves.
+ */
+class ConsistentHashRingTest {
+
+    private static final int DRIVERS = 100_000;
+
+    @Test
+    void spreadsDriversEvenly() {
+        ConsistentHashRing ring = ConsistentHashRing.of(List.of("a", "b", "c", "d"), 128);
+        Map<String, Integer> counts = new HashMap<>();
+        for (long driverId = 1; driverId <= DRIVERS; driverId++) {
+            counts.merge(ring.owner(driverId), 1, Integer::sum);
+        }
+        assertEquals(4, counts.size());
+        // Within 25% of a perfectly even share
+        counts.values().forEach(count -> assertTrue(Math.abs(count - DRIVERS / 4) < DRIVERS / 16, counts.toString()));
+    }
+
+    @Test
+    void joiningNodeTakesOnlyItsShare() {
+        ConsistentHashRing before = ConsistentHashRing.of(List.of("a", "b", "c"), 128);
+        ConsistentHashRing after = ConsistentHashRing.of(List.of("a", "b", "c", "d"), 128);
+        int moved = 0;
+        for (long driverId = 1; driverId <= DRIVERS; driverId++) {
+            String owner = after.owner(driverId);
+            if (!owner.equals(before.owner(driverId))) {
+                // Drivers only ever move to the new node
+                assertEquals("d", owner);
+                moved++;
+            }
+        }
+        System.out.printf("Node joining 3 -> 4 moved %.1f%% of drivers%n", 100.0 * moved / DRIVERS);
+        assertTrue(moved < DRIVERS * 0.35, "moved " + moved);
+    }
+
+    @Test
+    void leavingNodeHandsOverOnlyItsDrivers() {
+        ConsistentHashRing before = ConsistentHashRing.of(List.of("a", "b", "c", "d"), 128);
+        ConsistentHashRing after = ConsistentHashRing.of(List.of("a", "b", "d"), 128);
+        for (long driverId = 1; driverId <= DRIVERS; driverId++) {
+            String owner = before.owner(driverId);
+            if (!owner.equals("c")) {
+                assertEquals(owner, after.owner(driverId));
+            }
+        }
+    }
+
+    @Test
+    void sameMembersGiveSameRing() {
+        ConsistentHashRing one = ConsistentHashRing.of(List.of("b", "a", "c"), 64);
+        ConsistentHashRing two = ConsistentHashRing.of(List.of("c", "b", "a", "a"), 64);
+        for (long driverId = 1; driverId <= 10_000; driverId++) {
+            assertEquals(one.owner(driverId), two.owner(driverId));
+        }
+        assertNull(ConsistentHashRing.of(List.of(), 64).owner(1));
+    }
+}
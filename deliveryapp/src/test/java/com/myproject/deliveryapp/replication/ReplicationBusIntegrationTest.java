@@ -0,0 +1,102 @@
+package com.myproject.deliveryapp.replication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.myproject.deliveryapp.TestDatabase;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Two nodes on one Postgres: events published on one arrive on the other,
+ * locations coalesced per driver and the rest in order. Needs the
+ * TestDatabase, so it only runs with TEST_DB_URL set.
+ */
+@EnabledIfEnvironmentVariable(named = TestDatabase.URL_VARIABLE, matches = ".+")
+class ReplicationBusIntegrationTest {
+
+    @Test
+    void eventsReachTheOtherNode() throws Exception {
+        ReplicationBus nodeA = bus("a");
+        ReplicationBus nodeB = bus("b");
+        List<ReplicationEvent> receivedByA = new CopyOnWriteArrayList<>();
+        List<ReplicationEvent> receivedByB = new CopyOnWriteArrayList<>();
+        // Three ordered events plus the one location left after coalescing
+        CountDownLatch done = new CountDownLatch(4);
+        nodeA.setListener(receivedByA::add);
+        nodeB.setListener(event -> {
+            receivedByB.add(event);
+            done.countDown();
+        });
+        nodeA.start();
+        nodeB.start();
+        try {
+            // Give both listeners time to connect and LISTEN
+            Thread.sleep(1000);
+
+            for (int i = 0; i < 1000; i++) {
+                nodeA.publish(ReplicationEvent.location(7, 6.9 + i * 1e-5, 79.86, 1000 + i));
+            }
+            nodeA.publish(ReplicationEvent.orderChanged(42));
+            nodeA.publish(ReplicationEvent.phoneOtp("+94 77 123,4567", "123456"));
+            nodeA.publish(ReplicationEvent.zonesChanged());
+            nodeA.flush();
+
+            assertTrue(done.await(5, TimeUnit.SECONDS), "node b did not receive the batch");
+            assertEquals(4, receivedByB.size());
+            assertEquals(ReplicationEvent.Type.ORDER, receivedByB.get(0).getType());
+            assertEquals(42, receivedByB.get(0).getId());
+            assertEquals("+94 77 123,4567", receivedByB.get(1).getKey());
+            assertEquals("123456", receivedByB.get(1).getValue());
+
+            ReplicationEvent location = receivedByB.get(3);
+            assertEquals(7, location.getId());
+            assertEquals(1999, location.getTimestampMillis());
+
+            // A node never hears its own events
+            assertTrue(receivedByA.isEmpty());
+        } finally {
+            nodeA.destroy();
+            nodeB.destroy();
+        }
+    }
+
+    @Test
+    void largeBatchesSplitAcrossNotifications() throws Exception {
+        ReplicationBus nodeA = bus("a");
+        ReplicationBus nodeB = bus("b");
+        int drivers = 5000;
+        CountDownLatch received = new CountDownLatch(drivers);
+        nodeB.setListener(event -> received.countDown());
+        nodeA.start();
+        nodeB.start();
+        try {
+            Thread.sleep(1000);
+            for (int i = 0; i < drivers; i++) {
+                nodeA.publish(ReplicationEvent.location(i, 6.9, 79.86, i));
+            }
+            nodeA.flush();
+            assertTrue(received.await(10, TimeUnit.SECONDS), received.getCount() + " locations missing");
+        } finally {
+            nodeA.destroy();
+            nodeB.destroy();
+        }
+    }
+
+    private static ReplicationBus bus(String nodeId) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(
+                new DriverManagerDataSource(TestDatabase.URL, TestDatabase.USER, TestDatabase.PASSWORD));
+        return new ReplicationBus(jdbcTemplate, new SimpleMeterRegistry(), true, "delivery_sync_test", nodeId, 200,
+                TestDatabase.URL, TestDatabase.USER, TestDatabase.PASSWORD);
+    }
+}
@@ -0,0 +1,162 @@
+package com.myproject.deliveryapp.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.myproject.deliveryapp.TestDatabase;
+import com.myproject.deliveryapp.entity.Driver;
+import com.myproject.deliveryapp.entity.Order;
+import com.myproject.deliveryapp.entity.OrderKey;
+import com.myproject.deliveryapp.entity.User;
+import com.myproject.deliveryapp.entity.VehicleType;
+import com.myproject.deliveryapp.enums.OrderStatus;
+import com.myproject.deliveryapp.replication.ReplicationBus;
+import com.myproject.deliveryapp.service.ActiveOrderRegistry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * The open-order range at the repository level: every open order, whatever
+ * its age, is read by the open-order queries bounded by ActiveOrderRegistry's
+ * range, and the range moves up once the oldest open orders close. Orders
+ * are spread from an hour to two months old, across several partitions.
+ *
+ * Migrates a throwaway schema on the TestDatabase, so it only runs with
+ * TEST_DB_URL set.
+ */
+@EnabledIfEnvironmentVariable(named = TestDatabase.URL_VARIABLE, matches = ".+")
+// The second test closes orders
+@TestMethodOrder(MethodOrderer.MethodName.class)
+class OpenOrderRangeTest {
+
+    private static final List<OrderStatus> OPEN = List.of(
+            OrderStatus.PENDING, OrderStatus.ACCEPTED, OrderStatus.DRIVER_ARRIVED, OrderStatus.IN_TRANSIT);
+
+    // Ages in hours: within a day, a day or two, and well past that
+    private static final int[] AGE_HOURS = {1, 20, 47, 49, 72, 24 * 40, 24 * 60};
+
+    private static TestDatabase database;
+    private static JdbcTemplate jdbcTemplate;
+    private static EntityManagerFactory entityManagerFactory;
+    private static EntityManager entityManager;
+    private static OrderRepository orderRepository;
+    private static DriverRepository driverRepository;
+    private static ActiveOrderRegistry activeOrderRegistry;
+
+    @BeforeAll
+    static void setUp() {
+        database = TestDatabase.migrate("open_order_range_test");
+        jdbcTemplate = database.jdbcTemplate();
+        for (int i = 1; i <= 3; i++) {
+            jdbcTemplate.execute("SELECT create_monthly_partition('orders', DATE '"
+                    + LocalDate.now().minusMonths(i).withDayOfMonth(1) + "')");
+        }
+        jdbcTemplate.update("INSERT INTO vehicle_types (name, price_per_km, base_fare) VALUES ('Car', 120, 250)");
+        jdbcTemplate.update("INSERT INTO users (email, password, name, role, is_email_verified, is_phone_verified) "
+                + "VALUES ('customer@example.com', 'x', 'Customer', 'CUSTOMER', true, true), "
+                + "('driver@example.com', 'x', 'Driver', 'DRIVER', true, true)");
+        jdbcTemplate.update("INSERT INTO drivers (user_id, vehicle_type_id, license_number, vehicle_plate_number, "
+                + "is_available, is_approved) "
+                + "SELECT id, (SELECT id FROM vehicle_types), 'B1', 'CAB-1', false, true FROM users WHERE role = 'DRIVER'");
+        for (int hours : AGE_HOURS) {
+            for (OrderStatus status : OrderStatus.values()) {
+                jdbcTemplate.update("INSERT INTO orders (customer_id, driver_id, vehicle_type_id, status, "
+                        + "pickup_location, pickup_lat, pickup_lng, drop_location, drop_lat, drop_lng, price, created_at) "
+                        + "SELECT (SELECT id FROM users WHERE role = 'CUSTOMER'), "
+                        + "CASE WHEN ? <> 'PENDING' THEN (SELECT id FROM drivers) END, (SELECT id FROM vehicle_types), "
+                        + "?, 'Pickup', 6.9, 79.86, 'Drop', 6.95, 79.9, 500, now() - ? * INTERVAL '1 hour'",
+                        status.name(), status.name(), hours);
+            }
+        }
+
+        entityManagerFactory = database.hibernate("open-order-range-test", database.dataSource(),
+                        User.class, VehicleType.class, Driver.class, Order.class, OrderKey.class)
+                .createEntityManagerFactory();
+        entityManager = entityManagerFactory.createEntityManager();
+        JpaRepositoryFactory repositoryFactory = new JpaRepositoryFactory(entityManager);
+        orderRepository = repositoryFactory.getRepository(OrderRepository.class);
+        driverRepository = repositoryFactory.getRepository(DriverRepository.class);
+        activeOrderRegistry = new ActiveOrderRegistry(orderRepository, new ReplicationBus(null,
+                new SimpleMeterRegistry(), false, "delivery_sync", "", 500, "", "", ""), 600_000, 172_800_000);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (entityManagerFactory != null) {
+            entityManager.close();
+            entityManagerFactory.close();
+        }
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @Test
+    void everyOpenOrderIsInTheRange() {
+        LocalDateTime from = activeOrderRegistry.refreshOpenOrdersFrom();
+
+        Set<Long> inRange = ids(orderRepository.findByStatusInAndCreatedAtBetween(OPEN, from,
+                activeOrderRegistry.openOrdersUntil()));
+        Set<Long> open = ids(orderRepository.findAll().stream()
+                .filter(order -> OPEN.contains(order.getStatus()))
+                .toList());
+
+        System.out.printf("%d open orders, %d in the range from %s%n", open.size(), inRange.size(), from);
+        assertEquals(AGE_HOURS.length * OPEN.size(), open.size());
+        assertEquals(open, inRange);
+    }
+
+    @Test
+    void rangeMovesUpAsTheOldestOrdersClose() {
+        jdbcTemplate.update("UPDATE orders SET status = 'CANCELLED' WHERE created_at < now() - INTERVAL '48 hours'");
+        LocalDateTime from = activeOrderRegistry.refreshOpenOrdersFrom();
+        LocalDateTime until = activeOrderRegistry.openOrdersUntil();
+        Driver driver = driverRepository.findAll().get(0);
+
+        // The 47-hour-old orders are now the oldest open ones
+        LocalDateTime oldest = jdbcTemplate.queryForObject(
+                "SELECT min(created_at) FROM orders WHERE status IN ('PENDING', 'ACCEPTED', 'DRIVER_ARRIVED', "
+                        + "'IN_TRANSIT')", LocalDateTime.class);
+        assertEquals(oldest, from);
+        assertTrue(from.isAfter(LocalDateTime.now().minusHours(48)));
+
+        List<Order> pending = orderRepository.findByStatusAndCreatedAtBetweenOrderByCreatedAtDesc(
+                OrderStatus.PENDING, from, until);
+        List<Order> active = orderRepository.findByDriverAndStatusInAndCreatedAtBetweenOrderByCreatedAtDesc(
+                driver, List.of(OrderStatus.ACCEPTED, OrderStatus.IN_TRANSIT), from, until);
+        // Three ages left open, for each status
+        assertEquals(3, pending.size());
+        assertEquals(6, active.size());
+
+        // With nothing open, the range starts a day back
+        jdbcTemplate.update("UPDATE orders SET status = 'COMPLETED' WHERE status <> 'CANCELLED'");
+        LocalDateTime empty = activeOrderRegistry.refreshOpenOrdersFrom();
+        assertTrue(empty.isAfter(LocalDateTime.now().minusDays(1).minusMinutes(1)));
+        assertTrue(empty.isBefore(LocalDateTime.now().minusHours(23)));
+    }
+
+    private static Set<Long> ids(List<Order> orders) {
+        Set<Long> ids = new HashSet<>();
+        for (Order order : orders) {
+            ids.add(order.getId());
+        }
+        return ids;
+    }
+}
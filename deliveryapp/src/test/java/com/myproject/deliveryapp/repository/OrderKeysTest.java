@@ -0,0 +1,134 @@
+package com.myproject.deliveryapp.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.myproject.deliveryapp.TestDatabase;
+import com.myproject.deliveryapp.entity.Driver;
+import com.myproject.deliveryapp.entity.Order;
+import com.myproject.deliveryapp.entity.OrderKey;
+import com.myproject.deliveryapp.entity.User;
+import com.myproject.deliveryapp.entity.VehicleType;
+import com.myproject.deliveryapp.enums.OrderStatus;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * order_keys against the partitioned orders table: the trigger keeps one key
+ * per order, by-id lookups find orders in any month through it, saving an
+ * order updates its row in place, and reviews can only point at orders that
+ * exist.
+ *
+ * Migrates a throwaway schema on the TestDatabase, so it only runs with
+ * TEST_DB_URL set.
+ */
+@EnabledIfEnvironmentVariable(named = TestDatabase.URL_VARIABLE, matches = ".+")
+class OrderKeysTest {
+
+    private static TestDatabase database;
+    private static JdbcTemplate jdbcTemplate;
+    private static EntityManagerFactory entityManagerFactory;
+    private static EntityManager entityManager;
+    private static OrderRepository orderRepository;
+
+    @BeforeAll
+    static void setUp() {
+        database = TestDatabase.migrate("order_keys_test");
+        jdbcTemplate = database.jdbcTemplate();
+        for (int i = 1; i <= 3; i++) {
+            jdbcTemplate.execute("SELECT create_monthly_partition('orders', DATE '"
+                    + LocalDate.now().minusMonths(i).withDayOfMonth(1) + "')");
+        }
+        jdbcTemplate.update("INSERT INTO vehicle_types (name, price_per_km, base_fare) VALUES ('Car', 120, 250)");
+        jdbcTemplate.update("INSERT INTO users (email, password, name, role, is_email_verified, is_phone_verified) "
+                + "VALUES ('customer@example.com', 'x', 'Customer', 'CUSTOMER', true, true), "
+                + "('driver@example.com', 'x', 'Driver', 'DRIVER', true, true)");
+        jdbcTemplate.update("INSERT INTO drivers (user_id, vehicle_type_id, license_number, vehicle_plate_number, "
+                + "is_available, is_approved) "
+                + "SELECT id, (SELECT id FROM vehicle_types), 'B1', 'CAB-1', false, true FROM users WHERE role = 'DRIVER'");
+        // One order a month, this month and the three before
+        for (int months = 0; months <= 3; months++) {
+            jdbcTemplate.update("INSERT INTO orders (customer_id, driver_id, vehicle_type_id, status, "
+                    + "pickup_location, pickup_lat, pickup_lng, drop_location, drop_lat, drop_lng, price, created_at) "
+                    + "SELECT (SELECT id FROM users WHERE role = 'CUSTOMER'), (SELECT id FROM drivers), "
+                    + "(SELECT id FROM vehicle_types), 'ACCEPTED', 'Pickup', 6.9, 79.86, 'Drop', 6.95, 79.9, 500, "
+                    + "now() - ? * INTERVAL '1 month'", months);
+        }
+
+        entityManagerFactory = database.hibernate("order-keys-test", database.dataSource(),
+                        User.class, VehicleType.class, Driver.class, Order.class, OrderKey.class)
+                .createEntityManagerFactory();
+        entityManager = entityManagerFactory.createEntityManager();
+        orderRepository = new JpaRepositoryFactory(entityManager).getRepository(OrderRepository.class);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (entityManagerFactory != null) {
+            entityManager.close();
+            entityManagerFactory.close();
+        }
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @Test
+    void everyOrderHasItsKey() {
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM orders o FULL JOIN order_keys k "
+                + "ON k.id = o.id AND k.created_at = o.created_at WHERE o.id IS NULL OR k.id IS NULL", Long.class));
+    }
+
+    @Test
+    void findsOrdersOfAnyMonthById() {
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM orders ORDER BY id", Long.class);
+        assertEquals(4, ids.size());
+        for (Long id : ids) {
+            entityManager.clear();
+            assertEquals(id, orderRepository.findById(id).orElseThrow().getId());
+            Order order = orderRepository.findWithDetailsById(id).orElseThrow();
+            assertEquals("driver@example.com", order.getDriver().getUser().getEmail());
+        }
+        assertTrue(orderRepository.findById(-1L).isEmpty());
+    }
+
+    @Test
+    void savingAnOrderUpdatesItsRow() {
+        Long id = jdbcTemplate.queryForObject("SELECT min(id) FROM orders", Long.class);
+        entityManager.clear();
+        entityManager.getTransaction().begin();
+        Order order = orderRepository.findById(id).orElseThrow();
+        order.setStatus(OrderStatus.IN_TRANSIT);
+        entityManager.flush();
+        entityManager.getTransaction().commit();
+
+        assertEquals("IN_TRANSIT", jdbcTemplate.queryForObject("SELECT status FROM orders WHERE id = ?",
+                String.class, id));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM order_keys WHERE id = ?", Long.class, id));
+    }
+
+    @Test
+    void reviewsOnlyPointAtExistingOrders() {
+        Long orderId = jdbcTemplate.queryForObject("SELECT max(id) FROM orders", Long.class);
+        String insert = "INSERT INTO reviews (rating, order_id, driver_id) VALUES (5, ?, (SELECT id FROM drivers))";
+
+        jdbcTemplate.update(insert, orderId);
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(insert, orderId + 1_000));
+        // Nor can a reviewed order be deleted from under its review
+        assertThrows(DataIntegrityViolationException.class,
+                () -> jdbcTemplate.update("DELETE FROM orders WHERE id = ?", orderId));
+    }
+}
@@ -0,0 +1,444 @@
+package com.myproject.deliveryapp.repository;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import com.myproject.deliveryapp.TestDatabase;
+import com.myproject.deliveryapp.analytics.TripArchiveExporter;
+import com.myproject.deliveryapp.entity.ClusterMember;
+import com.myproject.deliveryapp.entity.Driver;
+import com.myproject.deliveryapp.entity.Order;
+import com.myproject.deliveryapp.entity.OrderKey;
+import com.myproject.deliveryapp.entity.Review;
+import com.myproject.deliveryapp.entity.ServiceZone;
+import com.myproject.deliveryapp.entity.User;
+import com.myproject.deliveryapp.entity.VehicleType;
+import com.myproject.deliveryapp.entity.Wallet;
+import com.myproject.deliveryapp.entity.WalletTransaction;
+import com.myproject.deliveryapp.enums.EarningsGranularity;
+import com.myproject.deliveryapp.enums.OrderStatus;
+import com.myproject.deliveryapp.enums.UserRole;
+import com.myproject.deliveryapp.service.DemandForecaster;
+import com.myproject.deliveryapp.service.DemandHeatmap;
+import com.myproject.deliveryapp.service.DriverEarningsService;
+import com.myproject.deliveryapp.service.EtaService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Runs EXPLAIN on the SQL behind every repository query method (and the hot
+ * JdbcTemplate queries) against the schema the migrations build, and fails
+ * if any of them can only be answered with a sequential scan. Sequential
+ * scans are disabled for the session, so the planner picks an index whenever
+ * one applies, however few rows the tables hold. Queries bounded by date
+ * must also stay on the latest monthly partitions of orders and
+ * wallet_transactions, and lookups of an order by id must only read the
+ * partition it is in.
+ *
+ * The statements are the ones the application runs: each repository method
+ * is called through Spring Data on Hibernate, and each JdbcTemplate query
+ * through the service that owns it, on a DataSource wrapped by
+ * datasource-proxy (as QueryStatsListener wraps the application's). The
+ * proxy records every statement with the parameters bound to it, and the
+ * EXPLAIN binds the same values, so a changed query method or entity graph
+ * is checked as it is without editing this test.
+ *
+ * Migrates a throwaway schema on the TestDatabase, so it only runs with
+ * TEST_DB_URL set.
+ */
+@EnabledIfEnvironmentVariable(named = TestDatabase.URL_VARIABLE, matches = ".+")
+@Slf4j
+class RepositoryQueryPlanTest {
+
+    // Bounds as the hot-path queries bind them: open orders since two days ago, up to tomorrow
+    private static final LocalDate TODAY_DATE = LocalDate.now();
+    private static final LocalDateTime RECENT = TODAY_DATE.minusDays(2).atStartOfDay();
+    private static final LocalDateTime TOMORROW = TODAY_DATE.plusDays(1).atStartOfDay();
+    private static final List<OrderStatus> OPEN_STATUSES = List.of(
+            OrderStatus.PENDING, OrderStatus.ACCEPTED, OrderStatus.DRIVER_ARRIVED, OrderStatus.IN_TRANSIT);
+
+    private static final Pattern PARTITION = Pattern.compile("(orders|wallet_transactions)_p\\d{6}");
+    // The one order, three months old, that the by-id lookups find
+    private static final LocalDate ORDER_DATE = TODAY_DATE.minusMonths(3);
+
+    // The few zone rows, read whole on (re)load
+    private static final Set<String> FULL_READS = Set.of("ServiceZoneRepository.findByEnabledTrue");
+
+    private static TestDatabase database;
+    private static JdbcTemplate jdbcTemplate;
+    private static EntityManagerFactory entityManagerFactory;
+    private static EntityManager entityManager;
+    private static Path analyticsDirectory;
+    private static long customerId;
+
+    private static final List<QueryInfo> executed = Collections.synchronizedList(new ArrayList<>());
+    private static final Map<String, Statement> statements = new LinkedHashMap<>();
+
+    @BeforeAll
+    static void captureStatements() throws IOException {
+        database = TestDatabase.migrate("query_plan_test");
+        jdbcTemplate = database.jdbcTemplate();
+        seed();
+
+        QueryExecutionListener recorder = new QueryExecutionListener() {
+            @Override
+            public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            }
+
+            @Override
+            public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                executed.addAll(queryInfoList);
+            }
+        };
+        DataSource recorded = ProxyDataSourceBuilder.create(database.dataSource())
+                .name("query-plan-test")
+                .listener(recorder)
+                .build();
+        entityManagerFactory = database.hibernate("query-plan-test", recorded,
+                        User.class, VehicleType.class, Driver.class, Order.class, OrderKey.class, Review.class,
+                        ServiceZone.class, Wallet.class, WalletTransaction.class, ClusterMember.class)
+                .createEntityManagerFactory();
+        entityManager = entityManagerFactory.createEntityManager();
+        analyticsDirectory = Files.createTempDirectory("query-plan-test");
+
+        captureRepositories(new JpaRepositoryFactory(entityManager));
+        captureJdbcQueries(new JdbcTemplate(recorded));
+
+        // Plans for the values bound, as the driver's one-shot statements get them
+        jdbcTemplate.execute("SET enable_seqscan = off");
+        jdbcTemplate.execute("SET plan_cache_mode = force_custom_plan");
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        if (entityManagerFactory != null) {
+            entityManager.close();
+            entityManagerFactory.close();
+        }
+        if (analyticsDirectory != null) {
+            FileSystemUtils.deleteRecursively(analyticsDirectory);
+        }
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    // A year of history, as a database that has been running for a while has, and one order in it
+    private static void seed() {
+        for (int i = 1; i <= 12; i++) {
+            String month = "DATE '" + TODAY_DATE.minusMonths(i).withDayOfMonth(1) + "'";
+            jdbcTemplate.execute("SELECT create_monthly_partition('orders', " + month + ")");
+            jdbcTemplate.execute("SELECT create_monthly_partition('wallet_transactions', " + month + ")");
+        }
+        jdbcTemplate.update("INSERT INTO users (email, password, name, role, is_email_verified, is_phone_verified) "
+                + "VALUES ('customer@example.com', 'x', 'Customer', 'CUSTOMER', true, true)");
+        jdbcTemplate.update("INSERT INTO orders (id, customer_id, status, pickup_location, pickup_lat, pickup_lng, "
+                + "drop_location, drop_lat, drop_lng, price, created_at) "
+                + "SELECT 1, id, 'COMPLETED', 'Pickup', 6.9, 79.86, 'Drop', 6.95, 79.9, 500, ? FROM users",
+                ORDER_DATE.atTime(12, 0));
+        customerId = jdbcTemplate.queryForObject("SELECT id FROM users", Long.class);
+    }
+
+    private static void captureRepositories(JpaRepositoryFactory factory) {
+        OrderRepository orders = factory.getRepository(OrderRepository.class);
+        DriverRepository drivers = factory.getRepository(DriverRepository.class);
+        ReviewRepository reviews = factory.getRepository(ReviewRepository.class);
+        UserRepository users = factory.getRepository(UserRepository.class);
+        VehicleTypeRepository vehicleTypes = factory.getRepository(VehicleTypeRepository.class);
+        ServiceZoneRepository serviceZones = factory.getRepository(ServiceZoneRepository.class);
+        WalletRepository wallets = factory.getRepository(WalletRepository.class);
+        WalletTransactionRepository walletTransactions = factory.getRepository(WalletTransactionRepository.class);
+        ClusterMemberRepository clusterMembers = factory.getRepository(ClusterMemberRepository.class);
+
+        User customer = entityManager.getReference(User.class, customerId);
+        Driver driver = entityManager.getReference(Driver.class, 1L);
+        Order order = entityManager.getReference(Order.class, 1L);
+        Wallet wallet = entityManager.getReference(Wallet.class, 1L);
+
+        capture("OrderRepository.findById", Scope.ORDER, () -> orders.findById(1L));
+        capture("OrderRepository.findWithDetailsById", Scope.ORDER, () -> orders.findWithDetailsById(1L));
+        // Order.createdAt is its @PartitionKey, so the update matches on it too
+        inTransaction(() -> {
+            Order loaded = orders.findById(1L).orElseThrow();
+            loaded.setStatus(OrderStatus.CANCELLED);
+            capture("OrderRepository.save", Scope.ORDER, () -> {
+                orders.save(loaded);
+                entityManager.flush();
+            });
+        });
+        capture("OrderRepository.findByCustomerOrderByCreatedAtDesc", Scope.ANY,
+                () -> orders.findByCustomerOrderByCreatedAtDesc(customer));
+        capture("OrderRepository.findByDriverOrderByCreatedAtDesc", Scope.ANY,
+                () -> orders.findByDriverOrderByCreatedAtDesc(driver));
+        capture("OrderRepository.findAllByOrderByCreatedAtDesc", Scope.ANY,
+                () -> orders.findAllByOrderByCreatedAtDesc());
+        capture("OrderRepository.sumPriceByStatus", Scope.ANY, () -> orders.sumPriceByStatus(OrderStatus.COMPLETED));
+        capture("OrderRepository.countByStatusIn", Scope.ANY,
+                () -> orders.countByStatusIn(List.of(OrderStatus.IN_TRANSIT, OrderStatus.ACCEPTED)));
+        capture("OrderRepository.findByStatusAndCreatedAtBetweenOrderByCreatedAtDesc", Scope.RECENT,
+                () -> orders.findByStatusAndCreatedAtBetweenOrderByCreatedAtDesc(OrderStatus.PENDING, RECENT, TOMORROW));
+        capture("OrderRepository.findByStatusInAndCreatedAtBetween", Scope.RECENT,
+                () -> orders.findByStatusInAndCreatedAtBetween(OPEN_STATUSES, RECENT, TOMORROW));
+        capture("OrderRepository.findByDriverAndStatusInAndCreatedAtBetweenOrderByCreatedAtDesc", Scope.RECENT,
+                () -> orders.findByDriverAndStatusInAndCreatedAtBetweenOrderByCreatedAtDesc(driver,
+                        List.of(OrderStatus.ACCEPTED, OrderStatus.IN_TRANSIT), RECENT, TOMORROW));
+        // ActiveOrderRegistry, once a minute: one index probe per partition, not a hot path
+        capture("OrderRepository.findOldestCreatedAt", Scope.ANY, () -> orders.findOldestCreatedAt(OPEN_STATUSES));
+        capture("OrderRepository.findTripHistoryPage", Scope.ANY,
+                () -> orders.findTripHistoryPage(driver, TODAY_DATE.minusMonths(1).atStartOfDay(),
+                        LocalDateTime.now(), 500L, TOMORROW, PageRequest.of(0, 21)));
+
+        capture("DriverRepository.findById", Scope.ANY, () -> drivers.findById(1L));
+        capture("DriverRepository.findWithDetailsById", Scope.ANY, () -> drivers.findWithDetailsById(1L));
+        capture("DriverRepository.findAllByOrderByIdAsc", Scope.ANY, () -> drivers.findAllByOrderByIdAsc());
+        capture("DriverRepository.findByUser", Scope.ANY, () -> drivers.findByUser(customer));
+        capture("DriverRepository.findByUserId", Scope.ANY, () -> drivers.findByUserId(customerId));
+        capture("DriverRepository.findByIsApproved", Scope.ANY, () -> drivers.findByIsApproved(false));
+        capture("DriverRepository.countByIsApproved", Scope.ANY, () -> drivers.countByIsApproved(true));
+        capture("DriverRepository.findByIsAvailableAndIsApproved", Scope.ANY,
+                () -> drivers.findByIsAvailableAndIsApproved(true, true));
+        capture("DriverRepository.findNearestDrivers", Scope.ANY, () -> drivers.findNearestDrivers(6.9, 79.86, 5.0));
+
+        capture("ReviewRepository.findByOrder", Scope.ANY, () -> reviews.findByOrder(order));
+        capture("ReviewRepository.findByDriverOrderByCreatedAtDesc", Scope.ANY,
+                () -> reviews.findByDriverOrderByCreatedAtDesc(driver));
+        capture("ReviewRepository.findAllByOrderByCreatedAtDesc", Scope.ANY,
+                () -> reviews.findAllByOrderByCreatedAtDesc());
+
+        capture("UserRepository.findById", Scope.ANY, () -> users.findById(customerId));
+        capture("UserRepository.findByEmail", Scope.ANY, () -> users.findByEmail("admin@delivery.com"));
+        capture("UserRepository.findByPhone", Scope.ANY, () -> users.findByPhone("0771234567"));
+
+        capture("VehicleTypeRepository.findByName", Scope.ANY, () -> vehicleTypes.findByName("Car"));
+        capture("ServiceZoneRepository.findByName", Scope.ANY, () -> serviceZones.findByName("Colombo"));
+        capture("ServiceZoneRepository.findByEnabledTrue", Scope.ANY, () -> serviceZones.findByEnabledTrue());
+
+        capture("WalletRepository.findByUser", Scope.ANY, () -> wallets.findByUser(customer));
+        capture("WalletRepository.findByUserRole", Scope.ANY, () -> wallets.findByUserRole(UserRole.DRIVER));
+        capture("WalletTransactionRepository.findByWalletOrderByTimestampDesc", Scope.ANY,
+                () -> walletTransactions.findByWalletOrderByTimestampDesc(wallet));
+        capture("WalletTransactionRepository.findByWalletAndTimestampBetweenOrderByTimestampDesc", Scope.RECENT,
+                () -> walletTransactions.findByWalletAndTimestampBetweenOrderByTimestampDesc(wallet, RECENT, TOMORROW));
+
+        inTransaction(() -> {
+            capture("ClusterMemberRepository.heartbeat", Scope.ANY,
+                    () -> clusterMembers.heartbeat("node-1", "http://localhost:8080"));
+            capture("ClusterMemberRepository.findLive", Scope.ANY, () -> clusterMembers.findLive(6));
+            capture("ClusterMemberRepository.deleteStale", Scope.ANY, () -> clusterMembers.deleteStale(6));
+        });
+    }
+
+    private static void captureJdbcQueries(JdbcTemplate recordedJdbcTemplate) {
+        capture("EtaService.seed", Scope.ANY,
+                () -> new EtaService(recordedJdbcTemplate, null, null, 14, 25, 1.3, 1_000, 60_000, 90).seed());
+        capture("DemandForecaster.seed", Scope.ANY,
+                () -> new DemandForecaster(recordedJdbcTemplate, null, null, new SimpleMeterRegistry(),
+                        14, 0.3, 30, 8, 0.5, 5).seed());
+        capture("DriverEarningsService.getEarnings", Scope.ANY,
+                () -> new DriverEarningsService(null, recordedJdbcTemplate).getEarnings(
+                        Driver.builder().id(1L).build(), TODAY_DATE.minusMonths(3), TODAY_DATE,
+                        EarningsGranularity.WEEK));
+        capture("TripArchiveExporter.export", Scope.ANY,
+                () -> new TripArchiveExporter(recordedJdbcTemplate, analyticsDirectory.toString(), 1)
+                        .exportMissingDays());
+        // The backfill reads the orders by id range on its own pool; wait for its chunk to run
+        DemandHeatmap heatmap = new DemandHeatmap(recordedJdbcTemplate, 20_000, 1);
+        capture("DemandHeatmap.backfill", Scope.ANY, () -> {
+            heatmap.backfill();
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!ran("BETWEEN")) {
+                assertTrue(System.currentTimeMillis() < deadline, "Heatmap backfill did not query the orders");
+                Thread.onSpinWait();
+            }
+        });
+        heatmap.destroy();
+    }
+
+    /**
+     * Runs the call and keeps the statements it ran under the name, numbered
+     * when there is more than one
+     */
+    private static void capture(String name, Scope scope, Runnable call) {
+        // Nothing served from the persistence context, except what a transaction is working on
+        if (!entityManager.getTransaction().isActive()) {
+            entityManager.clear();
+        }
+        executed.clear();
+        call.run();
+        List<QueryInfo> ran;
+        synchronized (executed) {
+            ran = new ArrayList<>(executed);
+        }
+        assertFalse(ran.isEmpty(), name + " ran no statement");
+        for (int i = 0; i < ran.size(); i++) {
+            QueryInfo query = ran.get(i);
+            List<ParameterSetOperation> parameters = query.getParametersList().isEmpty()
+                    ? List.of() : query.getParametersList().get(0);
+            statements.put(ran.size() == 1 ? name : name + " #" + (i + 1),
+                    new Statement(query.getQuery(), parameters, scope));
+        }
+    }
+
+    // Whether a statement containing the fragment has run since the last capture began
+    private static boolean ran(String fragment) {
+        synchronized (executed) {
+            return executed.stream().anyMatch(query -> query.getQuery().contains(fragment));
+        }
+    }
+
+    // Rolled back, and the persistence context cleared, so the captures leave the rows as seeded
+    private static void inTransaction(Runnable work) {
+        entityManager.getTransaction().begin();
+        try {
+            work.run();
+        } finally {
+            entityManager.getTransaction().rollback();
+            entityManager.clear();
+        }
+    }
+
+    @Test
+    void noQueryNeedsASequentialScan() {
+        List<String> failures = new ArrayList<>();
+        for (Map.Entry<String, Statement> statement : statements.entrySet()) {
+            if (FULL_READS.contains(statement.getKey())) {
+                continue;
+            }
+            String plan = String.join("\n", explain("EXPLAIN ", statement.getValue()));
+            log.info("{}\n{}\n{}", statement.getKey(), statement.getValue().sql, plan);
+            if (plan.contains("Seq Scan")) {
+                failures.add(statement.getKey());
+            }
+        }
+        assertTrue(failures.isEmpty(), "Sequential scan in " + failures);
+    }
+
+    @Test
+    void hotQueriesOnlyReadRecentPartitions() {
+        // The partitions the window can reach: this month's, last month's early in the month and
+        // next month's on its last day, but none of the empty ones created ahead
+        Set<String> recent = new HashSet<>();
+        for (LocalDate day = RECENT.toLocalDate(); !day.isAfter(TOMORROW.toLocalDate()); day = day.plusDays(1)) {
+            String suffix = "_p" + day.format(DateTimeFormatter.ofPattern("yyyyMM"));
+            recent.add("orders" + suffix);
+            recent.add("wallet_transactions" + suffix);
+        }
+
+        List<String> failures = new ArrayList<>();
+        for (Map.Entry<String, Statement> statement : statements.entrySet()) {
+            if (statement.getValue().scope != Scope.RECENT) {
+                continue;
+            }
+            String plan = String.join("\n", explain("EXPLAIN ", statement.getValue()));
+            Matcher partitions = PARTITION.matcher(plan);
+            while (partitions.find()) {
+                if (!recent.contains(partitions.group())) {
+                    failures.add(statement.getKey() + " reads " + partitions.group());
+                }
+            }
+        }
+        assertTrue(failures.isEmpty(), "Old partitions in " + failures);
+    }
+
+    @Test
+    void byIdLookupsOnlyReadTheOrdersPartition() {
+        String partition = "orders_p" + ORDER_DATE.format(DateTimeFormatter.ofPattern("yyyyMM"));
+        List<String> failures = new ArrayList<>();
+        for (Map.Entry<String, Statement> statement : statements.entrySet()) {
+            if (statement.getValue().scope != Scope.ORDER) {
+                continue;
+            }
+            // A select picks the partition once order_keys has been read, so only an executed plan shows
+            // it; the update is pruned by its created_at when planned, and is not run
+            boolean select = statement.getValue().sql.regionMatches(true, 0, "select", 0, 6);
+            List<String> plan = explain(select ? "EXPLAIN (ANALYZE, COSTS OFF, TIMING OFF, SUMMARY OFF) "
+                    : "EXPLAIN (COSTS OFF) ", statement.getValue());
+            log.info("{}\n{}", statement.getKey(), String.join("\n", plan));
+            Set<String> read = new HashSet<>();
+            for (String line : plan) {
+                Matcher partitions = PARTITION.matcher(line);
+                if (partitions.find() && !line.contains("never executed")) {
+                    read.add(partitions.group());
+                }
+            }
+            if (!read.equals(Set.of(partition))) {
+                failures.add(statement.getKey() + " reads " + read);
+            }
+        }
+        assertTrue(failures.isEmpty(), "Not just " + partition + " in " + failures);
+    }
+
+    // The plan lines, with the parameters the application bound set again on the EXPLAIN
+    private static List<String> explain(String explain, Statement statement) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement prepared = connection.prepareStatement(explain + statement.sql);
+            for (ParameterSetOperation parameter : statement.parameters) {
+                try {
+                    parameter.getMethod().invoke(prepared, parameter.getArgs());
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    throw new SQLException("Could not bind " + parameter.getMethod().getName(), e);
+                }
+            }
+            return prepared;
+        }, (rs, rowNum) -> rs.getString(1));
+    }
+
+    private enum Scope {
+        // No partition bounds to check
+        ANY,
+        // Bounded by the open-order window, so only the latest partitions may be read
+        RECENT,
+        // One order by id, so only its partition may be read
+        ORDER
+    }
+
+    private static final class Statement {
+        final String sql;
+        final List<ParameterSetOperation> parameters;
+        final Scope scope;
+
+        Statement(String sql, List<ParameterSetOperation> parameters, Scope scope) {
+            this.sql = sql;
+            this.parameters = parameters;
+            this.scope = scope;
+        }
+    }
+}
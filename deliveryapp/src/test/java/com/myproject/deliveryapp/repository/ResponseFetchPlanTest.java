@@ -0,0 +1,212 @@
+package com.myproject.deliveryapp.repository;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.myproject.deliveryapp.TestDatabase;
+import com.myproject.deliveryapp.dto.DriverDTO;
+import com.myproject.deliveryapp.dto.OrderDTO;
+import com.myproject.deliveryapp.entity.Driver;
+import com.myproject.deliveryapp.entity.Order;
+import com.myproject.deliveryapp.entity.OrderKey;
+import com.myproject.deliveryapp.entity.User;
+import com.myproject.deliveryapp.entity.VehicleType;
+import com.myproject.deliveryapp.enums.OrderStatus;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Loads what each order and driver endpoint returns, through the same
+ * repository methods and DTO mapping, and checks that it takes a single
+ * select however many customers, drivers and vehicle types the rows point
+ * at, and that the JSON stays small and free of credentials. Statement
+ * counts come from Hibernate's statistics.
+ *
+ * Migrates a throwaway schema on the TestDatabase, so it only runs with
+ * TEST_DB_URL set.
+ */
+@EnabledIfEnvironmentVariable(named = TestDatabase.URL_VARIABLE, matches = ".+")
+class ResponseFetchPlanTest {
+
+    private static final int CUSTOMERS = 40;
+    private static final int DRIVERS = 20;
+    private static final int ORDERS = 200;
+
+    // JSON budgets per row; an order with its customer, driver and vehicle type is about 850 bytes
+    private static final int ORDER_BYTES = 1024;
+    private static final int DRIVER_BYTES = 640;
+
+    private static final List<String> FORBIDDEN = List.of(
+            "password", "verificationCode", "phoneOtp", "mobileOtp", "accountNumber", "routePolyline");
+
+    private static TestDatabase database;
+    private static JdbcTemplate jdbcTemplate;
+    private static EntityManagerFactory entityManagerFactory;
+    private static EntityManager entityManager;
+    private static Statistics statistics;
+    private static OrderRepository orderRepository;
+    private static DriverRepository driverRepository;
+    private static long customerId;
+    private static long driverId;
+    private static long orderId;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    @BeforeAll
+    static void setUp() {
+        database = TestDatabase.migrate("fetch_plan_test");
+        jdbcTemplate = database.jdbcTemplate();
+        seed();
+
+        entityManagerFactory = database.hibernate("fetch-plan-test", database.dataSource(),
+                        User.class, VehicleType.class, Driver.class, Order.class, OrderKey.class)
+                .property(AvailableSettings.GENERATE_STATISTICS, true)
+                .createEntityManagerFactory();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManager = entityManagerFactory.createEntityManager();
+
+        JpaRepositoryFactory repositoryFactory = new JpaRepositoryFactory(entityManager);
+        orderRepository = repositoryFactory.getRepository(OrderRepository.class);
+        driverRepository = repositoryFactory.getRepository(DriverRepository.class);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (entityManagerFactory != null) {
+            entityManager.close();
+            entityManagerFactory.close();
+        }
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    // Every order points at a different customer/driver pair than its neighbours, so an N+1 shows up
+    private static void seed() {
+        jdbcTemplate.update("INSERT INTO vehicle_types (name, price_per_km, base_fare) "
+                + "VALUES ('Bike', 50, 100), ('Tuk', 80, 150), ('Car', 120, 250)");
+        jdbcTemplate.update("INSERT INTO users (email, password, name, phone, role, verification_code, "
+                + "is_email_verified, is_phone_verified) "
+                + "SELECT 'customer' || i || '@example.com', '$2a$10$' || repeat('x', 53), 'Customer ' || i, "
+                + "'077' || lpad(i::TEXT, 7, '0'), 'CUSTOMER', '123456', true, true "
+                + "FROM generate_series(1, ?) i", CUSTOMERS);
+        jdbcTemplate.update("INSERT INTO users (email, password, name, phone, role, verification_code, "
+                + "is_email_verified, is_phone_verified) "
+                + "SELECT 'driver' || i || '@example.com', '$2a$10$' || repeat('x', 53), 'Driver ' || i, "
+                + "'071' || lpad(i::TEXT, 7, '0'), 'DRIVER', '123456', true, true "
+                + "FROM generate_series(1, ?) i", DRIVERS);
+        jdbcTemplate.update("INSERT INTO drivers (user_id, vehicle_type_id, license_number, vehicle_plate_number, "
+                + "is_available, is_approved, current_latitude, current_longitude, bank_name, account_number, mobile_otp) "
+                + "SELECT u.id, (SELECT id FROM vehicle_types ORDER BY id OFFSET u.id % 3 LIMIT 1), "
+                + "'B' || u.id, 'CAB-' || u.id, u.id % 2 = 0, true, 6.9 + u.id / 1000.0, 79.86, "
+                + "'People''s Bank', '0001112223', '654321' "
+                + "FROM users u WHERE u.role = 'DRIVER'");
+        jdbcTemplate.update("INSERT INTO orders (customer_id, driver_id, vehicle_type_id, status, pickup_location, "
+                + "pickup_lat, pickup_lng, drop_location, drop_lat, drop_lng, price, distance, pickup_otp, "
+                + "route_polyline, created_at) "
+                + "SELECT c.id, CASE WHEN i % 2 = 0 THEN d.id END, d.vehicle_type_id, "
+                + "CASE WHEN i % 2 = 0 THEN 'ACCEPTED' ELSE 'PENDING' END, 'Pickup ' || i, 6.9, 79.86, "
+                + "'Drop ' || i, 6.95, 79.9, 500, 3.5, '1234', repeat('a', 2000), now() - i * INTERVAL '1 minute' "
+                + "FROM generate_series(1, ?) i "
+                + "JOIN (SELECT id, row_number() OVER (ORDER BY id) AS n FROM users WHERE role = 'CUSTOMER') c "
+                + "ON c.n = i % " + CUSTOMERS + " + 1 "
+                + "JOIN (SELECT id, vehicle_type_id, row_number() OVER (ORDER BY id) AS n FROM drivers) d "
+                + "ON d.n = i % " + DRIVERS + " + 1", ORDERS);
+
+        customerId = jdbcTemplate.queryForObject("SELECT min(id) FROM users WHERE role = 'CUSTOMER'", Long.class);
+        driverId = jdbcTemplate.queryForObject("SELECT min(id) FROM drivers", Long.class);
+        orderId = jdbcTemplate.queryForObject("SELECT min(id) FROM orders WHERE driver_id IS NOT NULL", Long.class);
+    }
+
+    @Test
+    void everyEndpointLoadsInOneSelect() {
+        List<String> failures = new ArrayList<>();
+        for (Map.Entry<String, Supplier<List<?>>> endpoint : endpoints().entrySet()) {
+            entityManager.clear();
+            statistics.clear();
+            List<?> response = endpoint.getValue().get();
+            long statements = statistics.getPrepareStatementCount();
+            System.out.printf("%-40s %4d rows %2d statements%n", endpoint.getKey(), response.size(), statements);
+            if (response.isEmpty() || statements != 1) {
+                failures.add(endpoint.getKey() + " (" + statements + " statements, " + response.size() + " rows)");
+            }
+        }
+        assertTrue(failures.isEmpty(), "Not a single select: " + failures);
+    }
+
+    @Test
+    void payloadsStayLean() {
+        List<String> failures = new ArrayList<>();
+        for (Map.Entry<String, Supplier<List<?>>> endpoint : endpoints().entrySet()) {
+            entityManager.clear();
+            List<?> response = endpoint.getValue().get();
+            String json = jsonMapper.writeValueAsString(response);
+            int budget = response.get(0) instanceof OrderDTO ? ORDER_BYTES : DRIVER_BYTES;
+            int bytesPerRow = json.length() / response.size();
+            System.out.printf("%-40s %7d bytes %5d per row%n", endpoint.getKey(), json.length(), bytesPerRow);
+            if (bytesPerRow > budget) {
+                failures.add(endpoint.getKey() + " (" + bytesPerRow + " bytes per row)");
+            }
+            for (String field : FORBIDDEN) {
+                if (json.contains("\"" + field + "\"")) {
+                    failures.add(endpoint.getKey() + " sends " + field);
+                }
+            }
+        }
+        assertTrue(failures.isEmpty(), "Payloads: " + failures);
+    }
+
+    // The repository call and mapping behind each endpoint
+    private static Map<String, Supplier<List<?>>> endpoints() {
+        LocalDateTime openOrdersFrom = LocalDateTime.now().minusDays(2);
+        LocalDateTime openOrdersUntil = LocalDateTime.now().plusDays(1);
+        Map<String, Supplier<List<?>>> endpoints = new LinkedHashMap<>();
+
+        endpoints.put("GET /api/orders/my-orders", () -> orderRepository
+                .findByCustomerOrderByCreatedAtDesc(entityManager.getReference(User.class, customerId))
+                .stream().map(OrderDTO::from).toList());
+        endpoints.put("GET /api/orders/{id}", () -> orderRepository.findWithDetailsById(orderId)
+                .map(OrderDTO::from).stream().toList());
+        endpoints.put("GET /api/orders/pending", () -> orderRepository
+                .findByStatusAndCreatedAtBetweenOrderByCreatedAtDesc(OrderStatus.PENDING, openOrdersFrom, openOrdersUntil)
+                .stream().map(OrderDTO::from).toList());
+        endpoints.put("GET /api/orders/my-active-orders", () -> orderRepository
+                .findByDriverAndStatusInAndCreatedAtBetweenOrderByCreatedAtDesc(
+                        entityManager.getReference(Driver.class, driverId),
+                        List.of(OrderStatus.ACCEPTED, OrderStatus.IN_TRANSIT), openOrdersFrom, openOrdersUntil)
+                .stream().map(OrderDTO::from).toList());
+        endpoints.put("GET /api/admin/orders/all", () -> orderRepository.findAllByOrderByCreatedAtDesc()
+                .stream().map(OrderDTO::from).toList());
+        endpoints.put("ActiveOrderRegistry.load", () -> orderRepository
+                .findByStatusInAndCreatedAtBetween(List.of(OrderStatus.PENDING, OrderStatus.ACCEPTED), openOrdersFrom,
+                        openOrdersUntil)
+                .stream().map(OrderDTO::from).toList());
+
+        endpoints.put("GET /api/admin/drivers/online", () -> driverRepository.findByIsAvailableAndIsApproved(true, true)
+                .stream().map(DriverDTO::from).toList());
+        endpoints.put("GET /api/admin/drivers/all", () -> driverRepository.findAllByOrderByIdAsc()
+                .stream().map(DriverDTO::from).toList());
+        endpoints.put("PATCH /api/admin/drivers/{id}/toggle-block", () -> driverRepository.findWithDetailsById(driverId)
+                .map(DriverDTO::from).stream().toList());
+
+        return endpoints;
+    }
+}
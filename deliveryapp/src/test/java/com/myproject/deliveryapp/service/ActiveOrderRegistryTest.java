@@ -0,0 +1,114 @@
+package com.myproject.deliveryapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.myproject.deliveryapp.entity.Driver;
+import com.myproject.deliveryapp.entity.Order;
+import com.myproject.deliveryapp.entity.User;
+import com.myproject.deliveryapp.enums.OrderStatus;
+import com.myproject.deliveryapp.replication.ReplicationBus;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Orders leaving live tracking: closed when they complete or are cancelled,
+ * or when they go without a status change past the idle retention, then
+ * kept visible for the grace period before they are dropped.
+ */
+class ActiveOrderRegistryTest {
+
+    private static final long DAY_MS = 86_400_000L;
+    private static final long SHORT_MS = 50;
+    private static final String CUSTOMER = "customer@example.com";
+    private static final String DRIVER = "driver@example.com";
+
+    @Test
+    void terminalStatusClosesTheOrderAndDropsItAfterTheGracePeriod() throws InterruptedException {
+        ActiveOrderRegistry registry = registry(SHORT_MS, DAY_MS);
+        registry.register(order(1L));
+        registry.assign(order(1L), driver(10L));
+        registry.onPosition(10L, 6.93, 79.86, 1_000L);
+
+        registry.updateStatus(1L, OrderStatus.COMPLETED);
+
+        // Trackers still see the final status, but the driver's pings no longer go to the order
+        assertEquals(OrderStatus.COMPLETED, registry.snapshot(1L).getStatus());
+        assertTrue(registry.canTrack(1L, CUSTOMER, false));
+        assertEquals(0L, registry.orderFor(10L));
+        registry.onPosition(10L, 7.0, 80.0, 2_000L);
+        assertEquals(1_000L, registry.snapshot(1L).getPositionTimestamp());
+
+        registry.evictClosed();
+        assertEquals(OrderStatus.COMPLETED, registry.snapshot(1L).getStatus());
+
+        Thread.sleep(SHORT_MS * 2);
+        registry.evictClosed();
+        assertNull(registry.snapshot(1L));
+        assertFalse(registry.canTrack(1L, CUSTOMER, true));
+    }
+
+    @Test
+    void cancelledOrderClosesLikeACompletedOne() {
+        ActiveOrderRegistry registry = registry(DAY_MS, DAY_MS);
+        registry.register(order(1L));
+        registry.assign(order(1L), driver(10L));
+
+        registry.updateStatus(1L, OrderStatus.CANCELLED);
+
+        assertEquals(OrderStatus.CANCELLED, registry.snapshot(1L).getStatus());
+        assertEquals(0L, registry.orderFor(10L));
+    }
+
+    @Test
+    void openOrdersWithoutAStatusChangeCloseAfterTheIdleRetention() throws InterruptedException {
+        ActiveOrderRegistry registry = registry(SHORT_MS * 4, SHORT_MS);
+        registry.register(order(1L));
+        registry.assign(order(1L), driver(10L));
+        registry.register(order(2L));
+        registry.assign(order(2L), driver(20L));
+
+        Thread.sleep(SHORT_MS * 2);
+        // Order 2 moves on; order 1 has sat idle past the retention
+        registry.updateStatus(2L, OrderStatus.IN_TRANSIT);
+        registry.evictClosed();
+
+        assertEquals(OrderStatus.ACCEPTED, registry.snapshot(1L).getStatus());
+        assertEquals(0L, registry.orderFor(10L));
+        assertEquals(2L, registry.orderFor(20L));
+
+        // Past the grace period the idle order goes; the other is still open and recently changed
+        Thread.sleep(SHORT_MS * 5);
+        registry.updateStatus(2L, OrderStatus.IN_TRANSIT);
+        registry.evictClosed();
+
+        assertNull(registry.snapshot(1L));
+        assertEquals(OrderStatus.IN_TRANSIT, registry.snapshot(2L).getStatus());
+        assertEquals(2L, registry.orderFor(20L));
+    }
+
+    private static ActiveOrderRegistry registry(long closedOrderTtlMs, long idleOrderRetentionMs) {
+        ReplicationBus replicationBus = new ReplicationBus(null, new SimpleMeterRegistry(), false, "delivery_sync",
+                "", 500, "", "", "");
+        return new ActiveOrderRegistry(null, replicationBus, closedOrderTtlMs, idleOrderRetentionMs);
+    }
+
+    private static Order order(long id) {
+        return Order.builder()
+                .id(id)
+                .status(OrderStatus.ACCEPTED)
+                .customer(User.builder().email(CUSTOMER).build())
+                .build();
+    }
+
+    private static Driver driver(long id) {
+        return Driver.builder()
+                .id(id)
+                .user(User.builder().email(DRIVER).build())
+                .build();
+    }
+}
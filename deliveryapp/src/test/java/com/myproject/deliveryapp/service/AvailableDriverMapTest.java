@@ -0,0 +1,149 @@
+package com.myproject.deliveryapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.myproject.deliveryapp.dispatch.DispatchService;
+import com.myproject.deliveryapp.dto.AvailableDriversDeltaDTO;
+import com.myproject.deliveryapp.dto.DriverClusterDTO;
+import com.myproject.deliveryapp.dto.DriverPublicDTO;
+import com.myproject.deliveryapp.entity.Driver;
+import com.myproject.deliveryapp.replication.ReplicationBus;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Position and availability changes for many drivers from several threads
+ * at once, the way location ingest and the REST endpoints call the map.
+ * A client following the deltas has to end up with exactly the map, and
+ * the cluster index with exactly the drivers on it.
+ */
+class AvailableDriverMapTest {
+
+    private static final int DRIVERS = 500;
+    private static final int WRITERS = 8;
+    private static final int CHANGES_PER_WRITER = 50_000;
+
+    private DriverClusterIndex driverClusterIndex;
+    private DispatchService dispatchService;
+    private AvailableDriverMap availableDriverMap;
+
+    @BeforeEach
+    void setUp() {
+        driverClusterIndex = new DriverClusterIndex();
+        ReplicationBus replicationBus = new ReplicationBus(null, new SimpleMeterRegistry(), false, "delivery_sync",
+                "", 500, "", "", "");
+        ServiceZoneIndex serviceZoneIndex = new ServiceZoneIndex(null, replicationBus, 0.02, 2);
+        dispatchService = new DispatchService(null, null, null, 2, 10, 14, 1_024, 5, 3, false, "", 0);
+        // Small enough that the poller below sometimes falls behind the log
+        availableDriverMap = new AvailableDriverMap(null, driverClusterIndex, serviceZoneIndex, dispatchService,
+                replicationBus, 4_096);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatchService.destroy();
+    }
+
+    @Test
+    void deltasAndClustersMatchTheMapAfterConcurrentChanges() throws Exception {
+        ExecutorService writers = Executors.newFixedThreadPool(WRITERS);
+        AtomicBoolean done = new AtomicBoolean();
+        Map<Long, DriverPublicDTO> client = new HashMap<>();
+        long[] clientVersion = {Long.MIN_VALUE};
+        int[] polls = new int[2];
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                running.add(writers.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < CHANGES_PER_WRITER; i++) {
+                        long driverId = 1 + random.nextInt(DRIVERS);
+                        int action = random.nextInt(10);
+                        if (action == 0) {
+                            availableDriverMap.onDriverChanged(driver(driverId, random.nextBoolean()));
+                        } else if (action == 1) {
+                            availableDriverMap.onDriverRemoved(driverId);
+                        } else {
+                            availableDriverMap.onPosition(driverId, 6.9 + random.nextDouble() * 0.1,
+                                    79.85 + random.nextDouble() * 0.1);
+                        }
+                    }
+                }));
+            }
+            Thread poller = new Thread(() -> {
+                while (!done.get()) {
+                    poll(client, clientVersion, polls);
+                }
+            });
+            poller.start();
+            for (Future<?> writer : running) {
+                writer.get();
+            }
+            done.set(true);
+            poller.join();
+        } finally {
+            writers.shutdown();
+        }
+        poll(client, clientVersion, polls);
+
+        Map<Long, DriverPublicDTO> map = new HashMap<>();
+        for (DriverPublicDTO driver : availableDriverMap.snapshot()) {
+            map.put(driver.getId(), driver);
+        }
+        System.out.printf("%d drivers on the map after %d changes; client followed %d deltas and %d snapshots%n",
+                map.size(), WRITERS * CHANGES_PER_WRITER, polls[0], polls[1]);
+        assertEquals(availableDriverMap.version(), clientVersion[0]);
+        assertEquals(map, client);
+
+        int clustered = 0;
+        for (DriverClusterDTO cluster : driverClusterIndex.clusters(6.0, 79.0, 8.0, 81.0, 3)) {
+            clustered += cluster.getCount();
+        }
+        long positioned = map.values().stream().filter(driver -> driver.getCurrentLatitude() != null).count();
+        assertEquals(positioned, clustered);
+        assertTrue(polls[0] > 0);
+    }
+
+    private void poll(Map<Long, DriverPublicDTO> client, long[] clientVersion, int[] polls) {
+        AvailableDriversDeltaDTO delta = availableDriverMap.changesSince(clientVersion[0]);
+        if (delta.isFull()) {
+            client.clear();
+            polls[1]++;
+        } else {
+            polls[0]++;
+        }
+        for (DriverPublicDTO driver : delta.getDrivers()) {
+            client.put(driver.getId(), driver);
+        }
+        for (Long removed : delta.getRemoved()) {
+            client.remove(removed);
+        }
+        clientVersion[0] = delta.getVersion();
+    }
+
+    private static Driver driver(long id, boolean available) {
+        Driver driver = Driver.builder()
+                .id(id)
+                .isAvailable(available)
+                .isApproved(true)
+                .build();
+        driver.setCurrentLatitude(6.95);
+        driver.setCurrentLongitude(79.9);
+        return driver;
+    }
+}
@@ -0,0 +1,189 @@
+package com.myproject.deliveryapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import com.myproject.deliveryapp.dispatch.DispatchService;
+import com.myproject.deliveryapp.dto.DriverHintDTO;
+import com.myproject.deliveryapp.entity.Driver;
+import com.myproject.deliveryapp.entity.Order;
+import com.myproject.deliveryapp.replication.ReplicationBus;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * The smoothed hourly rates, from the seed over past weeks and from hours
+ * rolled over while running, and the hints sending spare drivers to cells
+ * about to run short. Pickups are fed in through a stub of the orders query.
+ */
+class DemandForecasterTest {
+
+    private static final double SMOOTHING = 0.5;
+    private static final int SEED_WEEKS = 3;
+    // A Monday, so hour of week 10 is 10:00
+    private static final LocalDateTime HOUR = LocalDateTime.of(2026, 10, 19, 10, 0);
+    // Two cells about 2 km apart
+    private static final double SHORT_LAT = 6.93;
+    private static final double SPARE_LAT = 6.95;
+    private static final double LNG = 79.86;
+
+    private final List<Object[]> pickups = new ArrayList<>();
+    private final List<Message<?>> sent = new ArrayList<>();
+    private DispatchService dispatchService;
+    private AvailableDriverMap availableDriverMap;
+    private DemandForecaster forecaster;
+
+    @BeforeEach
+    void setUp() {
+        ReplicationBus replicationBus = new ReplicationBus(null, new SimpleMeterRegistry(), false, "delivery_sync",
+                "", 500, "", "", "");
+        dispatchService = new DispatchService(null, null, null, 2, 10, 14, 1_024, 5, 3, false, "", 0);
+        availableDriverMap = new AvailableDriverMap(null, new DriverClusterIndex(),
+                new ServiceZoneIndex(null, replicationBus, 0.02, 2), dispatchService, replicationBus, 1_024);
+        SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate((message, timeout) -> sent.add(message));
+        forecaster = new DemandForecaster(new OrdersStub(), availableDriverMap, messagingTemplate,
+                new SimpleMeterRegistry(), 14, SMOOTHING, 30, SEED_WEEKS, 0.5, 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatchService.destroy();
+    }
+
+    @Test
+    void seedSmoothsEachHourOfWeekOldestWeekFirst() {
+        // Seeding at 11:00: the 10:00 hour had 4 pickups two weeks ago, none last week and 8 today
+        pickups(SHORT_LAT, HOUR.minusWeeks(2).plusMinutes(20), 4);
+        pickups(SHORT_LAT, HOUR.plusMinutes(20), 8);
+        // Exactly at the start of the seed window, the oldest 11:00, and a minute before it
+        pickups(SHORT_LAT, HOUR.plusHours(1).minusWeeks(SEED_WEEKS), 2);
+        pickups(SHORT_LAT, HOUR.plusHours(1).minusWeeks(SEED_WEEKS).minusMinutes(1), 1);
+
+        forecaster.seed(HOUR.plusHours(1));
+
+        assertEquals(0.5 * 8 + 0.5 * (0.5 * 0 + 0.5 * 4), forecaster.rate(SHORT_LAT, LNG, 10), 1e-9);
+        assertEquals(0.5 * 0.5 * 2, forecaster.rate(SHORT_LAT, LNG, 11), 1e-9);
+        assertEquals(0, forecaster.rate(SHORT_LAT, LNG, 9), 1e-9);
+    }
+
+    @Test
+    void rollsFinishedHoursIntoTheRatesAndDecaysSkippedOnes() {
+        for (int week = 1; week <= SEED_WEEKS; week++) {
+            for (int hour = 0; hour < 3; hour++) {
+                pickups(SHORT_LAT, HOUR.minusWeeks(week).plusHours(hour), 4);
+            }
+        }
+        forecaster.seed(HOUR);
+        for (int i = 0; i < 10; i++) {
+            forecaster.record(order(SHORT_LAT));
+        }
+        // A pickup without a location is left out, as the seed leaves it out
+        forecaster.record(Order.builder().id(1L).createdAt(HOUR).build());
+
+        // No update ran in the hour after this one
+        forecaster.update(HOUR.plusHours(2).plusMinutes(1));
+
+        assertEquals(0.5 * 10 + 0.5 * 4, forecaster.rate(SHORT_LAT, LNG, 10), 1e-9);
+        assertEquals(0.5 * 4, forecaster.rate(SHORT_LAT, LNG, 11), 1e-9);
+        assertEquals(4, forecaster.rate(SHORT_LAT, LNG, 12), 1e-9);
+
+        // A week without an update: 12:00 is folded in with no pickups, the rest decayed as skipped
+        forecaster.update(HOUR.plusHours(2).plusWeeks(1));
+        assertEquals(0.5 * (0.5 * 10 + 0.5 * 4), forecaster.rate(SHORT_LAT, LNG, 10), 1e-9);
+        assertEquals(0.5 * 0.5 * 4, forecaster.rate(SHORT_LAT, LNG, 11), 1e-9);
+        assertEquals(0.5 * 4, forecaster.rate(SHORT_LAT, LNG, 12), 1e-9);
+    }
+
+    @Test
+    void hintsTheNearestSpareDriversTowardsTheShortCell() {
+        // 6 pickups an hour in the short cell: 3 expected over the next 30 minutes
+        for (int week = 1; week <= SEED_WEEKS; week++) {
+            pickups(SHORT_LAT, HOUR.minusWeeks(week), 6);
+            pickups(SHORT_LAT, HOUR.minusWeeks(week).plusHours(1), 6);
+        }
+        forecaster.seed(HOUR);
+        // Four idle drivers in a cell with no demand, and one too far away
+        driver(1, SPARE_LAT + 0.006);
+        driver(2, SPARE_LAT);
+        driver(3, SPARE_LAT + 0.004);
+        driver(4, SPARE_LAT + 0.002);
+        driver(5, 7.3);
+
+        forecaster.update(HOUR.plusMinutes(1));
+
+        List<Long> hinted = new ArrayList<>();
+        for (Message<?> message : sent) {
+            DriverHintDTO hint = (DriverHintDTO) message.getPayload();
+            assertEquals("/topic/driver-hints/" + hint.getDriverId(),
+                    message.getHeaders().get(SimpMessageHeaderAccessor.DESTINATION_HEADER));
+            assertEquals(SHORT_LAT, hint.getTargetLat(), 0.01);
+            hinted.add(hint.getDriverId());
+        }
+        System.out.printf("Hinted drivers %s towards a shortfall of %.1f%n", hinted,
+                ((DriverHintDTO) sent.get(0).getPayload()).getExpectedShortfall());
+        assertEquals(List.of(2L, 4L, 3L), hinted);
+    }
+
+    private void pickups(double lat, LocalDateTime createdAt, int count) {
+        for (int i = 0; i < count; i++) {
+            pickups.add(new Object[] {lat, LNG, Timestamp.valueOf(createdAt)});
+        }
+    }
+
+    private void driver(long id, double lat) {
+        Driver driver = Driver.builder()
+                .id(id)
+                .isAvailable(true)
+                .isApproved(true)
+                .build();
+        driver.setCurrentLatitude(lat);
+        driver.setCurrentLongitude(LNG);
+        availableDriverMap.onDriverChanged(driver);
+    }
+
+    private static Order order(double lat) {
+        return Order.builder()
+                .id(1L)
+                .pickupLat(lat)
+                .pickupLng(LNG)
+                .createdAt(HOUR)
+                .build();
+    }
+
+    /**
+     * Answers the seed query with the pickups added so far
+     */
+    private class OrdersStub extends JdbcTemplate {
+
+        @Override
+        public void query(String sql, RowCallbackHandler rch, Object... args) {
+            Map<String, Integer> columns = Map.of("pickup_lat", 0, "pickup_lng", 1, "created_at", 2);
+            for (Object[] row : pickups) {
+                ResultSet rs = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(),
+                        new Class<?>[] {ResultSet.class}, (proxy, method, arguments) -> row[columns.get(arguments[0])]);
+                try {
+                    rch.processRow(rs);
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+    }
+}
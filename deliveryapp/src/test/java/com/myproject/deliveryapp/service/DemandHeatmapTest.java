@@ -0,0 +1,192 @@
+package com.myproject.deliveryapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import com.myproject.deliveryapp.dto.HeatmapTileDTO;
+import com.myproject.deliveryapp.entity.Order;
+import com.myproject.deliveryapp.entity.VehicleType;
+import com.myproject.deliveryapp.util.GeoUtils;
+
+/**
+ * Pickups bucketed into their tile and bin at every zoom and sliced by hour
+ * of week and vehicle type, history loaded by the backfill, and orders
+ * created around it counted exactly once. The orders table is a stub that
+ * answers the backfill's queries from the rows added to it.
+ */
+class DemandHeatmapTest {
+
+    private static final double LAT = 6.93;
+    private static final double LNG = 79.86;
+    // A Monday, so hour of week 10
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2026, 10, 19, 10, 15);
+    private static final long CAR = 2L;
+
+    private final List<Object[]> rows = new ArrayList<>();
+    private DemandHeatmap heatmap;
+
+    @AfterEach
+    void tearDown() {
+        heatmap.destroy();
+    }
+
+    @Test
+    void bucketsAPickupIntoItsTileAndBinAtEveryZoom() throws Exception {
+        backfill();
+        heatmap.record(order(1L, LAT, LNG, CAR));
+
+        for (int z = 0; z <= DemandHeatmap.MAX_ZOOM; z++) {
+            int binX = GeoUtils.tileX(LNG, z + DemandHeatmap.BIN_BITS);
+            int binY = GeoUtils.tileY(LAT, z + DemandHeatmap.BIN_BITS);
+            HeatmapTileDTO tile = tileAt(z, null, null);
+
+            assertEquals(1, tile.getTotal(), "zoom " + z);
+            int bin = (binY % DemandHeatmap.BINS) * DemandHeatmap.BINS + binX % DemandHeatmap.BINS;
+            assertEquals(1, tile.getCounts()[bin], "zoom " + z);
+        }
+        // Its neighbour to the east at the finest zoom holds nothing
+        int x = GeoUtils.tileX(LNG, DemandHeatmap.MAX_ZOOM);
+        int y = GeoUtils.tileY(LAT, DemandHeatmap.MAX_ZOOM);
+        assertEquals(0, heatmap.tile(DemandHeatmap.MAX_ZOOM, x + 1, y, null, null).getTotal());
+    }
+
+    @Test
+    void slicesByHourOfWeekAndVehicleType() throws Exception {
+        backfill();
+        heatmap.record(order(1L, LAT, LNG, CAR));
+        heatmap.record(order(2L, LAT, LNG, null));
+
+        assertEquals(2, tileAt(DemandHeatmap.MAX_ZOOM, 10, null).getTotal());
+        assertEquals(0, tileAt(DemandHeatmap.MAX_ZOOM, 11, null).getTotal());
+        assertEquals(1, tileAt(DemandHeatmap.MAX_ZOOM, null, CAR).getTotal());
+        assertEquals(1, tileAt(DemandHeatmap.MAX_ZOOM, 10, CAR).getTotal());
+        assertEquals(0, tileAt(DemandHeatmap.MAX_ZOOM, null, 3L).getTotal());
+    }
+
+    @Test
+    void backfillCountsHistoryButNotRowsWithoutALocationOrCreationTime() throws Exception {
+        // Spread over more than one backfill chunk
+        for (long id = 1; id <= 2_500; id += 500) {
+            row(id, LAT, LNG, CAR);
+        }
+        row(3_000L, null, LNG, CAR);
+        row(3_001L, LAT, null, CAR);
+        row(3_002L, LAT, LNG, null);
+        rows.add(new Object[] {3_003L, LAT, LNG, CAR, null});
+
+        backfill();
+
+        assertEquals(6, tileAt(0, null, null).getTotal());
+        assertEquals(6, tileAt(DemandHeatmap.MAX_ZOOM, null, null).getTotal());
+        assertEquals(5, tileAt(DemandHeatmap.MAX_ZOOM, null, CAR).getTotal());
+        // Nothing read as 0 and counted where the equator meets the meridian
+        int x = GeoUtils.tileX(0, DemandHeatmap.MAX_ZOOM);
+        int y = GeoUtils.tileY(0, DemandHeatmap.MAX_ZOOM);
+        assertEquals(0, heatmap.tile(DemandHeatmap.MAX_ZOOM, x, y, null, null).getTotal());
+    }
+
+    @Test
+    void ordersCreatedAroundTheBackfillAreCountedOnce() throws Exception {
+        row(2L, LAT, LNG, CAR);
+        row(10L, LAT, LNG, CAR);
+        heatmap = new DemandHeatmap(new OrdersStub(), 1_000, 2);
+        // Recorded before the backfill fixed its upper ID: 10 is in the table, 11 is not
+        heatmap.record(order(10L, LAT, LNG, CAR));
+        heatmap.record(order(11L, LAT, LNG, CAR));
+
+        heatmap.backfill();
+        heatmap.awaitBackfill(10_000);
+        // After it: 12 is new, 2 was read by the backfill, and a pickup without a location is left out
+        heatmap.record(order(12L, LAT, LNG, CAR));
+        heatmap.record(order(2L, LAT, LNG, CAR));
+        heatmap.record(order(13L, null, LNG, CAR));
+
+        assertEquals(4, tileAt(DemandHeatmap.MAX_ZOOM, null, null).getTotal());
+    }
+
+    private void backfill() throws Exception {
+        heatmap = new DemandHeatmap(new OrdersStub(), 1_000, 2);
+        heatmap.backfill();
+        heatmap.awaitBackfill(10_000);
+    }
+
+    private HeatmapTileDTO tileAt(int z, Integer hourOfWeek, Long vehicleTypeId) {
+        return heatmap.tile(z, GeoUtils.tileX(LNG, z), GeoUtils.tileY(LAT, z), hourOfWeek, vehicleTypeId);
+    }
+
+    private void row(long id, Double lat, Double lng, Long vehicleTypeId) {
+        rows.add(new Object[] {id, lat, lng, vehicleTypeId, Timestamp.valueOf(CREATED_AT)});
+    }
+
+    private static Order order(long id, Double lat, Double lng, Long vehicleTypeId) {
+        return Order.builder()
+                .id(id)
+                .pickupLat(lat)
+                .pickupLng(lng)
+                .vehicleType(vehicleTypeId != null ? VehicleType.builder().id(vehicleTypeId).build() : null)
+                .createdAt(CREATED_AT)
+                .build();
+    }
+
+    /**
+     * Answers the backfill's ID bounds and ID range reads from the rows added
+     * so far, with NULLs read the way JDBC reads them
+     */
+    private class OrdersStub extends JdbcTemplate {
+
+        private static final List<String> COLUMNS = List.of("id", "pickup_lat", "pickup_lng", "vehicle_type_id",
+                "created_at");
+
+        @Override
+        public <T> T queryForObject(String sql, Class<T> requiredType) {
+            Long bound = null;
+            for (Object[] row : rows) {
+                long id = (Long) row[0];
+                if (bound == null || (sql.contains("MAX") ? id > bound : id < bound)) {
+                    bound = id;
+                }
+            }
+            return requiredType.cast(bound);
+        }
+
+        @Override
+        public void query(String sql, RowCallbackHandler rch, Object... args) {
+            for (Object[] row : rows) {
+                long id = (Long) row[0];
+                if (id < (Long) args[0] || id > (Long) args[1]) {
+                    continue;
+                }
+                boolean[] wasNull = new boolean[1];
+                ResultSet rs = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(),
+                        new Class<?>[] {ResultSet.class}, (proxy, method, arguments) -> {
+                            if (method.getName().equals("wasNull")) {
+                                return wasNull[0];
+                            }
+                            Object value = row[COLUMNS.indexOf((String) arguments[0])];
+                            wasNull[0] = value == null;
+                            if (value == null && method.getReturnType().isPrimitive()) {
+                                return method.getReturnType() == long.class ? (Object) 0L : (Object) 0.0;
+                            }
+                            return value;
+                        });
+                try {
+                    rch.processRow(rs);
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.myproject.deliveryapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.myproject.deliveryapp.dto.DriverClusterDTO;
+import com.myproject.deliveryapp.util.GeoUtils;
+
+/**
+ * Clusters for screen-sized viewports, where the index looks up each cell in
+ * view, and for viewports much wider than their zoom, where it scans the
+ * occupied cells, counted against the drivers placed. Includes viewports
+ * crossing the antimeridian.
+ */
+class DriverClusterIndexTest {
+
+    private static final int DRIVERS = 20_000;
+
+    @Test
+    void clustersCountTheDriversInView() {
+        Random random = new Random(34);
+        DriverClusterIndex index = new DriverClusterIndex();
+        double[] lats = new double[DRIVERS];
+        double[] lngs = new double[DRIVERS];
+        for (int i = 0; i < DRIVERS; i++) {
+            // Most drivers in one city, the rest spread around the world
+            boolean city = i % 4 != 0;
+            lats[i] = city ? 6.9 + random.nextDouble() * 0.1 : random.nextDouble() * 160 - 80;
+            lngs[i] = city ? 79.85 + random.nextDouble() * 0.1 : random.nextDouble() * 360 - 180;
+            index.put(i + 1, lats[i], lngs[i], i % 3 == 0 ? "Bike" : "Car");
+        }
+
+        for (int zoom : new int[] {2, 5, 9, 12, 15, 18}) {
+            for (int q = 0; q < 50; q++) {
+                double span = 360.0 / (1 << zoom) * (1 + random.nextDouble() * 6);
+                double centerLat = q % 2 == 0 ? 6.95 : random.nextDouble() * 140 - 70;
+                double centerLng = q % 5 == 0 ? 179.9 : q % 2 == 0 ? 79.9 : random.nextDouble() * 360 - 180;
+                double minLat = Math.max(-85, centerLat - span / 4);
+                double maxLat = Math.min(85, centerLat + span / 4);
+                double minLng = wrap(centerLng - span / 2);
+                double maxLng = wrap(centerLng + span / 2);
+
+                int clustered = 0;
+                for (DriverClusterDTO cluster : index.clusters(minLat, minLng, maxLat, maxLng, zoom)) {
+                    clustered += cluster.getCount();
+                }
+                assertEquals(inView(lats, lngs, minLat, minLng, maxLat, maxLng, zoom), clustered,
+                        String.format("zoom %d, %.5f,%.5f to %.5f,%.5f", zoom, minLat, minLng, maxLat, maxLng));
+            }
+        }
+
+        // A world viewport at street zoom: far more cells in view than occupied
+        int clustered = 0;
+        for (DriverClusterDTO cluster : index.clusters(-85, -180, 85, 180, 18)) {
+            clustered += cluster.getCount();
+        }
+        assertEquals(inView(lats, lngs, -85, -180, 85, 180, 18), clustered);
+    }
+
+    @Test
+    void removedDriversLeaveTheirCluster() {
+        DriverClusterIndex index = new DriverClusterIndex();
+        index.put(1, 6.9271, 79.8612, "Car");
+        index.put(2, 6.9272, 79.8613, "Car");
+        index.put(2, 6.9350, 79.8500, "Car");
+        index.remove(1);
+
+        List<DriverClusterDTO> clusters = index.clusters(6.92, 79.84, 6.94, 79.87, 18);
+        assertEquals(1, clusters.size());
+        assertEquals(1, clusters.get(0).getCount());
+        assertEquals(2L, clusters.get(0).getDriverId());
+    }
+
+    /**
+     * Drivers whose cell at the clustering level lies in the viewport's cell range
+     */
+    private static int inView(double[] lats, double[] lngs, double minLat, double minLng, double maxLat, double maxLng,
+                              int zoom) {
+        int z = Math.min(DriverClusterIndex.MAX_LEVEL, zoom + DriverClusterIndex.CELL_BITS);
+        int minX = GeoUtils.tileX(minLng, z);
+        int maxX = GeoUtils.tileX(maxLng, z);
+        int minY = GeoUtils.tileY(maxLat, z);
+        int maxY = GeoUtils.tileY(minLat, z);
+        int count = 0;
+        for (int i = 0; i < lats.length; i++) {
+            int x = GeoUtils.tileX(lngs[i], z);
+            int y = GeoUtils.tileY(lats[i], z);
+            boolean inX = minX > maxX ? (x >= minX || x <= maxX) : (x >= minX && x <= maxX);
+            if (inX && y >= minY && y <= maxY) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static double wrap(double lng) {
+        return lng > 180 ? lng - 360 : lng < -180 ? lng + 360 : lng;
+    }
+}
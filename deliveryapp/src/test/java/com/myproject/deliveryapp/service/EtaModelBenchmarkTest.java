@@ -0,0 +1,69 @@
+package com.myproject.deliveryapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Throughput of ETA estimates over a model trained on a synthetic city, with
+ * the pace cache cold (every origin-destination cell pair new) and warm.
+ */
+@Tag("benchmark")
+@Slf4j
+class EtaModelBenchmarkTest {
+
+    // Roughly greater Colombo
+    private static final double MIN_LAT = 6.80;
+    private static final double MAX_LAT = 7.05;
+    private static final double MIN_LNG = 79.82;
+    private static final double MAX_LNG = 80.05;
+
+    private static final int ESTIMATES = 200_000;
+
+    @Test
+    void estimatesPerSecond() {
+        EtaModel model = new EtaModel(14, 25, 1.3, 100_000, 600_000);
+        Random random = new Random(42);
+
+        // A week of 5 s GPS stretches for a few hundred drivers
+        for (int i = 0; i < 500_000; i++) {
+            double lat = MIN_LAT + random.nextDouble() * (MAX_LAT - MIN_LAT);
+            double lng = MIN_LNG + random.nextDouble() * (MAX_LNG - MIN_LNG);
+            double speedMps = 3 + random.nextDouble() * 12;
+            model.observe(lat, lng, random.nextInt(24), speedMps * 5, 5);
+        }
+
+        double[][] trips = new double[ESTIMATES][];
+        for (int i = 0; i < ESTIMATES; i++) {
+            trips[i] = new double[] {
+                MIN_LAT + random.nextDouble() * (MAX_LAT - MIN_LAT),
+                MIN_LNG + random.nextDouble() * (MAX_LNG - MIN_LNG),
+                MIN_LAT + random.nextDouble() * (MAX_LAT - MIN_LAT),
+                MIN_LNG + random.nextDouble() * (MAX_LNG - MIN_LNG)
+            };
+        }
+
+        double cold = run(model, trips);
+        double warm = run(model, trips);
+
+        log.info(String.format("ETA estimates/sec: cold cache %.0f, warm cache %.0f (%d cached paces)",
+                cold, warm, model.cachedPaces()));
+        assertTrue(cold > 0 && warm > 0);
+    }
+
+    private static double run(EtaModel model, double[][] trips) {
+        long checksum = 0;
+        long started = System.nanoTime();
+        for (double[] trip : trips) {
+            checksum += model.estimateSeconds(trip[0], trip[1], trip[2], trip[3], 8);
+        }
+        long elapsed = System.nanoTime() - started;
+        assertTrue(checksum > 0);
+        return trips.length / (elapsed / 1e9);
+    }
+}
@@ -0,0 +1,155 @@
+package com.myproject.deliveryapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.myproject.deliveryapp.entity.ServiceZone;
+import com.myproject.deliveryapp.replication.ReplicationBus;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Polygon parsing, point-in-zone tests on known shapes, the zone size limit,
+ * and lookup speed with a city carved into hundreds of zones: a lookup runs
+ * on every location update, so it has to stay under a microsecond.
+ */
+class ServiceZoneIndexTest {
+
+    private static final double BUCKET_DEGREES = 0.02;
+    private static final int GRID = 20;
+    private static final int LOOKUPS = 2_000_000;
+    private static final double TARGET_NANOS_PER_LOOKUP = 1_000;
+
+    private ServiceZoneIndex index;
+
+    @BeforeEach
+    void setUp() {
+        ReplicationBus replicationBus = new ReplicationBus(null, new SimpleMeterRegistry(), false, "delivery_sync",
+                "", 500, "", "", "");
+        index = new ServiceZoneIndex(null, replicationBus, BUCKET_DEGREES, 2);
+    }
+
+    @Test
+    void parsesPolygons() {
+        double[][] polygon = ServiceZoneIndex.parsePolygon("6.9,79.85; 6.95 ,79.9;-6.5,-79.875");
+
+        assertArrayEquals(new double[] {6.9, 6.95, -6.5}, polygon[0]);
+        assertArrayEquals(new double[] {79.85, 79.9, -79.875}, polygon[1]);
+        assertThrows(NumberFormatException.class, () -> ServiceZoneIndex.parsePolygon("6.9,east;7,80;7,81"));
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> ServiceZoneIndex.parsePolygon("6.9;7,80;7,81"));
+    }
+
+    @Test
+    void containsPointsInsideAConcavePolygon() {
+        // A U shape open to the north: two prongs joined along the bottom
+        index.build(List.of(zone(1, "U", "0,0;0,0.3;0.3,0.3;0.3,0.2;0.1,0.2;0.1,0.1;0.3,0.1;0.3,0")));
+
+        assertEquals("U", index.zoneAt(0.05, 0.15).getName());
+        assertEquals("U", index.zoneAt(0.25, 0.05).getName());
+        assertEquals("U", index.zoneAt(0.25, 0.25).getName());
+        // The notch between the prongs, and outside the bounding box
+        assertNull(index.zoneAt(0.2, 0.15));
+        assertNull(index.zoneAt(-0.01, 0.15));
+        assertNull(index.zoneAt(0.15, 0.31));
+        assertTrue(index.isServiced(0.05, 0.05));
+        assertFalse(index.isServiced(0.2, 0.15));
+    }
+
+    @Test
+    void everywhereIsServicedUntilAZoneIsEnabled() {
+        index.build(List.of());
+
+        assertFalse(index.hasZones());
+        assertTrue(index.isServiced(51.5, -0.1));
+    }
+
+    @Test
+    void refusesZonesWiderThanTheLimit() {
+        index.checkSize(ServiceZoneIndex.parsePolygon("6,79;8,79;8,81;6,81"));
+        assertThrows(RuntimeException.class,
+                () -> index.checkSize(ServiceZoneIndex.parsePolygon("6,79;8.5,79;8.5,81;6,81")));
+        assertThrows(RuntimeException.class,
+                () -> index.checkSize(ServiceZoneIndex.parsePolygon("6,79;7,79;7,90;6,90")));
+
+        // One saved before the limit is skipped rather than indexed
+        index.build(List.of(zone(1, "Island", "5,79;10,79;10,82;5,82"), zone(2, "Fort", "6.9,79.8;7,79.8;7,79.9")));
+        assertNull(index.zoneAt(9, 81));
+        assertEquals("Fort", index.zoneAt(6.95, 79.82).getName());
+    }
+
+    @Test
+    void looksUpPointsAmongHundredsOfZonesInUnderAMicrosecond() {
+        // A GRID x GRID patchwork of irregular eight-sided zones over a city
+        List<ServiceZone> zones = new ArrayList<>();
+        Random random = new Random(38);
+        double originLat = 6.80;
+        double originLng = 79.80;
+        double cell = 0.015;
+        for (int row = 0; row < GRID; row++) {
+            for (int col = 0; col < GRID; col++) {
+                double centerLat = originLat + (row + 0.5) * cell;
+                double centerLng = originLng + (col + 0.5) * cell;
+                StringBuilder polygon = new StringBuilder();
+                for (int k = 0; k < 8; k++) {
+                    double angle = Math.PI * 2 * k / 8;
+                    double radius = cell * (0.3 + random.nextDouble() * 0.2);
+                    polygon.append(k > 0 ? ";" : "")
+                            .append(centerLat + Math.sin(angle) * radius).append(',')
+                            .append(centerLng + Math.cos(angle) * radius);
+                }
+                zones.add(zone(row * GRID + col + 1, "zone-" + row + "-" + col, polygon.toString()));
+            }
+        }
+        index.build(zones);
+
+        double[] lats = new double[4_096];
+        double[] lngs = new double[lats.length];
+        for (int i = 0; i < lats.length; i++) {
+            lats[i] = originLat + random.nextDouble() * GRID * cell;
+            lngs[i] = originLng + random.nextDouble() * GRID * cell;
+        }
+
+        // Warm up, then time
+        int found = lookups(lats, lngs, LOOKUPS);
+        long started = System.nanoTime();
+        found = lookups(lats, lngs, LOOKUPS);
+        double nanosPerLookup = (System.nanoTime() - started) / (double) LOOKUPS;
+
+        System.out.printf("%d zones: %.0f ns per lookup, %d of %d points in a zone%n",
+                zones.size(), nanosPerLookup, found, LOOKUPS);
+        assertTrue(found > LOOKUPS / 4 && found < LOOKUPS);
+        assertTrue(nanosPerLookup < TARGET_NANOS_PER_LOOKUP,
+                String.format("%.0f ns per lookup is above the %.0f ns target", nanosPerLookup, TARGET_NANOS_PER_LOOKUP));
+    }
+
+    private int lookups(double[] lats, double[] lngs, int count) {
+        int found = 0;
+        for (int i = 0; i < count; i++) {
+            int p = i & (lats.length - 1);
+            if (index.zoneAt(lats[p], lngs[p]) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static ServiceZone zone(long id, String name, String polygon) {
+        return ServiceZone.builder()
+                .id(id)
+                .name(name)
+                .polygon(polygon)
+                .enabled(true)
+                .build();
+    }
+}
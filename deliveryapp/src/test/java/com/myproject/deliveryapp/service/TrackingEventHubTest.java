@@ -0,0 +1,206 @@
+package com.myproject.deliveryapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.myproject.deliveryapp.dto.LocationUpdateRequest;
+import com.myproject.deliveryapp.dto.OrderStatusUpdate;
+import com.myproject.deliveryapp.dto.TrackingSnapshotDTO;
+import com.myproject.deliveryapp.entity.Order;
+import com.myproject.deliveryapp.entity.User;
+import com.myproject.deliveryapp.enums.OrderStatus;
+import com.myproject.deliveryapp.replication.ReplicationBus;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * SSE clients joining between a status change and its event, and slow or
+ * stalled clients dropped without holding up the others. Emitters record
+ * what is sent to them instead of writing to a response.
+ */
+class TrackingEventHubTest {
+
+    private static final long ORDER_ID = 42L;
+    private static final long DRIVER_ID = 7L;
+
+    private ActiveOrderRegistry registry;
+    private TrackingEventHub hub;
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        ReplicationBus replicationBus = new ReplicationBus(null, new SimpleMeterRegistry(), false, "delivery_sync",
+                "", 500, "", "", "");
+        order = Order.builder()
+                .id(ORDER_ID)
+                .status(OrderStatus.PENDING)
+                .customer(User.builder().email("customer@example.com").build())
+                .build();
+        // A status change landing just after the subscriber's trackability check
+        registry = new ActiveOrderRegistry(null, replicationBus, 600_000, 600_000) {
+            private boolean changed;
+
+            @Override
+            public TrackingSnapshotDTO snapshot(Long orderId) {
+                TrackingSnapshotDTO snapshot = super.snapshot(orderId);
+                if (!changed && order.getStatus() == OrderStatus.PENDING) {
+                    changed = true;
+                    order.setStatus(OrderStatus.ACCEPTED);
+                    updateStatus(ORDER_ID, OrderStatus.ACCEPTED);
+                    hub.publishStatus(order);
+                }
+                return snapshot;
+            }
+        };
+        registry.register(order);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.destroy();
+    }
+
+    @Test
+    void snapshotTakenAfterJoiningCoversEventsBeforeIt() throws InterruptedException {
+        hub = hub(256, 5_000, 1);
+        RecordingEmitter client = new RecordingEmitter();
+
+        hub.subscribe(ORDER_ID, null, client);
+        hub.publishPosition(ORDER_ID, new LocationUpdateRequest(DRIVER_ID, 6.93, 79.86));
+
+        client.awaitEvents(2);
+        assertEquals(List.of("snapshot:1", "position:2"), client.events);
+        assertEquals(OrderStatus.ACCEPTED, ((TrackingSnapshotDTO) client.data.get(0)).getStatus());
+    }
+
+    @Test
+    void dropsAClientWhoseQueueFillsUp() throws InterruptedException {
+        hub = hub(4, 60_000, 2);
+        CountDownLatch stalled = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(stalled);
+        RecordingEmitter fast = new RecordingEmitter();
+        hub.subscribe(ORDER_ID, null, fast);
+        hub.subscribe(ORDER_ID, null, slow);
+
+        // The fast client keeps up with every event, the stalled one falls behind
+        for (int i = 0; i < 40; i++) {
+            hub.publishPosition(ORDER_ID, new LocationUpdateRequest(DRIVER_ID, 6.93 + i * 0.001, 79.86));
+            fast.awaitEvents(i + 2);
+        }
+        stalled.countDown();
+
+        assertTrue(slow.completed.await(5, TimeUnit.SECONDS), "slow client completed");
+        assertTrue(slow.events.size() < 41, "slow client got " + slow.events.size() + " events");
+        assertEquals("position:41", fast.events.get(40));
+    }
+
+    @Test
+    void cutsOffAStalledSendAndFreesItsSender() throws InterruptedException {
+        hub = hub(256, 50, 1);
+        RecordingEmitter stalled = new RecordingEmitter(new CountDownLatch(1));
+        RecordingEmitter later = new RecordingEmitter();
+        hub.subscribe(ORDER_ID, null, stalled);
+        assertTrue(stalled.sending.await(5, TimeUnit.SECONDS));
+
+        Thread.sleep(100);
+        hub.dropStalled();
+
+        assertTrue(stalled.completed.await(5, TimeUnit.SECONDS), "stalled client completed");
+        // The only sender thread is free again
+        hub.subscribe(ORDER_ID, null, later);
+        later.awaitEvents(1);
+        assertEquals("snapshot:1", later.events.get(0));
+    }
+
+    private TrackingEventHub hub(int queueSize, long sendTimeoutMs, int senderThreads) {
+        SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate((message, timeout) -> true);
+        return new TrackingEventHub(messagingTemplate, registry, null, 60_000, 4, queueSize, senderThreads,
+                sendTimeoutMs);
+    }
+
+    /**
+     * Records "name:id" per event sent, and optionally blocks every send
+     * until released or interrupted
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+        final List<String> events = new ArrayList<>();
+        final List<Object> data = new ArrayList<>();
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch completed = new CountDownLatch(1);
+        private final CountDownLatch release;
+
+        RecordingEmitter() {
+            this(null);
+        }
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending.countDown();
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException("Interrupted mid-send", e);
+                }
+            }
+            String name = null;
+            String id = null;
+            Object payload = null;
+            for (DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof String text) {
+                    for (String line : text.split("\n")) {
+                        if (line.startsWith("event:")) {
+                            name = line.substring(6);
+                        } else if (line.startsWith("id:")) {
+                            id = line.substring(3);
+                        }
+                    }
+                } else {
+                    payload = part.getData();
+                }
+            }
+            if (name != null) {
+                synchronized (this) {
+                    events.add(name + ":" + id);
+                    data.add(payload);
+                    notifyAll();
+                }
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            completed.countDown();
+        }
+
+        synchronized void awaitEvents(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (events.size() < count && System.currentTimeMillis() < deadline) {
+                wait(100);
+            }
+            assertTrue(events.size() >= count, "got " + events);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.myproject.deliveryapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.myproject.deliveryapp.dto.TripRouteDTO;
+import com.myproject.deliveryapp.entity.Order;
+import com.myproject.deliveryapp.tracking.BreadcrumbStore;
+
+/**
+ * The measured route of a trip, which the fare is billed on, covers the
+ * track from pickup on and not the driver's way to the pickup, and the
+ * billed distance stays within the band around the quoted one.
+ */
+class TripRouteServiceTest {
+
+    private static final long ORDER = 11;
+    private static final long DRIVER = 5;
+    // About 1.1 km of latitude
+    private static final double KILOMETER = 0.01;
+    private static final double BAND = 0.3;
+
+    @TempDir
+    Path directory;
+
+    private BreadcrumbStore store;
+    private TripRouteService tripRouteService;
+    private long start;
+
+    @BeforeEach
+    void setUp() {
+        store = new BreadcrumbStore(directory.toString(), 1_024, 30);
+        tripRouteService = new TripRouteService(store, 5, BAND);
+        // Whole seconds, as LocalDateTime round-trips them exactly
+        start = System.currentTimeMillis() / 1000 * 1000;
+
+        // Ten minutes driving 3 km north to the pickup, then 10 minutes 2 km east to the drop
+        for (int minute = 0; minute <= 10; minute++) {
+            append(minute, 6.90 + 3 * KILOMETER * minute / 10, 79.86);
+        }
+        for (int minute = 11; minute <= 20; minute++) {
+            append(minute, 6.93, 79.86 + 2 * KILOMETER * (minute - 10) / 10);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        store.destroy();
+    }
+
+    @Test
+    void measuresTheTripFromPickup() {
+        TripRouteDTO route = tripRouteService.summarize(order(at(10)));
+
+        assertTrue(tripRouteService.isMeasured(route));
+        assertEquals(11, route.getRawPoints());
+        assertEquals(2.2, route.getDistanceKm(), 0.05);
+        assertEquals(600, route.getDurationSeconds());
+    }
+
+    @Test
+    void orderNotPickedUpHasNoMeasuredRoute() {
+        TripRouteDTO route = tripRouteService.summarize(order(null));
+
+        assertFalse(tripRouteService.isMeasured(route));
+        assertEquals(0, route.getRawPoints());
+        assertEquals(0, route.getDurationSeconds());
+    }
+
+    @Test
+    void billsTheMeasuredDistanceWithinTheBandAroundTheQuote() {
+        TripRouteDTO route = tripRouteService.summarize(order(at(10)));
+        double measured = route.getDistanceKm();
+
+        assertEquals(measured, tripRouteService.billedDistanceKm(quoted(2.0), route), 1e-9);
+        assertEquals(1.0 * (1 + BAND), tripRouteService.billedDistanceKm(quoted(1.0), route), 1e-9);
+        assertEquals(5.0 * (1 - BAND), tripRouteService.billedDistanceKm(quoted(5.0), route), 1e-9);
+        assertEquals(measured, tripRouteService.billedDistanceKm(quoted(null), route), 1e-9);
+    }
+
+    private void append(int minute, double lat, double lng) {
+        store.append(DRIVER, ORDER, start + minute * 60_000L, (int) Math.round(lat * 1e6),
+                (int) Math.round(lng * 1e6));
+    }
+
+    private LocalDateTime at(int minute) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(start + minute * 60_000L), ZoneId.systemDefault());
+    }
+
+    private Order quoted(Double distanceKm) {
+        Order order = order(at(10));
+        order.setDistance(distanceKm);
+        return order;
+    }
+
+    private static Order order(LocalDateTime pickedUpAt) {
+        return Order.builder()
+                .id(ORDER)
+                .pickedUpAt(pickedUpAt)
+                .build();
+    }
+}
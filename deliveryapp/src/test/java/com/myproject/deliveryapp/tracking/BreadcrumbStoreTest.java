@@ -0,0 +1,104 @@
+package com.myproject.deliveryapp.tracking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Reads of an order's track while it is being appended to and its segments
+ * compacted. Every read has to see a prefix of the track: each point exactly
+ * once, in order, whichever side of a compaction its segment was on.
+ */
+class BreadcrumbStoreTest {
+
+    private static final long ORDER = 7;
+    private static final long DRIVER = 3;
+    private static final int POINTS = 50_000;
+    // Inside the retention period, so compaction keeps the segments
+    private static final long START = System.currentTimeMillis();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsSeeEveryPointOnceWhileSegmentsAreCompacted() throws Exception {
+        BreadcrumbStore store = new BreadcrumbStore(directory.toString(), 512, 30);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicLong compactions = new AtomicLong();
+
+        Thread writer = new Thread(() -> {
+            try {
+                for (int i = 1; i <= POINTS; i++) {
+                    store.append(DRIVER, ORDER, START + i, i, -i);
+                    // Pace it like a stream of pings, so reads and compactions interleave with appends
+                    if (i % 250 == 0) {
+                        Thread.sleep(1);
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                done.set(true);
+            }
+        });
+        Thread compactor = new Thread(() -> {
+            while (!done.get()) {
+                store.compact();
+                compactions.incrementAndGet();
+            }
+        });
+        writer.start();
+        compactor.start();
+
+        int reads = 0;
+        try {
+            while (!done.get()) {
+                assertPrefix(store);
+                reads++;
+            }
+        } finally {
+            writer.join();
+            compactor.join();
+        }
+        store.compact();
+        assertEquals(POINTS, assertPrefix(store));
+        System.out.printf("%d reads over %d compaction passes saw consistent tracks%n", reads, compactions.get());
+        store.destroy();
+    }
+
+    /**
+     * Checks that forEachPoint and writeTrack return points 1..n with nothing
+     * missing or repeated, and returns n
+     */
+    private static int assertPrefix(BreadcrumbStore store) throws Exception {
+        long[] expected = {1};
+        store.forEachPoint(ORDER, (timestampMillis, latE6, lngE6) -> {
+            assertEquals(START + expected[0], timestampMillis);
+            assertEquals(expected[0], latE6);
+            expected[0]++;
+        });
+        int seen = (int) (expected[0] - 1);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        long written = store.writeTrack(ORDER, Channels.newChannel(bytes));
+        assertEquals(bytes.size(), written);
+        assertEquals(0, written % HotSegment.POINT_SIZE);
+        ByteBuffer track = ByteBuffer.wrap(bytes.toByteArray());
+        for (long i = 1; track.hasRemaining(); i++) {
+            assertEquals(START + i, track.getLong());
+            assertEquals(i, track.getInt());
+            assertEquals(-i, track.getInt());
+        }
+        assertTrue(written / HotSegment.POINT_SIZE >= seen, "Track shrank between reads");
+        return seen;
+    }
+}
@@ -0,0 +1,74 @@
+package com.myproject.deliveryapp.tracking;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Slots freed when drivers go offline or fall silent, and handed to the next
+ * driver without any of the previous driver's state.
+ */
+class LocationFilterTest {
+
+    private static final long TIMESTAMP = 1_760_000_000_000L;
+    private static final double LAT = 6.9271;
+    private static final double LNG = 79.8612;
+
+    private final DriverSlotRegistry slotRegistry = new DriverSlotRegistry();
+
+    @Test
+    void releasedSlotsGoToTheNextDriverWithoutItsState() {
+        LocationFilter filter = filter(900_000);
+        filter.accept(1, LAT, LNG, TIMESTAMP);
+        filter.accept(2, LAT, LNG, TIMESTAMP);
+        int slot = slotRegistry.find(1);
+
+        filter.release(1);
+        assertEquals(-1, slotRegistry.find(1));
+        assertEquals(1, slotRegistry.inUse());
+
+        // Driver 3 takes the freed slot; its first fix is forwarded as is, not smoothed towards driver 1
+        assertArrayEquals(new double[] {LAT + 0.01, LNG}, filter.accept(3, LAT + 0.01, LNG, TIMESTAMP + 500));
+        assertEquals(slot, slotRegistry.find(3));
+        assertEquals(2, slotRegistry.size());
+
+        // Back online, driver 1 starts over in a new slot
+        assertArrayEquals(new double[] {LAT, LNG}, filter.accept(1, LAT, LNG, TIMESTAMP + 600));
+        assertEquals(2, slotRegistry.find(1));
+    }
+
+    @Test
+    void keepsFilteringDriversThatStayOnline() {
+        LocationFilter filter = filter(900_000);
+        filter.accept(1, LAT, LNG, TIMESTAMP);
+
+        filter.releaseIdle();
+
+        // Still within the minimum interval of the first fix
+        assertNull(filter.accept(1, LAT + 0.01, LNG, TIMESTAMP + 500));
+        assertEquals(0, slotRegistry.find(1));
+    }
+
+    @Test
+    void releasesDriversThatFellSilent() {
+        LocationFilter filter = filter(-1);
+        filter.accept(1, LAT, LNG, TIMESTAMP);
+        filter.accept(2, LAT, LNG, TIMESTAMP);
+
+        filter.releaseIdle();
+
+        assertEquals(0, slotRegistry.inUse());
+        filter.accept(3, LAT, LNG, TIMESTAMP);
+        filter.accept(4, LAT, LNG, TIMESTAMP);
+        assertEquals(2, slotRegistry.size());
+    }
+
+    private LocationFilter filter(long idleReleaseMs) {
+        return new LocationFilter(slotRegistry, new SimpleMeterRegistry(), true, 1_000, 15, 30_000, 55, 3, 10,
+                idleReleaseMs);
+    }
+}
@@ -0,0 +1,92 @@
+package com.myproject.deliveryapp.tracking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The encoded polyline format, checked against the example from the format's
+ * specification and by decoding what was encoded.
+ */
+class PolylineEncoderTest {
+
+    @Test
+    void encodesTheSpecificationExample() {
+        TrackBuffer track = new TrackBuffer(3);
+        track.add(0, 38.5, -120.2);
+        track.add(0, 40.7, -120.95);
+        track.add(0, 43.252, -126.453);
+
+        assertEquals("_p~iF~ps|U_ulLnnqC_mqNvxq`@", PolylineEncoder.encode(track, new int[] {0, 1, 2}));
+    }
+
+    @Test
+    void encodesOnlyTheGivenIndexes() {
+        TrackBuffer track = new TrackBuffer(4);
+        track.add(0, 38.5, -120.2);
+        track.add(0, 0, 0);
+        track.add(0, 40.7, -120.95);
+        track.add(0, 43.252, -126.453);
+
+        assertEquals("_p~iF~ps|U_ulLnnqC_mqNvxq`@", PolylineEncoder.encode(track, new int[] {0, 2, 3}));
+        assertEquals("", PolylineEncoder.encode(track, new int[0]));
+    }
+
+    @Test
+    void decodesBackToThePointsRoundedToFiveDecimals() {
+        Random random = new Random(29);
+        TrackBuffer track = new TrackBuffer(1_000);
+        double lat = 6.9271;
+        double lng = 79.8612;
+        for (int i = 0; i < 1_000; i++) {
+            // A city drive, with the odd jump of tens of degrees for multi-chunk deltas
+            lat += (random.nextDouble() - 0.5) * (i % 250 == 0 ? 20 : 0.002);
+            lng += (random.nextDouble() - 0.5) * (i % 250 == 0 ? 60 : 0.002);
+            track.add(i, lat, lng);
+        }
+        int[] all = new int[track.size()];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = i;
+        }
+
+        List<double[]> decoded = decode(PolylineEncoder.encode(track, all));
+
+        assertEquals(track.size(), decoded.size());
+        for (int i = 0; i < track.size(); i++) {
+            assertEquals(Math.round(track.lat(i) * 1e5), Math.round(decoded.get(i)[0] * 1e5), "lat of point " + i);
+            assertEquals(Math.round(track.lng(i) * 1e5), Math.round(decoded.get(i)[1] * 1e5), "lng of point " + i);
+        }
+    }
+
+    /**
+     * Reference decoder, as map clients decode the format
+     */
+    private static List<double[]> decode(String encoded) {
+        List<double[]> points = new ArrayList<>();
+        int index = 0;
+        long lat = 0;
+        long lng = 0;
+        while (index < encoded.length()) {
+            long[] value = new long[2];
+            for (int coordinate = 0; coordinate < 2; coordinate++) {
+                long result = 0;
+                int shift = 0;
+                int chunk;
+                do {
+                    chunk = encoded.charAt(index++) - 63;
+                    result |= (long) (chunk & 0x1f) << shift;
+                    shift += 5;
+                } while (chunk >= 0x20);
+                value[coordinate] = (result & 1) != 0 ? ~(result >> 1) : result >> 1;
+            }
+            lat += value[0];
+            lng += value[1];
+            points.add(new double[] {lat / 1e5, lng / 1e5});
+        }
+        return points;
+    }
+}
@@ -0,0 +1,122 @@
+package com.myproject.deliveryapp.tracking;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.myproject.deliveryapp.util.GeoUtils;
+
+/**
+ * Douglas-Peucker simplification on small tracks with known answers, and on
+ * a long trip to check that every dropped point stays within the tolerance.
+ */
+class RouteSimplifierTest {
+
+    // About 11 m of latitude
+    private static final double TEN_METERS = 1e-4;
+
+    @Test
+    void keepsShortTracksWhole() {
+        assertArrayEquals(new int[0], RouteSimplifier.simplify(track(), 5));
+        assertArrayEquals(new int[] {0}, RouteSimplifier.simplify(track(6.9, 79.86), 5));
+        assertArrayEquals(new int[] {0, 1}, RouteSimplifier.simplify(track(6.9, 79.86, 6.91, 79.87), 5));
+    }
+
+    @Test
+    void dropsPointsOnAStraightLine() {
+        TrackBuffer line = track(
+                6.90, 79.86,
+                6.91, 79.86,
+                6.92, 79.86,
+                6.93, 79.86);
+
+        assertArrayEquals(new int[] {0, 3}, RouteSimplifier.simplify(line, 1));
+    }
+
+    @Test
+    void keepsCornersBeyondTheTolerance() {
+        // North, then a right-angle turn east, with a slight wobble on each leg
+        TrackBuffer turn = track(
+                6.900, 79.860,
+                6.905, 79.860 + TEN_METERS / 10,
+                6.910, 79.860,
+                6.910 + TEN_METERS / 10, 79.865,
+                6.910, 79.870);
+
+        assertArrayEquals(new int[] {0, 2, 4}, RouteSimplifier.simplify(turn, 5));
+        // With a tolerance wider than the corner, the turn is cut
+        assertArrayEquals(new int[] {0, 4}, RouteSimplifier.simplify(turn, 2_000));
+    }
+
+    @Test
+    void keepsAPointJustOutsideTheTolerance() {
+        TrackBuffer detour = track(
+                6.90, 79.86,
+                6.905, 79.86 + TEN_METERS,
+                6.91, 79.86);
+
+        assertArrayEquals(new int[] {0, 1, 2}, RouteSimplifier.simplify(detour, 5));
+        assertArrayEquals(new int[] {0, 2}, RouteSimplifier.simplify(detour, 15));
+    }
+
+    @Test
+    void longTripStaysWithinToleranceOfTheKeptLine() {
+        int points = 200_000;
+        TrackBuffer trip = new TrackBuffer(points);
+        double heading = 0;
+        double lat = 6.9;
+        double lng = 79.86;
+        for (int i = 0; i < points; i++) {
+            heading += Math.sin(i / 500.0) * 0.02;
+            lat += Math.cos(heading) * 2e-5;
+            lng += Math.sin(heading) * 2e-5;
+            trip.add(i * 1_000L, lat, lng);
+        }
+
+        double tolerance = 5;
+        int[] kept = RouteSimplifier.simplify(trip, tolerance);
+
+        assertEquals(0, kept[0]);
+        assertEquals(points - 1, kept[kept.length - 1]);
+        assertTrue(kept.length < points / 10, kept.length + " of " + points + " points kept");
+        for (int k = 1; k < kept.length; k++) {
+            assertTrue(kept[k] > kept[k - 1]);
+            for (int i = kept[k - 1] + 1; i < kept[k]; i++) {
+                double offset = offsetMeters(trip, i, kept[k - 1], kept[k]);
+                // Allow for the projection differing slightly from the one the simplifier uses
+                assertTrue(offset <= tolerance * 1.01, "point " + i + " is " + offset + " m off the route");
+            }
+        }
+        System.out.printf("Simplified %d points to %d at %.0f m%n", points, kept.length, tolerance);
+    }
+
+    private static TrackBuffer track(double... latLngs) {
+        TrackBuffer track = new TrackBuffer(latLngs.length / 2);
+        for (int i = 0; i < latLngs.length; i += 2) {
+            track.add(i * 1_000L, latLngs[i], latLngs[i + 1]);
+        }
+        return track;
+    }
+
+    /**
+     * Distance from point i to the segment between points a and b, on a local
+     * projection around point i
+     */
+    private static double offsetMeters(TrackBuffer track, int i, int a, int b) {
+        double metersPerDegLat = Math.toRadians(1) * GeoUtils.EARTH_RADIUS_METERS;
+        double metersPerDegLng = metersPerDegLat * Math.cos(Math.toRadians(track.lat(i)));
+        double px = track.lng(i) * metersPerDegLng;
+        double py = track.lat(i) * metersPerDegLat;
+        double ax = track.lng(a) * metersPerDegLng;
+        double ay = track.lat(a) * metersPerDegLat;
+        double bx = track.lng(b) * metersPerDegLng;
+        double by = track.lat(b) * metersPerDegLat;
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSquared));
+        return Math.hypot(px - (ax + t * dx), py - (ay + t * dy));
+    }
+}
@@ -0,0 +1,149 @@
+package com.myproject.deliveryapp.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Backlog and handling time counted once per message on a channel with
+ * several subscribed handlers, as the inbound and broker channels have.
+ */
+class ChannelMetricsInterceptorTest {
+
+    private static final String DESTINATION = "/topic/tracking/{id}";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Runnable> queued = new ArrayList<>();
+    private final AtomicInteger handled = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        queued.clear();
+        handled.set(0);
+    }
+
+    @Test
+    void countsEachMessageOnceAcrossItsHandlers() {
+        ExecutorSubscribableChannel channel = channel(queued::add, 3);
+
+        for (int i = 0; i < 5; i++) {
+            channel.send(message(i));
+        }
+        assertEquals(5, pending());
+        assertEquals(15, queued.size());
+
+        // Pending drops as a message's first handler starts, the time is taken when its last finishes
+        queued.get(0).run();
+        assertEquals(4, pending());
+        assertEquals(0, handleCount());
+        queued.get(1).run();
+        queued.get(2).run();
+        assertEquals(4, pending());
+        assertEquals(1, handleCount());
+
+        queued.subList(3, queued.size()).forEach(Runnable::run);
+        assertEquals(0, pending());
+        assertEquals(5, handleCount());
+        assertEquals(15, handled.get());
+    }
+
+    @Test
+    void staysBalancedWithHandlersOnManyThreads() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        ExecutorSubscribableChannel channel = channel(executor, 3);
+
+        for (int i = 0; i < 1_000; i++) {
+            channel.send(message(i));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(3_000, handled.get());
+        assertEquals(0, pending());
+        assertEquals(1_000, handleCount());
+    }
+
+    @Test
+    void releasesMessagesThatAreNotSent() {
+        ExecutorSubscribableChannel channel = channel(queued::add, 2);
+        channel.addInterceptor(new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel messageChannel) {
+                return null;
+            }
+        });
+
+        assertFalse(channel.send(message(1)));
+
+        assertEquals(0, pending());
+        assertEquals(0, queued.size());
+    }
+
+    @Test
+    void releasesMessagesWhoseHandlerFailed() {
+        ExecutorSubscribableChannel channel = channel(null, 1);
+        channel.subscribe(message -> {
+            throw new IllegalStateException("handler failed");
+        });
+        channel.subscribe(message -> handled.incrementAndGet());
+
+        assertThrows(MessageDeliveryException.class, () -> channel.send(message(1)));
+
+        assertEquals(0, pending());
+        assertEquals(0, handleCount());
+    }
+
+    @Test
+    void leavesChannelsWithoutSubscribersUncounted() {
+        ExecutorSubscribableChannel channel = channel(queued::add, 0);
+
+        channel.send(message(1));
+
+        assertNull(meterRegistry.find("websocket.destination.pending").gauge());
+    }
+
+    private ExecutorSubscribableChannel channel(Executor executor, int handlers) {
+        ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel(executor);
+        channel.addInterceptor(new ChannelMetricsInterceptor("broker", meterRegistry));
+        for (int i = 0; i < handlers; i++) {
+            channel.subscribe(message -> handled.incrementAndGet());
+        }
+        return channel;
+    }
+
+    private double pending() {
+        return meterRegistry.get("websocket.destination.pending").tag("destination", DESTINATION).gauge().value();
+    }
+
+    private long handleCount() {
+        return meterRegistry.get("websocket.destination.handle").tag("destination", DESTINATION).timer().count();
+    }
+
+    private static Message<String> message(long orderId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        accessor.setDestination("/topic/tracking/" + orderId);
+        return MessageBuilder.createMessage("{}", accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,105 @@
+package com.myproject.deliveryapp.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Single and batch frames decoded back to the fixes written into them, and
+ * truncated, oversized and out-of-range frames refused without handing any
+ * of their fixes to the sink.
+ */
+class LocationFrameDecoderTest {
+
+    private static final long TIMESTAMP = 1_760_000_000_000L;
+
+    private final List<long[]> fixes = new ArrayList<>();
+    private final LocationFixSink sink = (driverId, latE6, lngE6, timestampMillis, headingDeciDeg, speedCmPerSec) ->
+            fixes.add(new long[] {driverId, latE6, lngE6, timestampMillis, headingDeciDeg, speedCmPerSec});
+
+    @Test
+    void decodesASingleFix() {
+        byte[] frame = new byte[2 + LocationFrameDecoder.FIX_SIZE];
+        int offset = LocationFrameDecoder.writeHeader(frame, LocationFrameDecoder.TYPE_SINGLE, 1);
+        LocationFrameDecoder.writeFix(frame, offset, 42, 6_927_100, -79_861_200, TIMESTAMP, 3_599, -1);
+
+        assertEquals(1, LocationFrameDecoder.decode(frame, sink));
+        assertEquals(1, fixes.size());
+        assertTrue(Arrays.equals(new long[] {42, 6_927_100, -79_861_200, TIMESTAMP, 3_599, -1}, fixes.get(0)));
+    }
+
+    @Test
+    void decodesABatchInOrder() {
+        byte[] frame = batch(LocationFrameDecoder.MAX_BATCH);
+
+        assertEquals(LocationFrameDecoder.MAX_BATCH, LocationFrameDecoder.decode(frame, sink));
+        assertEquals(LocationFrameDecoder.MAX_BATCH, fixes.size());
+        for (int i = 0; i < fixes.size(); i++) {
+            assertTrue(Arrays.equals(fix(i), fixes.get(i)), "fix " + i);
+        }
+    }
+
+    @Test
+    void refusesTruncatedFrames() {
+        byte[] single = new byte[2 + LocationFrameDecoder.FIX_SIZE];
+        int offset = LocationFrameDecoder.writeHeader(single, LocationFrameDecoder.TYPE_SINGLE, 1);
+        LocationFrameDecoder.writeFix(single, offset, 1, 0, 0, TIMESTAMP, -1, -1);
+        byte[] batch = batch(3);
+
+        assertRefused(new byte[] {1});
+        assertRefused(Arrays.copyOf(single, single.length - 1));
+        assertRefused(Arrays.copyOf(batch, 3));
+        // The last fix cut short, and one whole fix missing
+        assertRefused(Arrays.copyOf(batch, batch.length - 1));
+        assertRefused(Arrays.copyOf(batch, batch.length - LocationFrameDecoder.FIX_SIZE));
+    }
+
+    @Test
+    void refusesOversizedFrames() {
+        byte[] batch = batch(3);
+        byte[] tooMany = batch(LocationFrameDecoder.MAX_BATCH + 1);
+
+        assertRefused(Arrays.copyOf(batch, batch.length + 1));
+        assertRefused(tooMany);
+        assertRefused(new byte[] {1, 9, 0, 0});
+        assertRefused(new byte[] {2, 1});
+    }
+
+    @Test
+    void refusesTheWholeBatchIfAnyFixIsOutOfRange() {
+        byte[] frame = batch(10);
+        // The last of ten fixes is north of the pole
+        int last = 4 + 9 * LocationFrameDecoder.FIX_SIZE;
+        LocationFrameDecoder.writeFix(frame, last, 10, 90_000_001, 0, TIMESTAMP, -1, -1);
+
+        assertRefused(frame);
+    }
+
+    private void assertRefused(byte[] frame) {
+        assertThrows(IllegalArgumentException.class, () -> LocationFrameDecoder.decode(frame, sink),
+                frame.length + " byte frame");
+        assertEquals(0, fixes.size(), "fixes delivered from a refused frame");
+    }
+
+    private static byte[] batch(int count) {
+        byte[] frame = new byte[4 + count * LocationFrameDecoder.FIX_SIZE];
+        int offset = LocationFrameDecoder.writeHeader(frame, LocationFrameDecoder.TYPE_BATCH, count);
+        for (int i = 0; i < count; i++) {
+            long[] fix = fix(i);
+            offset = LocationFrameDecoder.writeFix(frame, offset, fix[0], (int) fix[1], (int) fix[2], fix[3],
+                    (int) fix[4], (int) fix[5]);
+        }
+        return frame;
+    }
+
+    private static long[] fix(int i) {
+        return new long[] {1_000 + i, 6_900_000 + i * 10, 79_850_000 - i * 10, TIMESTAMP + i * 1_000L,
+                i % 2 == 0 ? -1 : i % 3_600, i % 3 == 0 ? -1 : i * 5};
+    }
+}
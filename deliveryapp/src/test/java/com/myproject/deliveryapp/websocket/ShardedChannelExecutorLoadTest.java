@@ -0,0 +1,110 @@
+package com.myproject.deliveryapp.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Location pings pushed through an inbound channel set up the way
+ * WebSocketConfig sets it up: sharded by session, with the metrics
+ * interceptor. Many drivers' sessions send at once from several producer
+ * threads; the channel has to sustain at least 10k pings/s and hand each
+ * session's pings to the handler in the order they were sent.
+ */
+@Slf4j
+class ShardedChannelExecutorLoadTest {
+
+    private static final int SESSIONS = 2_000;
+    private static final int PINGS_PER_SESSION = 100;
+    private static final int PRODUCERS = 8;
+    private static final double TARGET_PINGS_PER_SECOND = 10_000;
+
+    @Test
+    void sustainsTenThousandPingsPerSecondInOrderPerSession() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("load-inbound-");
+        threadFactory.setDaemon(true);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ShardedChannelExecutor executor = new ShardedChannelExecutor("inbound", Math.max(1, cores * 2), 1_000,
+                threadFactory, message -> SimpMessageHeaderAccessor.getSessionId(message.getHeaders()),
+                meterRegistry);
+
+        int total = SESSIONS * PINGS_PER_SESSION;
+        AtomicLongArray lastSeq = new AtomicLongArray(SESSIONS);
+        AtomicInteger outOfOrder = new AtomicInteger();
+        CountDownLatch handled = new CountDownLatch(total);
+
+        ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel(executor);
+        channel.addInterceptor(new ChannelMetricsInterceptor("inbound", meterRegistry));
+        channel.subscribe(message -> {
+            long[] ping = (long[]) message.getPayload();
+            int session = (int) ping[0];
+            // Lanes are single-threaded, so a plain get/set per session is enough here
+            if (lastSeq.get(session) != ping[1] - 1) {
+                outOfOrder.incrementAndGet();
+            }
+            lastSeq.set(session, ping[1]);
+            handled.countDown();
+        });
+
+        ExecutorService producers = Executors.newFixedThreadPool(PRODUCERS);
+        try {
+            long started = System.nanoTime();
+            List<Future<?>> sent = new ArrayList<>();
+            for (int p = 0; p < PRODUCERS; p++) {
+                int producer = p;
+                // Each producer owns a disjoint set of sessions, like a socket's reader thread
+                sent.add(producers.submit(() -> {
+                    for (int seq = 1; seq <= PINGS_PER_SESSION; seq++) {
+                        for (int session = producer; session < SESSIONS; session += PRODUCERS) {
+                            channel.send(ping(session, seq));
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : sent) {
+                future.get();
+            }
+            assertTrue(handled.await(60, TimeUnit.SECONDS), "Pings still queued after 60s");
+            long elapsed = System.nanoTime() - started;
+
+            double pingsPerSecond = total / (elapsed / 1e9);
+            log.info(String.format("Inbound channel, %d lanes, %d sessions, %d producers: %.0f pings/sec",
+                    executor.laneCount(), SESSIONS, PRODUCERS, pingsPerSecond));
+            assertEquals(0, outOfOrder.get());
+            assertTrue(pingsPerSecond >= TARGET_PINGS_PER_SECOND,
+                    String.format("%.0f pings/sec is below the %.0f target", pingsPerSecond, TARGET_PINGS_PER_SECOND));
+        } finally {
+            producers.shutdown();
+            executor.destroy();
+        }
+    }
+
+    private static Message<long[]> ping(int session, long seq) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId("session-" + session);
+        accessor.setDestination("/app/driver-location");
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new long[] {session, seq}, accessor.getMessageHeaders());
+    }
+}